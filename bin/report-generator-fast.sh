@@ -0,0 +1,105 @@
+#!/bin/sh
+# Runs the ReportGenerator command line tool in fast-start mode, for jobs that start the
+# tool many times for one page at a time and would otherwise spend most of each run
+# starting the JVM.
+#
+# The classes the tool loads are kept in an application class data sharing (AppCDS)
+# archive, which the JVM maps into memory instead of loading and verifying the classes
+# again. The archive is created by the first run (or by --train with a representative
+# page) and used by every run after it. It needs Java 13 or later; older JVMs run the
+# tool without it. The JVM only archives classes from jars, so compiled classes in a
+# directory are packed into a jar next to the archive when the archive is created.
+# The JIT is limited to its quick first tier and the serial collector is used, which
+# suit runs that last well under a second.
+#
+# Usage: report-generator-fast.sh --train page.html
+#        report-generator-fast.sh [ReportGenerator options] file-or-directory...
+# Add "-c DIR" to keep snapshots of the pages read, so a page that did not change is
+# not parsed again by the next run.
+#
+# Environment:
+#   MACY_CLASSES      the compiled classes, a directory or a jar
+#                     (default: out/production/MacyProject)
+#   MACY_CDS_ARCHIVE  the archive (default: $HOME/.macy-schedule/report-generator.jsa)
+#   JAVA              the java command (default: java)
+#
+# When the classes have files newer than the archive (they were rebuilt or deployed
+# again), the next run creates the jar and the archive again, so the tool never runs
+# old classes. Run --train again after the JVM is updated; the JVM ignores an archive
+# that does not match it.
+
+CLASSES=${MACY_CLASSES:-out/production/MacyProject}
+ARCHIVE=${MACY_CDS_ARCHIVE:-$HOME/.macy-schedule/report-generator.jsa}
+JAVA=${JAVA:-java}
+MAIN=MacySchedule.ReportGenerator
+case "$CLASSES" in
+    *.jar) JAR=$CLASSES ;;
+    *) JAR=${ARCHIVE%.jsa}.jar ;;
+esac
+FAST_OPTIONS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto"
+
+if [ "$1" = "--train" ]; then
+    if [ $# -ne 2 ]; then
+        echo "Usage: report-generator-fast.sh --train page.html" >&2
+        exit 2
+    fi
+    rm -f "$ARCHIVE"
+    set -- -f csv "$2"
+    TRAINING=1
+fi
+
+STALE=
+if [ -f "$ARCHIVE" ] && [ -n "$(find "$CLASSES" -newer "$ARCHIVE" | head -n 1)" ]; then
+    STALE=1
+fi
+if [ -z "$STALE" ] && [ -f "$ARCHIVE" ] && [ -f "$JAR" ]; then
+    exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" $FAST_OPTIONS -cp "$JAR" $MAIN "$@"
+fi
+
+# no archive yet, or it is older than the classes: this run creates it if the JVM can.
+# Only the run holding the lock creates it, writing the jar and the archive under
+# temporary names and moving them into place, so runs started meanwhile never see a
+# partly written file; they run the classes without the archive.
+LOCK=$ARCHIVE.lock
+mkdir -p "$(dirname "$ARCHIVE")"
+if ! mkdir "$LOCK" 2>/dev/null; then
+    if [ -n "$TRAINING" ]; then
+        echo "Another run is creating $ARCHIVE (remove $LOCK if none is)" >&2
+        exit 1
+    fi
+    exec "$JAVA" $FAST_OPTIONS -cp "$CLASSES" $MAIN "$@"
+fi
+trap 'rm -f "$JAR.$$" "$ARCHIVE.$$"; rmdir "$LOCK"' EXIT
+trap 'exit 1' HUP INT TERM
+rm -f "$ARCHIVE" #of older classes, if any
+CDS_OPTION=
+if [ "$JAR" = "$CLASSES" ] ||
+        { jar cf "$JAR.$$" -C "$CLASSES" MacySchedule 2>/dev/null &&
+          mv -f "$JAR.$$" "$JAR"; }
+then
+    if "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE.$$" -version >/dev/null 2>&1
+    then
+        CDS_OPTION=-XX:ArchiveClassesAtExit="$ARCHIVE.$$"
+    fi
+    rm -f "$ARCHIVE.$$"
+fi
+if [ -z "$CDS_OPTION" ]; then
+    JAR=$CLASSES
+fi
+if [ -n "$TRAINING" ]; then
+    "$JAVA" $CDS_OPTION $FAST_OPTIONS -cp "$JAR" $MAIN "$@" >/dev/null
+else
+    "$JAVA" $CDS_OPTION $FAST_OPTIONS -cp "$JAR" $MAIN "$@"
+fi
+status=$?
+if [ -f "$ARCHIVE.$$" ]; then
+    mv -f "$ARCHIVE.$$" "$ARCHIVE"
+fi
+if [ -n "$TRAINING" ]; then
+    if [ -f "$ARCHIVE" ]; then
+        echo "Created $ARCHIVE" >&2
+    else
+        echo "This JVM cannot create the archive; runs will not use one" >&2
+    fi
+fi
+exit $status
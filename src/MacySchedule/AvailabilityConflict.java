@@ -0,0 +1,78 @@
+package MacySchedule;
+
+/**
+ * This is a conflict between a schedule and the availability of an employee, found by
+ * an AvailabilityStore: hours when the employee is not available, hours during time off,
+ * or more hours in the week than the employee can work.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class AvailabilityConflict
+{
+    /** The kinds of conflicts. */
+    public enum Type
+    {
+        /** The hours are outside of the weekly availability of the employee. */
+        UNAVAILABLE,
+        /** The hours are during time off of the employee. */
+        TIME_OFF,
+        /** The hours of the week are more than the most the employee can work. */
+        MAX_HOURS
+    }
+
+    private final Type type;
+    private final Employee employee;
+    private final int day;
+    private final String hours;
+
+    /**
+     * Constructs a conflict.
+     * @param type The kind of conflict
+     * @param employee The employee with the conflict
+     * @param day The day of the week of the conflict (0-6), or -1 for MAX_HOURS
+     * @param hours The hours of the conflict in format XX:XXx - XX:XXx, or the hours of
+     *              the week for MAX_HOURS
+     */
+    public AvailabilityConflict(Type type, Employee employee, int day, String hours)
+    {
+        this.type = type;
+        this.employee = employee;
+        this.day = day;
+        this.hours = hours;
+    }
+
+    /**
+     * Retrieves the kind of conflict.
+     * @return The kind of conflict
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Retrieves the employee with the conflict.
+     * @return The employee
+     */
+    public Employee getEmployee() { return employee; }
+
+    /**
+     * Retrieves the day of the week of the conflict.
+     * @return The day of the week (0-6), or -1 for a conflict of the whole week
+     */
+    public int getDay() { return day; }
+
+    /**
+     * Retrieves the hours of the conflict.
+     * @return The hours of the day, or the hours of the week for MAX_HOURS
+     */
+    public String getHours() { return hours; }
+
+    @Override
+    public String toString()
+    {
+        String name = employee.getLastName() + ", " + employee.getFirstName();
+        if (day < 0)
+            return name + " " + type + ": " + hours + " hours in the week";
+        return name + " " + type + " on day " + day + ": " + hours;
+    }
+}
@@ -0,0 +1,408 @@
+package MacySchedule;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This is a store of when employees can work: their recurring weekly availability,
+ * their one-off time off, and the most hours they can work in a week. Schedules can be
+ * checked against the store before they are assigned, either one shift at a time (for
+ * editing a schedule or for an automatic scheduler) or a whole week schedule at once.
+ *
+ * Each day is kept as a bitset of its 15 minute slots (96 slots in two longs), so
+ * checking a shift is a few bitwise operations: the slots of the shift must all be in
+ * the availability of the day and none of them in the time off of the date. Hours that
+ * end the next day are checked against both days. Employees are identified by their
+ * name key, and an employee without availability is available at any time.
+ *
+ * Changes to the store replace the bitsets of the employee instead of changing them,
+ * so the store can be checked from many threads while it is being changed.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class AvailabilityStore
+{
+    private static final int WEEK_LENGTH = 7;
+    private static final int MINUTES_PER_SLOT = CoverageModel.MINUTES_PER_SLOT;
+    private static final int SLOTS_PER_DAY = CoverageModel.SLOTS_PER_DAY;
+    private static final int DAY_MINUTES = SLOTS_PER_DAY * MINUTES_PER_SLOT;
+    private static final int WORDS_PER_DAY = 2; //96 slots
+    private static final long LAST_WORD_MASK = (1L << (SLOTS_PER_DAY - 64)) - 1;
+    private static final int NO_MAX = Integer.MAX_VALUE;
+
+    private final ConcurrentHashMap<String, Availability> availabilities;
+
+    /**
+     * Constructs an empty store, where every employee is available at any time.
+     */
+    public AvailabilityStore()
+    {
+        availabilities = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets the availability of an employee for a day of every week to a range of time,
+     * replacing the availability that the day had. Only the slots that are wholly in
+     * the range are available.
+     * @param nameKey The name key of the employee
+     * @param day The day of the week
+     * @param fromMinute The start of the availability in minutes since midnight
+     * @param toMinute The end of the availability in minutes since midnight (up to
+     *                 1440 for the end of the day)
+     */
+    public synchronized void setAvailability(String nameKey, DayOfWeek day,
+                                             int fromMinute, int toMinute)
+    {
+        Availability old = get(nameKey);
+        long[] weekly = old.weekly.clone();
+        int offset = (day.getValue() - 1) * WORDS_PER_DAY;
+        weekly[offset] = 0;
+        weekly[offset + 1] = 0;
+        setSlots(weekly, offset, toSlot(fromMinute, true), toSlot(toMinute, false));
+        availabilities.put(nameKey, new Availability(weekly, old.timeOff,
+                old.maxWeekMinutes));
+    }
+
+    /**
+     * Adds a range of time to the availability of an employee for a day of every week,
+     * keeping the availability that the day had. Only the slots that are wholly in the
+     * range are added.
+     * @param nameKey The name key of the employee
+     * @param day The day of the week
+     * @param fromMinute The start of the availability in minutes since midnight
+     * @param toMinute The end of the availability in minutes since midnight
+     */
+    public synchronized void addAvailability(String nameKey, DayOfWeek day,
+                                             int fromMinute, int toMinute)
+    {
+        Availability old = get(nameKey);
+        long[] weekly = old.weekly.clone();
+        setSlots(weekly, (day.getValue() - 1) * WORDS_PER_DAY, toSlot(fromMinute, true),
+                toSlot(toMinute, false));
+        availabilities.put(nameKey, new Availability(weekly, old.timeOff,
+                old.maxWeekMinutes));
+    }
+
+    /**
+     * Makes an employee not available for a day of every week.
+     * @param nameKey The name key of the employee
+     * @param day The day of the week
+     */
+    public void setUnavailable(String nameKey, DayOfWeek day)
+    {
+        setAvailability(nameKey, day, 0, 0);
+    }
+
+    /**
+     * Adds time off for a range of time of a date.
+     * @param nameKey The name key of the employee
+     * @param date The date of the time off
+     * @param fromMinute The start of the time off in minutes since midnight
+     * @param toMinute The end of the time off in minutes since midnight
+     */
+    public synchronized void addTimeOff(String nameKey, LocalDate date, int fromMinute,
+                                        int toMinute)
+    {
+        Availability old = get(nameKey);
+        HashMap<Long, long[]> timeOff = new HashMap<>(old.timeOff);
+        long[] mask = timeOff.get(date.toEpochDay());
+        mask = mask == null ? new long[WORDS_PER_DAY] : mask.clone();
+        setSlots(mask, 0, toSlot(fromMinute, false), toSlot(toMinute, true));
+        timeOff.put(date.toEpochDay(), mask);
+        availabilities.put(nameKey, new Availability(old.weekly, timeOff,
+                old.maxWeekMinutes));
+    }
+
+    /**
+     * Adds time off for whole days.
+     * @param nameKey The name key of the employee
+     * @param first The first day of the time off
+     * @param last The last day of the time off
+     */
+    public synchronized void addTimeOff(String nameKey, LocalDate first, LocalDate last)
+    {
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1))
+            addTimeOff(nameKey, date, 0, DAY_MINUTES);
+    }
+
+    /**
+     * Sets the most hours an employee can work in a week.
+     * @param nameKey The name key of the employee
+     * @param hours The most paid hours in a week
+     */
+    public synchronized void setMaxWeekHours(String nameKey, double hours)
+    {
+        Availability old = get(nameKey);
+        availabilities.put(nameKey, new Availability(old.weekly, old.timeOff,
+                (int) Math.round(hours * 60)));
+    }
+
+    /**
+     * Checks whether an employee can work a shift. This only checks the availability
+     * and the time off of the days of the shift, not the hours of the week.
+     * @param nameKey The name key of the employee
+     * @param date The date the shift starts
+     * @param startMinute The start of the shift in minutes since midnight
+     * @param endMinute The end of the shift in minutes since midnight (the next day if
+     *                  it is not after the start)
+     * @return The kind of conflict, or null if the employee can work the shift
+     */
+    public AvailabilityConflict.Type checkShift(String nameKey, LocalDate date,
+                                                int startMinute, int endMinute)
+    {
+        Availability availability = availabilities.get(nameKey);
+        if (availability == null)
+            return null;
+        return availability.check(date.toEpochDay(), date.getDayOfWeek().getValue() - 1,
+                startMinute, endMinute);
+    }
+
+    /**
+     * Checks whether the hours of a week are more than an employee can work.
+     * @param nameKey The name key of the employee
+     * @param paidMinutes The paid minutes of the week
+     * @return True if the employee can not work that many hours
+     */
+    public boolean exceedsMaxHours(String nameKey, int paidMinutes)
+    {
+        Availability availability = availabilities.get(nameKey);
+        return availability != null && paidMinutes > availability.maxWeekMinutes;
+    }
+
+    /**
+     * Checks a shift that would be assigned to a day of an employee with
+     * addHoursAtDay, including the hours of the week with the shift.
+     * @param employee The employee
+     * @param weekStart The date of the first day of the week of the employee
+     * @param day The day of the week (0-6)
+     * @param hours The hours of the shift in format XX:XXx - XX:XXx
+     * @return The conflicts of the shift (empty if there are none)
+     */
+    public List<AvailabilityConflict> checkAssignment(Employee employee,
+                                                      LocalDate weekStart, int day,
+                                                      String hours)
+    {
+        String nameKey = employee.getNameKey();
+        Availability availability = availabilities.get(nameKey);
+        if (availability == null)
+            return Collections.emptyList();
+        int separator = hours.indexOf(" - ");
+        int startMinute = CoverageModel.toMinutes(
+                new Time(hours.substring(0, separator)));
+        int endMinute = CoverageModel.toMinutes(
+                new Time(hours.substring(separator + 3)));
+        List<AvailabilityConflict> conflicts = new ArrayList<>(1);
+        LocalDate date = weekStart.plusDays(day);
+        AvailabilityConflict.Type type = availability.check(date.toEpochDay(),
+                date.getDayOfWeek().getValue() - 1, startMinute, endMinute);
+        if (type != null)
+            conflicts.add(new AvailabilityConflict(type, employee, day, hours));
+
+        int weekMinutes = PaidHoursKernel.paidMinutes(startMinute, endMinute);
+        for (int otherDay = 0; otherDay < WEEK_LENGTH; otherDay++)
+        {
+            if (otherDay != day)
+                weekMinutes += paidMinutes(employee, otherDay);
+        }
+        if (weekMinutes > availability.maxWeekMinutes)
+            conflicts.add(new AvailabilityConflict(AvailabilityConflict.Type.MAX_HOURS,
+                    employee, -1, String.valueOf(PaidHoursKernel.toHours(weekMinutes))));
+        return conflicts;
+    }
+
+    /**
+     * Checks every shift of a week schedule and the hours of the week of every
+     * employee. The employees are checked in parallel.
+     * @param weekSchedule The week schedule to check
+     * @return The conflicts in order of the employee list and the days
+     */
+    public List<AvailabilityConflict> check(WeekSchedule weekSchedule)
+    {
+        int[] startWeek = weekSchedule.getStartWeek(); //{month, day, year}
+        LocalDate weekStart = LocalDate.of(startWeek[2], startWeek[0], startWeek[1]);
+        long startDay = weekStart.toEpochDay();
+        int startDayOfWeek = weekStart.getDayOfWeek().getValue() - 1;
+        Employee[] employees = weekSchedule.getEmployeeList();
+        return IntStream.range(0, weekSchedule.getNumEmployees()).parallel()
+                .mapToObj(i -> checkWeek(employees[i], startDay, startDayOfWeek))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks the shifts and the hours of the week of an employee.
+     * @param employee The employee
+     * @param startDay The first day of the week (days since 1970-01-01)
+     * @param startDayOfWeek The day of the week of the first day (0 for Monday)
+     * @return The conflicts of the employee
+     */
+    private List<AvailabilityConflict> checkWeek(Employee employee, long startDay,
+                                                 int startDayOfWeek)
+    {
+        Availability availability = availabilities.get(employee.getNameKey());
+        if (availability == null)
+            return Collections.emptyList();
+        List<AvailabilityConflict> conflicts = new ArrayList<>(0);
+        int weekMinutes = 0;
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            Time start = employee.getDayStartTime(day);
+            if (start == null || employee.getDayDeptNum(day) < 0)
+                continue;
+            int startMinute = CoverageModel.toMinutes(start);
+            int endMinute = CoverageModel.toMinutes(employee.getDayEndTime(day));
+            weekMinutes += PaidHoursKernel.paidMinutes(startMinute, endMinute);
+            AvailabilityConflict.Type type = availability.check(startDay + day,
+                    (startDayOfWeek + day) % WEEK_LENGTH, startMinute, endMinute);
+            if (type != null)
+                conflicts.add(new AvailabilityConflict(type, employee, day,
+                        employee.getDaySchedule(day)[1]));
+        }
+        if (weekMinutes > availability.maxWeekMinutes)
+            conflicts.add(new AvailabilityConflict(AvailabilityConflict.Type.MAX_HOURS,
+                    employee, -1, String.valueOf(PaidHoursKernel.toHours(weekMinutes))));
+        return conflicts;
+    }
+
+    /**
+     * Retrieves the availability of an employee, which is available at any time if
+     * the employee is not in the store yet.
+     * @param nameKey The name key of the employee
+     * @return The availability of the employee
+     */
+    private Availability get(String nameKey)
+    {
+        Availability availability = availabilities.get(nameKey);
+        if (availability != null)
+            return availability;
+        long[] weekly = new long[WEEK_LENGTH * WORDS_PER_DAY];
+        for (int day = 0; day < WEEK_LENGTH; day++)
+            setSlots(weekly, day * WORDS_PER_DAY, 0, SLOTS_PER_DAY);
+        return new Availability(weekly, new HashMap<>(), NO_MAX);
+    }
+
+    /**
+     * Retrieves the paid minutes of a day of an employee.
+     * @param employee The employee
+     * @param day The day of the week (0-6)
+     * @return The paid minutes of the day
+     */
+    private static int paidMinutes(Employee employee, int day)
+    {
+        Time start = employee.getDayStartTime(day);
+        if (start == null || employee.getDayDeptNum(day) < 0)
+            return 0;
+        return PaidHoursKernel.paidMinutes(CoverageModel.toMinutes(start),
+                CoverageModel.toMinutes(employee.getDayEndTime(day)));
+    }
+
+    /**
+     * Converts minutes since midnight to a slot. Time off (like a shift) is rounded
+     * outward, so every slot that is partly covered is included; availability is
+     * rounded inward, so a shift is never allowed in a slot that is only partly
+     * available.
+     * @param minute The minutes since midnight
+     * @param roundUp True to round up
+     * @return The slot
+     */
+    private static int toSlot(int minute, boolean roundUp)
+    {
+        if (minute < 0 || minute > DAY_MINUTES)
+            throw new IllegalArgumentException("Minutes since midnight out of range: " +
+                    minute);
+        return (minute + (roundUp ? MINUTES_PER_SLOT - 1 : 0)) / MINUTES_PER_SLOT;
+    }
+
+    /**
+     * Sets the bits of a range of slots of a day.
+     * @param words The words of the bitsets
+     * @param offset The index of the first word of the day
+     * @param fromSlot The first slot to set
+     * @param toSlot The slot after the last slot to set
+     */
+    private static void setSlots(long[] words, int offset, int fromSlot, int toSlot)
+    {
+        words[offset] |= slotMask(0, fromSlot, toSlot);
+        words[offset + 1] |= slotMask(1, fromSlot, toSlot);
+    }
+
+    /**
+     * Retrieves the bits of a word of a day for a range of slots.
+     * @param word The word of the day (0 for slots 0-63, 1 for slots 64-95)
+     * @param fromSlot The first slot
+     * @param toSlot The slot after the last slot
+     * @return The bits of the slots in the word
+     */
+    private static long slotMask(int word, int fromSlot, int toSlot)
+    {
+        int low = Math.max(fromSlot - word * 64, 0);
+        int high = Math.min(toSlot - word * 64, 64);
+        if (low >= high)
+            return 0;
+        return (-1L >>> (64 - (high - low))) << low;
+    }
+
+    /**
+     * This is the availability of an employee. It is never changed once it is in the
+     * store; a change puts a new availability in the store.
+     */
+    private static final class Availability
+    {
+        final long[] weekly; //2 words per day, Monday first
+        final HashMap<Long, long[]> timeOff; //by day (days since 1970-01-01)
+        final int maxWeekMinutes;
+
+        Availability(long[] weekly, HashMap<Long, long[]> timeOff, int maxWeekMinutes)
+        {
+            this.weekly = weekly;
+            this.timeOff = timeOff;
+            this.maxWeekMinutes = maxWeekMinutes;
+        }
+
+        /**
+         * Checks a shift against the availability and the time off of its days.
+         * @param day The date the shift starts (days since 1970-01-01)
+         * @param dayOfWeek The day of the week of the date (0 for Monday)
+         * @param startMinute The start of the shift in minutes since midnight
+         * @param endMinute The end of the shift in minutes since midnight
+         * @return The kind of conflict, or null if there is none
+         */
+        AvailabilityConflict.Type check(long day, int dayOfWeek, int startMinute,
+                                        int endMinute)
+        {
+            int startSlot = startMinute / MINUTES_PER_SLOT;
+            int endSlot = (endMinute + MINUTES_PER_SLOT - 1) / MINUTES_PER_SLOT;
+            if (endMinute <= startMinute)
+                endSlot += SLOTS_PER_DAY; //ends the next day
+            AvailabilityConflict.Type type = checkDay(day, dayOfWeek, startSlot,
+                    Math.min(endSlot, SLOTS_PER_DAY));
+            if (type == null && endSlot > SLOTS_PER_DAY)
+                type = checkDay(day + 1, (dayOfWeek + 1) % WEEK_LENGTH, 0,
+                        endSlot - SLOTS_PER_DAY);
+            return type;
+        }
+
+        private AvailabilityConflict.Type checkDay(long day, int dayOfWeek, int fromSlot,
+                                                   int toSlot)
+        {
+            long low = slotMask(0, fromSlot, toSlot);
+            long high = slotMask(1, fromSlot, toSlot) & LAST_WORD_MASK;
+            int offset = dayOfWeek * WORDS_PER_DAY;
+            if (((low & ~weekly[offset]) | (high & ~weekly[offset + 1])) != 0)
+                return AvailabilityConflict.Type.UNAVAILABLE;
+            long[] off = timeOff.isEmpty() ? null : timeOff.get(day);
+            if (off != null && ((low & off[0]) | (high & off[1])) != 0)
+                return AvailabilityConflict.Type.TIME_OFF;
+            return null;
+        }
+    }
+}
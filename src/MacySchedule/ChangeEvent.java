@@ -0,0 +1,302 @@
+package MacySchedule;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This is a change made to the schedules, as kept in a ScheduleChangeLog: who made the
+ * change, when, and what changed. Replaying the changes in order rebuilds the week
+ * schedules. A change is never modified after it is created.
+ *
+ * A week schedule is identified by its week and the department of its page, since the
+ * pages of different departments for the same week are separate week schedules.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public final class ChangeEvent
+{
+    /** The kinds of changes. */
+    public enum Type
+    {
+        /** A week schedule was created for a week and department. */
+        CREATE_WEEK,
+        /** An employee was added to a week schedule. */
+        ADD_EMPLOYEE,
+        /** The hours (and department) of a day of an employee were set. */
+        SET_DAY_HOURS,
+        /** A day with a department was moved to another department. */
+        CHANGE_DEPARTMENT,
+        /** A day was set to a note (such as PTO) without a department or hours. */
+        SET_NOTE
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final long timestamp;
+    private final String user;
+    private final String weekRange;
+    private final int weekDeptNum; //department of the week schedule
+    private final String firstName;
+    private final String lastName;
+    private final String middleName;
+    private final int day;
+    private final String department; //department description or note
+    private final int deptNum;
+    private final String hours;
+
+    /**
+     * Constructs a change. Fields that do not apply to the kind of change are blank
+     * (or -1 for the numbers).
+     * @param type The kind of change
+     * @param timestamp When the change was made (milliseconds since 1970-01-01 UTC)
+     * @param user The user that made the change
+     * @param weekRange The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     * @param weekDeptNum The reference number for the department of the week schedule
+     * @param firstName The first name of the employee
+     * @param lastName The last name of the employee
+     * @param middleName The middle name of the employee
+     * @param day The day of the week (0-6)
+     * @param department The description of the department, or the note
+     * @param deptNum The reference number for the department
+     * @param hours The range of hours in format XX:XXx - XX:XXx
+     */
+    public ChangeEvent(Type type, long timestamp, String user, String weekRange,
+                       int weekDeptNum, String firstName, String lastName,
+                       String middleName, int day, String department, int deptNum,
+                       String hours)
+    {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.user = user;
+        this.weekRange = weekRange;
+        this.weekDeptNum = weekDeptNum;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.middleName = middleName;
+        this.day = day;
+        this.department = department;
+        this.deptNum = deptNum;
+        this.hours = hours;
+    }
+
+    /**
+     * Creates the change for a new week schedule.
+     * @param user The user that made the change
+     * @param weekSchedule The new week schedule
+     * @return The change
+     */
+    public static ChangeEvent createWeek(String user, WeekSchedule weekSchedule)
+    {
+        return new ChangeEvent(Type.CREATE_WEEK, System.currentTimeMillis(), user,
+                weekSchedule.getWeekRange(), weekSchedule.getDeptNum(), "", "", "", -1,
+                weekSchedule.getDepartment(), weekSchedule.getDeptNum(), "");
+    }
+
+    /**
+     * Creates the change for an employee added to a week schedule.
+     * @param user The user that made the change
+     * @param weekSchedule The week schedule the employee was added to
+     * @param employee The employee that was added
+     * @return The change
+     */
+    public static ChangeEvent addEmployee(String user, WeekSchedule weekSchedule,
+                                          Employee employee)
+    {
+        return new ChangeEvent(Type.ADD_EMPLOYEE, System.currentTimeMillis(), user,
+                weekSchedule.getWeekRange(), weekSchedule.getDeptNum(),
+                employee.getFirstName(), employee.getLastName(),
+                employee.getMiddleName(), -1, "", -1, "");
+    }
+
+    /**
+     * Creates the change for the current schedule of a day of an employee: the hours
+     * with a department, or the note if the day has no department.
+     * @param type The kind of change (SET_DAY_HOURS, CHANGE_DEPARTMENT or SET_NOTE)
+     * @param user The user that made the change
+     * @param weekSchedule The week schedule of the employee
+     * @param employee The employee that changed
+     * @param day The day of the week that changed (0-6)
+     * @return The change
+     */
+    public static ChangeEvent setDay(Type type, String user, WeekSchedule weekSchedule,
+                                     Employee employee, int day)
+    {
+        return setDay(type, System.currentTimeMillis(), user, weekSchedule.getWeekRange(),
+                weekSchedule.getDeptNum(), employee, day,
+                new Employee.DayState(employee, day));
+    }
+
+    /**
+     * Creates the change that sets a day of an employee to a schedule.
+     * @param type The kind of change (SET_DAY_HOURS, CHANGE_DEPARTMENT or SET_NOTE)
+     * @param timestamp The time of the change in milliseconds since the epoch
+     * @param user The user that made the change
+     * @param weekRange The week range of the week schedule
+     * @param weekDeptNum The department of the week schedule
+     * @param employee The employee of the change
+     * @param day The day of the week (0-6)
+     * @param state The schedule of the day
+     * @return The change
+     */
+    static ChangeEvent setDay(Type type, long timestamp, String user, String weekRange,
+                              int weekDeptNum, Employee employee, int day,
+                              Employee.DayState state)
+    {
+        return new ChangeEvent(type, timestamp, user, weekRange, weekDeptNum,
+                employee.getFirstName(), employee.getLastName(), employee.getMiddleName(),
+                day, state.department, state.deptNum, state.hours);
+    }
+
+    /**
+     * Retrieves the schedule of the day of the change, to apply it to the employee.
+     * @return The schedule of the day
+     */
+    Employee.DayState getDayState()
+    {
+        return new Employee.DayState(department, deptNum, hours);
+    }
+
+    /**
+     * Retrieves the kind of change.
+     * @return The kind of change
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Retrieves when the change was made.
+     * @return The time of the change in milliseconds since 1970-01-01 UTC
+     */
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Retrieves the user that made the change.
+     * @return The user
+     */
+    public String getUser() { return user; }
+
+    /**
+     * Retrieves the week of the change.
+     * @return The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     */
+    public String getWeekRange() { return weekRange; }
+
+    /**
+     * Retrieves the department of the week schedule of the change, which with the week
+     * identifies the week schedule.
+     * @return The reference number for the department of the week schedule, or -1 for
+     *         a change written before week schedules had one
+     */
+    public int getWeekDeptNum() { return weekDeptNum; }
+
+    /**
+     * Retrieves the first name of the employee of the change.
+     * @return The first name, or blank for CREATE_WEEK
+     */
+    public String getFirstName() { return firstName; }
+
+    /**
+     * Retrieves the last name of the employee of the change.
+     * @return The last name, or blank for CREATE_WEEK
+     */
+    public String getLastName() { return lastName; }
+
+    /**
+     * Retrieves the middle name of the employee of the change.
+     * @return The middle name
+     */
+    public String getMiddleName() { return middleName; }
+
+    /**
+     * Retrieves the day of the change.
+     * @return The day of the week (0-6), or -1 if the change is not for a day
+     */
+    public int getDay() { return day; }
+
+    /**
+     * Retrieves the department description, or the note for SET_NOTE.
+     * @return The department description or note
+     */
+    public String getDepartment() { return department; }
+
+    /**
+     * Retrieves the reference number for the department.
+     * @return The department number, or -1 if there is no department
+     */
+    public int getDeptNum() { return deptNum; }
+
+    /**
+     * Retrieves the hours of the change.
+     * @return The range of hours in format XX:XXx - XX:XXx, or blank
+     */
+    public String getHours() { return hours; }
+
+    /**
+     * Writes the change in the binary format of the change log.
+     * @param out The output to write to
+     * @throws IOException If the change cannot be written
+     */
+    void write(DataOutput out) throws IOException
+    {
+        out.writeByte(type.ordinal());
+        out.writeLong(timestamp);
+        out.writeUTF(user);
+        out.writeUTF(weekRange);
+        out.writeUTF(firstName);
+        out.writeUTF(lastName);
+        out.writeUTF(middleName);
+        out.writeByte(day);
+        out.writeUTF(department);
+        out.writeInt(deptNum);
+        out.writeUTF(hours);
+        out.writeInt(weekDeptNum); //last, so older records can still be read
+    }
+
+    /**
+     * Reads a change in the binary format of the change log.
+     * @param in The input of the record of the change
+     * @return The change
+     * @throws IOException If the change cannot be read
+     */
+    static ChangeEvent read(DataInputStream in) throws IOException
+    {
+        int typeIndex = in.readByte();
+        if (typeIndex < 0 || typeIndex >= TYPES.length)
+            throw new IOException("Unknown change type " + typeIndex);
+        Type type = TYPES[typeIndex];
+        long timestamp = in.readLong();
+        String user = in.readUTF();
+        String weekRange = in.readUTF();
+        String firstName = in.readUTF();
+        String lastName = in.readUTF();
+        String middleName = in.readUTF();
+        int day = in.readByte();
+        String department = in.readUTF();
+        int deptNum = in.readInt();
+        String hours = in.readUTF();
+        int weekDeptNum = in.available() >= 4 ? in.readInt() : -1;
+        return new ChangeEvent(type, timestamp, user, weekRange, weekDeptNum, firstName,
+                lastName, middleName, day, department, deptNum, hours);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        text.append(weekRange).append(' ').append(type).append(" by ").append(user);
+        if (type == Type.CREATE_WEEK)
+            return text.append(": ").append(deptNum).append(" - ").append(department)
+                    .toString();
+        if (!lastName.isEmpty())
+            text.append(": ").append(lastName).append(", ").append(firstName);
+        if (day >= 0)
+            text.append(" day ").append(day);
+        if (deptNum >= 0)
+            text.append(' ').append(hours).append(" (").append(deptNum).append(')');
+        else if (!department.isEmpty())
+            text.append(' ').append(department);
+        return text.toString();
+    }
+}
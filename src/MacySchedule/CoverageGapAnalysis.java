@@ -0,0 +1,373 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This is a comparison of the coverage of a week schedule with the demand for employees
+ * (the headcount a forecast of traffic calls for) per department in 15 minute slots.
+ * For each slot the surplus is the headcount minus the demand, so a negative surplus is
+ * a slot that is under staffed. The analysis keeps the minutes of under and over
+ * coverage of each day and the total of the week, and finds the worst gaps: runs of
+ * under staffed slots ranked by their missing employee minutes.
+ *
+ * The analysis listens to a CoverageModel, which is told of every change of an
+ * employee's day, and only the slots of the department and day that changed are
+ * compared again. Its own listeners are told after the analysis is up to date.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class CoverageGapAnalysis implements CoverageListener
+{
+    private static final int SLOTS_PER_DAY = CoverageModel.SLOTS_PER_DAY;
+    private static final int MINUTES_PER_SLOT = CoverageModel.MINUTES_PER_SLOT;
+    private static final int WEEK_LENGTH = CoverageModel.WEEK_LENGTH;
+
+    private final CoverageModel coverage;
+    private final HashMap<Integer, Department> departments; //with a demand, by number
+    private final ArrayList<CoverageListener> listeners;
+    private long underMinutes; //of the week, all departments
+    private long overMinutes;
+
+    /**
+     * Constructs an analysis of a coverage without any demand. The analysis listens to
+     * the coverage until it is disposed.
+     * @param coverage The coverage to compare with the demand
+     */
+    public CoverageGapAnalysis(CoverageModel coverage)
+    {
+        this.coverage = coverage;
+        departments = new HashMap<>();
+        listeners = new ArrayList<>();
+        coverage.addCoverageListener(this);
+    }
+
+    /**
+     * Stops listening to the coverage. Changes made after are not seen by the analysis.
+     */
+    public void dispose()
+    {
+        coverage.removeCoverageListener(this);
+    }
+
+    /**
+     * Sets the demand of a department for the week.
+     * @param deptNum The reference number for the department
+     * @param demand The number of employees needed per day and slot in format
+     *               [day][slot], with the days in the order of the week schedule
+     */
+    public void setDemand(int deptNum, int[][] demand)
+    {
+        if (demand.length != WEEK_LENGTH)
+            throw new IllegalArgumentException("Demand must have " + WEEK_LENGTH +
+                    " days");
+        for (int day = 0; day < WEEK_LENGTH; day++)
+            setDemand(deptNum, day, demand[day]);
+    }
+
+    /**
+     * Sets the demand of a department for a day.
+     * @param deptNum The reference number for the department
+     * @param day The day of the week (0-6)
+     * @param demand The number of employees needed per slot of the day
+     */
+    public void setDemand(int deptNum, int day, int[] demand)
+    {
+        if (demand.length != SLOTS_PER_DAY)
+            throw new IllegalArgumentException("Demand must have " + SLOTS_PER_DAY +
+                    " slots");
+        Department department = departments.get(deptNum);
+        if (department == null)
+        {
+            department = new Department();
+            departments.put(deptNum, department);
+        }
+        System.arraycopy(demand, 0, department.demand[day], 0, SLOTS_PER_DAY);
+        compareDay(deptNum, department, day);
+    }
+
+    /**
+     * Retrieves the coverage the analysis is of.
+     * @return The coverage
+     */
+    public CoverageModel getCoverage() { return coverage; }
+
+    /**
+     * Retrieves the surplus of a slot: the headcount minus the demand.
+     * @param day The day of the week (0-6)
+     * @param deptNum The reference number for the department
+     * @param slot The 15 minute slot of the day (0-95)
+     * @return The surplus, negative if the slot is under staffed, or 0 if the department
+     *         has no demand
+     */
+    public int getSurplus(int day, int deptNum, int slot)
+    {
+        Department department = departments.get(deptNum);
+        return department == null ? 0 : department.surplus[day][slot];
+    }
+
+    /**
+     * Retrieves the surplus of all slots of a day for a department. The returned array
+     * is the one used by the analysis and must not be changed.
+     * @param day The day of the week (0-6)
+     * @param deptNum The reference number for the department
+     * @return The surplus per slot of the day, or null if the department has no demand
+     */
+    public int[] getDaySurplus(int day, int deptNum)
+    {
+        Department department = departments.get(deptNum);
+        return department == null ? null : department.surplus[day];
+    }
+
+    /**
+     * Retrieves the missing employee minutes of the week: the sum over the under staffed
+     * slots of the employees missing times 15 minutes.
+     * @return The under coverage minutes of all departments
+     */
+    public long getUnderCoverageMinutes() { return underMinutes; }
+
+    /**
+     * Retrieves the missing employee minutes of a department for a day.
+     * @param day The day of the week (0-6)
+     * @param deptNum The reference number for the department
+     * @return The under coverage minutes
+     */
+    public int getUnderCoverageMinutes(int day, int deptNum)
+    {
+        Department department = departments.get(deptNum);
+        return department == null ? 0 : department.underMinutes[day];
+    }
+
+    /**
+     * Retrieves the employee minutes of the week over the demand.
+     * @return The over coverage minutes of all departments
+     */
+    public long getOverCoverageMinutes() { return overMinutes; }
+
+    /**
+     * Retrieves the employee minutes of a department over the demand for a day.
+     * @param day The day of the week (0-6)
+     * @param deptNum The reference number for the department
+     * @return The over coverage minutes
+     */
+    public int getOverCoverageMinutes(int day, int deptNum)
+    {
+        Department department = departments.get(deptNum);
+        return department == null ? 0 : department.overMinutes[day];
+    }
+
+    /**
+     * Finds the worst gaps of the week. A gap is a run of under staffed slots of a
+     * department in a day, and gaps are ranked by their missing employee minutes.
+     * Only the days that have under coverage are searched.
+     * @param k The most gaps to return
+     * @return The gaps, most missing minutes first
+     */
+    public List<Gap> getWorstGaps(int k)
+    {
+        ArrayList<Gap> gaps = new ArrayList<>();
+        for (Integer deptNum : departments.keySet())
+        {
+            Department department = departments.get(deptNum);
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                if (department.underMinutes[day] > 0)
+                    findGaps(deptNum, day, department.surplus[day], gaps);
+            }
+        }
+        gaps.sort((a, b) -> a.missingMinutes != b.missingMinutes ?
+                Integer.compare(b.missingMinutes, a.missingMinutes) :
+                a.day != b.day ? Integer.compare(a.day, b.day) :
+                a.deptNum != b.deptNum ? Integer.compare(a.deptNum, b.deptNum) :
+                Integer.compare(a.startSlot, b.startSlot));
+        return new ArrayList<>(gaps.subList(0, Math.min(k, gaps.size())));
+    }
+
+    /**
+     * Adds a listener that is told when the coverage of a day changed, after the
+     * analysis of the day is up to date.
+     * @param listener The listener to add
+     */
+    public void addCoverageListener(CoverageListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener of the analysis.
+     * @param listener The listener to remove
+     */
+    public void removeCoverageListener(CoverageListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Compares the changed day of a department again.
+     * @param model The coverage that changed
+     * @param day The day of the week (0-6) that changed
+     * @param deptNum The reference number for the department that changed
+     */
+    @Override
+    public void coverageChanged(CoverageModel model, int day, int deptNum)
+    {
+        Department department = departments.get(deptNum);
+        if (department != null)
+            compareDay(deptNum, department, day);
+        for (int i = 0; i < listeners.size(); i++)
+            listeners.get(i).coverageChanged(model, day, deptNum);
+    }
+
+    /**
+     * Compares the headcount of a department for a day with its demand, replacing the
+     * minutes of the day in the totals.
+     * @param deptNum The reference number for the department
+     * @param department The demand and surplus of the department
+     * @param day The day of the week (0-6)
+     */
+    private void compareDay(int deptNum, Department department, int day)
+    {
+        int deptIndex = coverage.getDeptIndex(deptNum);
+        int[] headcount = deptIndex == -1 ? null :
+                coverage.getDayHeadcount(day, deptIndex);
+        int[] demand = department.demand[day];
+        int[] surplus = department.surplus[day];
+        int under = 0;
+        int over = 0;
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++)
+        {
+            surplus[slot] = (headcount == null ? 0 : headcount[slot]) - demand[slot];
+            if (surplus[slot] < 0)
+                under -= surplus[slot];
+            else
+                over += surplus[slot];
+        }
+        under *= MINUTES_PER_SLOT;
+        over *= MINUTES_PER_SLOT;
+        underMinutes += under - department.underMinutes[day];
+        overMinutes += over - department.overMinutes[day];
+        department.underMinutes[day] = under;
+        department.overMinutes[day] = over;
+    }
+
+    /**
+     * Finds the runs of under staffed slots of a day.
+     * @param deptNum The reference number for the department
+     * @param day The day of the week (0-6)
+     * @param surplus The surplus per slot of the day
+     * @param gaps The list to add the gaps to
+     */
+    private static void findGaps(int deptNum, int day, int[] surplus, List<Gap> gaps)
+    {
+        int slot = 0;
+        while (slot < SLOTS_PER_DAY)
+        {
+            if (surplus[slot] >= 0)
+            {
+                slot++;
+                continue;
+            }
+            int start = slot;
+            int missing = 0;
+            int worst = 0;
+            for (; slot < SLOTS_PER_DAY && surplus[slot] < 0; slot++)
+            {
+                missing -= surplus[slot];
+                worst = Math.max(worst, -surplus[slot]);
+            }
+            gaps.add(new Gap(deptNum, day, start, slot, missing * MINUTES_PER_SLOT,
+                    worst));
+        }
+    }
+
+    /**
+     * This is the demand of a department and its comparison with the coverage.
+     */
+    private static final class Department
+    {
+        final int[][] demand = new int[WEEK_LENGTH][SLOTS_PER_DAY];
+        final int[][] surplus = new int[WEEK_LENGTH][SLOTS_PER_DAY];
+        final int[] underMinutes = new int[WEEK_LENGTH];
+        final int[] overMinutes = new int[WEEK_LENGTH];
+    }
+
+    /**
+     * This is a run of under staffed slots of a department in a day.
+     */
+    public static final class Gap
+    {
+        private final int deptNum;
+        private final int day;
+        private final int startSlot;
+        private final int endSlot;
+        private final int missingMinutes;
+        private final int maxShortage;
+
+        Gap(int deptNum, int day, int startSlot, int endSlot, int missingMinutes,
+            int maxShortage)
+        {
+            this.deptNum = deptNum;
+            this.day = day;
+            this.startSlot = startSlot;
+            this.endSlot = endSlot;
+            this.missingMinutes = missingMinutes;
+            this.maxShortage = maxShortage;
+        }
+
+        /**
+         * Retrieves the department of the gap.
+         * @return The reference number for the department
+         */
+        public int getDeptNum() { return deptNum; }
+
+        /**
+         * Retrieves the day of the gap.
+         * @return The day of the week (0-6)
+         */
+        public int getDay() { return day; }
+
+        /**
+         * Retrieves the start of the gap.
+         * @return The first slot of the gap
+         */
+        public int getStartSlot() { return startSlot; }
+
+        /**
+         * Retrieves the end of the gap.
+         * @return The slot after the last slot of the gap
+         */
+        public int getEndSlot() { return endSlot; }
+
+        /**
+         * Retrieves the size of the gap.
+         * @return The missing employee minutes of the gap
+         */
+        public int getMissingMinutes() { return missingMinutes; }
+
+        /**
+         * Retrieves the depth of the gap.
+         * @return The most employees missing in a slot of the gap
+         */
+        public int getMaxShortage() { return maxShortage; }
+
+        /**
+         * Retrieves the gap as text.
+         * @return The gap in format "6601 day 2 9:00 - 11:30: 90 minutes short (max 2)"
+         */
+        @Override
+        public String toString()
+        {
+            return deptNum + " day " + day + " " + formatSlot(startSlot) + " - " +
+                    formatSlot(endSlot) + ": " + missingMinutes + " minutes short (max " +
+                    maxShortage + ")";
+        }
+
+        private static String formatSlot(int slot)
+        {
+            int minutes = slot * MINUTES_PER_SLOT;
+            return minutes / 60 + ":" + String.format("%02d", minutes % 60);
+        }
+    }
+}
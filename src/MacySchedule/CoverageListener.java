@@ -0,0 +1,19 @@
+package MacySchedule;
+
+/**
+ * This is a listener for changes to the coverage of a CoverageModel.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public interface CoverageListener
+{
+    /**
+     * Called after the headcount of a department changed for a day.
+     * @param model The coverage that changed
+     * @param day The day of the week (0-6) that changed
+     * @param deptNum The reference number for the department that changed
+     */
+    void coverageChanged(CoverageModel model, int day, int deptNum);
+}
@@ -0,0 +1,315 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * This is a class for the coverage (headcount) of a week schedule per department in
+ * 15 minute slots. A slot is covered by an employee if any part of the slot is inside
+ * the scheduled hours of the employee. Hours that go past midnight cover the start of
+ * the next day (hours that go past the end of the week are not counted).
+ *
+ * The coverage is kept up to date as the employees' schedules change: only the slots of
+ * the changed day are recalculated, and the listeners are told which day and department
+ * changed so that views only need to redraw what is affected.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class CoverageModel implements EmployeeListener
+{
+    public static final int SLOTS_PER_DAY = 96; //15 minute slots
+    public static final int MINUTES_PER_SLOT = 15;
+    public static final int WEEK_LENGTH = 7;
+    private final WeekSchedule weekSchedule;
+    private final HashMap<Integer, Integer> deptIndices;
+    private final ArrayList<Integer> deptNums;
+    private int[][][] headcount; //[day][department index][slot]
+    private final IdentityHashMap<Employee, int[]> shifts; //last counted shift per day
+    private final ArrayList<CoverageListener> listeners;
+    private static final int SHIFT_FIELDS = 3; //department index, start slot, end slot
+    private static final int NO_SHIFT = -1;
+
+    /**
+     * Constructs the coverage of a week schedule. The employees of the week schedule
+     * are listened to so the coverage stays up to date when their schedules change.
+     * @param weekSchedule The week schedule to calculate the coverage for
+     */
+    public CoverageModel(WeekSchedule weekSchedule)
+    {
+        this.weekSchedule = weekSchedule;
+        deptIndices = new HashMap<>();
+        deptNums = new ArrayList<>();
+        headcount = new int[WEEK_LENGTH][0][];
+        shifts = new IdentityHashMap<>();
+        listeners = new ArrayList<>();
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            addEmployee(employees[i]);
+    }
+
+    /**
+     * Adds an employee to the coverage, such as an employee added to the week schedule
+     * after the coverage was created.
+     * @param employee The employee to add
+     */
+    public void addEmployee(Employee employee)
+    {
+        if (shifts.containsKey(employee))
+            return;
+        int[] employeeShifts = new int[WEEK_LENGTH * SHIFT_FIELDS];
+        Arrays.fill(employeeShifts, NO_SHIFT);
+        shifts.put(employee, employeeShifts);
+        employee.addEmployeeListener(this);
+        for (int day = 0; day < WEEK_LENGTH; day++)
+            updateDay(employee, day, false);
+    }
+
+    /**
+     * Stops listening to the employees. Changes made after are not counted.
+     */
+    public void dispose()
+    {
+        for (Employee employee : shifts.keySet())
+            employee.removeEmployeeListener(this);
+    }
+
+    /**
+     * Retrieves the week schedule the coverage is for.
+     * @return The week schedule
+     */
+    public WeekSchedule getWeekSchedule() { return weekSchedule; }
+
+    /**
+     * Retrieves the number of departments that have coverage in the week.
+     * @return The number of departments
+     */
+    public int getNumDepartments() { return deptNums.size(); }
+
+    /**
+     * Retrieves the reference number of a department by its index in the coverage.
+     * @param deptIndex The index of the department (in order the departments were found)
+     * @return The reference number for the department
+     */
+    public int getDeptNum(int deptIndex) { return deptNums.get(deptIndex); }
+
+    /**
+     * Retrieves the index of a department in the coverage.
+     * @param deptNum The reference number for the department
+     * @return The index of the department, or -1 if the department has no coverage
+     */
+    public int getDeptIndex(int deptNum)
+    {
+        Integer index = deptIndices.get(deptNum);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Retrieves the headcount of a department for a slot of a day.
+     * @param day The day of the week (0-6)
+     * @param deptNum The reference number for the department
+     * @param slot The 15 minute slot of the day (0-95)
+     * @return The number of employees scheduled in the slot
+     */
+    public int getHeadcount(int day, int deptNum, int slot)
+    {
+        int deptIndex = getDeptIndex(deptNum);
+        if (deptIndex == -1)
+            return 0;
+        return headcount[day][deptIndex][slot];
+    }
+
+    /**
+     * Retrieves the headcount of all slots of a day for a department. The returned
+     * array is the one used by the coverage and must not be changed.
+     * @param day The day of the week (0-6)
+     * @param deptIndex The index of the department
+     * @return The headcount per slot of the day
+     */
+    public int[] getDayHeadcount(int day, int deptIndex)
+    {
+        return headcount[day][deptIndex];
+    }
+
+    /**
+     * Adds a listener that is told when the coverage of a day changes.
+     * @param listener The listener to add
+     */
+    public void addCoverageListener(CoverageListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener of the coverage.
+     * @param listener The listener to remove
+     */
+    public void removeCoverageListener(CoverageListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Recalculates the coverage of the changed day of an employee.
+     * @param employee The employee whose schedule changed
+     * @param day The day of the week that changed
+     */
+    @Override
+    public void dayChanged(Employee employee, int day)
+    {
+        if (shifts.containsKey(employee))
+            updateDay(employee, day, true);
+    }
+
+    /**
+     * Replaces the shift of an employee that was counted for a day with the current
+     * shift of the employee for that day.
+     * @param employee The employee to update
+     * @param day The day of the week to update
+     * @param notify True if the listeners should be told about the changes
+     */
+    private void updateDay(Employee employee, int day, boolean notify)
+    {
+        int[] employeeShifts = shifts.get(employee);
+        int field = day * SHIFT_FIELDS;
+        int oldDept = employeeShifts[field];
+        if (oldDept != NO_SHIFT)
+            count(day, oldDept, employeeShifts[field + 1], employeeShifts[field + 2], -1,
+                    notify);
+
+        employeeShifts[field] = NO_SHIFT;
+        int[] slots = getShiftSlots(employee, day);
+        if (slots != null)
+        {
+            int deptIndex = findDeptIndex(employee.getDayDeptNum(day));
+            employeeShifts[field] = deptIndex;
+            employeeShifts[field + 1] = slots[0];
+            employeeShifts[field + 2] = slots[1];
+            count(day, deptIndex, slots[0], slots[1], 1, notify);
+        }
+    }
+
+    /**
+     * Counts the headcount of a department of a week schedule without keeping the
+     * coverage up to date, for a one time calculation.
+     * @param weekSchedule The week schedule to count
+     * @param deptNum The reference number for the department
+     * @return The headcount per day and slot in format [day][slot]
+     */
+    public static int[][] countHeadcount(WeekSchedule weekSchedule, int deptNum)
+    {
+        int[][] dayHeadcount = new int[WEEK_LENGTH][SLOTS_PER_DAY];
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                int[] slots = getShiftSlots(employees[i], day);
+                if (slots == null || employees[i].getDayDeptNum(day) != deptNum)
+                    continue;
+                for (int slot = slots[0]; slot < slots[1]; slot++)
+                {
+                    int slotDay = day + slot / SLOTS_PER_DAY;
+                    if (slotDay >= WEEK_LENGTH)
+                        break;
+                    dayHeadcount[slotDay][slot % SLOTS_PER_DAY]++;
+                }
+            }
+        }
+        return dayHeadcount;
+    }
+
+    /**
+     * Finds the slots covered by the shift of an employee for a day. The end slot is
+     * past the end of the day (SLOTS_PER_DAY or more) for hours that end the next day.
+     * @param employee The employee to find the shift of
+     * @param day The day of the week
+     * @return The first slot and the slot after the last slot in format {start, end},
+     *         or null if there are no hours with a department for the day
+     */
+    private static int[] getShiftSlots(Employee employee, int day)
+    {
+        Time start = employee.getDayStartTime(day);
+        Time end = employee.getDayEndTime(day);
+        if (start == null || end == null || employee.getDayDeptNum(day) < 0)
+            return null;
+        int startMinute = toMinutes(start);
+        int endMinute = toMinutes(end);
+        if (endMinute <= startMinute)
+            endMinute += SLOTS_PER_DAY * MINUTES_PER_SLOT; //ends the next day
+        return new int[] {startMinute / MINUTES_PER_SLOT,
+                (endMinute + MINUTES_PER_SLOT - 1) / MINUTES_PER_SLOT};
+    }
+
+    /**
+     * Adds an amount to the headcount of the slots of a shift. Slots past the end of
+     * the day are counted for the next day.
+     * @param day The day the shift starts
+     * @param deptIndex The index of the department
+     * @param startSlot The first slot of the shift
+     * @param endSlot The slot after the last slot of the shift
+     * @param amount The amount to add (1 or -1)
+     * @param notify True if the listeners should be told about the changes
+     */
+    private void count(int day, int deptIndex, int startSlot, int endSlot, int amount,
+                       boolean notify)
+    {
+        for (int slot = startSlot; slot < endSlot; slot++)
+        {
+            int slotDay = day + slot / SLOTS_PER_DAY;
+            if (slotDay >= WEEK_LENGTH)
+                break;
+            headcount[slotDay][deptIndex][slot % SLOTS_PER_DAY] += amount;
+        }
+        if (notify)
+        {
+            int lastDay = Math.min(day + (endSlot - 1) / SLOTS_PER_DAY, WEEK_LENGTH - 1);
+            for (int changedDay = day; changedDay <= lastDay; changedDay++)
+                fireCoverageChanged(changedDay, deptNums.get(deptIndex));
+        }
+    }
+
+    /**
+     * Finds the index of a department, adding the department if it had no coverage.
+     * @param deptNum The reference number for the department
+     * @return The index of the department
+     */
+    private int findDeptIndex(int deptNum)
+    {
+        Integer index = deptIndices.get(deptNum);
+        if (index != null)
+            return index;
+        int newIndex = deptNums.size();
+        deptIndices.put(deptNum, newIndex);
+        deptNums.add(deptNum);
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            headcount[day] = Arrays.copyOf(headcount[day], newIndex + 1);
+            headcount[day][newIndex] = new int[SLOTS_PER_DAY];
+        }
+        return newIndex;
+    }
+
+    /**
+     * Notifies the listeners that the coverage of a department changed for a day.
+     * @param day The day of the week that changed
+     * @param deptNum The reference number for the department that changed
+     */
+    private void fireCoverageChanged(int day, int deptNum)
+    {
+        for (int i = 0; i < listeners.size(); i++)
+            listeners.get(i).coverageChanged(this, day, deptNum);
+    }
+
+    /**
+     * Converts a time to the minutes since midnight.
+     * @param time The time to convert
+     * @return The minutes since midnight
+     */
+    static int toMinutes(Time time)
+    {
+        return (int) Math.round(time.getDecimalTime() * 60);
+    }
+}
@@ -1,4 +1,6 @@
 package MacySchedule;
+import java.util.ArrayList;
+import java.util.Locale;
 
 /**
  * This is a class for a Macy's employee. The employee will have a full name and a work
@@ -22,10 +24,12 @@ public class Employee
     private String middleName;
     private WorkDay[] schedule;
     private int scheduled; //not used for manual scheduled work days
-    private final int WEEK_LENGTH = 7;
-    private final int INVALID_DEPT = -1;
-    private final String HOUR_SEPARATOR = " - ";
-    private final String NO_HOURS_SCHEDULED = "";
+    private static final int WEEK_LENGTH = 7;
+    private static final int INVALID_DEPT = -1;
+    private static final String HOUR_SEPARATOR = " - ";
+    private static final String NO_HOURS_SCHEDULED = "";
+    private ArrayList<EmployeeListener> listeners;
+    private int version; //number of changes to the schedule
 
     /**
      * Constructs an employee with his/her name.
@@ -40,6 +44,8 @@ public class Employee
         this.middleName = middleName;
         schedule = new WorkDay[WEEK_LENGTH];
         scheduled = 0;
+        listeners = null;
+        version = 0;
     }
 
     /**
@@ -60,6 +66,49 @@ public class Employee
      */
     public String getLastName() { return lastName; }
 
+    /**
+     * Retrieves a key for the employee's name that is the same for every Employee of
+     * the same person, such as the employees read from pages of different weeks or
+     * departments. The key ignores case and extra spaces.
+     * @return The name key in format last|first|middle (lower case)
+     */
+    public String getNameKey()
+    {
+        return normalizeName(lastName) + '|' + normalizeName(firstName) + '|' +
+                normalizeName(middleName);
+    }
+
+    /**
+     * Normalizes a part of a name for the name key by trimming it, using single spaces
+     * between words, and using lower case.
+     * @param name The part of the name
+     * @return The normalized part of the name
+     */
+    private static String normalizeName(String name)
+    {
+        if (name == null)
+            return "";
+        //a loop instead of replaceAll("\\s+", " "), which compiles a pattern each call
+        String trimmed = name.trim();
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        boolean space = false;
+        for (int i = 0; i < trimmed.length(); i++)
+        {
+            char c = trimmed.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' ||
+                    c == '\r')
+                space = true;
+            else
+            {
+                if (space)
+                    normalized.append(' ');
+                normalized.append(c);
+                space = false;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Adds a day work schedule with a given department, department number, and range of
      * hours for the schedule to the employee's week schedule. The addition is at
@@ -75,6 +124,7 @@ public class Employee
         {
             WorkDay workDay = new WorkDay(department, deptNum, hours);
             schedule[scheduled++] = workDay;
+            fireDayChanged(scheduled - 1);
         }
         else
             throw new IndexOutOfBoundsException("Attempted to schedule more than " +
@@ -94,6 +144,7 @@ public class Employee
         {
             WorkDay workDay = new WorkDay(note);
             schedule[scheduled++] = workDay;
+            fireDayChanged(scheduled - 1);
         }
         else
             throw new IndexOutOfBoundsException("Attempted to schedule more than " +
@@ -111,6 +162,8 @@ public class Employee
      */
     public String[] getDaySchedule(int day)
     {
+        if (schedule[day] == null)
+            return new String[] {NO_HOURS_SCHEDULED, NO_HOURS_SCHEDULED};
         String department = schedule[day].department;
         String hour = NO_HOURS_SCHEDULED;
         int deptNum = schedule[day].deptNum;
@@ -135,8 +188,11 @@ public class Employee
      */
     public void changeDayScheduledHours(int day, String hours)
     {
-        if (schedule[day].deptNum != INVALID_DEPT)
+        if (schedule[day] != null && schedule[day].deptNum != INVALID_DEPT)
+        {
             schedule[day].setHours(hours);
+            fireDayChanged(day);
+        }
         else
             throw new UnsupportedOperationException("The day requested does not have " +
                     "an existing work schedule with a valid department.");
@@ -155,6 +211,32 @@ public class Employee
         if (schedule[day] == null || schedule[day].deptNum == INVALID_DEPT)
             scheduled++;
         schedule[day] = new WorkDay(dept, deptNum, hours);
+        fireDayChanged(day);
+    }
+
+    /**
+     * Changes the schedule for a specific day to a note about the day without a
+     * department or hours, such as a day off.
+     * @param day The specified day to change the work schedule
+     * @param note Note about the schedule for the day (blank string if none)
+     */
+    public void setDayNote(int day, String note)
+    {
+        schedule[day] = new WorkDay(note);
+        fireDayChanged(day);
+    }
+
+    /**
+     * Retrieves the department description scheduled for a given day, or the note
+     * about the day if there is no department.
+     * @param day The day to retrieve the department for
+     * @return The department description or note (blank string if none)
+     */
+    public String getDayDepartment(int day)
+    {
+        if (schedule[day] == null)
+            return NO_HOURS_SCHEDULED;
+        return schedule[day].department;
     }
 
     /**
@@ -164,9 +246,101 @@ public class Employee
      */
     public double getDayTotalHours (int day)
     {
+        if (schedule[day] == null)
+            return 0;
         return schedule[day].getTotalHours();
     }
 
+    /**
+     * Retrieves the reference number of the department scheduled for a given day.
+     * @param day The day to retrieve the department number for
+     * @return The department number, or -1 if there is no department for the day
+     */
+    public int getDayDeptNum(int day)
+    {
+        if (schedule[day] == null)
+            return INVALID_DEPT;
+        return schedule[day].deptNum;
+    }
+
+    /**
+     * Retrieves the time the work schedule starts for a given day.
+     * @param day The day to retrieve the start time for
+     * @return The start time, or null if there are no hours scheduled for the day
+     */
+    public Time getDayStartTime(int day)
+    {
+        if (schedule[day] == null)
+            return null;
+        return schedule[day].startTime;
+    }
+
+    /**
+     * Retrieves the time the work schedule ends for a given day.
+     * @param day The day to retrieve the end time for
+     * @return The end time, or null if there are no hours scheduled for the day
+     */
+    public Time getDayEndTime(int day)
+    {
+        if (schedule[day] == null)
+            return null;
+        return schedule[day].endTime;
+    }
+
+    /**
+     * Retrieves the version of the schedule, which goes up every time a day of the
+     * schedule is added or changed. Derived values (such as cached totals) that were
+     * calculated for an older version are out of date.
+     * @return The version of the schedule
+     */
+    public int getVersion() { return version; }
+
+    /**
+     * Adds a listener that is notified whenever a day of the schedule changes.
+     * @param listener The listener to add
+     */
+    public void addEmployeeListener(EmployeeListener listener)
+    {
+        if (listeners == null)
+            listeners = new ArrayList<>();
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener that was added to the employee.
+     * @param listener The listener to remove
+     */
+    public void removeEmployeeListener(EmployeeListener listener)
+    {
+        if (listeners != null)
+            listeners.remove(listener);
+    }
+
+    /**
+     * Takes the week schedule of another employee, for a LazyEmployee whose row was
+     * read into a new employee. The listeners are not notified.
+     * @param other The employee with the schedule
+     */
+    void takeSchedule(Employee other)
+    {
+        schedule = other.schedule;
+        scheduled = other.scheduled;
+    }
+
+    /**
+     * Updates the version of the schedule and notifies the listeners that the schedule
+     * of a given day changed.
+     * @param day The day that changed
+     */
+    private void fireDayChanged(int day)
+    {
+        version++;
+        if (listeners == null)
+            return;
+        for (int i = 0; i < listeners.size(); i++)
+            listeners.get(i).dayChanged(this, day);
+    }
+
     /**
      * Retrieves the total work hours for the week, regardless of the departments
      * scheduled for the employee.
@@ -200,6 +374,69 @@ public class Employee
         return deptHours;
     }
 
+    /**
+     * This is the schedule of a day of an employee as plain values: the department
+     * description (or note), the department number (-1 for a note or blank day) and the
+     * range of hours (blank for a note). It is used to keep, store and replay days, so
+     * that a day is always captured and applied back the same way. It is never changed.
+     */
+    static final class DayState
+    {
+        final String department;
+        final int deptNum;
+        final String hours;
+
+        /**
+         * Constructs the state of a day from its values.
+         * @param department The department description, or the note
+         * @param deptNum The department number, or -1 for a note
+         * @param hours The range of hours in format XX:XXx - XX:XXx (blank for a note)
+         */
+        DayState(String department, int deptNum, String hours)
+        {
+            this.department = department;
+            this.deptNum = deptNum;
+            this.hours = deptNum < 0 ? "" : hours;
+        }
+
+        /**
+         * Captures the current schedule of a day of an employee.
+         * @param employee The employee
+         * @param day The day of the week (0-6)
+         */
+        DayState(Employee employee, int day)
+        {
+            deptNum = employee.getDayDeptNum(day);
+            department = employee.getDayDepartment(day);
+            hours = deptNum < 0 ? "" : employee.getDaySchedule(day)[1];
+        }
+
+        /**
+         * Checks if the day has a note rather than hours with a department.
+         * @return True for a note or a blank day
+         */
+        boolean isNote() { return deptNum < 0; }
+
+        /**
+         * Checks if the day has nothing scheduled, not even a note.
+         * @return True for a blank day
+         */
+        boolean isBlank() { return deptNum < 0 && department.isEmpty(); }
+
+        /**
+         * Sets a day of an employee to this schedule.
+         * @param employee The employee
+         * @param day The day of the week (0-6)
+         */
+        void applyTo(Employee employee, int day)
+        {
+            if (deptNum < 0)
+                employee.setDayNote(day, department);
+            else
+                employee.addHoursAtDay(day, department, deptNum, hours);
+        }
+    }
+
     /**
      * This is a class for a work day of an employee. The work day has a department (or
      * a note/blank if there is no department), a department number used as a reference
@@ -212,10 +449,7 @@ public class Employee
         Time startTime;
         Time endTime;
         double totalHours;
-        private final double DAY_HOURS = 24;
-        private final double FULL_MEAL_TIME = 1; //1 hour meal
-        private final double MIN_WORKED_FOR_FULL_MEAL = 7.5; //in hours
-        private final double MIN_WORKED_FOR_HALF_MEAL = 5; //in hours
+        private static final double MIN_IN_HOUR = 60;
 
         /**
          * Constructs a work day schedule with an associated department, the number used
@@ -337,20 +571,17 @@ public class Employee
 
         /**
          * Calculates the total number of hours scheduled for the work day. Subtracts
-         * the meal breaks as defined by company policies as they are unpaid.
+         * the meal breaks as defined by company policies as they are unpaid. The hours
+         * are counted in whole minutes, with the same rule as PaidHoursKernel, since
+         * times such as 8:10a are not exact in decimal hours and could fall just under
+         * a meal threshold.
          */
         private void calcTotalHours()
         {
-            double startTime = this.startTime.getDecimalTime();
-            double endTime = this.endTime.getDecimalTime();
-            if (endTime <= startTime)
-                endTime += DAY_HOURS;
-            totalHours = endTime - startTime;
-            //accounts for Macy's policy for meals by subtracting unpaid meal hours
-            if (totalHours >= MIN_WORKED_FOR_FULL_MEAL)
-                totalHours -= FULL_MEAL_TIME;
-            else if (totalHours >= MIN_WORKED_FOR_HALF_MEAL)
-                totalHours -= FULL_MEAL_TIME / 2.0;
+            int startMinute = (int) Math.round(startTime.getDecimalTime() * MIN_IN_HOUR);
+            int endMinute = (int) Math.round(endTime.getDecimalTime() * MIN_IN_HOUR);
+            int paidMinutes = PaidHoursKernel.paidMinutes(startMinute, endMinute);
+            totalHours = paidMinutes / MIN_IN_HOUR;
         }
 
         /**
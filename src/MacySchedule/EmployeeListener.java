@@ -0,0 +1,19 @@
+package MacySchedule;
+
+/**
+ * This is a listener for changes to the schedule of an Employee. The employee notifies
+ * its listeners after a day of its schedule was added or changed.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public interface EmployeeListener
+{
+    /**
+     * Called after the schedule of a day was added or changed.
+     * @param employee The employee whose schedule changed
+     * @param day The day of the week (0-6) that changed
+     */
+    void dayChanged(Employee employee, int day);
+}
@@ -0,0 +1,150 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * This is a class to merge the employees of week schedules read from different pages
+ * (such as the pages of different departments) into one store-level week schedule per
+ * week with one Employee per person. Employees are matched by their name key with a
+ * hash join, so merging takes time in proportion to the number of employees read, no
+ * matter how many pages there are.
+ *
+ * The days of the matched employees are combined. The same work schedule found on more
+ * than one page (an employee's day in another department is shown on both pages) is
+ * only kept once. Two different work schedules for the same day are not allowed, so the
+ * first one is kept and the other is reported as a ShiftConflict. A note (such as PTO)
+ * is only kept for a day that has no work schedule.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class EmployeeMerger
+{
+    /** The department description of the merged store-level week schedules. */
+    public static final String STORE_DEPARTMENT = "All Departments";
+    private static final int WEEK_LENGTH = 7;
+
+    private final LinkedHashMap<String, WeekSchedule> storeSchedules; //by week range
+    private final HashMap<String, HashMap<String, Employee>> employees; //by week, name
+    private final ArrayList<ShiftConflict> conflicts;
+
+    /**
+     * Constructs a merger without any week schedules.
+     */
+    public EmployeeMerger()
+    {
+        storeSchedules = new LinkedHashMap<>();
+        employees = new HashMap<>();
+        conflicts = new ArrayList<>();
+    }
+
+    /**
+     * Merges the employees of many week schedules.
+     * @param weekSchedules The week schedules to merge
+     * @return The merger with the merged week schedules and the conflicts found
+     */
+    public static EmployeeMerger mergeAll(Collection<WeekSchedule> weekSchedules)
+    {
+        EmployeeMerger merger = new EmployeeMerger();
+        for (WeekSchedule weekSchedule : weekSchedules)
+            merger.add(weekSchedule);
+        return merger;
+    }
+
+    /**
+     * Merges the employees of a week schedule into the store-level week schedule of
+     * its week.
+     * @param weekSchedule The week schedule to merge
+     */
+    public void add(WeekSchedule weekSchedule)
+    {
+        String weekRange = weekSchedule.getWeekRange();
+        WeekSchedule storeSchedule = storeSchedules.get(weekRange);
+        HashMap<String, Employee> weekEmployees = employees.get(weekRange);
+        if (storeSchedule == null)
+        {
+            storeSchedule = new WeekSchedule(weekRange, STORE_DEPARTMENT,
+                    ReportKind.ALL_DEPARTMENTS);
+            storeSchedules.put(weekRange, storeSchedule);
+            weekEmployees = new HashMap<>();
+            employees.put(weekRange, weekEmployees);
+        }
+
+        Employee[] employeeList = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            Employee employee = employeeList[i];
+            Employee merged = weekEmployees.get(employee.getNameKey());
+            if (merged == null)
+            {
+                merged = new Employee(employee.getFirstName(), employee.getLastName(),
+                        employee.getMiddleName());
+                weekEmployees.put(employee.getNameKey(), merged);
+                storeSchedule.addEmployee(merged);
+            }
+            mergeDays(weekSchedule, employee, merged);
+        }
+    }
+
+    /**
+     * Retrieves the merged store-level week schedules in the order their weeks were
+     * first found.
+     * @return The merged week schedules
+     */
+    public List<WeekSchedule> getStoreSchedules()
+    {
+        return new ArrayList<>(storeSchedules.values());
+    }
+
+    /**
+     * Retrieves the merged store-level week schedule of a week.
+     * @param weekRange The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     * @return The merged week schedule, or null if no schedule of the week was merged
+     */
+    public WeekSchedule getStoreSchedule(String weekRange)
+    {
+        return storeSchedules.get(weekRange);
+    }
+
+    /**
+     * Retrieves the conflicts found while merging.
+     * @return The conflicts in the order they were found
+     */
+    public List<ShiftConflict> getConflicts() { return new ArrayList<>(conflicts); }
+
+    /**
+     * Combines the days of an employee into the merged employee.
+     * @param source The week schedule the employee was read from
+     * @param employee The employee to merge
+     * @param merged The merged employee of the same person
+     */
+    private void mergeDays(WeekSchedule source, Employee employee, Employee merged)
+    {
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            int deptNum = employee.getDayDeptNum(day);
+            String department = employee.getDayDepartment(day);
+            if (deptNum >= 0)
+            {
+                String[] daySchedule = employee.getDaySchedule(day);
+                if (merged.getDayDeptNum(day) < 0)
+                    merged.addHoursAtDay(day, department, deptNum, daySchedule[1]);
+                else
+                {
+                    String[] kept = merged.getDaySchedule(day);
+                    if (merged.getDayDeptNum(day) != deptNum ||
+                            !kept[1].equals(daySchedule[1]))
+                        conflicts.add(new ShiftConflict(source.getWeekRange(), merged,
+                                day, kept, daySchedule, source));
+                }
+            }
+            else if (!department.isEmpty() && merged.getDayDeptNum(day) < 0 &&
+                    merged.getDayDepartment(day).isEmpty())
+                merged.setDayNote(day, department);
+        }
+    }
+}
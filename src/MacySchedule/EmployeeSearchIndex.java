@@ -0,0 +1,467 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This is an index for finding employees by name as the name is typed. Names can be
+ * searched in any order and in the "Last, First Middle" format of the schedule pages,
+ * ignoring case and punctuation, and each word of the search only needs to be the start
+ * of a word of the name (for example "chen, li" and "li ch" both find "Chen, Lisa").
+ * If nothing starts with the words searched, words with typos (up to 1 wrong, missing,
+ * extra or swapped letter for words of 3 to 5 letters and 2 for longer words) are found
+ * instead.
+ *
+ * Each word of each name is kept in a trie where every node keeps the sorted ids of the
+ * employees with a word starting with that prefix, so a search only looks at the nodes
+ * for the words searched instead of every employee. Employees are added one at a time
+ * as they are read, and the index can be searched from other threads at the same time.
+ * Employees with the same name key (the same person in different weeks) are kept once.
+ * A typo search looks at no more than MAX_CANDIDATES employees (the closest to the word
+ * with the fewest matches), and only looks for 2 typos in a word if fewer than the
+ * employees wanted are found with at most 1 typo.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class EmployeeSearchIndex
+{
+    private final TrieNode root;
+    private final ArrayList<Employee> employees; //by id
+    private final HashMap<String, Integer> idsByNameKey;
+    private final ReentrantReadWriteLock lock;
+    private static final int MAX_SHORT_WORD = 2; //no typos allowed
+    private static final int MAX_MEDIUM_WORD = 5; //1 typo allowed, 2 for longer words
+    private static final int MAX_CANDIDATES = 1000; //employees looked at in a typo search
+
+    /**
+     * Constructs an empty index.
+     */
+    public EmployeeSearchIndex()
+    {
+        root = new TrieNode();
+        employees = new ArrayList<>();
+        idsByNameKey = new HashMap<>();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds all of the employees of a week schedule to the index.
+     * @param weekSchedule The week schedule with the employees to add
+     */
+    public void addAll(WeekSchedule weekSchedule)
+    {
+        Employee[] employeeList = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            add(employeeList[i]);
+    }
+
+    /**
+     * Adds an employee to the index, unless an employee with the same name key was
+     * already added.
+     * @param employee The employee to add
+     * @return True if the employee was added; false if the name was already in the index
+     */
+    public boolean add(Employee employee)
+    {
+        String nameKey = employee.getNameKey();
+        lock.writeLock().lock();
+        try
+        {
+            if (idsByNameKey.containsKey(nameKey))
+                return false;
+            int id = employees.size();
+            employees.add(employee);
+            idsByNameKey.put(nameKey, id);
+            String name = employee.getLastName() + " " + employee.getFirstName() + " " +
+                    employee.getMiddleName();
+            for (String word : splitWords(name))
+            {
+                TrieNode node = root;
+                for (int i = 0; i < word.length(); i++)
+                {
+                    node = node.getOrAddChild(word.charAt(i));
+                    node.addId(id);
+                }
+            }
+            return true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of employees in the index.
+     * @return The number of employees
+     */
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return employees.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the employees whose names match the words searched. Names where every word
+     * searched is the start of a word of the name are found first (in the order the
+     * employees were added). Only if there are no such names, names matching with typos
+     * are found, with the fewest typos first.
+     * @param query The words to search for, such as "Chen, Li"
+     * @param limit The maximum number of employees to find
+     * @return The employees found
+     */
+    public List<Employee> search(String query, int limit)
+    {
+        String[] words = splitWords(query);
+        List<Employee> found = new ArrayList<>();
+        if (words.length == 0 || limit <= 0)
+            return found;
+        lock.readLock().lock();
+        try
+        {
+            int[] prefixIds = findPrefixMatches(words, limit);
+            if (prefixIds.length > 0)
+            {
+                for (int id : prefixIds)
+                    found.add(employees.get(id));
+                return found;
+            }
+            for (int id : findTypoMatches(words, limit))
+                found.add(employees.get(id));
+            return found;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids of the employees with a word starting with each word searched.
+     * @param words The words searched
+     * @param limit The maximum number of ids to find
+     * @return The ids found in ascending order
+     */
+    private int[] findPrefixMatches(String[] words, int limit)
+    {
+        TrieNode[] nodes = new TrieNode[words.length];
+        int smallest = 0;
+        for (int w = 0; w < words.length; w++)
+        {
+            nodes[w] = root.find(words[w]);
+            if (nodes[w] == null)
+                return new int[0];
+            if (nodes[w].idCount < nodes[smallest].idCount)
+                smallest = w;
+        }
+        //go through the fewest ids and check the other words by binary search
+        int[] found = new int[Math.min(limit, nodes[smallest].idCount)];
+        int count = 0;
+        TrieNode first = nodes[smallest];
+        for (int i = 0; i < first.idCount && count < found.length; i++)
+        {
+            int id = first.ids[i];
+            boolean matches = true;
+            for (int w = 0; w < nodes.length && matches; w++)
+                matches = w == smallest ||
+                        Arrays.binarySearch(nodes[w].ids, 0, nodes[w].idCount, id) >= 0;
+            if (matches)
+                found[count++] = id;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Finds the ids of the employees with a word close to each word searched, allowing
+     * typos, with the fewest typos first. Names with at most 1 typo in all are the
+     * closest ones, so the words 2 typos away are only looked for if there are fewer
+     * than limit of them.
+     * @param words The words searched
+     * @param limit The maximum number of ids to find
+     * @return The ids found
+     */
+    private int[] findTypoMatches(String[] words, int limit)
+    {
+        int mostTypos = 0;
+        for (String word : words)
+            mostTypos = Math.max(mostTypos, maxTypos(word));
+        if (mostTypos > 1)
+        {
+            int[] found = findTypoMatches(words, limit, 1, 1);
+            if (found.length == limit)
+                return found;
+        }
+        return findTypoMatches(words, limit, mostTypos, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the ids of the employees with a word close to each word searched, with the
+     * fewest typos first and in the order the employees were added for the same number
+     * of typos.
+     * @param words The words searched
+     * @param limit The maximum number of ids to find
+     * @param wordTypos The most typos allowed in each word
+     * @param totalTypos The most typos allowed in all of the words
+     * @return The ids found
+     */
+    private int[] findTypoMatches(String[] words, int limit, int wordTypos,
+                                  int totalTypos)
+    {
+        CloseNodes[] close = new CloseNodes[words.length];
+        int fewest = 0; //the word with the fewest employees close to it
+        for (int w = 0; w < words.length; w++)
+        {
+            int[] firstRow = new int[words[w].length() + 1];
+            for (int i = 0; i < firstRow.length; i++)
+                firstRow[i] = i;
+            int maxTypos = Math.min(wordTypos, maxTypos(words[w]));
+            close[w] = new CloseNodes();
+            findClose(root, words[w], firstRow, null, '\0', maxTypos, maxTypos + 1,
+                    close[w]);
+            if (close[w].count == 0)
+                return new int[0];
+            if (close[w].idTotal < close[fewest].idTotal)
+                fewest = w;
+        }
+        //the candidates are the employees close to that word, the closest first
+        CloseNodes first = close[fewest];
+        int[] candidates = new int[Math.min(MAX_CANDIDATES, first.idTotal)];
+        int count = 0;
+        for (int typos = 0; typos <= wordTypos && count < candidates.length; typos++)
+        {
+            for (int n = 0; n < first.count && count < candidates.length; n++)
+            {
+                if (first.typos[n] != typos)
+                    continue;
+                int ids = Math.min(first.nodes[n].idCount, candidates.length - count);
+                System.arraycopy(first.nodes[n].ids, 0, candidates, count, ids);
+                count += ids;
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+        //add up the typos of the words for each candidate, keeping each one once
+        int[] totals = new int[count];
+        int[] perTotal = new int[wordTypos * words.length + 1]; //candidates by typos
+        int kept = 0;
+        int lastId = -1;
+        for (int i = 0; i < count; i++)
+        {
+            int id = candidates[i];
+            if (id == lastId)
+                continue; //in more than one of the nodes
+            lastId = id;
+            int total = 0;
+            for (int w = 0; w < words.length && total >= 0; w++)
+            {
+                int typos = close[w].typosOf(id);
+                total = typos < 0 ? -1 : total + typos;
+            }
+            if (total >= 0 && total <= totalTypos)
+            {
+                candidates[kept] = id;
+                totals[kept++] = total;
+                perTotal[total]++;
+            }
+        }
+        int[] found = new int[Math.min(limit, kept)];
+        int next = 0;
+        for (int total = 0; total < perTotal.length && next < found.length; total++)
+        {
+            if (perTotal[total] == 0)
+                continue;
+            for (int i = 0; i < kept && next < found.length; i++)
+                if (totals[i] == total)
+                    found[next++] = candidates[i];
+        }
+        return found;
+    }
+
+    /**
+     * Looks for the prefixes in the trie that are within a number of typos (edits) of
+     * a word, using one row of the edit distance table per trie level. Two letters typed
+     * in the wrong order count as one typo. The nodes of the prefixes that are close
+     * enough are kept, unless a shorter prefix (with all of the same employees) is at
+     * least as close.
+     * @param node The node of the prefix so far
+     * @param word The word searched
+     * @param row The edit distances between the prefix so far and each start of the word
+     * @param lastRow The row of the prefix without its last letter, or null for the root
+     * @param lastLetter The last letter of the prefix so far
+     * @param maxTypos The most typos allowed
+     * @param keptTypos The typos of the closest shorter prefix kept, or maxTypos + 1
+     * @param close The nodes found
+     */
+    private static void findClose(TrieNode node, String word, int[] row, int[] lastRow,
+                                  char lastLetter, int maxTypos, int keptTypos,
+                                  CloseNodes close)
+    {
+        for (int c = 0; c < node.childCount; c++)
+        {
+            char letter = node.keys[c];
+            TrieNode child = node.children[c];
+            int[] nextRow = new int[row.length];
+            nextRow[0] = row[0] + 1;
+            int rowMin = nextRow[0];
+            for (int i = 1; i < row.length; i++)
+            {
+                int substitute = row[i - 1] + (word.charAt(i - 1) == letter ? 0 : 1);
+                nextRow[i] = Math.min(substitute, Math.min(row[i], nextRow[i - 1]) + 1);
+                if (lastRow != null && i > 1 && word.charAt(i - 1) == lastLetter &&
+                        word.charAt(i - 2) == letter)
+                    nextRow[i] = Math.min(nextRow[i], lastRow[i - 2] + 1); //swapped
+                rowMin = Math.min(rowMin, nextRow[i]);
+            }
+            int distance = nextRow[row.length - 1];
+            int childKept = keptTypos;
+            if (distance < keptTypos)
+            {
+                close.add(child, distance);
+                childKept = distance;
+            }
+            if (rowMin <= maxTypos && childKept > 0)
+                findClose(child, word, nextRow, row, letter, maxTypos, childKept, close);
+        }
+    }
+
+    /**
+     * Retrieves the number of typos allowed for a word searched.
+     * @param word The word searched
+     * @return The number of typos allowed
+     */
+    private static int maxTypos(String word)
+    {
+        if (word.length() <= MAX_SHORT_WORD)
+            return 0;
+        return word.length() <= MAX_MEDIUM_WORD ? 1 : 2;
+    }
+
+    /**
+     * Splits a name or search into lower case words of letters and digits.
+     * @param text The name or search
+     * @return The words
+     */
+    static String[] splitWords(String text)
+    {
+        ArrayList<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++)
+        {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c))
+                word.append(c);
+            else if (c == '\'' || c == '.')
+                continue; //O'Brien is found as obrien
+            else if (word.length() > 0)
+            {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * These are the trie nodes of the prefixes close to a word searched, with the number
+     * of typos of each.
+     */
+    private static final class CloseNodes
+    {
+        TrieNode[] nodes = new TrieNode[4];
+        int[] typos = new int[4];
+        int count;
+        int idTotal; //ids in all of the nodes, counting repeats
+
+        void add(TrieNode node, int nodeTypos)
+        {
+            if (count == nodes.length)
+            {
+                nodes = Arrays.copyOf(nodes, count * 2);
+                typos = Arrays.copyOf(typos, count * 2);
+            }
+            nodes[count] = node;
+            typos[count++] = nodeTypos;
+            idTotal += node.idCount;
+        }
+
+        int typosOf(int id) //the fewest typos of a node with the id, or -1
+        {
+            int fewest = -1;
+            for (int n = 0; n < count && fewest != 0; n++)
+                if ((fewest < 0 || typos[n] < fewest) &&
+                        Arrays.binarySearch(nodes[n].ids, 0, nodes[n].idCount, id) >= 0)
+                    fewest = typos[n];
+            return fewest;
+        }
+    }
+
+    /**
+     * This is a node of the trie for a prefix of the words of the names. The children
+     * are kept sorted by letter and the ids of the employees with a word starting with
+     * the prefix are kept in ascending order.
+     */
+    private static final class TrieNode
+    {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int childCount;
+        int[] ids = new int[0];
+        int idCount;
+
+        TrieNode find(String prefix)
+        {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++)
+                node = node.getChild(prefix.charAt(i));
+            return node;
+        }
+
+        TrieNode getChild(char letter)
+        {
+            int index = Arrays.binarySearch(keys, 0, childCount, letter);
+            return index >= 0 ? children[index] : null;
+        }
+
+        TrieNode getOrAddChild(char letter)
+        {
+            int index = Arrays.binarySearch(keys, 0, childCount, letter);
+            if (index >= 0)
+                return children[index];
+            index = -index - 1;
+            if (childCount == keys.length)
+            {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            TrieNode child = new TrieNode();
+            keys[index] = letter;
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void addId(int id)
+        {
+            if (idCount > 0 && ids[idCount - 1] == id)
+                return; //two words of the same name share the prefix
+            if (idCount == ids.length)
+                ids = Arrays.copyOf(ids, Math.max(2, idCount * 2));
+            ids[idCount++] = id;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is a ranking of employees by their hours of the week, in total and for each
+ * department, to answer questions such as who works the most hours, who works less
+ * than 20 hours and who is close to overtime without going through every employee.
+ *
+ * Each ranking is a sorted array of keys, where a key is the minutes of the employee in
+ * the high bits and the id of the employee in the low bits, so the keys of equal hours
+ * are ordered by id. The ranking listens to the employees, and a change of a day moves
+ * the keys of the employee with a binary search and an array copy instead of sorting
+ * again. An employee is ranked in the department of its week schedule and in every
+ * department it has hours in.
+ *
+ * The week schedules added should be of the same week, with the employees of different
+ * pages merged (for example with an EmployeeMerger) for the totals to be of the store.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class HoursRanking implements EmployeeListener
+{
+    private static final int WEEK_LENGTH = 7;
+    private static final int ID_BITS = 32;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final ArrayList<Ranked> ranked; //by id
+    private final IdentityHashMap<Employee, Ranked> rankedByEmployee;
+    private final SortedKeys totals;
+    private final HashMap<Integer, SortedKeys> departments;
+
+    /**
+     * Constructs an empty ranking.
+     */
+    public HoursRanking()
+    {
+        ranked = new ArrayList<>();
+        rankedByEmployee = new IdentityHashMap<>();
+        totals = new SortedKeys();
+        departments = new HashMap<>();
+    }
+
+    /**
+     * Adds the employees of a week schedule to the ranking and starts listening to them.
+     * Employees that were already added are skipped.
+     * @param weekSchedule The week schedule to add
+     */
+    public synchronized void add(WeekSchedule weekSchedule)
+    {
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            if (rankedByEmployee.containsKey(employees[i]))
+                continue;
+            Ranked employee = new Ranked(employees[i], ranked.size(),
+                    weekSchedule.getDeptNum());
+            ranked.add(employee);
+            rankedByEmployee.put(employees[i], employee);
+            update(employee);
+            employees[i].addEmployeeListener(this);
+        }
+    }
+
+    /**
+     * Stops listening to the employees. Changes made after are not seen by the ranking.
+     */
+    public synchronized void dispose()
+    {
+        for (Employee employee : rankedByEmployee.keySet())
+            employee.removeEmployeeListener(this);
+    }
+
+    /**
+     * Moves the keys of an employee after a day of the employee changed.
+     * @param employee The employee that changed
+     * @param day The day of the week that changed (0-6)
+     */
+    @Override
+    public synchronized void dayChanged(Employee employee, int day)
+    {
+        Ranked changed = rankedByEmployee.get(employee);
+        if (changed != null)
+            update(changed);
+    }
+
+    /**
+     * Retrieves the number of employees in the ranking.
+     * @return The number of employees
+     */
+    public synchronized int size() { return totals.size; }
+
+    /**
+     * Retrieves the employees with the most hours of the week.
+     * @param k The most employees to retrieve
+     * @return The employees, most hours first
+     */
+    public synchronized List<Employee> getMostHours(int k)
+    {
+        return getMostHours(totals, k);
+    }
+
+    /**
+     * Retrieves the employees with the most hours of the week in a department.
+     * @param deptNum The reference number for the department
+     * @param k The most employees to retrieve
+     * @return The employees, most hours first
+     */
+    public synchronized List<Employee> getMostHours(int deptNum, int k)
+    {
+        return getMostHours(departments.get(deptNum), k);
+    }
+
+    /**
+     * Retrieves the employees with fewer hours of the week than a number of hours.
+     * @param hours The number of hours
+     * @return The employees, fewest hours first
+     */
+    public synchronized List<Employee> getHoursBelow(double hours)
+    {
+        return getRange(totals, Integer.MIN_VALUE, toMinutes(hours));
+    }
+
+    /**
+     * Retrieves the employees with fewer hours of the week in a department than a number
+     * of hours.
+     * @param deptNum The reference number for the department
+     * @param hours The number of hours
+     * @return The employees, fewest hours first
+     */
+    public synchronized List<Employee> getHoursBelow(int deptNum, double hours)
+    {
+        return getRange(departments.get(deptNum), Integer.MIN_VALUE, toMinutes(hours));
+    }
+
+    /**
+     * Retrieves the employees with at least a number of hours of the week, such as the
+     * employees close to overtime.
+     * @param hours The number of hours
+     * @return The employees, fewest hours first
+     */
+    public synchronized List<Employee> getHoursAtLeast(double hours)
+    {
+        return getRange(totals, toMinutes(hours), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the employees with at least a number of hours of the week in a
+     * department.
+     * @param deptNum The reference number for the department
+     * @param hours The number of hours
+     * @return The employees, fewest hours first
+     */
+    public synchronized List<Employee> getHoursAtLeast(int deptNum, double hours)
+    {
+        return getRange(departments.get(deptNum), toMinutes(hours), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the minutes of an employee again and moves its keys.
+     * @param employee The employee to update
+     */
+    private void update(Ranked employee)
+    {
+        Employee source = employee.employee;
+        int total = toMinutes(source.getWeekTotalHours());
+        if (total != employee.totalMinutes)
+        {
+            if (employee.totalMinutes >= 0)
+                totals.remove(toKey(employee.totalMinutes, employee.id));
+            totals.add(toKey(total, employee.id));
+            employee.totalMinutes = total;
+        }
+
+        HashMap<Integer, Integer> deptMinutes = new HashMap<>();
+        deptMinutes.put(employee.homeDeptNum,
+                toMinutes(source.getWeekDeptHours(employee.homeDeptNum)));
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            int deptNum = source.getDayDeptNum(day);
+            if (deptNum >= 0 && !deptMinutes.containsKey(deptNum))
+                deptMinutes.put(deptNum, toMinutes(source.getWeekDeptHours(deptNum)));
+        }
+        for (Map.Entry<Integer, Integer> old : employee.deptMinutes.entrySet())
+        {
+            Integer minutes = deptMinutes.get(old.getKey());
+            if (minutes == null || !minutes.equals(old.getValue()))
+                departments.get(old.getKey()).remove(toKey(old.getValue(), employee.id));
+        }
+        for (Map.Entry<Integer, Integer> current : deptMinutes.entrySet())
+        {
+            Integer minutes = employee.deptMinutes.get(current.getKey());
+            if (minutes != null && minutes.equals(current.getValue()))
+                continue;
+            SortedKeys department = departments.get(current.getKey());
+            if (department == null)
+            {
+                department = new SortedKeys();
+                departments.put(current.getKey(), department);
+            }
+            department.add(toKey(current.getValue(), employee.id));
+        }
+        employee.deptMinutes = deptMinutes;
+    }
+
+    /**
+     * Retrieves the employees of the highest keys of a ranking.
+     * @param keys The ranking
+     * @param k The most employees to retrieve
+     * @return The employees, highest key first
+     */
+    private List<Employee> getMostHours(SortedKeys keys, int k)
+    {
+        if (keys == null)
+            return new ArrayList<>();
+        int size = Math.min(k, keys.size);
+        List<Employee> result = new ArrayList<>(size);
+        for (int i = keys.size - 1; i >= keys.size - size; i--)
+            result.add(ranked.get((int) (keys.keys[i] & ID_MASK)).employee);
+        return result;
+    }
+
+    /**
+     * Retrieves the employees of a range of minutes of a ranking.
+     * @param keys The ranking
+     * @param fromMinutes The lowest minutes of the range
+     * @param toMinutes The minutes after the highest minutes of the range
+     * @return The employees, fewest minutes first
+     */
+    private List<Employee> getRange(SortedKeys keys, int fromMinutes, int toMinutes)
+    {
+        if (keys == null)
+            return new ArrayList<>();
+        int from = keys.indexOf(toKey(fromMinutes, 0));
+        int to = toMinutes == Integer.MAX_VALUE ? keys.size :
+                keys.indexOf(toKey(toMinutes, 0));
+        List<Employee> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            result.add(ranked.get((int) (keys.keys[i] & ID_MASK)).employee);
+        return result;
+    }
+
+    /**
+     * Converts hours to whole minutes, so that sums of hours compare exactly.
+     * @param hours The hours
+     * @return The minutes
+     */
+    private static int toMinutes(double hours)
+    {
+        return (int) Math.round(hours * 60);
+    }
+
+    /**
+     * Creates the key of an employee in a ranking.
+     * @param minutes The minutes of the employee
+     * @param id The id of the employee
+     * @return The key
+     */
+    private static long toKey(int minutes, int id)
+    {
+        return ((long) minutes << ID_BITS) | id;
+    }
+
+    /**
+     * This is an employee in the ranking, with the minutes its keys were made with.
+     */
+    private static final class Ranked
+    {
+        final Employee employee;
+        final int id;
+        final int homeDeptNum;
+        int totalMinutes = -1;
+        HashMap<Integer, Integer> deptMinutes = new HashMap<>();
+
+        Ranked(Employee employee, int id, int homeDeptNum)
+        {
+            this.employee = employee;
+            this.id = id;
+            this.homeDeptNum = homeDeptNum;
+        }
+    }
+
+    /**
+     * This is a sorted array of distinct keys.
+     */
+    private static final class SortedKeys
+    {
+        long[] keys = new long[16];
+        int size;
+
+        /**
+         * Finds the index of the first key that is not less than a key.
+         * @param key The key to find
+         * @return The index of the key, or where it would be added
+         */
+        int indexOf(long key)
+        {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        void add(long key)
+        {
+            if (size == keys.length)
+                keys = Arrays.copyOf(keys, size * 2);
+            int index = indexOf(key);
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            keys[index] = key;
+            size++;
+        }
+
+        void remove(long key)
+        {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0)
+                return;
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package MacySchedule;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This is a class for the hours reports of a set of week schedules. The reports are the
+ * hours by employee (the department hours and total hours of each employee of each
+ * schedule) and the hours by department (the total department hours of each schedule).
+ * The reports can be written as aligned text or as CSV. The hours can be taken from a
+ * ReportCache so that reports written more than once are not calculated again.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class HoursReport
+{
+    /** The formats the reports can be written in. */
+    public enum Format { TEXT, CSV }
+
+    private final List<WeekSchedule> schedules;
+    private final Format format;
+    private final ReportCache cache;
+    private static final String[] EMPLOYEE_HEADERS = {"Week", "Dept", "Last Name",
+            "First Name", "Middle Name", "Dept Hours", "Total Hours"};
+    private static final String[] DEPARTMENT_HEADERS = {"Week", "Dept", "Department",
+            "Employees", "Dept Hours"};
+    private static final int[] EMPLOYEE_WIDTHS = {23, 6, 20, 15, 12, 10, 11};
+    private static final int[] DEPARTMENT_WIDTHS = {23, 6, 30, 9, 10};
+
+    /**
+     * Constructs the reports for a list of week schedules. The rows of the reports are
+     * in the order of the schedules in the list.
+     * @param schedules The week schedules to report on
+     * @param format The format to write the reports in
+     */
+    public HoursReport(List<WeekSchedule> schedules, Format format)
+    {
+        this(schedules, format, null);
+    }
+
+    /**
+     * Constructs the reports for a list of week schedules with the hours taken from a
+     * cache. The rows of the reports are in the order of the schedules in the list.
+     * @param schedules The week schedules to report on
+     * @param format The format to write the reports in
+     * @param cache The cache of the hours (null to always calculate the hours)
+     */
+    public HoursReport(List<WeekSchedule> schedules, Format format, ReportCache cache)
+    {
+        this.schedules = new ArrayList<>(schedules);
+        this.format = format;
+        this.cache = cache;
+    }
+
+    /**
+     * Writes the hours by employee report, which has a row for each employee of each
+     * week schedule with their hours for the department of the schedule and their
+     * total hours for the week.
+     * @param out The stream to write the report to
+     */
+    public void writeEmployeeHours(PrintStream out)
+    {
+        writeRow(out, format, EMPLOYEE_HEADERS, EMPLOYEE_WIDTHS);
+        for (WeekSchedule schedule : schedules)
+        {
+            for (String[] row : getEmployeeRows(schedule))
+                writeRow(out, format, row, EMPLOYEE_WIDTHS);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the hours by department report, which has a row for each week schedule
+     * with the total hours scheduled for the department of the schedule.
+     * @param out The stream to write the report to
+     */
+    public void writeDepartmentHours(PrintStream out)
+    {
+        writeRow(out, format, DEPARTMENT_HEADERS, DEPARTMENT_WIDTHS);
+        for (WeekSchedule schedule : schedules)
+            writeRow(out, format, getDepartmentRow(schedule), DEPARTMENT_WIDTHS);
+        out.flush();
+    }
+
+    /**
+     * Writes the hours by employee report from rows made by getEmployeeRows, such as
+     * rows made in other processes.
+     * @param out The stream to write the report to
+     * @param format The format to write the report in
+     * @param rows The rows of the report, which may be read as they are written
+     */
+    static void writeEmployeeHours(PrintStream out, Format format,
+                                   Iterable<String[]> rows)
+    {
+        writeRow(out, format, EMPLOYEE_HEADERS, EMPLOYEE_WIDTHS);
+        for (String[] row : rows)
+            writeRow(out, format, row, EMPLOYEE_WIDTHS);
+        out.flush();
+    }
+
+    /**
+     * Writes the hours by department report from rows made by getDepartmentRow, such as
+     * rows made in other processes.
+     * @param out The stream to write the report to
+     * @param format The format to write the report in
+     * @param rows The rows of the report, which may be read as they are written
+     */
+    static void writeDepartmentHours(PrintStream out, Format format,
+                                     Iterable<String[]> rows)
+    {
+        writeRow(out, format, DEPARTMENT_HEADERS, DEPARTMENT_WIDTHS);
+        for (String[] row : rows)
+            writeRow(out, format, row, DEPARTMENT_WIDTHS);
+        out.flush();
+    }
+
+    /**
+     * Makes the rows of the hours by employee report for a week schedule.
+     * @param schedule The week schedule
+     * @return The values of a row for each employee of the schedule
+     */
+    List<String[]> getEmployeeRows(WeekSchedule schedule)
+    {
+        Employee[] employees = schedule.getEmployeeList();
+        int deptNum = schedule.getDeptNum();
+        double[] deptHours = getReport(schedule, deptNum, ReportKind.EMPLOYEE_WEEK_HOURS);
+        double[] totalHours = getReport(schedule, ReportKind.ALL_DEPARTMENTS,
+                ReportKind.EMPLOYEE_WEEK_HOURS);
+        List<String[]> rows = new ArrayList<>(schedule.getNumEmployees());
+        for (int i = 0; i < schedule.getNumEmployees(); i++)
+        {
+            Employee employee = employees[i];
+            rows.add(new String[] {schedule.getWeekRange(), Integer.toString(deptNum),
+                    employee.getLastName(), employee.getFirstName(),
+                    employee.getMiddleName(), formatHours(deptHours[i]),
+                    formatHours(totalHours[i])});
+        }
+        return rows;
+    }
+
+    /**
+     * Makes the row of the hours by department report for a week schedule.
+     * @param schedule The week schedule
+     * @return The values of the row
+     */
+    String[] getDepartmentRow(WeekSchedule schedule)
+    {
+        return new String[] {schedule.getWeekRange(),
+                Integer.toString(schedule.getDeptNum()), schedule.getDepartment(),
+                Integer.toString(schedule.getNumEmployees()),
+                formatHours(getReport(schedule, schedule.getDeptNum(),
+                        ReportKind.DEPT_TOTAL_HOURS))};
+    }
+
+    /**
+     * Retrieves the value of a report from the cache, or calculates it if there is no
+     * cache.
+     * @param schedule The week schedule
+     * @param deptNum The reference number for the department
+     * @param kind The kind of report
+     * @param <T> The type of the value of the report
+     * @return The value of the report
+     */
+    private <T> T getReport(WeekSchedule schedule, int deptNum, ReportKind<T> kind)
+    {
+        if (cache == null)
+            return kind.calculate(schedule, deptNum);
+        return cache.get(schedule, deptNum, kind);
+    }
+
+    /**
+     * Writes a row of a report in the format of the report.
+     * @param out The stream to write the row to
+     * @param format The format of the report
+     * @param values The values of the row
+     * @param widths The widths of the columns for the text format
+     */
+    private static void writeRow(PrintStream out, Format format, String[] values,
+                                 int[] widths)
+    {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++)
+        {
+            if (format == Format.CSV)
+            {
+                if (i > 0)
+                    line.append(',');
+                line.append(quoteCsv(values[i]));
+            }
+            else
+            {
+                if (i > 0)
+                    line.append(' ');
+                line.append(values[i]);
+                for (int pad = values[i].length(); pad < widths[i]; pad++)
+                    line.append(' ');
+            }
+        }
+        out.println(format == Format.CSV ? line : line.toString().trim());
+    }
+
+    /**
+     * Quotes a CSV value if it contains a comma, a quote, or a line break.
+     * @param value The value to quote
+     * @return The value as it should be written in the CSV
+     */
+    private static String quoteCsv(String value)
+    {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1 &&
+                value.indexOf('\n') == -1)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Formats a number of hours with two decimals.
+     * @param hours The number of hours
+     * @return The formatted hours
+     */
+    private static String formatHours(double hours)
+    {
+        return String.format(Locale.US, "%.2f", hours);
+    }
+}
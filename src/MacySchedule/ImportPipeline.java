@@ -0,0 +1,437 @@
+package MacySchedule;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This is an import of schedule pages in four stages that run at the same time:
+ *   READ       reads each page file into memory
+ *   TOKENIZE   reads the week and department of a page and finds its employee rows
+ *   DECODE     creates the employees of batches of rows
+ *   AGGREGATE  adds the employees of a page to its week schedule, in the order of the
+ *              page, and gives the week schedule to the sink once the page is done
+ * Each stage has its own number of workers and takes its work from a bounded queue, so
+ * reading files overlaps with decoding rows, and a stage that falls behind (such as a
+ * slow sink) makes the stages before it wait instead of filling the memory with pages.
+ * The depth of each queue and the time each stage waited on the next one are kept for
+ * tuning the number of workers.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ImportPipeline
+{
+    /** The stages of the import. */
+    public enum Stage { READ, TOKENIZE, DECODE, AGGREGATE }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Object END = new Object(); //no more work for a worker
+
+    private final StringPool stringPool;
+    private final int[] workers;
+    private int queueCapacity;
+    private int batchSize;
+    private final List<String> failures;
+    private StageMetrics[] metrics;
+
+    /**
+     * Constructs the pipeline with one worker for each stage except DECODE, which has a
+     * worker for each processor.
+     * @param stringPool The pool of the names, notes and departments of the pages
+     */
+    public ImportPipeline(StringPool stringPool)
+    {
+        this.stringPool = stringPool;
+        workers = new int[STAGES.length];
+        for (Stage stage : STAGES)
+            workers[stage.ordinal()] = 1;
+        workers[Stage.DECODE.ordinal()] = Runtime.getRuntime().availableProcessors();
+        queueCapacity = 64;
+        batchSize = 256;
+        failures = Collections.synchronizedList(new ArrayList<>());
+        metrics = new StageMetrics[STAGES.length];
+        for (Stage stage : STAGES) //empty metrics until the first run
+            metrics[stage.ordinal()] = new StageMetrics(stage, workers[stage.ordinal()],
+                    queueCapacity);
+    }
+
+    /**
+     * Sets the number of workers of a stage.
+     * @param stage The stage
+     * @param count The number of workers (at least 1)
+     */
+    public void setWorkers(Stage stage, int count)
+    {
+        if (count < 1)
+            throw new IllegalArgumentException("A stage needs at least one worker");
+        workers[stage.ordinal()] = count;
+    }
+
+    /**
+     * Sets the capacity of the queue in front of each stage. The queue of the TOKENIZE
+     * stage holds whole pages and the other queues hold batches of rows.
+     * @param capacity The most items waiting for each stage
+     */
+    public void setQueueCapacity(int capacity)
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException("A queue needs room for one item");
+        queueCapacity = capacity;
+    }
+
+    /**
+     * Sets the number of rows decoded together by a DECODE worker.
+     * @param rows The rows in a batch
+     */
+    public void setBatchSize(int rows)
+    {
+        if (rows < 1)
+            throw new IllegalArgumentException("A batch needs at least one row");
+        batchSize = rows;
+    }
+
+    /**
+     * Imports pages and gives the week schedule of each page to a sink once all of its
+     * employees are added. The sink is called by the AGGREGATE workers in the order the
+     * pages are done, which may not be the order of the files. Pages that cannot be read
+     * are skipped and listed by getFailures.
+     * @param pages The page files to import
+     * @param sink The consumer of the week schedules, such as a store or a report
+     * @throws InterruptedException If the thread is interrupted while waiting for the
+     *                              import, which stops the workers
+     */
+    public void run(List<File> pages, Consumer<WeekSchedule> sink)
+            throws InterruptedException
+    {
+        failures.clear();
+        metrics = new StageMetrics[STAGES.length];
+        for (Stage stage : STAGES)
+            metrics[stage.ordinal()] = new StageMetrics(stage, workers[stage.ordinal()],
+                    stage == Stage.READ ? Math.max(pages.size(), 1) : queueCapacity);
+        metrics[Stage.READ.ordinal()].queue.addAll(pages); //all of the files to read
+        List<Thread> threads = new ArrayList<>();
+        for (Stage stage : STAGES)
+        {
+            for (int i = 0; i < workers[stage.ordinal()]; i++)
+            {
+                Thread thread = new Thread(() -> work(stage, sink),
+                        "import-" + stage.name().toLowerCase() + "-" + i);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        try
+        {
+            for (Thread thread : threads)
+                thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            for (Thread thread : threads)
+                thread.interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the pages that could not be imported by the last run.
+     * @return The file of each failed page with the reason
+     */
+    public List<String> getFailures() { return new ArrayList<>(failures); }
+
+    /**
+     * Retrieves the metrics of a stage of the last run. The metrics are updated while
+     * the import runs.
+     * @param stage The stage
+     * @return The metrics of the stage
+     */
+    public StageMetrics getMetrics(Stage stage) { return metrics[stage.ordinal()]; }
+
+    /**
+     * Runs a worker of a stage until the stage before it has no more work (or, for the
+     * READ stage, until there are no more files).
+     * @param stage The stage of the worker
+     * @param sink The consumer of the week schedules, for the AGGREGATE stage
+     */
+    private void work(Stage stage, Consumer<WeekSchedule> sink)
+    {
+        StageMetrics current = metrics[stage.ordinal()];
+        StageMetrics next = stage == Stage.AGGREGATE ? null :
+                metrics[stage.ordinal() + 1];
+        try
+        {
+            while (true)
+            {
+                Object item = stage == Stage.READ ? current.queue.poll() :
+                        current.queue.take();
+                if (item == null || item == END)
+                    break;
+                long start = System.nanoTime();
+                switch (stage)
+                {
+                    case READ:
+                        read((File) item, next);
+                        break;
+                    case TOKENIZE:
+                        tokenize((PageWork) item, next);
+                        break;
+                    case DECODE:
+                        decode((RowBatch) item, next);
+                        break;
+                    default:
+                        aggregate((RowBatch) item, sink);
+                }
+                current.processed.incrementAndGet();
+                current.busyNanos.addAndGet(System.nanoTime() - start);
+            }
+            //the last worker of a stage tells the workers of the next stage to stop
+            if (current.running.decrementAndGet() == 0 && next != null)
+            {
+                for (int i = 0; i < next.workers; i++)
+                    next.put(END);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads a page file into memory.
+     * @param file The page file
+     * @param next The metrics and queue of the TOKENIZE stage
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    private void read(File file, StageMetrics next) throws InterruptedException
+    {
+        try
+        {
+            next.put(new PageWork(file, Files.readAllBytes(file.toPath())));
+        }
+        catch (IOException e)
+        {
+            failures.add(file + ": " + e);
+        }
+    }
+
+    /**
+     * Reads the header of a page and finds its rows, then queues the rows in batches.
+     * @param page The page read into memory
+     * @param next The metrics and queue of the DECODE stage
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    private void tokenize(PageWork page, StageMetrics next) throws InterruptedException
+    {
+        List<int[]> rows = new ArrayList<>();
+        try
+        {
+            page.reader = new SchedulePageReader(page.bytes, stringPool, rows);
+        }
+        catch (RuntimeException e)
+        {
+            failures.add(page.file + ": " + e);
+            return;
+        }
+        page.employees = new Employee[rows.size()];
+        int numBatches = (rows.size() + batchSize - 1) / batchSize;
+        page.remainingBatches = new AtomicInteger(numBatches);
+        if (numBatches == 0) //no rows: the page is done
+            next.put(new RowBatch(page, 0, new int[0][]));
+        for (int first = 0; first < rows.size(); first += batchSize)
+        {
+            int last = Math.min(first + batchSize, rows.size());
+            next.put(new RowBatch(page, first, rows.subList(first, last)
+                    .toArray(new int[0][])));
+        }
+    }
+
+    /**
+     * Creates the employees of a batch of rows.
+     * @param batch The batch of rows
+     * @param next The metrics and queue of the AGGREGATE stage
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    private void decode(RowBatch batch, StageMetrics next) throws InterruptedException
+    {
+        Employee[] employees = batch.page.employees;
+        try
+        {
+            for (int i = 0; i < batch.rows.length; i++)
+                employees[batch.first + i] = batch.page.reader.decodeRow(batch.rows[i]);
+        }
+        catch (RuntimeException e)
+        {
+            batch.page.failed = true;
+            failures.add(batch.page.file + ": " + e);
+        }
+        next.put(batch);
+    }
+
+    /**
+     * Counts a decoded batch of a page, and adds the employees of the page to its week
+     * schedule once every batch of the page is decoded.
+     * @param batch The decoded batch
+     * @param sink The consumer of the week schedules
+     */
+    private void aggregate(RowBatch batch, Consumer<WeekSchedule> sink)
+    {
+        PageWork page = batch.page;
+        if (batch.rows.length > 0 && page.remainingBatches.decrementAndGet() > 0)
+            return;
+        if (page.failed)
+            return;
+        WeekSchedule weekSchedule = page.reader.getWeekSchedule();
+        for (Employee employee : page.employees)
+            weekSchedule.addEmployee(employee);
+        try
+        {
+            sink.accept(weekSchedule);
+        }
+        catch (RuntimeException e)
+        {
+            failures.add(page.file + ": " + e);
+        }
+    }
+
+    /**
+     * This is a page moving through the pipeline.
+     */
+    private static final class PageWork
+    {
+        final File file;
+        final byte[] bytes;
+        SchedulePageReader reader;
+        Employee[] employees;
+        AtomicInteger remainingBatches;
+        volatile boolean failed;
+
+        PageWork(File file, byte[] bytes)
+        {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * This is a batch of rows of a page, from the row at index first.
+     */
+    private static final class RowBatch
+    {
+        final PageWork page;
+        final int first;
+        final int[][] rows;
+
+        RowBatch(PageWork page, int first, int[][] rows)
+        {
+            this.page = page;
+            this.first = first;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * These are the metrics of a stage: its workers, the depth of the queue in front of
+     * it, the items it processed and the time it spent processing them and waiting for
+     * room in the queue of the next stage.
+     */
+    public static final class StageMetrics
+    {
+        private final Stage stage;
+        private final int workers;
+        private final BlockingQueue<Object> queue;
+        private final AtomicInteger running;
+        private final AtomicInteger maxDepth;
+        private final AtomicLong processed;
+        private final AtomicLong busyNanos;
+        private final AtomicLong blockedNanos; //waiting on a full queue of this stage
+
+        StageMetrics(Stage stage, int workers, int queueCapacity)
+        {
+            this.stage = stage;
+            this.workers = workers;
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            running = new AtomicInteger(workers);
+            maxDepth = new AtomicInteger();
+            processed = new AtomicLong();
+            busyNanos = new AtomicLong();
+            blockedNanos = new AtomicLong();
+        }
+
+        /**
+         * Adds an item to the queue of the stage, waiting while the queue is full.
+         * @param item The item to add
+         * @throws InterruptedException If the thread is interrupted while waiting
+         */
+        void put(Object item) throws InterruptedException
+        {
+            if (!queue.offer(item))
+            {
+                long start = System.nanoTime();
+                queue.put(item);
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+            int depth = queue.size();
+            int max = maxDepth.get();
+            while (depth > max && !maxDepth.compareAndSet(max, depth))
+                max = maxDepth.get();
+        }
+
+        /**
+         * Retrieves the number of workers of the stage.
+         * @return The number of workers
+         */
+        public int getWorkers() { return workers; }
+
+        /**
+         * Retrieves the number of items waiting for the stage.
+         * @return The depth of the queue
+         */
+        public int getQueueDepth() { return queue.size(); }
+
+        /**
+         * Retrieves the most items that were waiting for the stage at once.
+         * @return The highest depth of the queue
+         */
+        public int getMaxQueueDepth() { return maxDepth.get(); }
+
+        /**
+         * Retrieves the number of items the stage processed (pages for READ and
+         * TOKENIZE, batches of rows for DECODE and AGGREGATE).
+         * @return The number of items processed
+         */
+        public long getProcessed() { return processed.get(); }
+
+        /**
+         * Retrieves the time the workers of the stage spent processing items.
+         * @return The time in nanoseconds
+         */
+        public long getBusyNanos() { return busyNanos.get(); }
+
+        /**
+         * Retrieves the time the stage before this one spent waiting for room in the
+         * queue of this stage, which is the backpressure of this stage.
+         * @return The time in nanoseconds
+         */
+        public long getBlockedNanos() { return blockedNanos.get(); }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: workers=%d, processed=%d, busy=%.1f ms, " +
+                    "queue=%d (max %d), backpressure=%.1f ms", stage, workers,
+                    processed.get(), busyNanos.get() / 1e6, queue.size(), maxDepth.get(),
+                    blockedNanos.get() / 1e6);
+        }
+    }
+}
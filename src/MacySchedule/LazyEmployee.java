@@ -0,0 +1,217 @@
+package MacySchedule;
+import java.util.ArrayList;
+
+/**
+ * This is an employee read by a SchedulePageReader in lazy mode. Only the name of the
+ * employee is read with the page; the schedule is read from the row of the employee
+ * the first time any part of the schedule is used or changed. Reading the schedule is
+ * thread-safe: if many threads use the employee at once, one reads the row and the
+ * others wait for it.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public final class LazyEmployee extends Employee
+{
+    private final StringPool stringPool; //of the reader of the page
+    private byte[] page; //released once the row is read
+    private final int rowStart;
+    private final int rowEnd;
+    private volatile boolean loaded;
+    private ArrayList<EmployeeListener> pendingListeners; //added before the row is read
+
+    /**
+     * Constructs an employee whose schedule is read later from its row of a page.
+     * @param firstName Employee's first name
+     * @param lastName Employee's last name
+     * @param middleName Employee's middle name (blank string if N/A)
+     * @param stringPool The pool of the notes and departments of the page
+     * @param page The page
+     * @param rowStart The index of the start of the row of the employee
+     * @param rowEnd The index of the end of the row of the employee
+     */
+    LazyEmployee(String firstName, String lastName, String middleName,
+                 StringPool stringPool, byte[] page, int rowStart, int rowEnd)
+    {
+        super(firstName, lastName, middleName);
+        this.stringPool = stringPool;
+        this.page = page;
+        this.rowStart = rowStart;
+        this.rowEnd = rowEnd;
+        loaded = false;
+    }
+
+    /**
+     * Checks if the schedule of the employee was read from its row.
+     * @return True if the schedule was read
+     */
+    public boolean isLoaded() { return loaded; }
+
+    /**
+     * Reads the schedule from the row of the employee if it was not read yet. The row
+     * is read into a new employee first, so if it cannot be read, nothing changes and
+     * it is read again the next time the schedule is used.
+     */
+    private void ensureLoaded()
+    {
+        if (loaded)
+            return;
+        synchronized (this)
+        {
+            if (loaded)
+                return;
+            Employee row = new Employee(getFirstName(), getLastName(), getMiddleName());
+            SchedulePageReader.loadRow(page, rowStart, rowEnd, stringPool, row);
+            takeSchedule(row);
+            page = null;
+            loaded = true;
+            if (pendingListeners != null)
+            {
+                for (EmployeeListener listener : pendingListeners)
+                    super.addEmployeeListener(listener);
+                pendingListeners = null;
+            }
+        }
+    }
+
+    @Override
+    public void addSeqSchedule(String department, int deptNum, String hours)
+    {
+        ensureLoaded();
+        super.addSeqSchedule(department, deptNum, hours);
+    }
+
+    @Override
+    public void addSeqSchedule(String note)
+    {
+        ensureLoaded();
+        super.addSeqSchedule(note);
+    }
+
+    @Override
+    public String[] getDaySchedule(int day)
+    {
+        ensureLoaded();
+        return super.getDaySchedule(day);
+    }
+
+    @Override
+    public void changeDayScheduledHours(int day, String hours)
+    {
+        ensureLoaded();
+        super.changeDayScheduledHours(day, hours);
+    }
+
+    @Override
+    public void addHoursAtDay(int day, String dept, int deptNum, String hours)
+    {
+        ensureLoaded();
+        super.addHoursAtDay(day, dept, deptNum, hours);
+    }
+
+    @Override
+    public void setDayNote(int day, String note)
+    {
+        ensureLoaded();
+        super.setDayNote(day, note);
+    }
+
+    @Override
+    public String getDayDepartment(int day)
+    {
+        ensureLoaded();
+        return super.getDayDepartment(day);
+    }
+
+    @Override
+    public double getDayTotalHours(int day)
+    {
+        ensureLoaded();
+        return super.getDayTotalHours(day);
+    }
+
+    @Override
+    public int getDayDeptNum(int day)
+    {
+        ensureLoaded();
+        return super.getDayDeptNum(day);
+    }
+
+    @Override
+    public Time getDayStartTime(int day)
+    {
+        ensureLoaded();
+        return super.getDayStartTime(day);
+    }
+
+    @Override
+    public Time getDayEndTime(int day)
+    {
+        ensureLoaded();
+        return super.getDayEndTime(day);
+    }
+
+    /**
+     * Retrieves the version of the schedule. The schedule is read first, so the
+     * version does not change when the row is read.
+     * @return The version of the schedule
+     */
+    @Override
+    public int getVersion()
+    {
+        ensureLoaded();
+        return super.getVersion();
+    }
+
+    /**
+     * Adds a listener that is notified whenever a day of the schedule changes. If the
+     * schedule was not read yet, the listener is added once the row is read, so it is
+     * not notified of the days of the row and adding it does not read the row.
+     * @param listener The listener to add
+     */
+    @Override
+    public void addEmployeeListener(EmployeeListener listener)
+    {
+        synchronized (this)
+        {
+            if (!loaded)
+            {
+                if (pendingListeners == null)
+                    pendingListeners = new ArrayList<>();
+                pendingListeners.add(listener);
+                return;
+            }
+        }
+        super.addEmployeeListener(listener);
+    }
+
+    /**
+     * Removes a listener that was added to the employee.
+     * @param listener The listener to remove
+     */
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener)
+    {
+        synchronized (this)
+        {
+            if (pendingListeners != null && pendingListeners.remove(listener))
+                return;
+        }
+        super.removeEmployeeListener(listener);
+    }
+
+    @Override
+    public double getWeekTotalHours()
+    {
+        ensureLoaded();
+        return super.getWeekTotalHours();
+    }
+
+    @Override
+    public double getWeekDeptHours(int deptNum)
+    {
+        ensureLoaded();
+        return super.getWeekDeptHours(deptNum);
+    }
+}
@@ -0,0 +1,386 @@
+package MacySchedule;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * This is a store of the work days of many week schedules kept outside of the Java heap
+ * in direct byte buffers, for audits over years of schedules. Each work day is a fixed
+ * size record (employee id, date, start and end minute, department id, note id and paid
+ * minutes) in chunks of direct memory that are allocated as the store grows, so the
+ * garbage collector only sees a few buffer objects no matter how many work days are
+ * stored. Only the ids of the employees, departments and notes are kept on the heap.
+ *
+ * The records are read with a Cursor or with the aggregations of the store, which read
+ * the fields straight from the buffers without creating Employee or WorkDay objects.
+ * The ids and the values of the fields are the same as those of a ShiftTable.
+ *
+ * The store must not be changed while it is being read.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class OffHeapShiftStore
+{
+    private static final int WEEK_LENGTH = 7;
+    private static final int RECORD_SIZE = 24; //bytes
+    private static final int EMPLOYEE_OFFSET = 0; //int
+    private static final int DATE_OFFSET = 4; //int, days since 1970-01-01
+    private static final int START_OFFSET = 8; //short, minutes since midnight
+    private static final int END_OFFSET = 10; //short
+    private static final int DEPT_OFFSET = 12; //int
+    private static final int NOTE_OFFSET = 16; //int
+    private static final int PAID_OFFSET = 20; //int, minutes
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT; //records per chunk
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private final ArrayList<ByteBuffer> chunks;
+    private long size;
+    private final ArrayList<String> employeeKeys;
+    private final HashMap<String, Integer> employeeIdsByKey;
+    private final ArrayList<Integer> deptNums;
+    private final HashMap<Integer, Integer> deptIdsByNum;
+    private final ArrayList<String> notes;
+    private final HashMap<String, Integer> noteIdsByText;
+
+    /**
+     * Constructs an empty store. No direct memory is allocated until a record is added.
+     */
+    public OffHeapShiftStore()
+    {
+        chunks = new ArrayList<>();
+        size = 0;
+        employeeKeys = new ArrayList<>();
+        employeeIdsByKey = new HashMap<>();
+        deptNums = new ArrayList<>();
+        deptIdsByNum = new HashMap<>();
+        notes = new ArrayList<>();
+        noteIdsByText = new HashMap<>();
+    }
+
+    /**
+     * Adds a record for every scheduled day of every employee of a week schedule.
+     * @param weekSchedule The week schedule to add
+     */
+    public void addWeekSchedule(WeekSchedule weekSchedule)
+    {
+        int[] startWeek = weekSchedule.getStartWeek(); //{month, day, year}
+        int startDate = (int) LocalDate.of(startWeek[2], startWeek[0], startWeek[1])
+                .toEpochDay();
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            addEmployee(employees[i], startDate);
+    }
+
+    /**
+     * Adds a record for every scheduled day of an employee.
+     * @param employee The employee to add
+     * @param startDate The date of the first day of the week (days since 1970-01-01)
+     */
+    public void addEmployee(Employee employee, int startDate)
+    {
+        int employeeId = ShiftTable.findId(employee.getNameKey(), employeeKeys,
+                employeeIdsByKey);
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            String[] daySchedule = employee.getDaySchedule(day);
+            int deptNum = employee.getDayDeptNum(day);
+            Time start = employee.getDayStartTime(day);
+            Time end = employee.getDayEndTime(day);
+            if (deptNum < 0 && daySchedule[0].isEmpty())
+                continue; //nothing scheduled for the day
+            int deptId = deptNum < 0 ? ShiftTable.NO_ID :
+                    ShiftTable.findId(deptNum, deptNums, deptIdsByNum);
+            int noteId = deptNum < 0 ?
+                    ShiftTable.findId(daySchedule[0], notes, noteIdsByText) :
+                    ShiftTable.NO_ID;
+            int startMinute = start == null ? ShiftTable.NO_TIME :
+                    ShiftTable.toMinutes(start);
+            int endMinute = end == null ? ShiftTable.NO_TIME : ShiftTable.toMinutes(end);
+            addRecord(employeeId, deptId, startDate + day, startMinute, endMinute,
+                    noteId);
+        }
+    }
+
+    /**
+     * Adds a record to the store. The paid minutes are calculated from the hours.
+     * @param employeeId The id of the employee
+     * @param deptId The id of the department, or ShiftTable.NO_ID
+     * @param date The date of the day (days since 1970-01-01)
+     * @param startMinute The start of the hours (minutes since midnight), or
+     *                    ShiftTable.NO_TIME
+     * @param endMinute The end of the hours (minutes since midnight), or
+     *                  ShiftTable.NO_TIME
+     * @param noteId The id of the note, or ShiftTable.NO_ID
+     */
+    private void addRecord(int employeeId, int deptId, int date, int startMinute,
+                           int endMinute, int noteId)
+    {
+        int chunkIndex = (int) (size >>> CHUNK_SHIFT);
+        if (chunkIndex == chunks.size())
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE)
+                    .order(ByteOrder.nativeOrder()));
+        ByteBuffer chunk = chunks.get(chunkIndex);
+        int offset = (int) (size & CHUNK_MASK) * RECORD_SIZE;
+        chunk.putInt(offset + EMPLOYEE_OFFSET, employeeId);
+        chunk.putInt(offset + DATE_OFFSET, date);
+        chunk.putShort(offset + START_OFFSET, (short) startMinute);
+        chunk.putShort(offset + END_OFFSET, (short) endMinute);
+        chunk.putInt(offset + DEPT_OFFSET, deptId);
+        chunk.putInt(offset + NOTE_OFFSET, noteId);
+        chunk.putInt(offset + PAID_OFFSET,
+                PaidHoursKernel.paidMinutes(startMinute, endMinute));
+        size++;
+    }
+
+    /**
+     * Removes all of the records. The direct memory of the chunks is kept and reused
+     * by the records added after, and the ids of the employees, departments and notes
+     * are kept.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of records in the store.
+     * @return The number of records
+     */
+    public long size() { return size; }
+
+    /**
+     * Retrieves the amount of direct memory allocated by the store.
+     * @return The number of bytes of direct memory
+     */
+    public long getOffHeapBytes()
+    {
+        return (long) chunks.size() * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Retrieves a cursor positioned before the first record.
+     * @return The cursor
+     */
+    public Cursor cursor() { return new Cursor(); }
+
+    /**
+     * Retrieves the number of different employees in the store.
+     * @return The number of employees
+     */
+    public int getNumEmployees() { return employeeKeys.size(); }
+
+    /**
+     * Retrieves the name key of an employee id.
+     * @param employeeId The id of the employee
+     * @return The name key of the employee
+     */
+    public String getEmployeeKey(int employeeId) { return employeeKeys.get(employeeId); }
+
+    /**
+     * Retrieves the number of different departments in the store.
+     * @return The number of departments
+     */
+    public int getNumDepartments() { return deptNums.size(); }
+
+    /**
+     * Retrieves the department number of a department id.
+     * @param deptId The id of the department
+     * @return The reference number for the department
+     */
+    public int getDeptNum(int deptId) { return deptNums.get(deptId); }
+
+    /**
+     * Retrieves the text of a note id.
+     * @param noteId The id of the note
+     * @return The text of the note
+     */
+    public String getNote(int noteId) { return notes.get(noteId); }
+
+    /**
+     * Sums the paid minutes of the records of a range of dates by employee. The chunks
+     * are summed in parallel.
+     * @param fromDate The first date to count (days since 1970-01-01)
+     * @param toDate The date after the last date to count
+     * @return The paid minutes of each employee id
+     */
+    public long[] sumPaidByEmployee(int fromDate, int toDate)
+    {
+        return sumPaidBy(EMPLOYEE_OFFSET, getNumEmployees(), fromDate, toDate);
+    }
+
+    /**
+     * Sums the paid minutes of the records of a range of dates by department. Records
+     * without a department have no paid minutes, so they are not counted.
+     * @param fromDate The first date to count (days since 1970-01-01)
+     * @param toDate The date after the last date to count
+     * @return The paid minutes of each department id
+     */
+    public long[] sumPaidByDepartment(int fromDate, int toDate)
+    {
+        return sumPaidBy(DEPT_OFFSET, getNumDepartments(), fromDate, toDate);
+    }
+
+    /**
+     * Counts the records of a range of dates with a note, such as PTO.
+     * @param noteId The id of the note
+     * @param fromDate The first date to count (days since 1970-01-01)
+     * @param toDate The date after the last date to count
+     * @return The number of records with the note
+     */
+    public long countNote(int noteId, int fromDate, int toDate)
+    {
+        long count = 0;
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); chunkIndex++)
+        {
+            ByteBuffer chunk = chunks.get(chunkIndex);
+            int end = chunkSize(chunkIndex) * RECORD_SIZE;
+            for (int offset = 0; offset < end; offset += RECORD_SIZE)
+            {
+                int date = chunk.getInt(offset + DATE_OFFSET);
+                if (chunk.getInt(offset + NOTE_OFFSET) == noteId && date >= fromDate &&
+                        date < toDate)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums the paid minutes of the records of a range of dates by an id field.
+     * @param idOffset The offset of the id field in the record
+     * @param numIds The number of different ids
+     * @param fromDate The first date to count (days since 1970-01-01)
+     * @param toDate The date after the last date to count
+     * @return The paid minutes of each id
+     */
+    private long[] sumPaidBy(int idOffset, int numIds, int fromDate, int toDate)
+    {
+        IntStream chunkStream = IntStream.range(0, chunks.size());
+        if (chunks.size() > 1)
+            chunkStream = chunkStream.parallel();
+        return chunkStream.collect(() -> new long[numIds],
+                (sums, chunkIndex) -> sumChunk(chunkIndex, idOffset, fromDate, toDate,
+                        sums),
+                (sums, other) -> {
+                    for (int id = 0; id < numIds; id++)
+                        sums[id] += other[id];
+                });
+    }
+
+    /**
+     * Adds the paid minutes of the records of a chunk to the sums of their ids.
+     * @param chunkIndex The index of the chunk
+     * @param idOffset The offset of the id field in the record
+     * @param fromDate The first date to count (days since 1970-01-01)
+     * @param toDate The date after the last date to count
+     * @param sums The sums of each id
+     */
+    private void sumChunk(int chunkIndex, int idOffset, int fromDate, int toDate,
+                          long[] sums)
+    {
+        ByteBuffer chunk = chunks.get(chunkIndex); //absolute reads, safe to share
+        int end = chunkSize(chunkIndex) * RECORD_SIZE;
+        for (int offset = 0; offset < end; offset += RECORD_SIZE)
+        {
+            int date = chunk.getInt(offset + DATE_OFFSET);
+            int id = chunk.getInt(offset + idOffset);
+            if (id >= 0 && date >= fromDate && date < toDate)
+                sums[id] += chunk.getInt(offset + PAID_OFFSET);
+        }
+    }
+
+    /**
+     * Retrieves the number of records in a chunk.
+     * @param chunkIndex The index of the chunk
+     * @return The number of records
+     */
+    private int chunkSize(int chunkIndex)
+    {
+        long first = (long) chunkIndex << CHUNK_SHIFT;
+        return (int) Math.max(0, Math.min(CHUNK_RECORDS, size - first));
+    }
+
+    /**
+     * This is a cursor over the records of the store. The cursor starts before the first
+     * record; each call to next moves it to the following record, and the fields of that
+     * record are read from the direct memory when they are retrieved.
+     */
+    public class Cursor
+    {
+        private long index = -1;
+        private ByteBuffer chunk;
+        private int offset;
+
+        /**
+         * Moves the cursor to the next record.
+         * @return True if there is a next record; false if the cursor is past the end
+         */
+        public boolean next()
+        {
+            if (index + 1 >= size)
+            {
+                index = size;
+                return false;
+            }
+            index++;
+            chunk = chunks.get((int) (index >>> CHUNK_SHIFT));
+            offset = (int) (index & CHUNK_MASK) * RECORD_SIZE;
+            return true;
+        }
+
+        /**
+         * Retrieves the index of the current record.
+         * @return The index of the record
+         */
+        public long getIndex() { return index; }
+
+        /**
+         * Retrieves the employee id of the current record.
+         * @return The id of the employee
+         */
+        public int getEmployeeId() { return chunk.getInt(offset + EMPLOYEE_OFFSET); }
+
+        /**
+         * Retrieves the date of the current record.
+         * @return The date of the day (days since 1970-01-01)
+         */
+        public int getDate() { return chunk.getInt(offset + DATE_OFFSET); }
+
+        /**
+         * Retrieves the start minute of the current record.
+         * @return The start of the hours in minutes since midnight, or
+         *         ShiftTable.NO_TIME
+         */
+        public int getStartMinute() { return chunk.getShort(offset + START_OFFSET); }
+
+        /**
+         * Retrieves the end minute of the current record.
+         * @return The end of the hours in minutes since midnight, or ShiftTable.NO_TIME
+         */
+        public int getEndMinute() { return chunk.getShort(offset + END_OFFSET); }
+
+        /**
+         * Retrieves the department id of the current record.
+         * @return The id of the department, or ShiftTable.NO_ID for a note
+         */
+        public int getDeptId() { return chunk.getInt(offset + DEPT_OFFSET); }
+
+        /**
+         * Retrieves the note id of the current record.
+         * @return The id of the note, or ShiftTable.NO_ID if the day has a department
+         */
+        public int getNoteId() { return chunk.getInt(offset + NOTE_OFFSET); }
+
+        /**
+         * Retrieves the paid minutes of the current record.
+         * @return The paid minutes of the work day
+         */
+        public int getPaidMinutes() { return chunk.getInt(offset + PAID_OFFSET); }
+    }
+}
@@ -0,0 +1,149 @@
+package MacySchedule;
+import java.util.stream.IntStream;
+
+/**
+ * This is a class for calculating the paid hours of many work days at once from the
+ * primitive columns of a ShiftTable. The calculation is done in whole minutes (hours
+ * that end at or before they start end the next day, and the unpaid meal time is taken
+ * out: 1 hour for 7.5 hours or more, 30 minutes for 5 hours or more), and the WorkDay of
+ * an Employee uses it for each work day, so both give exactly the same result for every
+ * work day no matter how the days are summed.
+ *
+ * The bulk calculation has no branches in its loop (the conditions are turned into bit
+ * masks), so the JIT compiler can use the processor's vector (SIMD) instructions for
+ * it. Large tables are split into blocks that are calculated in parallel.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class PaidHoursKernel
+{
+    private static final int DAY_MINUTES = 24 * 60;
+    private static final int MIN_WORKED_FOR_FULL_MEAL = 450; //7.5 hours in minutes
+    private static final int MIN_WORKED_FOR_HALF_MEAL = 300; //5 hours in minutes
+    private static final int FULL_MEAL_MINUTES = 60;
+    private static final int HALF_MEAL_MINUTES = 30;
+    private static final int PARALLEL_BLOCK = 1 << 16; //rows per parallel block
+
+    private PaidHoursKernel() {}
+
+    /**
+     * Calculates the paid minutes of a single work day. This is the calculation of
+     * WorkDay.
+     * @param startMinute The start of the hours in minutes since midnight, or negative
+     *                    if there are no hours
+     * @param endMinute The end of the hours in minutes since midnight
+     * @return The paid minutes of the work day
+     */
+    public static int paidMinutes(int startMinute, int endMinute)
+    {
+        if (startMinute < 0)
+            return 0;
+        int worked = endMinute - startMinute;
+        if (worked <= 0)
+            worked += DAY_MINUTES;
+        if (worked >= MIN_WORKED_FOR_FULL_MEAL)
+            worked -= FULL_MEAL_MINUTES;
+        else if (worked >= MIN_WORKED_FOR_HALF_MEAL)
+            worked -= HALF_MEAL_MINUTES;
+        return worked;
+    }
+
+    /**
+     * Calculates the paid minutes of a range of rows without branches.
+     * @param startMinutes The start minute of each row (negative if no hours)
+     * @param endMinutes The end minute of each row
+     * @param paid The array to store the paid minutes of each row in
+     * @param from The first row to calculate
+     * @param to The row after the last row to calculate
+     */
+    public static void paidMinutes(int[] startMinutes, int[] endMinutes, int[] paid,
+                                   int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            int start = startMinutes[i];
+            int worked = endMinutes[i] - start;
+            worked += DAY_MINUTES & ((worked - 1) >> 31); //ends the next day if <= 0
+            int fullMeal = (MIN_WORKED_FOR_FULL_MEAL - 1 - worked) >> 31; //-1 if >= 7.5h
+            int halfMeal = (MIN_WORKED_FOR_HALF_MEAL - 1 - worked) >> 31; //-1 if >= 5h
+            worked -= (FULL_MEAL_MINUTES & fullMeal) |
+                    (HALF_MEAL_MINUTES & halfMeal & ~fullMeal);
+            paid[i] = worked & ~(start >> 31); //0 if there are no hours
+        }
+    }
+
+    /**
+     * Calculates the paid minutes of every row of a table.
+     * @param table The table of work days
+     * @return The paid minutes of each row
+     */
+    public static int[] paidMinutes(ShiftTable table)
+    {
+        int size = table.size();
+        int[] startMinutes = table.getStartMinutes();
+        int[] endMinutes = table.getEndMinutes();
+        int[] paid = new int[size];
+        int blocks = (size + PARALLEL_BLOCK - 1) / PARALLEL_BLOCK;
+        IntStream blockStream = IntStream.range(0, blocks);
+        if (blocks > 1)
+            blockStream = blockStream.parallel();
+        blockStream.forEach(block -> paidMinutes(startMinutes, endMinutes, paid,
+                block * PARALLEL_BLOCK, Math.min(size, (block + 1) * PARALLEL_BLOCK)));
+        return paid;
+    }
+
+    /**
+     * Sums the paid minutes of every row of a table by employee.
+     * @param table The table of work days
+     * @param paid The paid minutes of each row (from paidMinutes)
+     * @return The paid minutes of each employee id
+     */
+    public static long[] sumByEmployee(ShiftTable table, int[] paid)
+    {
+        return sumBy(table.getEmployeeIds(), table.getNumEmployees(), paid, table.size());
+    }
+
+    /**
+     * Sums the paid minutes of every row of a table by department. Rows without a
+     * department have no paid minutes, so they are not counted.
+     * @param table The table of work days
+     * @param paid The paid minutes of each row (from paidMinutes)
+     * @return The paid minutes of each department id
+     */
+    public static long[] sumByDepartment(ShiftTable table, int[] paid)
+    {
+        return sumBy(table.getDeptIds(), table.getNumDepartments(), paid, table.size());
+    }
+
+    /**
+     * Converts paid minutes to hours.
+     * @param minutes The paid minutes
+     * @return The paid hours
+     */
+    public static double toHours(long minutes)
+    {
+        return minutes / 60.0;
+    }
+
+    /**
+     * Sums values by an id column.
+     * @param ids The id of each row
+     * @param numIds The number of different ids
+     * @param values The value of each row
+     * @param size The number of rows
+     * @return The sum of the values of each id
+     */
+    private static long[] sumBy(int[] ids, int numIds, int[] values, int size)
+    {
+        long[] sums = new long[numIds];
+        for (int i = 0; i < size; i++)
+        {
+            int id = ids[i];
+            if (id >= 0)
+                sums[id] += values[i];
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,386 @@
+package MacySchedule;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is a rollup of the paid minutes of many weeks of schedules per employee, per
+ * department and for the whole store, for payroll periods that are longer than a week
+ * (biweekly pay periods, months and quarters) or any other range of dates.
+ *
+ * The paid minutes of each day are kept in a Fenwick tree (binary indexed tree) per
+ * employee and per department, so the total of any range of dates is found in
+ * logarithmic time instead of by adding the days or weeks one by one. Importing a week
+ * again (after its schedule page changed) only updates the days that changed, by the
+ * difference from the minutes that were imported before.
+ *
+ * Each week schedule imported is kept apart by its week and department, and importing
+ * the same week and department again replaces it. Pages of different departments that
+ * show the same days of an employee would count those days twice, so such pages should
+ * be merged with EmployeeMerger and imported as store-level week schedules.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class PayrollRollup
+{
+    /** The kinds of periods that the totals can be found for. */
+    public enum Period
+    {
+        /** Two weeks, starting on the first day of a pay period. */
+        PAY_PERIOD,
+        /** A calendar month. */
+        MONTH,
+        /** Three calendar months starting in January, April, July or October. */
+        QUARTER
+    }
+
+    private static final int WEEK_LENGTH = 7;
+    private static final int PAY_PERIOD_DAYS = 14;
+    private static final int MONTHS_IN_QUARTER = 3;
+
+    private final LocalDate payPeriodStart;
+    private final HashMap<String, FenwickTree> employeeMinutes; //by name key
+    private final HashMap<Integer, FenwickTree> deptMinutes; //by department number
+    private final FenwickTree storeMinutes;
+    private final HashMap<String, WeekMinutes> imported; //by week range and department
+
+    /**
+     * Constructs an empty rollup.
+     * @param payPeriodStart The first day of any pay period, which sets the days that
+     *                       all of the biweekly pay periods start on
+     */
+    public PayrollRollup(LocalDate payPeriodStart)
+    {
+        this.payPeriodStart = payPeriodStart;
+        employeeMinutes = new HashMap<>();
+        deptMinutes = new HashMap<>();
+        storeMinutes = new FenwickTree();
+        imported = new HashMap<>();
+    }
+
+    /**
+     * Imports the paid minutes of a week schedule, replacing the week schedule of the
+     * same week and department imported before. Only the days that changed are updated.
+     * @param weekSchedule The week schedule to import
+     */
+    public synchronized void importWeek(WeekSchedule weekSchedule)
+    {
+        int[] startWeek = weekSchedule.getStartWeek(); //{month, day, year}
+        long startDay = LocalDate.of(startWeek[2], startWeek[0], startWeek[1])
+                .toEpochDay();
+        WeekMinutes week = new WeekMinutes(startDay);
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            week.add(employees[i]);
+        String importKey = weekSchedule.getWeekRange() + "|" + weekSchedule.getDeptNum();
+        WeekMinutes old = imported.put(importKey, week);
+        applyDifference(old == null ? new WeekMinutes(startDay) : old, week);
+    }
+
+    /**
+     * Removes the paid minutes of a week schedule that was imported.
+     * @param weekRange The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     * @param deptNum The reference number for the department of the week schedule
+     * @return True if the week schedule was removed; false if it was not imported
+     */
+    public synchronized boolean removeWeek(String weekRange, int deptNum)
+    {
+        WeekMinutes old = imported.remove(weekRange + "|" + deptNum);
+        if (old == null)
+            return false;
+        applyDifference(old, new WeekMinutes(old.startDay));
+        return true;
+    }
+
+    /**
+     * Retrieves the paid minutes of an employee over a range of dates.
+     * @param nameKey The name key of the employee
+     * @param from The first date of the range
+     * @param to The date after the last date of the range
+     * @return The paid minutes
+     */
+    public synchronized long getEmployeeMinutes(String nameKey, LocalDate from,
+                                                LocalDate to)
+    {
+        FenwickTree tree = employeeMinutes.get(nameKey);
+        return tree == null ? 0 : tree.sum(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Retrieves the paid minutes of a department over a range of dates.
+     * @param deptNum The reference number for the department
+     * @param from The first date of the range
+     * @param to The date after the last date of the range
+     * @return The paid minutes
+     */
+    public synchronized long getDepartmentMinutes(int deptNum, LocalDate from,
+                                                  LocalDate to)
+    {
+        FenwickTree tree = deptMinutes.get(deptNum);
+        return tree == null ? 0 : tree.sum(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Retrieves the paid minutes of the whole store over a range of dates.
+     * @param from The first date of the range
+     * @param to The date after the last date of the range
+     * @return The paid minutes
+     */
+    public synchronized long getStoreMinutes(LocalDate from, LocalDate to)
+    {
+        return storeMinutes.sum(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Retrieves the paid minutes of an employee in the period that contains a date.
+     * @param nameKey The name key of the employee
+     * @param period The kind of period
+     * @param date A date in the period
+     * @return The paid minutes
+     */
+    public long getEmployeeMinutes(String nameKey, Period period, LocalDate date)
+    {
+        LocalDate start = getPeriodStart(period, date);
+        return getEmployeeMinutes(nameKey, start, getPeriodEnd(period, start));
+    }
+
+    /**
+     * Retrieves the paid minutes of a department in the period that contains a date.
+     * @param deptNum The reference number for the department
+     * @param period The kind of period
+     * @param date A date in the period
+     * @return The paid minutes
+     */
+    public long getDepartmentMinutes(int deptNum, Period period, LocalDate date)
+    {
+        LocalDate start = getPeriodStart(period, date);
+        return getDepartmentMinutes(deptNum, start, getPeriodEnd(period, start));
+    }
+
+    /**
+     * Retrieves the first day of the period that contains a date.
+     * @param period The kind of period
+     * @param date A date in the period
+     * @return The first day of the period
+     */
+    public LocalDate getPeriodStart(Period period, LocalDate date)
+    {
+        switch (period)
+        {
+            case PAY_PERIOD:
+                long days = ChronoUnit.DAYS.between(payPeriodStart, date);
+                return date.minusDays(Math.floorMod(days, PAY_PERIOD_DAYS));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                int firstMonth = (date.getMonthValue() - 1) / MONTHS_IN_QUARTER *
+                        MONTHS_IN_QUARTER + 1;
+                return LocalDate.of(date.getYear(), firstMonth, 1);
+        }
+    }
+
+    /**
+     * Retrieves the day after the last day of a period.
+     * @param period The kind of period
+     * @param start The first day of the period
+     * @return The day after the period
+     */
+    public static LocalDate getPeriodEnd(Period period, LocalDate start)
+    {
+        switch (period)
+        {
+            case PAY_PERIOD:
+                return start.plusDays(PAY_PERIOD_DAYS);
+            case MONTH:
+                return start.plusMonths(1);
+            default:
+                return start.plusMonths(MONTHS_IN_QUARTER);
+        }
+    }
+
+    /**
+     * Updates the trees from the paid minutes of a week imported before to the paid
+     * minutes of the same week imported again. Only the days whose minutes are
+     * different are updated.
+     * @param old The paid minutes imported before
+     * @param week The paid minutes imported now
+     */
+    private void applyDifference(WeekMinutes old, WeekMinutes week)
+    {
+        for (Map.Entry<String, int[]> entry : week.employees.entrySet())
+        {
+            int[] oldDays = old.employees.get(entry.getKey());
+            FenwickTree tree = employeeMinutes.computeIfAbsent(entry.getKey(),
+                    key -> new FenwickTree());
+            addDifference(tree, week.startDay, oldDays, entry.getValue());
+            addDifference(storeMinutes, week.startDay, oldDays, entry.getValue());
+        }
+        for (Map.Entry<String, int[]> entry : old.employees.entrySet())
+        {
+            if (!week.employees.containsKey(entry.getKey()))
+            {
+                FenwickTree tree = employeeMinutes.get(entry.getKey());
+                addDifference(tree, week.startDay, entry.getValue(), null);
+                addDifference(storeMinutes, week.startDay, entry.getValue(), null);
+            }
+        }
+        for (Map.Entry<Integer, int[]> entry : week.departments.entrySet())
+        {
+            FenwickTree tree = deptMinutes.computeIfAbsent(entry.getKey(),
+                    key -> new FenwickTree());
+            addDifference(tree, week.startDay, old.departments.get(entry.getKey()),
+                    entry.getValue());
+        }
+        for (Map.Entry<Integer, int[]> entry : old.departments.entrySet())
+        {
+            if (!week.departments.containsKey(entry.getKey()))
+                addDifference(deptMinutes.get(entry.getKey()), week.startDay,
+                        entry.getValue(), null);
+        }
+    }
+
+    /**
+     * Adds the difference between the new and the old minutes of the days of a week to
+     * a tree, skipping the days that did not change.
+     * @param tree The tree
+     * @param startDay The first day of the week (days since 1970-01-01)
+     * @param oldMinutes The old minutes of each day, or null if there were none
+     * @param newMinutes The new minutes of each day, or null if there are none
+     */
+    private static void addDifference(FenwickTree tree, long startDay, int[] oldMinutes,
+                                      int[] newMinutes)
+    {
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            int difference = (newMinutes == null ? 0 : newMinutes[day]) -
+                    (oldMinutes == null ? 0 : oldMinutes[day]);
+            if (difference != 0)
+                tree.add(startDay + day, difference);
+        }
+    }
+
+    /**
+     * This is the paid minutes of each day of an imported week by employee and by
+     * department.
+     */
+    private static final class WeekMinutes
+    {
+        final long startDay;
+        final HashMap<String, int[]> employees = new HashMap<>();
+        final HashMap<Integer, int[]> departments = new HashMap<>();
+
+        WeekMinutes(long startDay)
+        {
+            this.startDay = startDay;
+        }
+
+        void add(Employee employee)
+        {
+            int[] days = null;
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                Time start = employee.getDayStartTime(day);
+                int deptNum = employee.getDayDeptNum(day);
+                if (start == null || deptNum < 0)
+                    continue;
+                int paid = PaidHoursKernel.paidMinutes(ShiftTable.toMinutes(start),
+                        ShiftTable.toMinutes(employee.getDayEndTime(day)));
+                if (days == null)
+                    days = employees.computeIfAbsent(employee.getNameKey(),
+                            key -> new int[WEEK_LENGTH]);
+                days[day] += paid;
+                departments.computeIfAbsent(deptNum, key -> new int[WEEK_LENGTH])[day] +=
+                        paid;
+            }
+        }
+    }
+
+    /**
+     * This is a Fenwick tree of the minutes of each day over a range of days that grows
+     * as days outside of it are added. The range starts at the first day added, so a
+     * tree only covers the days of its employee or department.
+     */
+    private static final class FenwickTree
+    {
+        private long firstDay;
+        private long[] tree = new long[0]; //1-based, tree[0] is not used
+
+        /**
+         * Adds minutes to a day.
+         * @param day The day (days since 1970-01-01)
+         * @param minutes The minutes to add
+         */
+        void add(long day, long minutes)
+        {
+            if (tree.length == 0)
+            {
+                firstDay = day;
+                tree = new long[WEEK_LENGTH * 8 + 1];
+            }
+            if (day < firstDay || day - firstDay >= tree.length - 1)
+                grow(day);
+            for (int i = (int) (day - firstDay) + 1; i < tree.length; i += i & -i)
+                tree[i] += minutes;
+        }
+
+        /**
+         * Sums the minutes of a range of days.
+         * @param fromDay The first day of the range
+         * @param toDay The day after the last day of the range
+         * @return The sum of the minutes
+         */
+        long sum(long fromDay, long toDay)
+        {
+            return prefix(toDay) - prefix(fromDay);
+        }
+
+        /**
+         * Sums the minutes of the days before a day.
+         * @param day The day after the last day to sum
+         * @return The sum of the minutes
+         */
+        private long prefix(long day)
+        {
+            long count = Math.min(day - firstDay, tree.length - 1);
+            long total = 0;
+            for (int i = (int) Math.max(0, count); i > 0; i -= i & -i)
+                total += tree[i];
+            return total;
+        }
+
+        /**
+         * Grows the range of the tree to include a day, at least doubling its size.
+         * @param day The day to include
+         */
+        private void grow(long day)
+        {
+            int size = tree.length - 1;
+            long[] values = tree.clone();
+            for (int i = size; i > 0; i--) //takes the values out of the tree in O(n)
+            {
+                int parent = i + (i & -i);
+                if (parent <= size)
+                    values[parent] -= values[i];
+            }
+            long lastDay = Math.max(firstDay + size - 1, day);
+            long lowDay = Math.min(firstDay, day);
+            int newSize = (int) Math.max(size * 2L, lastDay - lowDay + 1);
+            //when growing down, leave room before the new day as well
+            long newFirstDay = day < firstDay ? lastDay - newSize + 1 : firstDay;
+            long[] newTree = new long[newSize + 1];
+            for (int i = 1; i <= size; i++)
+                newTree[(int) (firstDay - newFirstDay) + i] = values[i];
+            for (int i = 1; i <= newSize; i++) //builds the tree from the values in O(n)
+            {
+                int parent = i + (i & -i);
+                if (parent <= newSize)
+                    newTree[parent] += newTree[i];
+            }
+            firstDay = newFirstDay;
+            tree = newTree;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package MacySchedule;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is a cache of reports derived from week schedules, such as department totals,
+ * employee week hours, and coverage. A report is kept under its week range, department
+ * number, kind, and the version of the week schedule it was calculated from.
+ *
+ * When an employee of the schedule changes, the version of the week schedule goes up,
+ * so the next request for the report sees that the kept value is out of date and
+ * calculates it again, replacing the old value. The cache keeps at most a maximum number
+ * of reports and drops the least recently used report when it is full. Requests for the
+ * same report at the same time from different threads only calculate it once; the other
+ * threads wait for the value.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ReportCache
+{
+    private final int maxReports;
+    private final LinkedHashMap<ReportKey, CachedReport> reports; //guarded by itself
+    private final ConcurrentHashMap<ReportKey, FutureTask<Object>> calculating;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong invalidations;
+    private final AtomicLong evictions;
+    private static final int DEFAULT_MAX_REPORTS = 1000;
+
+    /**
+     * Constructs a cache that keeps up to 1000 reports.
+     */
+    public ReportCache()
+    {
+        this(DEFAULT_MAX_REPORTS);
+    }
+
+    /**
+     * Constructs a cache that keeps up to a given number of reports.
+     * @param maxReports The maximum number of reports to keep
+     */
+    public ReportCache(int maxReports)
+    {
+        if (maxReports < 1)
+            throw new IllegalArgumentException("The cache must keep at least 1 report.");
+        this.maxReports = maxReports;
+        reports = new LinkedHashMap<ReportKey, CachedReport>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReportKey, CachedReport> eldest)
+            {
+                if (size() <= ReportCache.this.maxReports)
+                    return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+        calculating = new ConcurrentHashMap<>();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        invalidations = new AtomicLong();
+        evictions = new AtomicLong();
+    }
+
+    /**
+     * Retrieves a report for a week schedule, calculating it if the cache does not
+     * have the report for the current version of the week schedule.
+     * @param weekSchedule The week schedule to retrieve the report for
+     * @param deptNum The reference number for the department
+     * @param kind The kind of report
+     * @param <T> The type of the value of the report
+     * @return The value of the report (which must not be changed)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(WeekSchedule weekSchedule, int deptNum, ReportKind<T> kind)
+    {
+        ReportKey key = new ReportKey(weekSchedule, deptNum, kind);
+        long version = weekSchedule.getVersion();
+        synchronized (reports)
+        {
+            CachedReport cached = reports.get(key);
+            if (cached != null && cached.version == version)
+            {
+                hits.incrementAndGet();
+                return (T) cached.value;
+            }
+        }
+
+        //only the first thread to ask for this version calculates it
+        ReportKey versionKey = key.withVersion(version);
+        FutureTask<Object> task = new FutureTask<>(() ->
+                kind.calculate(weekSchedule, deptNum));
+        FutureTask<Object> running = calculating.putIfAbsent(versionKey, task);
+        if (running == null)
+        {
+            misses.incrementAndGet();
+            running = task;
+            try
+            {
+                task.run();
+                store(key, version, task);
+            }
+            finally
+            {
+                calculating.remove(versionKey, task);
+            }
+        }
+        else
+            hits.incrementAndGet();
+        return (T) waitFor(running);
+    }
+
+    /**
+     * Removes all of the reports from the cache. The statistics are kept.
+     */
+    public void clear()
+    {
+        synchronized (reports)
+        {
+            reports.clear();
+        }
+    }
+
+    /**
+     * Retrieves the number of reports in the cache.
+     * @return The number of reports
+     */
+    public int size()
+    {
+        synchronized (reports)
+        {
+            return reports.size();
+        }
+    }
+
+    /**
+     * Retrieves the number of requests that did not need to calculate the report
+     * (including requests that waited for another thread calculating it).
+     * @return The number of hits
+     */
+    public long getHits() { return hits.get(); }
+
+    /**
+     * Retrieves the number of requests that calculated the report.
+     * @return The number of misses
+     */
+    public long getMisses() { return misses.get(); }
+
+    /**
+     * Retrieves the number of reports that were replaced because the week schedule
+     * changed after they were calculated.
+     * @return The number of out of date reports replaced
+     */
+    public long getInvalidations() { return invalidations.get(); }
+
+    /**
+     * Retrieves the number of reports dropped because the cache was full.
+     * @return The number of reports dropped
+     */
+    public long getEvictions() { return evictions.get(); }
+
+    /**
+     * Retrieves the fraction of requests that did not need to calculate the report.
+     * @return The hit rate from 0 to 1 (0 if there were no requests)
+     */
+    public double getHitRate()
+    {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ReportCache[size=%d/%d, hits=%d, misses=%d, " +
+                "invalidations=%d, evictions=%d, hitRate=%.3f]", size(), maxReports,
+                getHits(), getMisses(), getInvalidations(), getEvictions(), getHitRate());
+    }
+
+    /**
+     * Keeps a calculated report unless a report of a newer version was already kept.
+     * @param key The key of the report (without version)
+     * @param version The version of the week schedule the report was calculated from
+     * @param task The finished calculation of the report
+     */
+    private void store(ReportKey key, long version, FutureTask<Object> task)
+    {
+        Object value;
+        try
+        {
+            value = task.get();
+        }
+        catch (InterruptedException | ExecutionException | CancellationException e)
+        {
+            return; //failed calculations are not kept
+        }
+        synchronized (reports)
+        {
+            CachedReport cached = reports.get(key);
+            if (cached != null && cached.version > version)
+                return;
+            if (cached != null)
+                invalidations.incrementAndGet();
+            reports.put(key, new CachedReport(version, value));
+        }
+    }
+
+    /**
+     * Waits for a calculation to finish.
+     * @param task The calculation
+     * @return The value calculated
+     */
+    private static Object waitFor(FutureTask<Object> task)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return task.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This is the key of a report: the week schedule (by its week range and id), the
+     * department number, the kind of report, and (only for calculations in progress)
+     * the version of the week schedule.
+     */
+    private static final class ReportKey
+    {
+        final String weekRange;
+        final long scheduleId;
+        final int deptNum;
+        final ReportKind<?> kind;
+        final long version;
+
+        ReportKey(WeekSchedule weekSchedule, int deptNum, ReportKind<?> kind)
+        {
+            this(weekSchedule.getWeekRange(), weekSchedule.getScheduleId(), deptNum, kind,
+                    -1);
+        }
+
+        ReportKey(String weekRange, long scheduleId, int deptNum, ReportKind<?> kind,
+                  long version)
+        {
+            this.weekRange = weekRange;
+            this.scheduleId = scheduleId;
+            this.deptNum = deptNum;
+            this.kind = kind;
+            this.version = version;
+        }
+
+        ReportKey withVersion(long version)
+        {
+            return new ReportKey(weekRange, scheduleId, deptNum, kind, version);
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof ReportKey))
+                return false;
+            ReportKey key = (ReportKey) other;
+            return scheduleId == key.scheduleId && deptNum == key.deptNum &&
+                    version == key.version && kind == key.kind &&
+                    weekRange.equals(key.weekRange);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(weekRange, scheduleId, deptNum, kind.getName(), version);
+        }
+    }
+
+    /**
+     * This is a report kept in the cache with the version it was calculated from.
+     */
+    private static final class CachedReport
+    {
+        final long version;
+        final Object value;
+
+        CachedReport(long version, Object value)
+        {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
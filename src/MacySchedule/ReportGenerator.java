@@ -0,0 +1,519 @@
+package MacySchedule;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * This is the command line tool to generate hours reports from saved schedule pages
+ * without the UI. The pages are read in parallel and the reports are written to the
+ * standard output or to files. A summary of the run (pages read, time, and throughput)
+ * is written to the standard error so it can be kept apart from the reports.
+ *
+ * Usage: ReportGenerator [options] file-or-directory...
+ *   -t, --threads N      number of pages read at the same time (default: processors)
+ *   -f, --format F       text or csv (default: text)
+ *   -r, --report R       employee, department, or all (default: all)
+ *   -o, --output DIR     write the reports to files in DIR instead of standard output
+ *   -m, --merge          merge the employees of all pages of a week into one
+ *                        store-level schedule (conflicting shifts go to standard error)
+ *   -s, --shards N       read the pages in N worker processes, split by department,
+ *                        for more pages than one JVM can hold (not with --merge)
+ *   -c, --cache DIR      keep snapshots of the pages read in DIR and use them instead
+ *                        of parsing pages that did not change since
+ *   -h, --help           show the usage
+ * Directories are searched (including sub-directories) for .html and .htm files and for
+ * .zip, .tar.gz, .tgz and .gz archives of pages, which are read without unpacking them.
+ * A single page is read on the main thread, so a run for one page starts no threads.
+ *
+ * The exit status is 0 if every page was read, 1 if any page could not be read, and 2
+ * if the options are not valid.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ReportGenerator
+{
+    private static final String USAGE = "Usage: ReportGenerator [-t threads] " +
+            "[-f text|csv] [-r employee|department|all] [-o output-dir] [-m] " +
+            "[-s shards] [-c cache-dir] " +
+            "file-or-directory...";
+    private static final String EMPLOYEE_REPORT = "employee-hours";
+    private static final String DEPARTMENT_REPORT = "department-hours";
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_READ_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private int threads;
+    private HoursReport.Format format;
+    private boolean employeeReport;
+    private boolean departmentReport;
+    private File outputDir;
+    private boolean merge;
+    private int shards; //0 to read every page in this JVM
+    private File cacheDir; //null to not keep snapshots
+    private final List<File> inputs;
+
+    /**
+     * Constructs the tool with the default options.
+     */
+    public ReportGenerator()
+    {
+        threads = Runtime.getRuntime().availableProcessors();
+        format = HoursReport.Format.TEXT;
+        employeeReport = true;
+        departmentReport = true;
+        outputDir = null;
+        merge = false;
+        shards = 0;
+        cacheDir = null;
+        inputs = new ArrayList<>();
+    }
+
+    public static void main(String[] args)
+    {
+        ReportGenerator generator = new ReportGenerator();
+        int status;
+        try
+        {
+            if (!generator.parseArguments(args))
+            {
+                System.out.println(USAGE);
+                return;
+            }
+            status = generator.run();
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            status = EXIT_USAGE;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Reads the options and the inputs from the command line arguments.
+     * @param args The command line arguments
+     * @return False if only the usage should be shown; true otherwise
+     * @throws IllegalArgumentException If the arguments are not valid
+     */
+    public boolean parseArguments(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            switch (arg)
+            {
+                case "-h":
+                case "--help":
+                    return false;
+                case "-t":
+                case "--threads":
+                    threads = parsePositive(optionValue(args, ++i, arg), arg);
+                    break;
+                case "-f":
+                case "--format":
+                    format = parseFormat(optionValue(args, ++i, arg));
+                    break;
+                case "-r":
+                case "--report":
+                    parseReport(optionValue(args, ++i, arg));
+                    break;
+                case "-o":
+                case "--output":
+                    outputDir = new File(optionValue(args, ++i, arg));
+                    break;
+                case "-m":
+                case "--merge":
+                    merge = true;
+                    break;
+                case "-s":
+                case "--shards":
+                    shards = parsePositive(optionValue(args, ++i, arg), arg);
+                    break;
+                case "-c":
+                case "--cache":
+                    cacheDir = new File(optionValue(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-"))
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    inputs.add(new File(arg));
+            }
+        }
+        if (inputs.isEmpty())
+            throw new IllegalArgumentException("No input files or directories given.");
+        if (merge && shards > 0)
+            throw new IllegalArgumentException("--merge cannot be used with --shards.");
+        return true;
+    }
+
+    /**
+     * Reads the pages of the inputs in parallel and writes the reports and the summary.
+     * @return The exit status of the run
+     */
+    public int run()
+    {
+        long startTime = System.nanoTime();
+        List<File> pages = new ArrayList<>();
+        for (File input : inputs)
+            findPages(input, pages);
+        if (shards > 0)
+            return runSharded(pages, startTime);
+
+        //one pool for all of the pages keeps one copy of each name, note and department
+        StringPool stringPool = new StringPool();
+        ScheduleSnapshotCache cache = cacheDir == null ? null :
+                new ScheduleSnapshotCache(cacheDir, stringPool);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ScheduleArchiveReader archiveReader = new ScheduleArchiveReader(executor,
+                stringPool);
+        List<ScheduleArchiveReader.Page> results = new ArrayList<>(pages.size());
+        int failed = 0;
+        int unreadArchives = 0;
+        boolean onePage = pages.size() == 1;
+        for (File page : pages)
+        {
+            if (!ScheduleArchiveReader.isArchive(page))
+            {
+                Callable<WeekSchedule> read = () -> readPage(page, stringPool, cache);
+                Future<WeekSchedule> schedule;
+                if (onePage)
+                {
+                    FutureTask<WeekSchedule> task = new FutureTask<>(read);
+                    task.run(); //on this thread
+                    schedule = task;
+                }
+                else
+                    schedule = executor.submit(read);
+                results.add(new ScheduleArchiveReader.Page(page.getPath(), page.length(),
+                        schedule));
+                continue;
+            }
+            try
+            {
+                results.addAll(archiveReader.submit(page));
+            }
+            catch (IOException e)
+            {
+                failed++;
+                unreadArchives++;
+                System.err.println("Could not read " + page + ": " + e);
+            }
+        }
+
+        //results are kept in the order of the pages so the reports do not change
+        //between runs with a different number of threads
+        List<WeekSchedule> schedules = new ArrayList<>(results.size());
+        long bytesRead = 0;
+        int employees = 0;
+        for (ScheduleArchiveReader.Page page : results)
+        {
+            try
+            {
+                WeekSchedule schedule = page.getWeekSchedule();
+                schedules.add(schedule);
+                bytesRead += Math.max(page.getSize(), 0);
+                employees += schedule.getNumEmployees();
+            }
+            catch (ExecutionException e)
+            {
+                failed++;
+                System.err.println("Could not read " + page.getName() + ": " +
+                        e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        ScheduleArchiveReader.shutdownNow(executor);
+        if (merge)
+        {
+            EmployeeMerger merger = EmployeeMerger.mergeAll(schedules);
+            for (ShiftConflict conflict : merger.getConflicts())
+                System.err.println("Conflict: " + conflict);
+            schedules = merger.getStoreSchedules();
+        }
+        long parseTime = System.nanoTime() - startTime;
+
+        try
+        {
+            HoursReport report = new HoursReport(schedules, format);
+            writeReports(report::writeEmployeeHours, report::writeDepartmentHours);
+        }
+        catch (FileNotFoundException e)
+        {
+            System.err.println("Could not write the reports: " + e.getMessage());
+            return EXIT_READ_FAILED;
+        }
+        long totalTime = System.nanoTime() - startTime;
+        printSummary(results.size() + unreadArchives, failed, employees, bytesRead,
+                parseTime, totalTime);
+        System.err.println("String pool: " + stringPool);
+        if (cache != null)
+            System.err.println("Snapshots: " + cache.getHits() + " used, " +
+                    cache.getMisses() + " missing or out of date");
+        return failed == 0 ? EXIT_OK : EXIT_READ_FAILED;
+    }
+
+    /**
+     * Reads a page, from its snapshot if it has an up to date one. A page that is
+     * parsed gets a new snapshot.
+     * @param page The page to read
+     * @param stringPool The pool of the names, notes and departments
+     * @param cache The snapshots of the pages, or null to always parse the page
+     * @return The week schedule of the page
+     * @throws IOException If the page cannot be read
+     */
+    private static WeekSchedule readPage(File page, StringPool stringPool,
+                                         ScheduleSnapshotCache cache) throws IOException
+    {
+        WeekSchedule schedule = cache == null ? null : cache.load(page);
+        if (schedule != null)
+            return schedule;
+        schedule = SchedulePageReader.readInMemory(page, stringPool);
+        if (cache != null)
+        {
+            try
+            {
+                cache.store(page, schedule);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Could not keep a snapshot of " + page + ": " + e);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Reads the pages in worker processes and writes the reports and the summary.
+     * @param pages The pages and archives to read
+     * @param startTime The time the run started, from System.nanoTime
+     * @return The exit status of the run
+     */
+    private int runSharded(List<File> pages, long startTime)
+    {
+        ShardCoordinator coordinator = new ShardCoordinator(shards);
+        coordinator.setWorkerThreads(threads);
+        try (ShardCoordinator.Result result = coordinator.run(pages))
+        {
+            for (String failure : result.getFailures())
+                System.err.println("Could not read " + failure);
+            long parseTime = System.nanoTime() - startTime;
+
+            try
+            {
+                //the rows are merged from the records of the shards as they are written
+                writeReports(out -> result.writeEmployeeHours(out, format),
+                        out -> result.writeDepartmentHours(out, format));
+            }
+            catch (FileNotFoundException | UncheckedIOException e)
+            {
+                System.err.println("Could not write the reports: " + e.getMessage());
+                return EXIT_READ_FAILED;
+            }
+            long totalTime = System.nanoTime() - startTime;
+            int failed = result.getFailures().size();
+            long bytesRead = 0;
+            for (File page : pages)
+                bytesRead += page.length();
+            printSummary(result.getNumPages() + failed, failed, result.getNumEmployees(),
+                    bytesRead, parseTime, totalTime);
+            System.err.println("Shards: " + shards + " (" + result.getRetries() +
+                    " retries, " + result.getFailedShards() + " failed)");
+            return failed == 0 ? EXIT_OK : EXIT_READ_FAILED;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return EXIT_READ_FAILED;
+        }
+    }
+
+    /**
+     * Writes the selected reports to the standard output or to the output directory.
+     * @param employeeHours The writer of the hours by employee report
+     * @param departmentHours The writer of the hours by department report
+     * @throws FileNotFoundException If a report file cannot be created
+     */
+    private void writeReports(Consumer<PrintStream> employeeHours,
+                              Consumer<PrintStream> departmentHours)
+            throws FileNotFoundException
+    {
+        if (outputDir == null)
+        {
+            if (employeeReport)
+                employeeHours.accept(System.out);
+            if (employeeReport && departmentReport)
+                System.out.println();
+            if (departmentReport)
+                departmentHours.accept(System.out);
+            return;
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs())
+            throw new FileNotFoundException(outputDir + " is not a directory");
+        String extension = format == HoursReport.Format.CSV ? ".csv" : ".txt";
+        if (employeeReport)
+        {
+            try (PrintStream out = new PrintStream(new File(outputDir,
+                    EMPLOYEE_REPORT + extension)))
+            {
+                employeeHours.accept(out);
+            }
+        }
+        if (departmentReport)
+        {
+            try (PrintStream out = new PrintStream(new File(outputDir,
+                    DEPARTMENT_REPORT + extension)))
+            {
+                departmentHours.accept(out);
+            }
+        }
+    }
+
+    /**
+     * Writes the summary of the run to the standard error.
+     * @param pages The number of pages found
+     * @param failed The number of pages that could not be read
+     * @param employees The number of employees read
+     * @param bytesRead The size of the pages that were read
+     * @param parseTime The time spent reading the pages in nanoseconds
+     * @param totalTime The time of the whole run in nanoseconds
+     */
+    private void printSummary(int pages, int failed, int employees, long bytesRead,
+                              long parseTime, long totalTime)
+    {
+        double parseSeconds = parseTime / 1e9;
+        double totalSeconds = totalTime / 1e9;
+        double pagesPerSecond = parseSeconds > 0 ? (pages - failed) / parseSeconds : 0;
+        double megabytesPerSecond = parseSeconds > 0 ?
+                bytesRead / (1024.0 * 1024.0) / parseSeconds : 0;
+        System.err.printf("Read %d of %d pages (%d employees, %d failed) with %d " +
+                "thread(s)%n", pages - failed, pages, employees, failed, threads);
+        System.err.printf("Reading: %.3f s (%.1f pages/s, %.2f MB/s); total: %.3f s%n",
+                parseSeconds, pagesPerSecond, megabytesPerSecond, totalSeconds);
+    }
+
+    /**
+     * Adds the page files of an input to a list. A directory is searched for .html and
+     * .htm files, including its sub-directories, in order of name.
+     * @param input The file or directory given on the command line
+     * @param pages The list to add the page files to
+     */
+    static void findPages(File input, List<File> pages)
+    {
+        if (!input.isDirectory())
+        {
+            pages.add(input);
+            return;
+        }
+        File[] files = input.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            String name = file.getName().toLowerCase();
+            if (file.isDirectory())
+                findPages(file, pages);
+            else if (name.endsWith(".html") || name.endsWith(".htm") ||
+                    ScheduleArchiveReader.isArchive(file))
+                pages.add(file);
+        }
+    }
+
+    /**
+     * Retrieves the value of an option.
+     * @param args The command line arguments
+     * @param index The index of the value
+     * @param option The option the value is for
+     * @return The value of the option
+     */
+    private static String optionValue(String[] args, int index, String option)
+    {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Missing value for " + option);
+        return args[index];
+    }
+
+    /**
+     * Reads a positive whole number option.
+     * @param value The value of the option
+     * @param option The option the value is for
+     * @return The number
+     */
+    private static int parsePositive(String value, String option)
+    {
+        try
+        {
+            int number = Integer.parseInt(value);
+            if (number > 0)
+                return number;
+        }
+        catch (NumberFormatException e)
+        {
+            //handled below
+        }
+        throw new IllegalArgumentException(option + " must be a positive number: " +
+                value);
+    }
+
+    /**
+     * Reads the format option.
+     * @param value The value of the option (text or csv)
+     * @return The format
+     */
+    private static HoursReport.Format parseFormat(String value)
+    {
+        switch (value.toLowerCase())
+        {
+            case "text":
+                return HoursReport.Format.TEXT;
+            case "csv":
+                return HoursReport.Format.CSV;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + value);
+        }
+    }
+
+    /**
+     * Reads the report option.
+     * @param value The value of the option (employee, department, or all)
+     */
+    private void parseReport(String value)
+    {
+        switch (value.toLowerCase())
+        {
+            case "employee":
+                employeeReport = true;
+                departmentReport = false;
+                break;
+            case "department":
+                employeeReport = false;
+                departmentReport = true;
+                break;
+            case "all":
+                employeeReport = true;
+                departmentReport = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown report: " + value);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package MacySchedule;
+import java.util.function.BiFunction;
+
+/**
+ * This is a kind of report (a value derived from a week schedule for a department) that
+ * can be kept in a ReportCache. Each kind has a name and the calculation of its value.
+ * The values must not be changed after they are calculated since they are shared by
+ * everyone that asks the cache for them.
+ *
+ * @param <T> The type of the value of the report
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public final class ReportKind<T>
+{
+    /** Use as the department number for reports over all departments. */
+    public static final int ALL_DEPARTMENTS = -1;
+
+    /**
+     * The total work hours of the week schedule for a department, or for all of the
+     * departments for ALL_DEPARTMENTS.
+     */
+    public static final ReportKind<Double> DEPT_TOTAL_HOURS = new ReportKind<>(
+            "dept-total-hours", ReportKind::calcDeptTotalHours);
+
+    /**
+     * The week hours of each employee (in order of the employee list) for a department,
+     * or the total week hours of each employee for ALL_DEPARTMENTS.
+     */
+    public static final ReportKind<double[]> EMPLOYEE_WEEK_HOURS = new ReportKind<>(
+            "employee-week-hours", ReportKind::calcEmployeeWeekHours);
+
+    /** The headcount of a department per day and 15 minute slot ([day][slot]). */
+    public static final ReportKind<int[][]> COVERAGE = new ReportKind<>("coverage",
+            CoverageModel::countHeadcount);
+
+    private final String name;
+    private final BiFunction<WeekSchedule, Integer, T> calculation;
+
+    /**
+     * Constructs a kind of report.
+     * @param name The name of the report
+     * @param calculation The calculation of the value from a week schedule and a
+     *                    department number
+     */
+    public ReportKind(String name, BiFunction<WeekSchedule, Integer, T> calculation)
+    {
+        this.name = name;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Retrieves the name of the report.
+     * @return The name of the report
+     */
+    public String getName() { return name; }
+
+    /**
+     * Calculates the value of the report without using a cache.
+     * @param weekSchedule The week schedule to calculate the value for
+     * @param deptNum The reference number for the department
+     * @return The value of the report
+     */
+    public T calculate(WeekSchedule weekSchedule, int deptNum)
+    {
+        return calculation.apply(weekSchedule, deptNum);
+    }
+
+    @Override
+    public String toString() { return name; }
+
+    /**
+     * Calculates the total work hours of a week schedule for a department.
+     * @param weekSchedule The week schedule
+     * @param deptNum The reference number for the department, or ALL_DEPARTMENTS
+     * @return The total work hours for the department
+     */
+    private static Double calcDeptTotalHours(WeekSchedule weekSchedule, int deptNum)
+    {
+        double totalHours = 0;
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            if (deptNum == ALL_DEPARTMENTS)
+                totalHours += employees[i].getWeekTotalHours();
+            else
+                totalHours += employees[i].getWeekDeptHours(deptNum);
+        }
+        return totalHours;
+    }
+
+    /**
+     * Calculates the week hours of each employee of a week schedule.
+     * @param weekSchedule The week schedule
+     * @param deptNum The reference number for the department, or ALL_DEPARTMENTS
+     * @return The week hours of each employee in order of the employee list
+     */
+    private static double[] calcEmployeeWeekHours(WeekSchedule weekSchedule, int deptNum)
+    {
+        double[] hours = new double[weekSchedule.getNumEmployees()];
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < hours.length; i++)
+        {
+            if (deptNum == ALL_DEPARTMENTS)
+                hours[i] = employees[i].getWeekTotalHours();
+            else
+                hours[i] = employees[i].getWeekDeptHours(deptNum);
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,384 @@
+package MacySchedule;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * This is a class to read the schedule pages in compressed archives without unpacking
+ * them to disk. The pages are decompressed as streams and given to SchedulePageReaders,
+ * and the pages of an archive are read in parallel by an executor.
+ *
+ * The archives read are:
+ *   .zip             every .html and .htm entry; each entry is decompressed by the
+ *                    task that reads it, so entries are decompressed in parallel
+ *   .tar.gz, .tgz    every .html and .htm entry; the archive is decompressed in order
+ *                    and each entry is read by a task from a copy in memory
+ *   .gz              a single gzipped page, read by a task straight from the stream
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleArchiveReader
+{
+    private static final int TAR_BLOCK = 512;
+    private static final int TAR_NAME_LENGTH = 100;
+    private static final int TAR_SIZE_OFFSET = 124;
+    private static final int TAR_SIZE_LENGTH = 12;
+    private static final int TAR_TYPE_OFFSET = 156;
+    private static final int TAR_PREFIX_OFFSET = 345;
+    private static final int TAR_PREFIX_LENGTH = 155;
+    private static final String ENTRY_SEPARATOR = "!/"; //archive.zip!/entry.html
+
+    private final ExecutorService executor;
+    private final StringPool stringPool;
+
+    /**
+     * Constructs the reader.
+     * @param executor The executor that reads the pages
+     * @param stringPool The pool of the names, notes and departments of the pages
+     */
+    public ScheduleArchiveReader(ExecutorService executor, StringPool stringPool)
+    {
+        this.executor = executor;
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Stops an executor of the pages, like shutdownNow, and cancels the pages it had not
+     * started, so the archives they were to be read from are closed.
+     * @param executor The executor to stop
+     */
+    public static void shutdownNow(ExecutorService executor)
+    {
+        for (Runnable notStarted : executor.shutdownNow())
+        {
+            if (notStarted instanceof Future)
+                ((Future<?>) notStarted).cancel(false);
+        }
+    }
+
+    /**
+     * Checks if a file is an archive by its name.
+     * @param file The file to check
+     * @return True if the file is a .zip, .gz or .tgz archive
+     */
+    public static boolean isArchive(File file)
+    {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(".zip") || name.endsWith(".gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Starts reading the pages of an archive. The pages are listed in the order of
+     * their names in the archive and can be retrieved as they are read.
+     * @param archive The archive to read
+     * @return The pages of the archive
+     * @throws IOException If the archive cannot be opened or decompressed
+     */
+    public List<Page> submit(File archive) throws IOException
+    {
+        String name = archive.getName().toLowerCase();
+        if (name.endsWith(".zip"))
+            return submitZip(archive);
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz"))
+            return submitTar(archive);
+        Future<WeekSchedule> schedule = executor.submit(() ->
+        {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(archive)))
+            {
+                return new SchedulePageReader(in, null, stringPool).getWeekSchedule();
+            }
+        });
+        return Collections.singletonList(new Page(archive.getPath(), -1, schedule));
+    }
+
+    /**
+     * Starts reading the pages of a zip archive. The archive is closed once every page
+     * has been read or cancelled, or if the pages cannot all be submitted.
+     * @param archive The zip archive
+     * @return The pages of the archive
+     * @throws IOException If the archive cannot be opened
+     */
+    private List<Page> submitZip(File archive) throws IOException
+    {
+        ZipFile zipFile = new ZipFile(archive);
+        List<ZipEntry> entries = new ArrayList<>();
+        for (ZipEntry entry : Collections.list(zipFile.entries()))
+        {
+            if (!entry.isDirectory() && isPage(entry.getName()))
+                entries.add(entry);
+        }
+        if (entries.isEmpty())
+        {
+            zipFile.close();
+            return Collections.emptyList();
+        }
+        entries.sort((a, b) -> a.getName().compareTo(b.getName()));
+
+        AtomicInteger remaining = new AtomicInteger(entries.size());
+        List<Page> pages = new ArrayList<>(entries.size());
+        List<Future<WeekSchedule>> submitted = new ArrayList<>(entries.size());
+        try
+        {
+            for (ZipEntry entry : entries)
+            {
+                FutureTask<WeekSchedule> schedule = new FutureTask<WeekSchedule>(() ->
+                {
+                    try (InputStream in = zipFile.getInputStream(entry))
+                    {
+                        return new SchedulePageReader(in, null, stringPool)
+                                .getWeekSchedule();
+                    }
+                })
+                {
+                    @Override
+                    protected void done() //also when cancelled before it runs
+                    {
+                        release(zipFile, remaining, 1);
+                    }
+                };
+                executor.execute(schedule);
+                submitted.add(schedule);
+                pages.add(new Page(archive.getPath() + ENTRY_SEPARATOR +
+                        entry.getName(), entry.getSize(), schedule));
+            }
+        }
+        catch (RuntimeException e) //such as a pool that was shut down
+        {
+            for (Future<WeekSchedule> schedule : submitted)
+                schedule.cancel(true);
+            release(zipFile, remaining, entries.size() - submitted.size());
+            throw e;
+        }
+        return pages;
+    }
+
+    /**
+     * Counts down the pages of a zip archive that are still to be read, and closes the
+     * archive after the last one.
+     * @param zipFile The zip archive
+     * @param remaining The number of pages still to be read
+     * @param count The number of pages that were read, cancelled or not submitted
+     */
+    private static void release(ZipFile zipFile, AtomicInteger remaining, int count)
+    {
+        if (count > 0 && remaining.addAndGet(-count) == 0)
+        {
+            try
+            {
+                zipFile.close();
+            }
+            catch (IOException e)
+            {
+                //only read from; the pages are already read
+            }
+        }
+    }
+
+    /**
+     * Starts reading the pages of a gzipped tar archive. The archive is decompressed
+     * by the calling thread while the pages found so far are read by the executor.
+     * @param archive The gzipped tar archive
+     * @return The pages of the archive, in the order of the archive
+     * @throws IOException If the archive cannot be read or is not a tar archive
+     */
+    private List<Page> submitTar(File archive) throws IOException
+    {
+        List<Page> pages = new ArrayList<>();
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(
+                new FileInputStream(archive))))
+        {
+            byte[] header = new byte[TAR_BLOCK];
+            while (readFully(in, header) && header[0] != 0) //empty block ends the tar
+            {
+                String entryName = readTarName(header);
+                long size = readOctal(header, TAR_SIZE_OFFSET, TAR_SIZE_LENGTH);
+                char type = (char) header[TAR_TYPE_OFFSET];
+                boolean file = type == '0' || type == 0;
+                if (file && isPage(entryName) && size <= Integer.MAX_VALUE)
+                {
+                    byte[] data = new byte[(int) size];
+                    if (!readFully(in, data))
+                        throw new EOFException("Incomplete entry " + entryName);
+                    Future<WeekSchedule> schedule = executor.submit(() ->
+                            new SchedulePageReader(new ByteArrayInputStream(data), null,
+                                    stringPool).getWeekSchedule());
+                    pages.add(new Page(archive.getPath() + ENTRY_SEPARATOR + entryName,
+                            size, schedule));
+                    skip(in, (TAR_BLOCK - size % TAR_BLOCK) % TAR_BLOCK);
+                }
+                else
+                    skip(in, (size + TAR_BLOCK - 1) / TAR_BLOCK * TAR_BLOCK);
+            }
+        }
+        pages.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return pages;
+    }
+
+    /**
+     * Checks if the name of an entry is the name of a page.
+     * @param name The name of the entry
+     * @return True if the entry is a .html or .htm file
+     */
+    private static boolean isPage(String name)
+    {
+        String lowerName = name.toLowerCase();
+        return lowerName.endsWith(".html") || lowerName.endsWith(".htm");
+    }
+
+    /**
+     * Reads the name of a tar entry, including the prefix of the ustar format.
+     * @param header The header block of the entry
+     * @return The name of the entry
+     */
+    private static String readTarName(byte[] header)
+    {
+        String name = readString(header, 0, TAR_NAME_LENGTH);
+        String prefix = readString(header, TAR_PREFIX_OFFSET, TAR_PREFIX_LENGTH);
+        return prefix.isEmpty() ? name : prefix + '/' + name;
+    }
+
+    /**
+     * Reads a string of a tar header that ends at its first zero byte.
+     * @param header The header block
+     * @param offset The offset of the string
+     * @param length The most bytes of the string
+     * @return The string
+     */
+    private static String readString(byte[] header, int offset, int length)
+    {
+        int end = offset;
+        while (end < offset + length && header[end] != 0)
+            end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an octal number of a tar header.
+     * @param header The header block
+     * @param offset The offset of the number
+     * @param length The most bytes of the number
+     * @return The number
+     */
+    private static long readOctal(byte[] header, int offset, int length)
+    {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (header[i] >= '0' && header[i] <= '7')
+                value = value * 8 + header[i] - '0';
+            else if (header[i] == 0 || (header[i] == ' ' && value > 0))
+                break;
+        }
+        return value;
+    }
+
+    /**
+     * Reads bytes from a stream until an array is full.
+     * @param in The stream to read
+     * @param data The array to fill
+     * @return False if the stream ended before any byte was read
+     * @throws IOException If the stream ends in the middle of the array
+     */
+    private static boolean readFully(InputStream in, byte[] data) throws IOException
+    {
+        int read = 0;
+        while (read < data.length)
+        {
+            int count = in.read(data, read, data.length - read);
+            if (count < 0)
+            {
+                if (read == 0)
+                    return false;
+                throw new EOFException("Incomplete tar archive");
+            }
+            read += count;
+        }
+        return true;
+    }
+
+    /**
+     * Skips bytes of a stream.
+     * @param in The stream to skip
+     * @param count The number of bytes to skip
+     * @throws IOException If the stream ends first
+     */
+    private static void skip(InputStream in, long count) throws IOException
+    {
+        while (count > 0)
+        {
+            long skipped = in.skip(count);
+            if (skipped <= 0)
+            {
+                if (in.read() < 0)
+                    throw new EOFException("Incomplete tar archive");
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * This is a page of an archive that is being read.
+     */
+    public static final class Page
+    {
+        private final String name;
+        private final long size;
+        private final Future<WeekSchedule> schedule;
+
+        Page(String name, long size, Future<WeekSchedule> schedule)
+        {
+            this.name = name;
+            this.size = size;
+            this.schedule = schedule;
+        }
+
+        /**
+         * Retrieves the name of the page.
+         * @return The name in format archive!/entry, or the archive of a .gz page
+         */
+        public String getName() { return name; }
+
+        /**
+         * Retrieves the size of the page once it is decompressed.
+         * @return The size of the page, or -1 if it is not known
+         */
+        public long getSize() { return size; }
+
+        /**
+         * Waits for the page to be read.
+         * @return The week schedule of the page
+         * @throws ExecutionException If the page could not be read
+         * @throws InterruptedException If the thread is interrupted while waiting
+         */
+        public WeekSchedule getWeekSchedule() throws ExecutionException,
+                InterruptedException
+        {
+            return schedule.get();
+        }
+
+        /**
+         * Stops reading the page if it was not read yet.
+         * @return True if the page was cancelled
+         */
+        public boolean cancel() { return schedule.cancel(true); }
+    }
+}
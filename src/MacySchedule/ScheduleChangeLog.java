@@ -0,0 +1,562 @@
+package MacySchedule;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * This is an append-only log of the changes made to the schedules, kept in a directory
+ * as a snapshot file and a file of the changes made after the snapshot. Replaying the
+ * snapshot and the changes in order rebuilds the week schedules as of any time.
+ *
+ * Changes are appended by a writer thread: every change waiting when the thread is
+ * ready is written with one FileChannel write and one force (group commit), so many
+ * changes made at the same time cost a single disk sync. The future returned by append
+ * completes once the change is on disk. Each change is stored as its length, its bytes
+ * and a CRC32 of its bytes, so a change that was only partly written (the application
+ * stopped during a write) is found and dropped when the log is opened again.
+ *
+ * Compaction replays the log and writes the current schedules as a new snapshot, then
+ * empties the changes file, so the log does not grow without end. The history of who
+ * made each change is only kept for the changes after the last compaction. Compaction
+ * can be requested or done automatically after a number of changes.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleChangeLog implements AutoCloseable
+{
+    /** The name of the file of the changes in the log directory. */
+    public static final String CHANGES_FILE = "changes.log";
+    /** The name of the snapshot file in the log directory. */
+    public static final String SNAPSHOT_FILE = "snapshot.log";
+    private static final String COMPACTION_USER = "compaction";
+    private static final int WEEK_LENGTH = 7;
+    private static final int MAX_BATCH = 4096; //changes per group commit
+    private static final int MAX_RECORD = 1 << 20; //bytes, larger is a damaged record
+
+    private final File directory;
+    private final File changesFile;
+    private final File snapshotFile;
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<Request> queue;
+    private final Thread writer;
+    private final int compactEvery;
+    private int changesSinceCompaction;
+    private volatile boolean closed;
+
+    /**
+     * Opens the log of a directory without automatic compaction, creating the
+     * directory and its files if needed.
+     * @param directory The directory of the log
+     * @throws IOException If the log cannot be opened
+     */
+    public ScheduleChangeLog(File directory) throws IOException
+    {
+        this(directory, 0);
+    }
+
+    /**
+     * Opens the log of a directory, creating the directory and its files if needed.
+     * A damaged change at the end of the changes file is removed.
+     * @param directory The directory of the log
+     * @param compactEvery The number of changes after which the log is compacted, or 0
+     *                     to only compact when requested
+     * @throws IOException If the log cannot be opened
+     */
+    public ScheduleChangeLog(File directory, int compactEvery) throws IOException
+    {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create the log directory " + directory);
+        this.directory = directory;
+        this.compactEvery = compactEvery;
+        changesFile = new File(directory, CHANGES_FILE);
+        snapshotFile = new File(directory, SNAPSHOT_FILE);
+        channel = FileChannel.open(changesFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        long validLength = readEvents(changesFile, Long.MAX_VALUE, null);
+        if (validLength < channel.size())
+            channel.truncate(validLength);
+        changesSinceCompaction = 0;
+        queue = new LinkedBlockingQueue<>();
+        writer = new Thread(this::writeRequests, "schedule-change-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends a change to the log.
+     * @param event The change to append
+     * @return A future that completes when the change is on disk, or completes
+     *         exceptionally if the change could not be written
+     */
+    public CompletableFuture<Void> append(ChangeEvent event)
+    {
+        return submit(new Request(event));
+    }
+
+    /**
+     * Requests a compaction of the log. The changes appended before the request are
+     * included in the snapshot.
+     * @return A future that completes when the compaction is done
+     */
+    public CompletableFuture<Void> compact()
+    {
+        return submit(new Request(null));
+    }
+
+    /**
+     * Records a week schedule in the log (its creation, its employees and their days)
+     * and starts recording every change made to the days of its employees.
+     * @param weekSchedule The week schedule to record
+     * @param user The user to record as the maker of the changes
+     * @return The recorder of the changes, to stop recording
+     */
+    public Recorder track(WeekSchedule weekSchedule, String user)
+    {
+        for (ChangeEvent event : describe(weekSchedule, user, System.currentTimeMillis()))
+            append(event);
+        return new Recorder(weekSchedule, user);
+    }
+
+    /**
+     * Replays the snapshot and the changes of the log into week schedules. Only the
+     * changes that are already on disk are replayed.
+     * @return The week schedules in the order they were created
+     * @throws IOException If the log cannot be read
+     */
+    public List<WeekSchedule> replay() throws IOException
+    {
+        return replay(directory, Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays the snapshot and the changes of a log directory into week schedules.
+     * @param directory The directory of the log
+     * @param untilTime The time to rebuild the schedules as of (milliseconds since
+     *                  1970-01-01 UTC); changes made after are not replayed
+     * @return The week schedules in the order they were created
+     * @throws IOException If the log cannot be read
+     */
+    public static List<WeekSchedule> replay(File directory, long untilTime)
+            throws IOException
+    {
+        Replayer replayer = new Replayer();
+        readEvents(new File(directory, SNAPSHOT_FILE), untilTime, replayer);
+        readEvents(new File(directory, CHANGES_FILE), untilTime, replayer);
+        return new ArrayList<>(replayer.weeks.values());
+    }
+
+    /**
+     * Reads the changes made after the last compaction.
+     * @return The changes in the order they were made
+     * @throws IOException If the log cannot be read
+     */
+    public List<ChangeEvent> readChanges() throws IOException
+    {
+        List<ChangeEvent> events = new ArrayList<>();
+        readEvents(changesFile, Long.MAX_VALUE, events::add);
+        return events;
+    }
+
+    /**
+     * Writes the waiting changes, stops the writer thread and closes the log.
+     * @throws IOException If the log cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+            return;
+        closed = true;
+        queue.add(Request.STOP);
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Queues a request for the writer thread.
+     * @param request The request
+     * @return The future of the request
+     */
+    private CompletableFuture<Void> submit(Request request)
+    {
+        if (closed)
+            throw new IllegalStateException("The change log is closed");
+        queue.add(request);
+        return request.done;
+    }
+
+    /**
+     * Writes the queued changes in batches until the log is closed. Runs on the writer
+     * thread.
+     */
+    private void writeRequests()
+    {
+        List<Request> batch = new ArrayList<>();
+        boolean running = true;
+        while (running)
+        {
+            try
+            {
+                batch.add(queue.take());
+            }
+            catch (InterruptedException e)
+            {
+                continue; //only stopped by close
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            int start = 0;
+            for (int i = 0; i <= batch.size(); i++)
+            {
+                Request request = i < batch.size() ? batch.get(i) : null;
+                if (request != null && request.event != null)
+                    continue;
+                commit(batch.subList(start, i)); //changes before the compaction or stop
+                if (request == Request.STOP)
+                    running = false;
+                else if (request != null)
+                    runCompaction(request.done);
+                start = i + 1;
+            }
+            if (compactEvery > 0 && changesSinceCompaction >= compactEvery)
+                runCompaction(null);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a group of changes with one write and one force.
+     * @param requests The requests of the changes
+     */
+    private void commit(List<Request> requests)
+    {
+        if (requests.isEmpty())
+            return;
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Request request : requests)
+                writeRecord(out, request.event);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+            changesSinceCompaction += requests.size();
+            for (Request request : requests)
+                request.done.complete(null);
+        }
+        catch (IOException e)
+        {
+            for (Request request : requests)
+                request.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Compacts the log: writes the replayed schedules to a new snapshot, replaces the
+     * old snapshot with it and empties the changes file. Runs on the writer thread.
+     * @param done The future to complete, or null for an automatic compaction
+     */
+    private void runCompaction(CompletableFuture<Void> done)
+    {
+        try
+        {
+            List<WeekSchedule> weeks = replay(directory, Long.MAX_VALUE);
+            File newSnapshot = new File(directory, SNAPSHOT_FILE + ".tmp");
+            long now = System.currentTimeMillis();
+            try (DataOutputStream out = new DataOutputStream(
+                    Files.newOutputStream(newSnapshot.toPath())))
+            {
+                for (WeekSchedule week : weeks)
+                    for (ChangeEvent event : describe(week, COMPACTION_USER, now))
+                        writeRecord(out, event);
+            }
+            Files.move(newSnapshot.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.truncate(0);
+            channel.force(true);
+            changesSinceCompaction = 0;
+            if (done != null)
+                done.complete(null);
+        }
+        catch (IOException e)
+        {
+            if (done != null)
+                done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Writes a change as a record: its length, its bytes and the CRC32 of its bytes.
+     * @param out The output to write to
+     * @param event The change to write
+     * @throws IOException If the change cannot be written
+     */
+    private static void writeRecord(DataOutputStream out, ChangeEvent event)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        event.write(new DataOutputStream(bytes));
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Reads the records of a log file up to the first damaged or partly written record.
+     * @param file The file to read (a missing file has no records)
+     * @param untilTime The time after which changes are not read
+     * @param consumer The consumer of the changes read, or null to only find the length
+     * @return The length of the valid records of the file
+     * @throws IOException If the file cannot be read
+     */
+    private static long readEvents(File file, long untilTime, EventConsumer consumer)
+            throws IOException
+    {
+        if (!file.exists())
+            return 0;
+        long validLength = 0;
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file),
+                1 << 16))
+        {
+            DataInputStream in = new DataInputStream(stream);
+            CRC32 crc = new CRC32();
+            while (true)
+            {
+                byte[] record;
+                try
+                {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD)
+                        break;
+                    record = new byte[length];
+                    in.readFully(record);
+                    crc.reset();
+                    crc.update(record, 0, length);
+                    if (in.readInt() != (int) crc.getValue())
+                        break;
+                }
+                catch (EOFException e)
+                {
+                    break; //partly written record at the end
+                }
+                validLength += 4 + record.length + 4;
+                if (consumer == null)
+                    continue;
+                ChangeEvent event = ChangeEvent.read(new DataInputStream(
+                        new ByteArrayInputStream(record)));
+                if (event.getTimestamp() <= untilTime)
+                    consumer.accept(event);
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Describes a week schedule as the changes that create it.
+     * @param weekSchedule The week schedule
+     * @param user The user to record
+     * @param timestamp The time to record
+     * @return The changes
+     */
+    private static List<ChangeEvent> describe(WeekSchedule weekSchedule, String user,
+                                              long timestamp)
+    {
+        List<ChangeEvent> events = new ArrayList<>();
+        String weekRange = weekSchedule.getWeekRange();
+        int weekDeptNum = weekSchedule.getDeptNum();
+        events.add(new ChangeEvent(ChangeEvent.Type.CREATE_WEEK, timestamp, user,
+                weekRange, weekDeptNum, "", "", "", -1, weekSchedule.getDepartment(),
+                weekDeptNum, ""));
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            Employee employee = employees[i];
+            events.add(new ChangeEvent(ChangeEvent.Type.ADD_EMPLOYEE, timestamp, user,
+                    weekRange, weekDeptNum, employee.getFirstName(),
+                    employee.getLastName(), employee.getMiddleName(), -1, "", -1, ""));
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                Employee.DayState state = new Employee.DayState(employee, day);
+                if (state.isBlank())
+                    continue;
+                ChangeEvent.Type type = state.isNote() ? ChangeEvent.Type.SET_NOTE :
+                        ChangeEvent.Type.SET_DAY_HOURS;
+                events.add(ChangeEvent.setDay(type, timestamp, user, weekRange,
+                        weekDeptNum, employee, day, state));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * This is a consumer of the changes read from a log file.
+     */
+    private interface EventConsumer
+    {
+        void accept(ChangeEvent event) throws IOException;
+    }
+
+    /**
+     * This is a request for the writer thread: a change to append, or a compaction
+     * when there is no change.
+     */
+    private static final class Request
+    {
+        static final Request STOP = new Request(null);
+        final ChangeEvent event;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Request(ChangeEvent event)
+        {
+            this.event = event;
+        }
+    }
+
+    /**
+     * This is the state rebuilt while replaying: the week schedules by week key (week
+     * range and department of the week schedule) and their employees by week key and
+     * name key.
+     */
+    private static final class Replayer implements EventConsumer
+    {
+        final LinkedHashMap<String, WeekSchedule> weeks = new LinkedHashMap<>();
+        final HashMap<String, HashMap<String, Employee>> employees = new HashMap<>();
+
+        @Override
+        public void accept(ChangeEvent event) throws IOException
+        {
+            String weekKey = event.getWeekRange() + '|' + event.getWeekDeptNum();
+            if (event.getType() == ChangeEvent.Type.CREATE_WEEK)
+            {
+                if (!weeks.containsKey(weekKey))
+                {
+                    weeks.put(weekKey, new WeekSchedule(event.getWeekRange(),
+                            event.getDepartment(), event.getDeptNum()));
+                    employees.put(weekKey, new HashMap<>());
+                }
+                return;
+            }
+            WeekSchedule week = weeks.get(weekKey);
+            if (week == null)
+                throw new IOException("Change for a week that was not created: " + event);
+            //the names of the changes are the names of the employees as they were
+            //added, so they are matched as they are (faster than the name key)
+            String nameKey = event.getLastName() + '|' + event.getFirstName() + '|' +
+                    event.getMiddleName();
+            HashMap<String, Employee> weekEmployees = employees.get(weekKey);
+            Employee employee;
+            if (event.getType() == ChangeEvent.Type.ADD_EMPLOYEE)
+            {
+                if (!weekEmployees.containsKey(nameKey))
+                {
+                    employee = new Employee(event.getFirstName(), event.getLastName(),
+                            event.getMiddleName());
+                    weekEmployees.put(nameKey, employee);
+                    week.addEmployee(employee);
+                }
+                return;
+            }
+            employee = weekEmployees.get(nameKey);
+            if (employee == null)
+                throw new IOException("Change for an employee that was not added: " +
+                        event);
+            event.getDayState().applyTo(employee, event.getDay());
+        }
+    }
+
+    /**
+     * This is the recorder of the changes made to the days of the employees of a week
+     * schedule. A change of the department of a day that keeps its hours is recorded
+     * as CHANGE_DEPARTMENT.
+     */
+    public final class Recorder implements EmployeeListener
+    {
+        private final WeekSchedule weekSchedule;
+        private final String user;
+        private final IdentityHashMap<Employee, int[]> deptNums; //last recorded, by day
+
+        private Recorder(WeekSchedule weekSchedule, String user)
+        {
+            this.weekSchedule = weekSchedule;
+            this.user = user;
+            deptNums = new IdentityHashMap<>();
+            Employee[] employees = weekSchedule.getEmployeeList();
+            for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            {
+                int[] days = new int[WEEK_LENGTH];
+                for (int day = 0; day < WEEK_LENGTH; day++)
+                    days[day] = employees[i].getDayDeptNum(day);
+                deptNums.put(employees[i], days);
+                employees[i].addEmployeeListener(this);
+            }
+        }
+
+        /**
+         * Appends the change made to a day of an employee to the log.
+         * @param employee The employee that changed
+         * @param day The day of the week that changed (0-6)
+         */
+        @Override
+        public void dayChanged(Employee employee, int day)
+        {
+            int[] days = deptNums.get(employee);
+            if (days == null || closed)
+                return;
+            int deptNum = employee.getDayDeptNum(day);
+            ChangeEvent.Type type;
+            if (deptNum < 0)
+                type = ChangeEvent.Type.SET_NOTE;
+            else if (days[day] >= 0 && days[day] != deptNum)
+                type = ChangeEvent.Type.CHANGE_DEPARTMENT;
+            else
+                type = ChangeEvent.Type.SET_DAY_HOURS;
+            days[day] = deptNum;
+            append(ChangeEvent.setDay(type, user, weekSchedule, employee, day));
+        }
+
+        /**
+         * Stops recording the changes of the employees.
+         */
+        public void stop()
+        {
+            for (Employee employee : deptNums.keySet())
+                employee.removeEmployeeListener(this);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * This is the edit history of a week schedule, for undoing and redoing the changes
+ * made to the days of its employees (with addHoursAtDay, changeDayScheduledHours or
+ * setDayNote). The history listens to the employees, so every change made to a day is
+ * recorded as a new version, no matter where the change is made from.
+ *
+ * Each version is a persistent (never changed) 32-way tree of the weeks of the
+ * employees, in the order of the employee list. A change copies only the path from the
+ * root to the week that changed and shares every other node with the version before,
+ * so each version takes memory in proportion to the changes made, not to the size of
+ * the schedule. Going to any version (undo, redo or restore) switches the root in O(1)
+ * and only updates the live employees whose weeks are different, which are found by
+ * skipping the parts of the two trees that are shared.
+ *
+ * Making a change after an undo drops the versions that could have been redone.
+ * Employees added to the week schedule after the history was created are not tracked.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleHistory implements EmployeeListener
+{
+    private static final int WEEK_LENGTH = 7;
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS; //children per node
+    private static final int MASK = WIDTH - 1;
+
+    private final Employee[] employees;
+    private final IdentityHashMap<Employee, Integer> indexes;
+    private final int shift; //bits of the index used by the root level
+    private final ArrayList<Object[]> roots; //root of each version
+    private int current;
+    private boolean applying; //changes made by the history itself are not recorded
+
+    /**
+     * Constructs the history of a week schedule, with its current schedules as the
+     * first version, and starts listening to its employees.
+     * @param weekSchedule The week schedule to keep the history of
+     */
+    public ScheduleHistory(WeekSchedule weekSchedule)
+    {
+        int numEmployees = weekSchedule.getNumEmployees();
+        employees = new Employee[numEmployees];
+        System.arraycopy(weekSchedule.getEmployeeList(), 0, employees, 0, numEmployees);
+        indexes = new IdentityHashMap<>();
+        int levelShift = 0;
+        while ((long) 1 << (levelShift + BITS) < numEmployees)
+            levelShift += BITS;
+        shift = levelShift;
+
+        Object[] weeks = new Object[numEmployees];
+        for (int i = 0; i < numEmployees; i++)
+        {
+            weeks[i] = new EmployeeWeek(employees[i]);
+            indexes.put(employees[i], i);
+            employees[i].addEmployeeListener(this);
+        }
+        roots = new ArrayList<>();
+        roots.add(build(weeks, 0, shift));
+        current = 0;
+    }
+
+    /**
+     * Stops listening to the employees. Changes made after are not recorded.
+     */
+    public void dispose()
+    {
+        for (Employee employee : employees)
+            employee.removeEmployeeListener(this);
+    }
+
+    /**
+     * Records a change made to a day of an employee as a new version.
+     * @param employee The employee that changed
+     * @param day The day of the week that changed (0-6)
+     */
+    @Override
+    public void dayChanged(Employee employee, int day)
+    {
+        Integer index = indexes.get(employee);
+        if (applying || index == null)
+            return;
+        Object[] root = roots.get(current);
+        EmployeeWeek week = getWeek(root, index);
+        Employee.DayState state = new Employee.DayState(employee, day);
+        Object[] newRoot = set(root, shift, index, week.withDay(day, state));
+        roots.subList(current + 1, roots.size()).clear();
+        roots.add(newRoot);
+        current++;
+    }
+
+    /**
+     * Retrieves the current version. The first version (before any change) is 0.
+     * @return The current version
+     */
+    public int getVersion() { return current; }
+
+    /**
+     * Retrieves the number of versions that can be restored.
+     * @return The number of versions
+     */
+    public int getNumVersions() { return roots.size(); }
+
+    /**
+     * Determines whether there is a change to undo.
+     * @return True if the current version is not the first version
+     */
+    public boolean canUndo() { return current > 0; }
+
+    /**
+     * Determines whether there is an undone change to redo.
+     * @return True if the current version is not the last version
+     */
+    public boolean canRedo() { return current < roots.size() - 1; }
+
+    /**
+     * Undoes the last change.
+     * @return True if a change was undone; false if there was nothing to undo
+     */
+    public boolean undo()
+    {
+        if (!canUndo())
+            return false;
+        restore(current - 1);
+        return true;
+    }
+
+    /**
+     * Redoes the last undone change.
+     * @return True if a change was redone; false if there was nothing to redo
+     */
+    public boolean redo()
+    {
+        if (!canRedo())
+            return false;
+        restore(current + 1);
+        return true;
+    }
+
+    /**
+     * Restores the schedules of a version. The later versions are kept so they can
+     * still be restored until a new change is made.
+     * @param version The version to restore
+     */
+    public void restore(int version)
+    {
+        if (version < 0 || version >= roots.size())
+            throw new IndexOutOfBoundsException("No version " + version + " in the " +
+                    "history of " + roots.size() + " versions");
+        Object[] from = roots.get(current);
+        Object[] to = roots.get(version);
+        current = version;
+        applying = true;
+        try
+        {
+            applyDifferences(from, to, shift, 0);
+        }
+        finally
+        {
+            applying = false;
+        }
+    }
+
+    /**
+     * Retrieves the schedule of a day of an employee in a version, without restoring
+     * the version.
+     * @param version The version
+     * @param employeeIndex The index of the employee in the employee list
+     * @param day The day of the week (0-6)
+     * @return The work schedule in the format {department information, hours scheduled}
+     */
+    public String[] getDaySchedule(int version, int employeeIndex, int day)
+    {
+        Employee.DayState state = getWeek(roots.get(version), employeeIndex).days[day];
+        if (state.isNote())
+            return new String[] {state.department, ""}; //note or blank
+        return new String[] {state.deptNum + "\n" + state.department, state.hours};
+    }
+
+    /**
+     * Builds the nodes of a level of the tree for a range of weeks.
+     * @param weeks The weeks of the employees
+     * @param first The index of the first week of the node
+     * @param levelShift The bits of the index used by the level
+     * @return The node
+     */
+    private static Object[] build(Object[] weeks, int first, int levelShift)
+    {
+        Object[] node = new Object[WIDTH];
+        for (int i = 0; i < WIDTH; i++)
+        {
+            int start = first + (i << levelShift);
+            if (start >= weeks.length)
+                break;
+            node[i] = levelShift == 0 ? weeks[start] :
+                    build(weeks, start, levelShift - BITS);
+        }
+        return node;
+    }
+
+    /**
+     * Retrieves the week of an employee from a version.
+     * @param root The root of the version
+     * @param index The index of the employee
+     * @return The week of the employee
+     */
+    private EmployeeWeek getWeek(Object[] root, int index)
+    {
+        Object[] node = root;
+        for (int levelShift = shift; levelShift > 0; levelShift -= BITS)
+            node = (Object[]) node[(index >>> levelShift) & MASK];
+        return (EmployeeWeek) node[index & MASK];
+    }
+
+    /**
+     * Copies the path from a node to the week of an employee with a new week.
+     * @param node The node of the level
+     * @param levelShift The bits of the index used by the level
+     * @param index The index of the employee
+     * @param week The new week of the employee
+     * @return The copy of the node
+     */
+    private static Object[] set(Object[] node, int levelShift, int index,
+                                EmployeeWeek week)
+    {
+        Object[] copy = node.clone();
+        int child = (index >>> levelShift) & MASK;
+        if (levelShift == 0)
+            copy[child] = week;
+        else
+            copy[child] = set((Object[]) node[child], levelShift - BITS, index, week);
+        return copy;
+    }
+
+    /**
+     * Updates the live employees to the weeks of another version, skipping the nodes
+     * that both versions share.
+     * @param from The node of the current weeks
+     * @param to The node of the weeks to restore
+     * @param levelShift The bits of the index used by the level
+     * @param first The index of the first employee of the node
+     */
+    private void applyDifferences(Object[] from, Object[] to, int levelShift, int first)
+    {
+        if (from == to)
+            return;
+        for (int i = 0; i < WIDTH; i++)
+        {
+            if (from[i] == to[i] || to[i] == null)
+                continue;
+            int start = first + (i << levelShift);
+            if (levelShift > 0)
+                applyDifferences((Object[]) from[i], (Object[]) to[i], levelShift - BITS,
+                        start);
+            else
+                ((EmployeeWeek) to[i]).applyTo(employees[start], (EmployeeWeek) from[i]);
+        }
+    }
+
+    /**
+     * This is the week of an employee at one version. A change to a day makes a new week
+     * that shares the other days.
+     */
+    private static final class EmployeeWeek
+    {
+        final Employee.DayState[] days;
+
+        EmployeeWeek(Employee employee)
+        {
+            days = new Employee.DayState[WEEK_LENGTH];
+            for (int day = 0; day < WEEK_LENGTH; day++)
+                days[day] = new Employee.DayState(employee, day);
+        }
+
+        EmployeeWeek(Employee.DayState[] days)
+        {
+            this.days = days;
+        }
+
+        EmployeeWeek withDay(int day, Employee.DayState state)
+        {
+            Employee.DayState[] newDays = days.clone();
+            newDays[day] = state;
+            return new EmployeeWeek(newDays);
+        }
+
+        void applyTo(Employee employee, EmployeeWeek from)
+        {
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                if (days[day] != from.days[day])
+                    days[day].applyTo(employee, day);
+            }
+        }
+    }
+}
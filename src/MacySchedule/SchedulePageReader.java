@@ -1,6 +1,12 @@
 package MacySchedule;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -12,6 +18,15 @@ import java.util.Scanner;
  * files of different names to be inputted to the reader as the webpage may change names
  * in the future, although it may cause exceptions.
  *
+ * In lazy mode, the page is read into memory and only the names of the employees are
+ * read. The schedule of an employee is read from its row the first time it is used,
+ * which makes looking up a few employees of a large page much faster than reading
+ * every row.
+ *
+ * readInMemory reads a whole page without a Scanner, which is the quickest way to read
+ * a single page in a JVM that has just started: a Scanner loads the regular expression
+ * and locale classes, which take longer to load than the page takes to read.
+ *
  * @author Lisa Chen
  * @since 24Nov18
  * @version 1
@@ -19,17 +34,27 @@ import java.util.Scanner;
 public class SchedulePageReader
 {
     private File schedulePage;
-    private static WeekSchedule weekSchedule;
+    private WeekSchedule weekSchedule;
     private Scanner fileScanner;
-    private final String WEEK_OF_LABEL = "Week Of:";
-    private final String WEEK_OF_SELECTED_LABEL = "selected";
-    private final int DATE_RANGE_LENGTH = 23; //length of: XX/XX/XXXX - XX/XX/XXXX
-    private final String DEPT_NUM_PRELINE = "ScheduledAreas"; //one line before
-    private final String EMPLOYEE_PRETEXT = "td class=\"myareaviewtblcellassoc\">";
-    private final String CELL_TITLE_PRETEXT = "<td title=\"";
-    private final String END_CELL_TEXT = "</td>";
-    private final String END_HOURS_TEXT = "<br>";
-    private final String HTML_SPACING = "&nbsp;";
+    private ScheduleReadListener listener;
+    private StringPool stringPool;
+    private long charsRead;
+    private long totalChars;
+    private byte[] pageBytes; //the page in lazy mode
+    private int pagePosition;
+    private List<int[]> rows; //the employee rows of the page when only finding rows
+    private static final Charset PAGE_CHARSET = Charset.defaultCharset(); //as Scanner
+    private static final String WEEK_OF_LABEL = "Week Of:";
+    private static final String WEEK_OF_SELECTED_LABEL = "selected";
+    private static final int DATE_RANGE_LENGTH = 23; //length of: XX/XX/XXXX - XX/XX/XXXX
+    private static final String DEPT_NUM_PRELINE = "ScheduledAreas"; //one line before
+    private static final String EMPLOYEE_PRETEXT = "td class=\"myareaviewtblcellassoc\">";
+    private static final String CELL_TITLE_PRETEXT = "<td title=\"";
+    private static final String END_CELL_TEXT = "</td>";
+    private static final String END_HOURS_TEXT = "<br>";
+    private static final String HTML_SPACING = "&nbsp;";
+    private static final byte[] EMPLOYEE_PRETEXT_BYTES =
+            EMPLOYEE_PRETEXT.getBytes(PAGE_CHARSET);
 
     /**
      * Constructs the reader with a given html file to read.
@@ -37,14 +62,266 @@ public class SchedulePageReader
      * @throws FileNotFoundException If the file cannot be found
      */
     public SchedulePageReader(File htmlFile) throws FileNotFoundException
+    {
+        this(htmlFile, null);
+    }
+
+    /**
+     * Constructs the reader with a given html file to read and a listener that is
+     * notified as each employee row is read. Reading stops early (leaving a partial week
+     * schedule) if the reading thread is interrupted, which allows background reads to
+     * be cancelled.
+     * @param htmlFile The html file to read the data from
+     * @param listener The listener to notify of the progress (null if not needed)
+     * @throws FileNotFoundException If the file cannot be found
+     */
+    public SchedulePageReader(File htmlFile, ScheduleReadListener listener)
+            throws FileNotFoundException
+    {
+        this(htmlFile, listener, new StringPool());
+    }
+
+    /**
+     * Constructs the reader with a given html file to read, a listener that is notified
+     * as each employee row is read, and a pool for the names, notes and departments read.
+     * Readers of different pages can share a pool so each distinct name or note is only
+     * kept once no matter how many weeks are read.
+     * @param htmlFile The html file to read the data from
+     * @param listener The listener to notify of the progress (null if not needed)
+     * @param stringPool The pool of the names, notes and departments
+     * @throws FileNotFoundException If the file cannot be found
+     */
+    public SchedulePageReader(File htmlFile, ScheduleReadListener listener,
+                              StringPool stringPool) throws FileNotFoundException
+    {
+        this(htmlFile, listener, stringPool, (byte[]) null);
+    }
+
+    /**
+     * Constructs the reader with a given html file to read, either fully or in lazy
+     * mode. In lazy mode, the employees of the week schedule are LazyEmployees that
+     * read their schedules from the page the first time they are used, and the listener
+     * is notified of each employee when its name is read.
+     * @param htmlFile The html file to read the data from
+     * @param listener The listener to notify of the progress (null if not needed)
+     * @param stringPool The pool of the names, notes and departments
+     * @param lazy True to read the schedules of the employees only when they are used
+     * @throws IOException If the file cannot be read
+     */
+    public SchedulePageReader(File htmlFile, ScheduleReadListener listener,
+                              StringPool stringPool, boolean lazy) throws IOException
+    {
+        this(htmlFile, listener, stringPool,
+                lazy ? Files.readAllBytes(htmlFile.toPath()) : null);
+    }
+
+    /**
+     * Constructs the reader with a page read from a stream, such as an entry of a
+     * compressed archive, without copying the page to a file first. The stream is read
+     * to its end but not closed.
+     * @param page The stream of the html page to read the data from
+     * @param listener The listener to notify of the progress (null if not needed)
+     * @param stringPool The pool of the names, notes and departments
+     * @throws IOException If the stream cannot be read
+     */
+    public SchedulePageReader(InputStream page, ScheduleReadListener listener,
+                              StringPool stringPool) throws IOException
+    {
+        this.listener = listener;
+        this.stringPool = stringPool;
+        fileScanner = new Scanner(page);
+        charsRead = 0;
+        totalChars = -1;
+        readPage();
+        //the scanner hides errors of the stream, which would leave a partial page
+        if (fileScanner.ioException() != null)
+            throw fileScanner.ioException();
+    }
+
+    /**
+     * Constructs the reader in lazy mode if the page was read into memory.
+     * @param htmlFile The html file to read the data from
+     * @param listener The listener to notify of the progress (null if not needed)
+     * @param stringPool The pool of the names, notes and departments
+     * @param pageBytes The page in lazy mode, or null to read the file fully
+     * @throws FileNotFoundException If the file cannot be found
+     */
+    private SchedulePageReader(File htmlFile, ScheduleReadListener listener,
+                               StringPool stringPool, byte[] pageBytes)
+            throws FileNotFoundException
     {
         schedulePage = htmlFile;
+        this.listener = listener;
+        this.stringPool = stringPool;
+        this.pageBytes = pageBytes;
+        charsRead = 0;
+        if (pageBytes != null)
+        {
+            pagePosition = 0;
+            totalChars = pageBytes.length;
+            readPage();
+            return;
+        }
         fileScanner = new Scanner(schedulePage);
+        totalChars = schedulePage.length();
+        try
+        {
+            readPage();
+        }
+        finally
+        {
+            fileScanner.close();
+        }
+    }
+
+    /**
+     * Constructs the reader to only find the employee rows of a page that was read into
+     * memory, for the row decode stage of an ImportPipeline. The week schedule is
+     * created without employees and the rows are decoded with decodeRow.
+     * @param pageBytes The page
+     * @param stringPool The pool of the names, notes and departments
+     * @param rows The list to add the {start, end} of each employee row to
+     */
+    SchedulePageReader(byte[] pageBytes, StringPool stringPool, List<int[]> rows)
+    {
+        this.stringPool = stringPool;
+        this.pageBytes = pageBytes;
+        this.rows = rows;
+        pagePosition = 0;
+        charsRead = 0;
+        totalChars = pageBytes.length;
+        readPage();
+    }
+
+    /**
+     * Reads a page into memory and creates all of its employees, without a Scanner.
+     * @param htmlFile The html file to read the data from
+     * @param stringPool The pool of the names, notes and departments
+     * @return The week schedule of the page
+     * @throws IOException If the file cannot be read
+     */
+    public static WeekSchedule readInMemory(File htmlFile, StringPool stringPool)
+            throws IOException
+    {
+        List<int[]> rows = new ArrayList<>();
+        SchedulePageReader reader = new SchedulePageReader(
+                Files.readAllBytes(htmlFile.toPath()), stringPool, rows);
+        WeekSchedule weekSchedule = reader.getWeekSchedule();
+        for (int[] row : rows)
+            weekSchedule.addEmployee(reader.decodeRow(row));
+        return weekSchedule;
+    }
+
+    /**
+     * Reads only the week and department of a page. The page is read up to the line of
+     * the department, which comes before the employee rows, so the cost does not grow
+     * with the number of employees.
+     * @param htmlFile The html file to read the header from
+     * @param stringPool The pool of the department
+     * @return The week schedule of the page, without employees
+     * @throws IOException If the file cannot be read
+     */
+    public static WeekSchedule readHeader(File htmlFile, StringPool stringPool)
+            throws IOException
+    {
+        SchedulePageReader reader = new SchedulePageReader(stringPool);
+        reader.fileScanner = new Scanner(htmlFile);
+        try
+        {
+            reader.readWeekHeader();
+        }
+        finally
+        {
+            reader.fileScanner.close(); //stops reading after the header
+        }
+        if (reader.fileScanner.ioException() != null)
+            throw reader.fileScanner.ioException();
+        return reader.weekSchedule;
+    }
+
+    /**
+     * Constructs a reader without a page, for readHeader.
+     * @param stringPool The pool of the department
+     */
+    private SchedulePageReader(StringPool stringPool)
+    {
+        this.stringPool = stringPool;
+        charsRead = 0;
+        totalChars = -1;
+    }
+
+    /**
+     * Reads the week and department of the page, then its employees.
+     */
+    private void readPage()
+    {
+        readWeekHeader();
+        if (listener != null)
+            listener.scheduleStarted(weekSchedule);
+        if (rows != null)
+            findRows();
+        else if (pageBytes != null)
+            lazyEmployeeSetUp();
+        else
+            employeeSetUp();
+    }
+
+    /**
+     * Reads the week and department of the page and creates the week schedule.
+     */
+    private void readWeekHeader()
+    {
         String weekRange = findWeekRange();
         String[] departmentInfo = getDepartmentInfo();
-        weekSchedule = new WeekSchedule(weekRange, departmentInfo[0],
+        weekSchedule = new WeekSchedule(weekRange, stringPool.intern(departmentInfo[0]),
                 Integer.parseInt(departmentInfo[1]));
-        employeeSetUp();
+    }
+
+    /**
+     * Reads the next line of the page and keeps count of the characters read so far
+     * for the progress reported to the listener.
+     * @return The next line of the page
+     */
+    private String nextLine()
+    {
+        if (pageBytes != null)
+        {
+            int lineEnd = findLineEnd(pagePosition);
+            String line = new String(pageBytes, pagePosition, lineEnd - pagePosition,
+                    PAGE_CHARSET);
+            pagePosition = Math.min(lineEnd + 1, pageBytes.length);
+            charsRead = pagePosition;
+            return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        }
+        String line = fileScanner.nextLine();
+        charsRead += line.length() + 1; //includes the line separator
+        return line;
+    }
+
+    /**
+     * Checks if there is more of the page to read.
+     * @return True if there is more of the page
+     */
+    private boolean hasNextLine()
+    {
+        if (pageBytes != null)
+            return pagePosition < pageBytes.length;
+        return fileScanner.hasNext();
+    }
+
+    /**
+     * Finds the end of a line of the page in lazy mode.
+     * @param from The index of the start of the line
+     * @return The index of the new line character, or the length of the page
+     */
+    private int findLineEnd(int from)
+    {
+        for (int i = from; i < pageBytes.length; i++)
+        {
+            if (pageBytes[i] == '\n')
+                return i;
+        }
+        return pageBytes.length;
     }
 
     /**
@@ -57,15 +334,15 @@ public class SchedulePageReader
         boolean found = false;
         String weekRange = "";
         //loop to look for selected week of date
-        while (fileScanner.hasNext() && found == false)
+        while (hasNextLine() && found == false)
         {
-            weekRange = fileScanner.nextLine();
+            weekRange = nextLine();
             if (weekRange.contains(WEEK_OF_LABEL))
             {
                 found = true;
-                weekRange = fileScanner.nextLine();
+                weekRange = nextLine();
                 if (!weekRange.contains(WEEK_OF_SELECTED_LABEL))
-                    weekRange = fileScanner.nextLine();
+                    weekRange = nextLine();
             }
         }
         //first index is after the first > in the line
@@ -93,14 +370,14 @@ public class SchedulePageReader
         String deptStr = "";
         String[] result = new String[2];
 
-        while (fileScanner.hasNext() && found == false)
+        while (hasNextLine() && found == false)
         {
-            deptStr = fileScanner.nextLine();
+            deptStr = nextLine();
             //if contains pretext, the department is in the next line between > <
             if(deptStr.contains(DEPT_NUM_PRELINE))
             {
                 found = true;
-                deptStr = fileScanner.nextLine();
+                deptStr = nextLine();
                 deptStr = deptStr.substring(deptStr.indexOf('>') + 1,
                         deptStr.indexOf('<', deptStr.indexOf('<') + 1));
                 //deptStr has " - " separating the departnment number and description
@@ -113,48 +390,192 @@ public class SchedulePageReader
 
     /**
      * Creates the employees from the information in the html page and adds them to
-     * the week schedule that is being generated by the reader.
+     * the week schedule that is being generated by the reader. Stops reading if the
+     * current thread is interrupted.
      */
     private void employeeSetUp()
     {
-        while (fileScanner.hasNext())
+        Thread current = Thread.currentThread();
+        while (fileScanner.hasNext() && !current.isInterrupted())
         {
-            String employeeLine = fileScanner.nextLine();
+            String employeeLine = nextLine();
             int startIndex = employeeLine.indexOf(EMPLOYEE_PRETEXT);
             if (startIndex != -1)
             {
-                String fullName = employeeLine.substring(startIndex +
-                        EMPLOYEE_PRETEXT.length(),employeeLine.indexOf('<',
-                        employeeLine.indexOf('<') + 1));
-                String[] parsedName = parseFullName(fullName);
-                Employee employee = new Employee(parsedName[0], parsedName[1],
-                        parsedName[2]);
-                employeeLine = employeeLine.substring(employeeLine.indexOf(END_CELL_TEXT)
-                        + END_CELL_TEXT.length());
-                weekSchedule.addEmployee(populateEmployeeSchedule(employeeLine,
-                        employee));
+                Employee employee = decodeRow(employeeLine, startIndex);
+                weekSchedule.addEmployee(employee);
+                if (listener != null)
+                    listener.employeeRead(employee, charsRead, totalChars);
             }
         }
     }
 
+    /**
+     * Creates an employee from its row of the page.
+     * @param employeeLine The line of the employee row
+     * @param startIndex The index of the text before the name of the employee
+     * @return The employee with the populated schedules
+     */
+    private Employee decodeRow(String employeeLine, int startIndex)
+    {
+        int nameStart = startIndex + EMPLOYEE_PRETEXT.length();
+        int nameEnd = employeeLine.indexOf('<', employeeLine.indexOf('<') + 1);
+        String[] parsedName = parseFullName(employeeLine, nameStart, nameEnd);
+        Employee employee = new Employee(parsedName[0], parsedName[1], parsedName[2]);
+        int cellIndex = employeeLine.indexOf(END_CELL_TEXT) + END_CELL_TEXT.length();
+        return populateEmployeeSchedule(employeeLine, cellIndex, stringPool, employee);
+    }
+
+    /**
+     * Creates an employee from a row found by the reader, for the row decode stage of an
+     * ImportPipeline. Rows of the same page can be decoded by many threads at once.
+     * @param row The {start, end} of the row in the page
+     * @return The employee with the populated schedules
+     */
+    Employee decodeRow(int[] row)
+    {
+        String employeeLine = new String(pageBytes, row[0], row[1] - row[0],
+                PAGE_CHARSET);
+        return decodeRow(employeeLine, employeeLine.indexOf(EMPLOYEE_PRETEXT));
+    }
+
+    /**
+     * Finds the employee rows of the page in memory without decoding them. Stops if the
+     * current thread is interrupted.
+     */
+    private void findRows()
+    {
+        Thread current = Thread.currentThread();
+        while (pagePosition < pageBytes.length && !current.isInterrupted())
+        {
+            int lineStart = pagePosition;
+            int lineEnd = findLineEnd(lineStart);
+            pagePosition = Math.min(lineEnd + 1, pageBytes.length);
+            if (lineEnd > lineStart && pageBytes[lineEnd - 1] == '\r')
+                lineEnd--; //rows are kept without the line separator
+            if (indexOf(pageBytes, EMPLOYEE_PRETEXT_BYTES, lineStart, lineEnd) != -1)
+                rows.add(new int[] {lineStart, lineEnd});
+        }
+    }
+
+    /**
+     * Creates the employees from the rows of the page in lazy mode and adds them to the
+     * week schedule. Only the name of each employee is read; the rest of the row is
+     * kept as a range of the page for the employee to read when it is used. Stops
+     * reading if the current thread is interrupted.
+     */
+    private void lazyEmployeeSetUp()
+    {
+        Thread current = Thread.currentThread();
+        while (pagePosition < pageBytes.length && !current.isInterrupted())
+        {
+            int lineStart = pagePosition;
+            int lineEnd = findLineEnd(lineStart);
+            pagePosition = Math.min(lineEnd + 1, pageBytes.length);
+            if (lineEnd > lineStart && pageBytes[lineEnd - 1] == '\r')
+                lineEnd--; //rows are kept without the line separator
+            int startIndex = indexOf(pageBytes, EMPLOYEE_PRETEXT_BYTES, lineStart,
+                    lineEnd);
+            if (startIndex == -1)
+                continue;
+            int nameStart = startIndex + EMPLOYEE_PRETEXT_BYTES.length;
+            int nameEnd = indexOf(pageBytes, (byte) '<', indexOf(pageBytes, (byte) '<',
+                    lineStart, lineEnd) + 1, lineEnd);
+            String fullName = new String(pageBytes, nameStart, nameEnd - nameStart,
+                    PAGE_CHARSET);
+            String[] parsedName = parseFullName(fullName, 0, fullName.length());
+            Employee employee = new LazyEmployee(parsedName[0], parsedName[1],
+                    parsedName[2], stringPool, pageBytes, lineStart, lineEnd);
+            weekSchedule.addEmployee(employee);
+            if (listener != null)
+                listener.employeeRead(employee, pagePosition, totalChars);
+        }
+    }
+
+    /**
+     * Reads the schedule of an employee from its row of the page, for a LazyEmployee
+     * that is used for the first time.
+     * @param page The page in lazy mode
+     * @param rowStart The index of the start of the row of the employee
+     * @param rowEnd The index of the end of the row of the employee
+     * @param stringPool The pool of the notes and departments
+     * @param employee The employee to receive the schedules
+     */
+    static void loadRow(byte[] page, int rowStart, int rowEnd, StringPool stringPool,
+                        Employee employee)
+    {
+        String employeeLine = new String(page, rowStart, rowEnd - rowStart, PAGE_CHARSET);
+        int cellIndex = employeeLine.indexOf(END_CELL_TEXT) + END_CELL_TEXT.length();
+        populateEmployeeSchedule(employeeLine, cellIndex, stringPool, employee);
+    }
+
+    /**
+     * Finds the first index of a sequence of bytes in a range of bytes.
+     * @param data The bytes to search
+     * @param pattern The sequence of bytes to find
+     * @param from The index to start searching from
+     * @param to The index after the last byte to search
+     * @return The index of the sequence, or -1 if it is not found
+     */
+    private static int indexOf(byte[] data, byte[] pattern, int from, int to)
+    {
+        byte first = pattern[0];
+        int last = to - pattern.length;
+        for (int i = from; i <= last; i++)
+        {
+            if (data[i] != first)
+                continue;
+            int j = 1;
+            while (j < pattern.length && data[i + j] == pattern[j])
+                j++;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first index of a byte in a range of bytes.
+     * @param data The bytes to search
+     * @param value The byte to find
+     * @param from The index to start searching from
+     * @param to The index after the last byte to search
+     * @return The index of the byte, or -1 if it is not found
+     */
+    private static int indexOf(byte[] data, byte value, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (data[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
     /**
      * Adds the schedules that is specific to the employee from the information in the
-     * html page.
+     * html page. The line is read by index and the departments and notes are taken
+     * from the string pool, so only the hours of each cell are copied out of the line.
      * @param employeeLine The given line related to the employee from the html page
+     * @param cellIndex The index of the first day cell in the line
+     * @param stringPool The pool of the notes and departments
      * @param employee The employee object to receive the schedules
      * @return The employee object with the populated schedules
      */
-    private Employee populateEmployeeSchedule(String employeeLine, Employee employee)
+    private static Employee populateEmployeeSchedule(String employeeLine, int cellIndex,
+                                                     StringPool stringPool,
+                                                     Employee employee)
     {
-        while(employeeLine.length() > 0)
+        while (cellIndex < employeeLine.length())
         {
-            if (employeeLine.indexOf(CELL_TITLE_PRETEXT) == 0)
+            if (employeeLine.startsWith(CELL_TITLE_PRETEXT, cellIndex))
             {
-                employeeLine = employeeLine.substring(CELL_TITLE_PRETEXT.length());
-                String department = employeeLine.substring(0, employeeLine.indexOf('"'));
-                String hours = employeeLine.substring(employeeLine.indexOf('>') + 1,
-                        employeeLine.indexOf(END_HOURS_TEXT));
-                int indexEndText = employeeLine.indexOf(END_HOURS_TEXT); //
+                cellIndex += CELL_TITLE_PRETEXT.length();
+                String department = stringPool.intern(employeeLine, cellIndex,
+                        employeeLine.indexOf('"', cellIndex));
+                int indexEndText = employeeLine.indexOf(END_HOURS_TEXT, cellIndex);
+                String hours = employeeLine.substring(
+                        employeeLine.indexOf('>', cellIndex) + 1, indexEndText);
                 int deptNum = Integer.parseInt(employeeLine.substring(indexEndText +
                                 END_HOURS_TEXT.length(), employeeLine.indexOf(
                                 END_HOURS_TEXT, indexEndText + 1)));
@@ -162,40 +583,45 @@ public class SchedulePageReader
             }
             else
             {
-                employeeLine = employeeLine.substring(employeeLine.indexOf('>') + 1);
-                String cellText = employeeLine.substring(0, employeeLine.indexOf('<'));
-                if (cellText.equals(HTML_SPACING))
+                cellIndex = employeeLine.indexOf('>', cellIndex) + 1;
+                int textEnd = employeeLine.indexOf('<', cellIndex);
+                if (textEnd - cellIndex == HTML_SPACING.length() &&
+                        employeeLine.startsWith(HTML_SPACING, cellIndex))
                     employee.addSeqSchedule("");
                 else
-                    employee.addSeqSchedule(cellText);
+                    employee.addSeqSchedule(stringPool.intern(employeeLine, cellIndex,
+                            textEnd));
             }
-            employeeLine = employeeLine.substring(employeeLine.indexOf(END_CELL_TEXT) +
-                    END_CELL_TEXT.length());
+            cellIndex = employeeLine.indexOf(END_CELL_TEXT, cellIndex) +
+                    END_CELL_TEXT.length();
         }
         return employee;
     }
 
     /**
      * Breaks down the employee's full name to first name, last name, and middle name.
-     * @param fullName The full name of an employee
+     * The names are taken from the string pool.
+     * @param line The line with the full name of an employee
+     * @param start The index of the first character of the full name
+     * @param end The index after the last character of the full name
      * @return The first name, last name, and middle name in an array, in that order
      */
-    private String[] parseFullName(String fullName)
+    private String[] parseFullName(String line, int start, int end)
     {
         String[] parsedName = new String[3];
-        int commaIndex = fullName.indexOf(',');
-        parsedName[1] = fullName.substring(0, commaIndex);
-        fullName = fullName.substring(commaIndex + 2); //remove space after comma as well
-        int spaceIndex = fullName.indexOf(' ');
+        int commaIndex = line.indexOf(',', start);
+        parsedName[1] = stringPool.intern(line, start, commaIndex);
+        int firstStart = commaIndex + 2; //skip space after comma as well
+        int spaceIndex = line.indexOf(' ', firstStart);
         //has a middle name
-        if (spaceIndex != -1)
+        if (spaceIndex != -1 && spaceIndex < end)
         {
-            parsedName[0] = fullName.substring(0, spaceIndex);
-            parsedName[2] = fullName.substring(spaceIndex + 1);
+            parsedName[0] = stringPool.intern(line, firstStart, spaceIndex);
+            parsedName[2] = stringPool.intern(line, spaceIndex + 1, end);
         }
         else
         {
-            parsedName[0] = fullName;
+            parsedName[0] = stringPool.intern(line, firstStart, end);
             parsedName[2] = "";
         }
         return parsedName;
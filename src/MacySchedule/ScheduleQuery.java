@@ -0,0 +1,841 @@
+package MacySchedule;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * This is a query over the rows of a ShiftTable, written in a small filter language and
+ * compiled once into predicate objects that read the primitive columns of the table.
+ * For example, the employees of department 6601 that work after 9:00p on weekends and
+ * more than 30 hours that week:
+ *
+ *   dept = 6601 and day in (sat, sun) and end > 9:00p and week_hours > 30
+ *
+ * A condition is a field, an operator (=, !=, <, <=, >, >= or in) and a value:
+ *   dept        department number, such as 6601 (=, != and in)
+ *   day         day of the week, such as sat or saturday (=, != and in)
+ *   date        date of the day, such as 2018-11-25
+ *   start, end  start and end of the hours, such as 9:00p or 21:00 (an end on the next
+ *               day is after midnight, so end > 9:00p includes overnight hours)
+ *   hours       paid hours of the day
+ *   week_hours  paid hours of the employee in the week (Sunday to Saturday) of the day
+ *   note        note of a day without a department, such as "PTO" (=, != and in)
+ * and "weekend" and "weekday" are short for the days. Conditions are combined with and,
+ * or, not and parentheses. Days without hours never match conditions on start, end or
+ * hours.
+ *
+ * A query that requires departments reads only the rows of those departments, using the
+ * department index of the table; other queries read every row, in parallel when there
+ * are many rows. Compiled queries are kept by their text, so a report that runs the
+ * same query again does not parse it again.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleQuery
+{
+    private static final int MAX_CACHED_QUERIES = 256;
+    private static final int PARALLEL_ROWS = 50000; //fewer rows are read by one thread
+    private static final int DAY_MINUTES = 24 * 60;
+    private static final int THURSDAY = 3; //day of the week of 1970-01-01 (Monday 0)
+    private static final int FIRST_SUNDAY = 3; //1970-01-04, the start of week 0
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat",
+            "sun"};
+    private static final int WEEKEND_DAYS = 1 << 5 | 1 << 6;
+    private static final LinkedHashMap<String, ScheduleQuery> CACHE =
+            new LinkedHashMap<String, ScheduleQuery>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, ScheduleQuery> eldest)
+                {
+                    return size() > MAX_CACHED_QUERIES;
+                }
+            };
+
+    private final String text;
+    private final Node root;
+    private final int[] indexDeptNums; //departments every match is in, or null
+
+    /**
+     * Constructs a compiled query.
+     * @param text The text of the query
+     * @param root The compiled conditions
+     */
+    private ScheduleQuery(String text, Node root)
+    {
+        this.text = text;
+        this.root = root;
+        indexDeptNums = findIndexDepartments(root);
+    }
+
+    /**
+     * Compiles a query, or retrieves it from the queries compiled before.
+     * @param text The text of the query
+     * @return The compiled query
+     * @throws IllegalArgumentException If the query is not valid
+     */
+    public static ScheduleQuery compile(String text)
+    {
+        String key = text.trim();
+        synchronized (CACHE)
+        {
+            ScheduleQuery query = CACHE.get(key);
+            if (query != null)
+                return query;
+        }
+        ScheduleQuery query = new ScheduleQuery(key, new Parser(key).parse());
+        synchronized (CACHE)
+        {
+            CACHE.put(key, query);
+        }
+        return query;
+    }
+
+    /**
+     * Finds the rows of a table that match the query.
+     * @param table The table to search
+     * @return The matching rows in order
+     */
+    public int[] findRows(ShiftTable table)
+    {
+        RowPredicate predicate = root.bind(new Columns(table));
+        if (indexDeptNums == null)
+            return filter(IntStream.range(0, table.size()), table.size(), predicate);
+
+        int[][] deptRows = new int[indexDeptNums.length][];
+        int numRows = 0;
+        for (int i = 0; i < indexDeptNums.length; i++)
+        {
+            int deptId = table.getDeptId(indexDeptNums[i]);
+            deptRows[i] = deptId == ShiftTable.NO_ID ? new int[0] :
+                    table.getDeptRows(deptId);
+            numRows += deptRows[i].length;
+        }
+        int[] rows = deptRows.length == 1 ? deptRows[0] : new int[numRows];
+        if (deptRows.length > 1)
+        {
+            int next = 0;
+            for (int[] oneDept : deptRows)
+            {
+                System.arraycopy(oneDept, 0, rows, next, oneDept.length);
+                next += oneDept.length;
+            }
+            Arrays.sort(rows);
+        }
+        return filter(Arrays.stream(rows), rows.length, predicate);
+    }
+
+    /**
+     * Finds the employees of a table that have a row that matches the query.
+     * @param table The table to search
+     * @return The ids of the employees in order
+     */
+    public int[] findEmployees(ShiftTable table)
+    {
+        int[] employeeIds = table.getEmployeeIds();
+        boolean[] found = new boolean[table.getNumEmployees()];
+        for (int row : findRows(table))
+            found[employeeIds[row]] = true;
+        return IntStream.range(0, found.length).filter(id -> found[id]).toArray();
+    }
+
+    /**
+     * Retrieves the text of the query.
+     * @return The text the query was compiled from
+     */
+    public String getText() { return text; }
+
+    /**
+     * Describes how the query is run: the departments read from the index, if any, and
+     * the compiled conditions.
+     * @return The plan of the query
+     */
+    @Override
+    public String toString()
+    {
+        String scan = indexDeptNums == null ? "scan all rows" :
+                "scan dept index " + Arrays.toString(indexDeptNums);
+        return scan + "; filter " + root;
+    }
+
+    /**
+     * Tests rows, in parallel if there are many.
+     * @param rows The rows to test
+     * @param numRows The number of rows
+     * @param predicate The compiled conditions
+     * @return The rows that match in order
+     */
+    private static int[] filter(IntStream rows, int numRows, RowPredicate predicate)
+    {
+        if (numRows >= PARALLEL_ROWS)
+            rows = rows.parallel();
+        return rows.filter(predicate::test).toArray();
+    }
+
+    /**
+     * Finds the departments that every matching row must be in, which is the case when
+     * the query is a department condition or an and with one.
+     * @param root The compiled conditions
+     * @return The department numbers, or null if the query is not limited to them
+     */
+    private static int[] findIndexDepartments(Node root)
+    {
+        if (root instanceof DeptNode && !((DeptNode) root).negated)
+            return ((DeptNode) root).deptNums;
+        if (root instanceof AndNode)
+        {
+            for (Node part : ((AndNode) root).parts)
+            {
+                int[] deptNums = findIndexDepartments(part);
+                if (deptNums != null)
+                    return deptNums;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This is a compiled condition that tests a row of a table.
+     */
+    private interface RowPredicate
+    {
+        boolean test(int row);
+    }
+
+    /**
+     * These are the columns of a table for a run of a query, with the columns that are
+     * derived from them calculated only if a condition needs them.
+     */
+    private static final class Columns
+    {
+        final ShiftTable table;
+        private int[] ends;
+        private int[] paid;
+        private int[] weekPaid;
+
+        Columns(ShiftTable table)
+        {
+            this.table = table;
+        }
+
+        /** The end of the hours, after midnight (over 1440) if on the next day. */
+        int[] ends()
+        {
+            if (ends == null)
+            {
+                int[] starts = table.getStartMinutes();
+                int[] endMinutes = table.getEndMinutes();
+                ends = new int[table.size()];
+                for (int row = 0; row < ends.length; row++)
+                {
+                    int end = endMinutes[row];
+                    ends[row] = starts[row] < 0 ? -1 :
+                            end <= starts[row] ? end + DAY_MINUTES : end;
+                }
+            }
+            return ends;
+        }
+
+        /** The paid minutes of each row, or -1 without hours. */
+        int[] paid()
+        {
+            if (paid == null)
+            {
+                int[] starts = table.getStartMinutes();
+                paid = PaidHoursKernel.paidMinutes(table);
+                for (int row = 0; row < paid.length; row++)
+                {
+                    if (starts[row] < 0)
+                        paid[row] = -1;
+                }
+            }
+            return paid;
+        }
+
+        /** The paid minutes of the employee of each row in the week of the row. */
+        int[] weekPaid()
+        {
+            if (weekPaid == null)
+            {
+                int[] dayPaid = paid();
+                int[] employeeIds = table.getEmployeeIds();
+                int[] dates = table.getDates();
+                HashMap<Long, Integer> totals = new HashMap<>();
+                long[] keys = new long[table.size()];
+                for (int row = 0; row < keys.length; row++)
+                {
+                    long week = Math.floorDiv(dates[row] - FIRST_SUNDAY, 7);
+                    keys[row] = week << 32 | employeeIds[row];
+                    totals.merge(keys[row], Math.max(dayPaid[row], 0), Integer::sum);
+                }
+                weekPaid = new int[keys.length];
+                for (int row = 0; row < keys.length; row++)
+                    weekPaid[row] = totals.get(keys[row]);
+            }
+            return weekPaid;
+        }
+    }
+
+    /**
+     * This is a parsed condition, which is bound to the columns of a table to test rows.
+     */
+    private abstract static class Node
+    {
+        abstract RowPredicate bind(Columns columns);
+    }
+
+    /** A range of values of an integer column, such as start >= 9:00p. */
+    private static final class RangeNode extends Node
+    {
+        final String field;
+        final int min;
+        final int max;
+
+        RangeNode(String field, int min, int max)
+        {
+            this.field = field;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            int[] values;
+            int low = min;
+            switch (field)
+            {
+                case "start":
+                    values = columns.table.getStartMinutes();
+                    low = Math.max(min, 0); //days without hours never match
+                    break;
+                case "end":
+                    values = columns.ends();
+                    low = Math.max(min, 0);
+                    break;
+                case "hours":
+                    values = columns.paid();
+                    low = Math.max(min, 0);
+                    break;
+                case "week_hours":
+                    values = columns.weekPaid();
+                    break;
+                default:
+                    values = columns.table.getDates();
+            }
+            int lowest = low;
+            int highest = max;
+            return row -> values[row] >= lowest && values[row] <= highest;
+        }
+
+        @Override
+        public String toString() { return field + " in [" + min + ", " + max + "]"; }
+    }
+
+    /** A set of departments. */
+    private static final class DeptNode extends Node
+    {
+        final int[] deptNums;
+        final boolean negated;
+
+        DeptNode(int[] deptNums, boolean negated)
+        {
+            this.deptNums = deptNums;
+            this.negated = negated;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            ShiftTable table = columns.table;
+            boolean[] matches = new boolean[table.getNumDepartments() + 1];
+            Arrays.fill(matches, negated); //slot 0 is rows without a department
+            for (int deptNum : deptNums)
+            {
+                int deptId = table.getDeptId(deptNum);
+                if (deptId != ShiftTable.NO_ID)
+                    matches[deptId + 1] = !negated;
+            }
+            int[] deptIds = table.getDeptIds();
+            return row -> matches[deptIds[row] + 1];
+        }
+
+        @Override
+        public String toString()
+        {
+            return "dept " + (negated ? "not in " : "in ") + Arrays.toString(deptNums);
+        }
+    }
+
+    /** A set of days of the week, as a bit for each day (Monday is bit 0). */
+    private static final class DayNode extends Node
+    {
+        final int days;
+
+        DayNode(int days)
+        {
+            this.days = days;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            int[] dates = columns.table.getDates();
+            return row -> (days >>> Math.floorMod(dates[row] + THURSDAY, 7) & 1) != 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            List<String> names = new ArrayList<>();
+            for (int day = 0; day < DAY_NAMES.length; day++)
+            {
+                if ((days >>> day & 1) != 0)
+                    names.add(DAY_NAMES[day]);
+            }
+            return "day in " + names;
+        }
+    }
+
+    /** A set of notes. */
+    private static final class NoteNode extends Node
+    {
+        final String[] notes;
+        final boolean negated;
+
+        NoteNode(String[] notes, boolean negated)
+        {
+            this.notes = notes;
+            this.negated = negated;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            ShiftTable table = columns.table;
+            boolean[] matches = new boolean[table.getNumNotes() + 1];
+            Arrays.fill(matches, negated);
+            for (String note : notes)
+            {
+                int noteId = table.getNoteId(note);
+                if (noteId != ShiftTable.NO_ID)
+                    matches[noteId + 1] = !negated;
+            }
+            int[] noteIds = table.getNoteIds();
+            return row -> matches[noteIds[row] + 1];
+        }
+
+        @Override
+        public String toString()
+        {
+            return "note " + (negated ? "not in " : "in ") + Arrays.toString(notes);
+        }
+    }
+
+    /** Conditions that must all match. */
+    private static final class AndNode extends Node
+    {
+        final Node[] parts;
+
+        AndNode(Node[] parts)
+        {
+            this.parts = parts;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            RowPredicate[] predicates = new RowPredicate[parts.length];
+            for (int i = 0; i < parts.length; i++)
+                predicates[i] = parts[i].bind(columns);
+            if (predicates.length == 2)
+            {
+                RowPredicate first = predicates[0];
+                RowPredicate second = predicates[1];
+                return row -> first.test(row) && second.test(row);
+            }
+            return row ->
+            {
+                for (RowPredicate predicate : predicates)
+                {
+                    if (!predicate.test(row))
+                        return false;
+                }
+                return true;
+            };
+        }
+
+        @Override
+        public String toString() { return "and" + Arrays.toString(parts); }
+    }
+
+    /** Conditions of which at least one must match. */
+    private static final class OrNode extends Node
+    {
+        final Node[] parts;
+
+        OrNode(Node[] parts)
+        {
+            this.parts = parts;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            RowPredicate[] predicates = new RowPredicate[parts.length];
+            for (int i = 0; i < parts.length; i++)
+                predicates[i] = parts[i].bind(columns);
+            return row ->
+            {
+                for (RowPredicate predicate : predicates)
+                {
+                    if (predicate.test(row))
+                        return true;
+                }
+                return false;
+            };
+        }
+
+        @Override
+        public String toString() { return "or" + Arrays.toString(parts); }
+    }
+
+    /** A condition that must not match. */
+    private static final class NotNode extends Node
+    {
+        final Node part;
+
+        NotNode(Node part)
+        {
+            this.part = part;
+        }
+
+        @Override
+        RowPredicate bind(Columns columns)
+        {
+            RowPredicate predicate = part.bind(columns);
+            return row -> !predicate.test(row);
+        }
+
+        @Override
+        public String toString() { return "not[" + part + "]"; }
+    }
+
+    /**
+     * This is the parser of the query language.
+     */
+    private static final class Parser
+    {
+        private final String text;
+        private final List<String> tokens;
+        private final List<Integer> positions;
+        private int next;
+
+        Parser(String text)
+        {
+            this.text = text;
+            tokens = new ArrayList<>();
+            positions = new ArrayList<>();
+            tokenize();
+            next = 0;
+        }
+
+        Node parse()
+        {
+            if (tokens.isEmpty())
+                throw new IllegalArgumentException("The query is empty");
+            Node node = parseOr();
+            if (next < tokens.size())
+                throw error("Unexpected " + tokens.get(next));
+            return node;
+        }
+
+        private Node parseOr()
+        {
+            List<Node> parts = new ArrayList<>();
+            parts.add(parseAnd());
+            while (accept("or"))
+                parts.add(parseAnd());
+            return parts.size() == 1 ? parts.get(0) :
+                    new OrNode(parts.toArray(new Node[0]));
+        }
+
+        private Node parseAnd()
+        {
+            List<Node> parts = new ArrayList<>();
+            parts.add(parseUnary());
+            while (accept("and"))
+                parts.add(parseUnary());
+            return parts.size() == 1 ? parts.get(0) :
+                    new AndNode(parts.toArray(new Node[0]));
+        }
+
+        private Node parseUnary()
+        {
+            if (accept("not"))
+                return new NotNode(parseUnary());
+            if (accept("("))
+            {
+                Node node = parseOr();
+                expect(")");
+                return node;
+            }
+            if (accept("weekend"))
+                return new DayNode(WEEKEND_DAYS);
+            if (accept("weekday"))
+                return new DayNode(~WEEKEND_DAYS & 0x7f);
+            return parseCondition();
+        }
+
+        private Node parseCondition()
+        {
+            int fieldIndex = next;
+            String field = nextToken().toLowerCase(Locale.ROOT);
+            String operator = nextToken().toLowerCase(Locale.ROOT);
+            List<String> values = new ArrayList<>();
+            if (operator.equals("in"))
+            {
+                expect("(");
+                do
+                    values.add(nextToken());
+                while (accept(","));
+                expect(")");
+            }
+            else if (Arrays.asList("=", "!=", "<", "<=", ">", ">=").contains(operator))
+                values.add(nextToken());
+            else
+                throw error("Expected an operator after " + field);
+            boolean negated = operator.equals("!=");
+            boolean equality = negated || operator.equals("=") || operator.equals("in");
+
+            switch (field)
+            {
+                case "dept":
+                    if (!equality)
+                        throw errorAt(fieldIndex + 1,
+                                "dept can only be compared with =, != or in");
+                    int[] deptNums = new int[values.size()];
+                    for (int i = 0; i < deptNums.length; i++)
+                        deptNums[i] = parseInt(values.get(i));
+                    //a department listed twice would find its rows twice
+                    return new DeptNode(IntStream.of(deptNums).distinct().toArray(),
+                            negated);
+                case "day":
+                    if (!equality)
+                        throw errorAt(fieldIndex + 1,
+                                "day can only be compared with =, != or in");
+                    int days = 0;
+                    for (String value : values)
+                        days |= 1 << parseDay(value);
+                    return new DayNode(negated ? ~days & 0x7f : days);
+                case "note":
+                    if (!equality)
+                        throw errorAt(fieldIndex + 1,
+                                "note can only be compared with =, != or in");
+                    return new NoteNode(values.toArray(new String[0]), negated);
+                case "start":
+                case "end":
+                case "hours":
+                case "week_hours":
+                case "date":
+                    if (operator.equals("in"))
+                        throw errorAt(fieldIndex + 1,
+                                field + " cannot be compared with in");
+                    return rangeNode(field, operator, parseValue(field, values.get(0)));
+                default:
+                    throw errorAt(fieldIndex, "Unknown field " + field);
+            }
+        }
+
+        private static Node rangeNode(String field, String operator, int value)
+        {
+            switch (operator)
+            {
+                case "=":
+                    return new RangeNode(field, value, value);
+                case "!=": //not a not of =, which would match days without hours
+                    return new OrNode(new Node[] {
+                            new RangeNode(field, Integer.MIN_VALUE, value - 1),
+                            new RangeNode(field, value + 1, Integer.MAX_VALUE)});
+                case "<":
+                    return new RangeNode(field, Integer.MIN_VALUE, value - 1);
+                case "<=":
+                    return new RangeNode(field, Integer.MIN_VALUE, value);
+                case ">":
+                    return new RangeNode(field, value + 1, Integer.MAX_VALUE);
+                default:
+                    return new RangeNode(field, value, Integer.MAX_VALUE);
+            }
+        }
+
+        private int parseValue(String field, String value)
+        {
+            switch (field)
+            {
+                case "start":
+                case "end":
+                    return parseTime(value);
+                case "date":
+                    try
+                    {
+                        return (int) LocalDate.parse(value).toEpochDay();
+                    }
+                    catch (DateTimeParseException e)
+                    {
+                        throw error("Expected a date such as 2018-11-25: " + value);
+                    }
+                default:
+                    try
+                    {
+                        return (int) Math.round(Double.parseDouble(value) * 60);
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw error("Expected a number of hours: " + value);
+                    }
+            }
+        }
+
+        private int parseTime(String value)
+        {
+            String time = value.toLowerCase(Locale.ROOT);
+            int colon = time.indexOf(':');
+            boolean pm = time.endsWith("p") || time.endsWith("pm");
+            boolean am = time.endsWith("a") || time.endsWith("am");
+            String digits = time.replaceAll("[apm]+$", "");
+            try
+            {
+                int hour = Integer.parseInt(colon < 0 ? digits :
+                        digits.substring(0, colon));
+                int minute = colon < 0 ? 0 :
+                        Integer.parseInt(digits.substring(colon + 1));
+                if ((am || pm) && (hour < 1 || hour > 12) || hour > 24 || minute > 59)
+                    throw error("Not a time: " + value);
+                if (am || pm)
+                    hour = hour % 12 + (pm ? 12 : 0);
+                return hour * 60 + minute;
+            }
+            catch (NumberFormatException e)
+            {
+                throw error("Expected a time such as 9:00p: " + value);
+            }
+        }
+
+        private int parseDay(String value)
+        {
+            String day = value.toLowerCase(Locale.ROOT);
+            for (DayOfWeek dayOfWeek : DayOfWeek.values())
+            {
+                String name = dayOfWeek.name().toLowerCase(Locale.ROOT);
+                if (day.length() >= 3 && name.startsWith(day))
+                    return dayOfWeek.getValue() - 1;
+            }
+            throw error("Not a day: " + value);
+        }
+
+        private int parseInt(String value)
+        {
+            try
+            {
+                return Integer.parseInt(value);
+            }
+            catch (NumberFormatException e)
+            {
+                throw error("Expected a department number: " + value);
+            }
+        }
+
+        private boolean accept(String token)
+        {
+            if (next < tokens.size() && tokens.get(next).equalsIgnoreCase(token))
+            {
+                next++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token)
+        {
+            if (!accept(token))
+                throw error("Expected " + token);
+        }
+
+        private String nextToken()
+        {
+            if (next >= tokens.size())
+                throw error("Unexpected end of the query");
+            return tokens.get(next++);
+        }
+
+        private IllegalArgumentException error(String message)
+        {
+            return errorAt(next, message);
+        }
+
+        private IllegalArgumentException errorAt(int tokenIndex, String message)
+        {
+            int position = tokenIndex < positions.size() ? positions.get(tokenIndex) :
+                    text.length();
+            return new IllegalArgumentException(message + " at position " + position +
+                    " of: " + text);
+        }
+
+        /**
+         * Splits the text into words, quoted strings and symbols.
+         */
+        private void tokenize()
+        {
+            int i = 0;
+            while (i < text.length())
+            {
+                char c = text.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c))
+                {
+                    i++;
+                    continue;
+                }
+                if (c == '"')
+                {
+                    int end = text.indexOf('"', i + 1);
+                    if (end < 0)
+                        throw new IllegalArgumentException("Unclosed quote at position " +
+                                i + " of: " + text);
+                    tokens.add(text.substring(i + 1, end));
+                    i = end + 1;
+                }
+                else if (c == '(' || c == ')' || c == ',')
+                {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                }
+                else if (c == '<' || c == '>' || c == '=' || c == '!')
+                {
+                    i++;
+                    if (i < text.length() && text.charAt(i) == '=')
+                        i++;
+                    tokens.add(text.substring(start, i));
+                }
+                else
+                {
+                    while (i < text.length() && !Character.isWhitespace(text.charAt(i)) &&
+                            "()<>=!,\"".indexOf(text.charAt(i)) < 0)
+                        i++;
+                    tokens.add(text.substring(start, i));
+                }
+                positions.add(start);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package MacySchedule;
+
+/**
+ * This is a listener for the progress of a SchedulePageReader. The reader notifies the
+ * listener once the week schedule is created from the page header and then once for
+ * every employee row as soon as the row is read, so that callers (such as the UI) can
+ * show the rows while the rest of the page is still being read.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public interface ScheduleReadListener
+{
+    /**
+     * Called when the week schedule has been created from the header of the page and
+     * before any employees are added to it.
+     * @param weekSchedule The week schedule being generated by the reader
+     */
+    void scheduleStarted(WeekSchedule weekSchedule);
+
+    /**
+     * Called after an employee row has been read and added to the week schedule.
+     * @param employee The employee with the populated schedules
+     * @param charsRead The number of characters read from the page so far
+     * @param totalChars The approximate size of the page (file length), or -1 if unknown
+     */
+    void employeeRead(Employee employee, long charsRead, long totalChars);
+}
@@ -0,0 +1,309 @@
+package MacySchedule;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * This is a cache of the week schedules read from schedule pages, kept as small binary
+ * snapshots in a directory so that a page that was read before is not parsed again by
+ * the next run of the tool. A snapshot is used only if the page still has the length
+ * and modification time it had when the snapshot was stored; a damaged snapshot is
+ * treated as missing.
+ *
+ * The snapshots of the most recent pages can be preloaded into memory, such as by a
+ * program that will open the latest weeks, so that loading them later does not wait on
+ * the disk. A preloaded week schedule is handed out once and then belongs to the caller.
+ *
+ * A snapshot file has the format: magic, version, the length of the record, the record
+ * (path, length and modification time of the page, then the week schedule and its
+ * employees), and the CRC32 of the record.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleSnapshotCache
+{
+    private static final int MAGIC = 0x4D53534E; //MSSN
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".snapshot";
+    private static final int WEEK_LENGTH = 7;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final File directory;
+    private final StringPool stringPool;
+    private final ConcurrentHashMap<String, Snapshot> preloaded; //by page path
+    private final AtomicInteger hits;
+    private final AtomicInteger misses;
+
+    /**
+     * Constructs a cache of the snapshots in a directory. The directory is created when
+     * the first snapshot is stored.
+     * @param directory The directory of the snapshots
+     * @param stringPool The pool of the names, notes and departments of the snapshots
+     */
+    public ScheduleSnapshotCache(File directory, StringPool stringPool)
+    {
+        this.directory = directory;
+        this.stringPool = stringPool;
+        preloaded = new ConcurrentHashMap<>();
+        hits = new AtomicInteger();
+        misses = new AtomicInteger();
+    }
+
+    /**
+     * Loads the snapshot of a page if it is up to date with the page.
+     * @param page The schedule page
+     * @return The week schedule of the page, or null if there is no up to date snapshot
+     */
+    public WeekSchedule load(File page)
+    {
+        String path = page.getAbsolutePath();
+        Snapshot snapshot = preloaded.remove(path);
+        if (snapshot == null)
+        {
+            try
+            {
+                snapshot = read(snapshotFile(path));
+            }
+            catch (IOException | RuntimeException e)
+            {
+                snapshot = null; //missing or damaged
+            }
+        }
+        if (snapshot == null || !snapshot.path.equals(path) ||
+                snapshot.length != page.length() ||
+                snapshot.lastModified != page.lastModified())
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return snapshot.weekSchedule;
+    }
+
+    /**
+     * Stores the snapshot of a page, replacing any older snapshot of the page.
+     * @param page The schedule page
+     * @param weekSchedule The week schedule read from the page
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void store(File page, WeekSchedule weekSchedule) throws IOException
+    {
+        String path = page.getAbsolutePath();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(path);
+        out.writeLong(page.length());
+        out.writeLong(page.lastModified());
+        writeWeekSchedule(out, weekSchedule);
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+            throw new IOException("Cannot create " + directory);
+        File file = snapshotFile(path);
+        File temp = File.createTempFile("snapshot", ".tmp", directory);
+        try (DataOutputStream fileOut = new DataOutputStream(
+                Files.newOutputStream(temp.toPath())))
+        {
+            fileOut.writeInt(MAGIC);
+            fileOut.writeInt(VERSION);
+            fileOut.writeInt(record.length);
+            fileOut.write(record);
+            fileOut.writeInt((int) crc.getValue());
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the most recently stored snapshots into memory.
+     * @param count The most snapshots to read
+     * @return The number of snapshots read
+     */
+    public int preload(int count)
+    {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null)
+            return 0;
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++)
+        {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[b], modified[a]));
+        int loaded = 0;
+        for (int i = 0; i < files.length && loaded < count; i++)
+        {
+            try
+            {
+                Snapshot snapshot = read(files[order[i]]);
+                preloaded.put(snapshot.path, snapshot);
+                loaded++;
+            }
+            catch (IOException | RuntimeException e)
+            {
+                //a damaged snapshot is read again (and missed) when its page is loaded
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Retrieves the number of pages that were loaded from a snapshot.
+     * @return The number of hits
+     */
+    public int getHits() { return hits.get(); }
+
+    /**
+     * Retrieves the number of pages that had no up to date snapshot.
+     * @return The number of misses
+     */
+    public int getMisses() { return misses.get(); }
+
+    /**
+     * Finds the snapshot file of a page by a hash of its path.
+     * @param path The absolute path of the page
+     * @return The snapshot file
+     */
+    private File snapshotFile(String path)
+    {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < path.length(); i++)
+        {
+            hash ^= path.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return new File(directory, Long.toHexString(hash) + SUFFIX);
+    }
+
+    /**
+     * Reads a snapshot file.
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    private Snapshot read(File file) throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            throw new IOException("Not a snapshot of this version: " + file);
+        int length = in.readInt();
+        if (length < 0 || length > bytes.length - 16)
+            throw new IOException("Damaged snapshot: " + file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 12, length);
+        in.skipBytes(length);
+        if (in.readInt() != (int) crc.getValue())
+            throw new IOException("Damaged snapshot: " + file);
+
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes, 12,
+                length));
+        String path = record.readUTF();
+        long pageLength = record.readLong();
+        long lastModified = record.readLong();
+        return new Snapshot(path, pageLength, lastModified, readWeekSchedule(record));
+    }
+
+    /**
+     * Writes a week schedule and its employees. Days without a department are written
+     * as notes, and blank days are not written.
+     * @param out The output to write to
+     * @param weekSchedule The week schedule to write
+     * @throws IOException If the week schedule cannot be written
+     */
+    private static void writeWeekSchedule(DataOutputStream out, WeekSchedule weekSchedule)
+            throws IOException
+    {
+        out.writeUTF(weekSchedule.getWeekRange());
+        out.writeUTF(weekSchedule.getDepartment());
+        out.writeInt(weekSchedule.getDeptNum());
+        out.writeInt(weekSchedule.getNumEmployees());
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            Employee employee = employees[i];
+            out.writeUTF(employee.getFirstName());
+            out.writeUTF(employee.getLastName());
+            out.writeUTF(employee.getMiddleName());
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                Employee.DayState state = new Employee.DayState(employee, day);
+                if (state.isBlank())
+                    continue;
+                out.writeByte(day);
+                out.writeUTF(state.department);
+                out.writeInt(state.deptNum);
+                out.writeUTF(state.hours);
+            }
+            out.writeByte(-1); //end of the days
+        }
+    }
+
+    /**
+     * Reads a week schedule written by writeWeekSchedule.
+     * @param in The input to read from
+     * @return The week schedule
+     * @throws IOException If the week schedule cannot be read
+     */
+    private WeekSchedule readWeekSchedule(DataInputStream in) throws IOException
+    {
+        WeekSchedule weekSchedule = new WeekSchedule(in.readUTF(),
+                stringPool.intern(in.readUTF()), in.readInt());
+        int numEmployees = in.readInt();
+        for (int i = 0; i < numEmployees; i++)
+        {
+            Employee employee = new Employee(stringPool.intern(in.readUTF()),
+                    stringPool.intern(in.readUTF()), stringPool.intern(in.readUTF()));
+            int day;
+            while ((day = in.readByte()) >= 0)
+            {
+                if (day >= WEEK_LENGTH)
+                    throw new IOException("Not a day of the week: " + day);
+                new Employee.DayState(stringPool.intern(in.readUTF()), in.readInt(),
+                        in.readUTF()).applyTo(employee, day);
+            }
+            weekSchedule.addEmployee(employee);
+        }
+        return weekSchedule;
+    }
+
+    /**
+     * This is a snapshot read from its file, with the page it was stored for.
+     */
+    private static final class Snapshot
+    {
+        final String path;
+        final long length;
+        final long lastModified;
+        final WeekSchedule weekSchedule;
+
+        Snapshot(String path, long length, long lastModified, WeekSchedule weekSchedule)
+        {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.weekSchedule = weekSchedule;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package MacySchedule;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This is a class to read more pages than one JVM can hold, such as the schedule
+ * history of every store of a district, by splitting them into shards that are read by
+ * ShardWorker processes on the same machine. Each worker reads the pages of its shard
+ * and writes only the rows of the hours reports, to a temporary file of the shard. The
+ * reports are then written by merging the files of the shards in the order of the
+ * files read, a row at a time, so neither the coordinator nor a worker holds the rows
+ * or the week schedules of the whole district.
+ *
+ * Pages are put in shards by department (the department number of the page header, so
+ * every week of a department is read by the same worker); archives, which can hold
+ * pages of many departments, are put in shards by their path. A worker that fails (it
+ * exits with an error or does not finish its records) is started again with the same
+ * shard, up to the most attempts, and the records of the failed attempt are dropped.
+ * The temporary files are deleted when the result is closed.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ShardCoordinator
+{
+    private static final String WORKER_CLASS = ShardWorker.class.getName();
+
+    private final int shards;
+    private int maxAttempts;
+    private int workerThreads;
+    private final List<String> jvmOptions;
+    private final List<String> workerArguments;
+
+    /**
+     * Constructs a coordinator that tries each shard up to 3 times with a thread for
+     * each processor in each worker.
+     * @param shards The number of shards (worker processes)
+     */
+    public ShardCoordinator(int shards)
+    {
+        if (shards < 1)
+            throw new IllegalArgumentException("At least one shard is needed");
+        this.shards = shards;
+        maxAttempts = 3;
+        workerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / shards);
+        jvmOptions = new ArrayList<>();
+        workerArguments = new ArrayList<>();
+    }
+
+    /**
+     * Sets the most times a shard is tried before its files are reported as failed.
+     * @param maxAttempts The most attempts (at least 1)
+     */
+    public void setMaxAttempts(int maxAttempts)
+    {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("A shard needs at least one attempt");
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Sets the number of pages each worker reads at the same time.
+     * @param workerThreads The number of threads of each worker
+     */
+    public void setWorkerThreads(int workerThreads)
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Sets the options of the worker JVMs, such as the most memory ("-Xmx2g").
+     * @param options The options of the java command of the workers
+     */
+    public void setJvmOptions(List<String> options)
+    {
+        jvmOptions.clear();
+        jvmOptions.addAll(options);
+    }
+
+    /**
+     * Sets more arguments of the workers, such as "--crash-once" to test the retries.
+     * @param arguments The arguments given to each ShardWorker
+     */
+    public void setWorkerArguments(List<String> arguments)
+    {
+        workerArguments.clear();
+        workerArguments.addAll(arguments);
+    }
+
+    /**
+     * Reads the pages and archives of a list of files in the shards. The shards are run
+     * at the same time, each by its own worker. The result must be closed to delete the
+     * records of the workers.
+     * @param files The pages and archives to read
+     * @return The records and failures of the shards, to merge into the reports
+     * @throws InterruptedException If the thread is interrupted while waiting for the
+     *                              workers, which are then stopped
+     */
+    public Result run(List<File> files) throws InterruptedException
+    {
+        List<List<Integer>> shardFiles = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++)
+            shardFiles.add(new ArrayList<>());
+        StringPool headerPool = new StringPool();
+        int[] fileShards = new int[files.size()];
+        for (int index = 0; index < files.size(); index++)
+        {
+            fileShards[index] = findShard(files.get(index), headerPool);
+            shardFiles.get(fileShards[index]).add(index);
+        }
+
+        Result result = new Result(fileShards, shards);
+        ExecutorService executor = Executors.newFixedThreadPool(shards);
+        boolean finished = false;
+        try
+        {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int shard = 0; shard < shards; shard++)
+            {
+                if (shardFiles.get(shard).isEmpty())
+                    continue;
+                int shardNum = shard;
+                runs.add(executor.submit(() ->
+                {
+                    runShard(shardNum, files, shardFiles.get(shardNum), result);
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs)
+                run.get();
+            finished = true;
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Shard failed", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow(); //interrupts the runs, which stop their workers
+            if (!finished)
+                result.close();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the shard of a file: by the department of a page, or by the path of an
+     * archive or a page whose header cannot be read (the worker reports the error).
+     * @param file The page or archive
+     * @param headerPool The pool of the departments of the headers
+     * @return The shard of the file
+     */
+    int findShard(File file, StringPool headerPool)
+    {
+        if (!ScheduleArchiveReader.isArchive(file))
+        {
+            try
+            {
+                //only the lines up to the department are read, not the employee rows
+                WeekSchedule header = SchedulePageReader.readHeader(file, headerPool);
+                return Math.floorMod(header.getDeptNum(), shards);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                //read again by a worker, which reports why the page cannot be read
+            }
+        }
+        return Math.floorMod(file.getPath().hashCode(), shards);
+    }
+
+    /**
+     * Runs a shard until a worker finishes it or the attempts run out, then adds its
+     * records to the result.
+     * @param shard The number of the shard
+     * @param files The files of all shards
+     * @param indices The indices of the files of the shard
+     * @param result The result to add the records to
+     * @throws InterruptedException If the thread is interrupted while waiting for the
+     *                              worker
+     */
+    private void runShard(int shard, List<File> files, List<Integer> indices,
+                          Result result) throws InterruptedException
+    {
+        String error = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++)
+        {
+            if (attempt > 1)
+            {
+                System.err.println("Shard " + shard + " failed (" + error + "), " +
+                        "attempt " + attempt + " of " + maxAttempts);
+                result.addRetry();
+            }
+            File records = null;
+            try
+            {
+                records = File.createTempFile("shard" + shard + "-", ".records");
+                records.deleteOnExit();
+                error = runWorker(files, indices, records);
+                if (error == null)
+                    error = result.addShard(shard, records);
+            }
+            catch (IOException e)
+            {
+                error = e.toString();
+            }
+            if (error == null)
+                return;
+            if (records != null)
+                records.delete();
+        }
+        result.addFailedShard();
+        for (int index : indices)
+            result.addFailure(files.get(index).getPath(), "shard " + shard +
+                    " failed after " + maxAttempts + " attempts: " + error);
+    }
+
+    /**
+     * Starts a worker, gives it the files of its shard, and waits for it to write its
+     * records.
+     * @param files The files of all shards
+     * @param indices The indices of the files of the shard
+     * @param records The file to write the records of the worker to
+     * @return Null if the worker exited normally, or why it failed
+     * @throws IOException If the worker cannot be started or its pipe fails
+     * @throws InterruptedException If the thread is interrupted while waiting for the
+     *                              worker, which is then stopped
+     */
+    private String runWorker(List<File> files, List<Integer> indices, File records)
+            throws IOException, InterruptedException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java")
+                .getPath());
+        command.addAll(jvmOptions);
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                WORKER_CLASS, "--records", records.getPath(), "-t",
+                Integer.toString(workerThreads)));
+        command.addAll(workerArguments);
+        Process worker = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try
+        {
+            worker.getInputStream().close(); //the worker prints to its standard error
+            try (Writer in = new BufferedWriter(new OutputStreamWriter(
+                    worker.getOutputStream(), StandardCharsets.UTF_8)))
+            {
+                for (int index : indices)
+                    in.write(ShardWorker.join(ShardWorker.FILE, Integer.toString(index),
+                            files.get(index).getPath()) + '\n');
+            }
+            catch (IOException e)
+            {
+                //the worker exited early; its exit status tells why
+            }
+            int status = worker.waitFor();
+            return status == 0 ? null : "exit status " + status;
+        }
+        finally
+        {
+            worker.destroy();
+        }
+    }
+
+    /**
+     * These are the records of the shards: the files of the rows of the hours reports,
+     * which are merged in the order of the files when the reports are written, and the
+     * pages that could not be read.
+     */
+    public static final class Result implements AutoCloseable
+    {
+        private final int[] fileShards; //shard of each file index
+        private final File[] shardRecords; //null if the shard has no records
+        private final List<String> failures;
+        private int pages;
+        private int employees;
+        private int retries;
+        private int failedShards;
+
+        Result(int[] fileShards, int shards)
+        {
+            this.fileShards = fileShards;
+            shardRecords = new File[shards];
+            failures = new ArrayList<>();
+        }
+
+        /**
+         * Adds the records of a shard whose worker exited normally, if they are all
+         * known records and end with the end record.
+         * @param shard The number of the shard
+         * @param records The file of the records of the worker
+         * @return Null if the records were added, or why they are not complete
+         * @throws IOException If the records cannot be read
+         */
+        String addShard(int shard, File records) throws IOException
+        {
+            int shardPages = 0;
+            int shardEmployees = 0;
+            List<String> shardFailures = new ArrayList<>();
+            boolean ended = false;
+            try (BufferedReader in = Files.newBufferedReader(records.toPath(),
+                    StandardCharsets.UTF_8))
+            {
+                String line;
+                while ((line = in.readLine()) != null)
+                {
+                    String[] record = ShardWorker.split(line);
+                    if (ended || !isKnown(record))
+                        return "unknown record: " + line;
+                    ended = record[0].equals(ShardWorker.END);
+                    if (record[0].equals(ShardWorker.PAGE))
+                        shardPages++;
+                    else if (record[0].equals(ShardWorker.EMPLOYEE_ROW))
+                        shardEmployees++;
+                    else if (record[0].equals(ShardWorker.FAIL))
+                        shardFailures.add(record[2] + ": " + record[3]);
+                }
+            }
+            if (!ended)
+                return "no end record";
+            synchronized (this)
+            {
+                shardRecords[shard] = records;
+                pages += shardPages;
+                employees += shardEmployees;
+                failures.addAll(shardFailures);
+            }
+            return null;
+        }
+
+        /**
+         * Checks if a record is of a known type, with the fields of its type.
+         * @param record The record
+         * @return True if the record is known
+         */
+        private static boolean isKnown(String[] record)
+        {
+            switch (record[0])
+            {
+                case ShardWorker.PAGE:
+                    return record.length == 3 && isIndex(record[1]);
+                case ShardWorker.FAIL:
+                    return record.length == 4 && isIndex(record[1]);
+                case ShardWorker.END:
+                    return record.length == 2 && isIndex(record[1]);
+                case ShardWorker.EMPLOYEE_ROW:
+                case ShardWorker.DEPARTMENT_ROW:
+                    return record.length > 1;
+                default:
+                    return false;
+            }
+        }
+
+        private static boolean isIndex(String value)
+        {
+            return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+        }
+
+        synchronized void addFailure(String name, String message)
+        {
+            failures.add(name + ": " + message);
+        }
+
+        synchronized void addRetry() { retries++; }
+
+        synchronized void addFailedShard() { failedShards++; }
+
+        /**
+         * Writes the hours by employee report of the pages that were read.
+         * @param out The stream to write the report to
+         * @param format The format to write the report in
+         * @throws UncheckedIOException If the records of a shard cannot be read
+         */
+        public synchronized void writeEmployeeHours(PrintStream out,
+                                                    HoursReport.Format format)
+        {
+            HoursReport.writeEmployeeHours(out, format,
+                    () -> new RowMerger(ShardWorker.EMPLOYEE_ROW));
+        }
+
+        /**
+         * Writes the hours by department report of the pages that were read.
+         * @param out The stream to write the report to
+         * @param format The format to write the report in
+         * @throws UncheckedIOException If the records of a shard cannot be read
+         */
+        public synchronized void writeDepartmentHours(PrintStream out,
+                                                      HoursReport.Format format)
+        {
+            HoursReport.writeDepartmentHours(out, format,
+                    () -> new RowMerger(ShardWorker.DEPARTMENT_ROW));
+        }
+
+        /**
+         * Retrieves the number of pages that were read.
+         * @return The number of pages
+         */
+        public synchronized int getNumPages() { return pages; }
+
+        /**
+         * Retrieves the number of employee rows of the pages that were read.
+         * @return The number of employees
+         */
+        public synchronized int getNumEmployees() { return employees; }
+
+        /**
+         * Retrieves the pages and archives that could not be read, with why.
+         * @return The failures in format "name: message"
+         */
+        public synchronized List<String> getFailures()
+        {
+            return Collections.unmodifiableList(new ArrayList<>(failures));
+        }
+
+        /**
+         * Retrieves the number of times a shard was started again after its worker
+         * failed.
+         * @return The number of retries
+         */
+        public synchronized int getRetries() { return retries; }
+
+        /**
+         * Retrieves the number of shards that failed every attempt.
+         * @return The number of failed shards
+         */
+        public synchronized int getFailedShards() { return failedShards; }
+
+        /**
+         * Deletes the records of the shards. The reports cannot be written after.
+         */
+        @Override
+        public synchronized void close()
+        {
+            for (int shard = 0; shard < shardRecords.length; shard++)
+            {
+                if (shardRecords[shard] != null)
+                    shardRecords[shard].delete();
+                shardRecords[shard] = null;
+            }
+        }
+
+        /**
+         * This is a merge of the rows of one report from the records of the shards, in
+         * the order of the files. The records of each shard are in the order of its
+         * files, so only the next record of each shard is kept in memory.
+         */
+        private final class RowMerger implements Iterator<String[]>
+        {
+            private final String type;
+            private final BufferedReader[] readers; //opened when first needed
+            private final String[][] nextRecords; //of each shard, null when not read
+            private int index; //of the file being merged
+            private String[] nextRow;
+
+            RowMerger(String type)
+            {
+                this.type = type;
+                readers = new BufferedReader[shardRecords.length];
+                nextRecords = new String[shardRecords.length][];
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                if (nextRow == null)
+                    nextRow = findRow();
+                return nextRow != null;
+            }
+
+            @Override
+            public String[] next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                String[] row = nextRow;
+                nextRow = null;
+                return row;
+            }
+
+            /**
+             * Finds the next row of the report, moving to the next file when the
+             * records of the current file are used up.
+             * @return The values of the row, or null after the last file
+             */
+            private String[] findRow()
+            {
+                try
+                {
+                    while (index < fileShards.length)
+                    {
+                        int shard = fileShards[index];
+                        String[] record = peek(shard);
+                        if (record != null && !isKnown(record))
+                            throw new IOException("Unknown record of shard " + shard +
+                                    ": " + ShardWorker.join(record[0],
+                                    Arrays.copyOfRange(record, 1, record.length)));
+                        if (record != null && isOfFile(record, index))
+                        {
+                            nextRecords[shard] = null;
+                            if (record[0].equals(type))
+                                return Arrays.copyOfRange(record, 1, record.length);
+                        }
+                        else
+                            index++;
+                    }
+                    closeReaders();
+                    return null;
+                }
+                catch (IOException e)
+                {
+                    closeReaders();
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            /**
+             * Retrieves the next record of a shard without using it up.
+             * @param shard The number of the shard
+             * @return The record, or null if the shard has no more records
+             * @throws IOException If the records cannot be read
+             */
+            private String[] peek(int shard) throws IOException
+            {
+                if (shardRecords[shard] == null)
+                    return null; //failed shard
+                if (readers[shard] == null)
+                    readers[shard] = Files.newBufferedReader(shardRecords[shard].toPath(),
+                            StandardCharsets.UTF_8);
+                if (nextRecords[shard] == null)
+                {
+                    String line = readers[shard].readLine();
+                    nextRecords[shard] = line == null ? null : ShardWorker.split(line);
+                }
+                return nextRecords[shard];
+            }
+
+            /**
+             * Checks if a record is of a file: a page or failure of the file, or a row
+             * of the page before it.
+             * @param record The record
+             * @param fileIndex The index of the file
+             * @return True if the record is of the file
+             */
+            private boolean isOfFile(String[] record, int fileIndex)
+            {
+                switch (record[0])
+                {
+                    case ShardWorker.PAGE:
+                    case ShardWorker.FAIL:
+                        return Integer.parseInt(record[1]) == fileIndex;
+                    case ShardWorker.EMPLOYEE_ROW:
+                    case ShardWorker.DEPARTMENT_ROW:
+                        return true;
+                    default:
+                        return false; //end record
+                }
+            }
+
+            private void closeReaders()
+            {
+                for (BufferedReader reader : readers)
+                {
+                    try
+                    {
+                        if (reader != null)
+                            reader.close();
+                    }
+                    catch (IOException e)
+                    {
+                        //only read from
+                    }
+                }
+            }
+        }
+    }
+}
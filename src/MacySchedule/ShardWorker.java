@@ -0,0 +1,327 @@
+package MacySchedule;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This is the worker process of a sharded run: a JVM started by a ShardCoordinator that
+ * reads the pages of its shard and sends back the rows of the hours reports, so the
+ * coordinator never holds the week schedules of the whole district. The worker only
+ * reads a few files ahead of the one it is writing and drops each page once its rows
+ * are written, so it does not hold its whole shard either.
+ *
+ * The worker reads its files from its standard input and writes its records to the
+ * records file given by the coordinator, one record a line with the fields separated by
+ * tabs (tabs, line breaks and backslashes in values are escaped with a backslash). The
+ * records have their own file so that anything else printed while the pages are read
+ * cannot be mixed into them; the standard output goes to the standard error instead.
+ *   in:   FILE index path     a page or archive of the shard, until the end of input
+ *   out:  PAGE index name     a page of the file that was read, followed by its rows:
+ *         EMP values...       a row of the hours by employee report
+ *         DEPT values...      the row of the hours by department report
+ *         FAIL index name msg  a page or archive that could not be read
+ *         END count           the last line, with the number of files read
+ * A worker that exits without END did not finish and its shard is run again.
+ *
+ * Usage: ShardWorker --records records-file [-t threads] [--crash-once marker-file]
+ * The crash option is for testing the retries: if the marker file does not exist, the
+ * worker creates it and exits before it sends any record.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ShardWorker
+{
+    static final String FILE = "FILE";
+    static final String PAGE = "PAGE";
+    static final String EMPLOYEE_ROW = "EMP";
+    static final String DEPARTMENT_ROW = "DEPT";
+    static final String FAIL = "FAIL";
+    static final String END = "END";
+    static final char SEPARATOR = '\t';
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_CRASH = 3;
+    private static final int FILES_AHEAD_PER_THREAD = 2;
+
+    private final int threads;
+    private final PrintWriter out;
+
+    /**
+     * Constructs a worker that sends its records to a writer.
+     * @param threads The number of pages read at the same time
+     * @param out The writer to the coordinator
+     */
+    ShardWorker(int threads, PrintWriter out)
+    {
+        this.threads = threads;
+        this.out = out;
+    }
+
+    public static void main(String[] args)
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String records = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-t") && i + 1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--records") && i + 1 < args.length)
+                records = args[++i];
+            else if (args[i].equals("--crash-once") && i + 1 < args.length)
+            {
+                try
+                {
+                    if (new File(args[++i]).createNewFile())
+                        System.exit(EXIT_CRASH);
+                }
+                catch (IOException e)
+                {
+                    System.exit(EXIT_CRASH);
+                }
+            }
+        }
+
+        if (records == null)
+        {
+            System.err.println("Usage: ShardWorker --records records-file [-t threads]");
+            System.exit(EXIT_FAILED);
+        }
+        System.setOut(System.err); //such as the messages of Time about bad hours
+        PrintWriter out;
+        try
+        {
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(records), StandardCharsets.UTF_8)));
+        }
+        catch (IOException e)
+        {
+            System.err.println("Shard worker failed: " + e);
+            System.exit(EXIT_FAILED);
+            return;
+        }
+        int status;
+        try
+        {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in,
+                    StandardCharsets.UTF_8));
+            status = new ShardWorker(threads, out).run(in);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.err.println("Shard worker failed: " + e);
+            status = EXIT_FAILED;
+        }
+        out.flush();
+        System.exit(out.checkError() ? EXIT_FAILED : status);
+    }
+
+    /**
+     * Reads the files of the shard given by the coordinator and sends back the rows of
+     * their pages, in the order the files were given.
+     * @param in The reader of the coordinator's records
+     * @return The exit status of the worker
+     * @throws IOException If the records of the coordinator cannot be read
+     */
+    int run(BufferedReader in) throws IOException
+    {
+        List<Integer> indices = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null)
+        {
+            String[] fields = split(line);
+            if (fields.length != 3 || !fields[0].equals(FILE))
+                throw new IOException("Not a file record: " + line);
+            indices.add(Integer.parseInt(fields[1]));
+            files.add(new File(fields[2]));
+        }
+
+        StringPool stringPool = new StringPool();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ScheduleArchiveReader archiveReader = new ScheduleArchiveReader(executor,
+                stringPool);
+        HoursReport rows = new HoursReport(Collections.emptyList(),
+                HoursReport.Format.CSV);
+        try
+        {
+            //a few files are started ahead of the one being written, so the pages are
+            //read in parallel while the records are sent in order
+            int filesAhead = Math.max(1, threads * FILES_AHEAD_PER_THREAD);
+            ArrayDeque<PendingFile> pending = new ArrayDeque<>();
+            int started = 0;
+            for (int i = 0; i < files.size(); i++)
+            {
+                for (; started < files.size() && started < i + filesAhead; started++)
+                    pending.add(new PendingFile(files.get(started), executor,
+                            archiveReader, stringPool));
+
+                int index = indices.get(i);
+                PendingFile file = pending.poll();
+                if (file.error != null)
+                {
+                    write(FAIL, Integer.toString(index), files.get(i).getPath(),
+                            file.error);
+                    continue;
+                }
+                ScheduleArchiveReader.Page page;
+                while ((page = file.pages.poll()) != null) //dropped once written
+                    writePage(index, page, rows);
+            }
+            write(END, Integer.toString(files.size()));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILED;
+        }
+        finally
+        {
+            ScheduleArchiveReader.shutdownNow(executor);
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Waits for a page to be read and sends its rows, or its failure.
+     * @param index The index of the file of the page
+     * @param page The page
+     * @param rows The maker of the rows of the reports
+     * @throws InterruptedException If the worker is interrupted while waiting
+     */
+    private void writePage(int index, ScheduleArchiveReader.Page page, HoursReport rows)
+            throws InterruptedException
+    {
+        WeekSchedule schedule;
+        try
+        {
+            schedule = page.getWeekSchedule();
+        }
+        catch (ExecutionException e)
+        {
+            write(FAIL, Integer.toString(index), page.getName(),
+                    String.valueOf(e.getCause()));
+            return;
+        }
+        write(PAGE, Integer.toString(index), page.getName());
+        for (String[] row : rows.getEmployeeRows(schedule))
+            write(EMPLOYEE_ROW, row);
+        write(DEPARTMENT_ROW, rows.getDepartmentRow(schedule));
+    }
+
+    /**
+     * Sends a record to the coordinator.
+     * @param type The type of the record
+     * @param values The values of the record
+     */
+    private void write(String type, String... values)
+    {
+        out.println(join(type, values));
+    }
+
+    /**
+     * Joins the fields of a record into a line, escaping the values.
+     * @param type The type of the record
+     * @param values The values of the record
+     * @return The line of the record
+     */
+    static String join(String type, String... values)
+    {
+        StringBuilder line = new StringBuilder(type);
+        for (String value : values)
+        {
+            line.append(SEPARATOR);
+            for (int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(i);
+                if (c == '\\')
+                    line.append("\\\\");
+                else if (c == SEPARATOR)
+                    line.append("\\t");
+                else if (c == '\n')
+                    line.append("\\n");
+                else if (c == '\r')
+                    line.append("\\r");
+                else
+                    line.append(c);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Splits the line of a record into its type and values.
+     * @param line The line of the record
+     * @return The type followed by the values, unescaped
+     */
+    static String[] split(String line)
+    {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c == SEPARATOR)
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (c == '\\' && i + 1 < line.length())
+            {
+                char escaped = line.charAt(++i);
+                field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' :
+                        escaped == 'r' ? '\r' : escaped);
+            }
+            else
+                field.append(c);
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * This is a file of the shard whose pages are being read, or the error of an
+     * archive that could not be opened.
+     */
+    private static final class PendingFile
+    {
+        final ArrayDeque<ScheduleArchiveReader.Page> pages = new ArrayDeque<>();
+        final String error;
+
+        PendingFile(File file, ExecutorService executor,
+                    ScheduleArchiveReader archiveReader, StringPool stringPool)
+        {
+            String openError = null;
+            if (!ScheduleArchiveReader.isArchive(file))
+                pages.add(new ScheduleArchiveReader.Page(file.getPath(), file.length(),
+                        executor.submit(() -> new SchedulePageReader(file, null,
+                                stringPool).getWeekSchedule())));
+            else
+            {
+                try
+                {
+                    pages.addAll(archiveReader.submit(file));
+                }
+                catch (IOException e)
+                {
+                    openError = e.toString();
+                }
+            }
+            error = openError;
+        }
+    }
+}
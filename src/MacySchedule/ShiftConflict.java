@@ -0,0 +1,89 @@
+package MacySchedule;
+
+/**
+ * This is a conflict found when merging the schedules of an employee from different
+ * pages: the employee has two different work schedules for the same day, which Macy's
+ * policies do not allow. The first schedule found is kept and the other one is reported
+ * as the conflicting schedule.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ShiftConflict
+{
+    private final String weekRange;
+    private final Employee employee;
+    private final int day;
+    private final String[] keptSchedule;
+    private final String[] conflictingSchedule;
+    private final WeekSchedule conflictingSource;
+
+    /**
+     * Constructs a conflict.
+     * @param weekRange The week of the conflict
+     * @param employee The merged employee with the kept schedule
+     * @param day The day of the week of the conflict
+     * @param keptSchedule The kept schedule in format {department information, hours}
+     * @param conflictingSchedule The other schedule in format {department information,
+     *                            hours}
+     * @param conflictingSource The week schedule (page) of the other schedule
+     */
+    public ShiftConflict(String weekRange, Employee employee, int day,
+                         String[] keptSchedule, String[] conflictingSchedule,
+                         WeekSchedule conflictingSource)
+    {
+        this.weekRange = weekRange;
+        this.employee = employee;
+        this.day = day;
+        this.keptSchedule = keptSchedule;
+        this.conflictingSchedule = conflictingSchedule;
+        this.conflictingSource = conflictingSource;
+    }
+
+    /**
+     * Retrieves the week of the conflict.
+     * @return The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     */
+    public String getWeekRange() { return weekRange; }
+
+    /**
+     * Retrieves the merged employee that has the conflict.
+     * @return The merged employee
+     */
+    public Employee getEmployee() { return employee; }
+
+    /**
+     * Retrieves the day of the week of the conflict.
+     * @return The day of the week (0-6)
+     */
+    public int getDay() { return day; }
+
+    /**
+     * Retrieves the schedule that was kept for the day.
+     * @return The schedule in format {department information, hours scheduled}
+     */
+    public String[] getKeptSchedule() { return keptSchedule; }
+
+    /**
+     * Retrieves the schedule that conflicts with the kept schedule.
+     * @return The schedule in format {department information, hours scheduled}
+     */
+    public String[] getConflictingSchedule() { return conflictingSchedule; }
+
+    /**
+     * Retrieves the week schedule (page) the conflicting schedule was read from.
+     * @return The week schedule of the conflicting schedule
+     */
+    public WeekSchedule getConflictingSource() { return conflictingSource; }
+
+    @Override
+    public String toString()
+    {
+        return weekRange + " day " + day + ": " + employee.getLastName() + ", " +
+                employee.getFirstName() + " has " +
+                keptSchedule[1] + " (" + keptSchedule[0].replace('\n', ' ') + ") and " +
+                conflictingSchedule[1] + " (" +
+                conflictingSchedule[0].replace('\n', ' ') + ")";
+    }
+}
@@ -0,0 +1,317 @@
+package MacySchedule;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This is a table of the work days of many week schedules kept in primitive arrays (one
+ * array per column) instead of Employee and WorkDay objects, for calculations over
+ * large multi-week data sets. Each row is a day of an employee that has a schedule:
+ * either hours with a department or a note (such as PTO) without hours.
+ *
+ * Employees are identified by their name key, so the same person in different weeks or
+ * departments has the same employee id. Departments and notes are also given ids in
+ * the order they are found.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ShiftTable
+{
+    /** The value of the minute columns for a day without hours. */
+    public static final int NO_TIME = -1;
+    /** The value of the department and note columns for a day without them. */
+    public static final int NO_ID = -1;
+    private static final int WEEK_LENGTH = 7;
+    private static final int MINUTES_IN_HOUR = 60;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private int[] employeeIds;
+    private int[] deptIds;
+    private int[] dates; //days since 1970-01-01
+    private int[] startMinutes; //minutes since midnight
+    private int[] endMinutes;
+    private int[] noteIds;
+    private final ArrayList<String> employeeKeys;
+    private final HashMap<String, Integer> employeeIdsByKey;
+    private final ArrayList<Integer> deptNums;
+    private final HashMap<Integer, Integer> deptIdsByNum;
+    private final ArrayList<String> notes;
+    private final HashMap<String, Integer> noteIdsByText;
+    private int[][] deptRows; //rows of each department id, built when first needed
+
+    /**
+     * Constructs an empty table.
+     */
+    public ShiftTable()
+    {
+        size = 0;
+        employeeIds = new int[INITIAL_CAPACITY];
+        deptIds = new int[INITIAL_CAPACITY];
+        dates = new int[INITIAL_CAPACITY];
+        startMinutes = new int[INITIAL_CAPACITY];
+        endMinutes = new int[INITIAL_CAPACITY];
+        noteIds = new int[INITIAL_CAPACITY];
+        employeeKeys = new ArrayList<>();
+        employeeIdsByKey = new HashMap<>();
+        deptNums = new ArrayList<>();
+        deptIdsByNum = new HashMap<>();
+        notes = new ArrayList<>();
+        noteIdsByText = new HashMap<>();
+    }
+
+    /**
+     * Adds a row for every scheduled day of every employee of a week schedule.
+     * @param weekSchedule The week schedule to add
+     */
+    public void addWeekSchedule(WeekSchedule weekSchedule)
+    {
+        int[] startWeek = weekSchedule.getStartWeek(); //{month, day, year}
+        int startDate = (int) LocalDate.of(startWeek[2], startWeek[0], startWeek[1])
+                .toEpochDay();
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+            addEmployee(employees[i], startDate);
+    }
+
+    /**
+     * Adds a row for every scheduled day of an employee.
+     * @param employee The employee to add
+     * @param startDate The date of the first day of the week (days since 1970-01-01)
+     */
+    public void addEmployee(Employee employee, int startDate)
+    {
+        int employeeId = findId(employee.getNameKey(), employeeKeys, employeeIdsByKey);
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            String[] daySchedule = employee.getDaySchedule(day);
+            int deptNum = employee.getDayDeptNum(day);
+            Time start = employee.getDayStartTime(day);
+            Time end = employee.getDayEndTime(day);
+            if (deptNum < 0 && daySchedule[0].isEmpty())
+                continue; //nothing scheduled for the day
+            int deptId = deptNum < 0 ? NO_ID : findId(deptNum, deptNums, deptIdsByNum);
+            int noteId = deptNum < 0 ? findId(daySchedule[0], notes, noteIdsByText) :
+                    NO_ID;
+            int startMinute = start == null ? NO_TIME : toMinutes(start);
+            int endMinute = end == null ? NO_TIME : toMinutes(end);
+            addRow(employeeId, deptId, startDate + day, startMinute, endMinute, noteId);
+        }
+    }
+
+    /**
+     * Adds a row to the table.
+     * @param employeeId The id of the employee
+     * @param deptId The id of the department, or NO_ID
+     * @param date The date of the day (days since 1970-01-01)
+     * @param startMinute The start of the hours (minutes since midnight), or NO_TIME
+     * @param endMinute The end of the hours (minutes since midnight), or NO_TIME
+     * @param noteId The id of the note, or NO_ID
+     */
+    private void addRow(int employeeId, int deptId, int date, int startMinute,
+                        int endMinute, int noteId)
+    {
+        if (size == employeeIds.length)
+        {
+            int capacity = size * 2;
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            deptIds = Arrays.copyOf(deptIds, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            startMinutes = Arrays.copyOf(startMinutes, capacity);
+            endMinutes = Arrays.copyOf(endMinutes, capacity);
+            noteIds = Arrays.copyOf(noteIds, capacity);
+        }
+        employeeIds[size] = employeeId;
+        deptIds[size] = deptId;
+        dates[size] = date;
+        startMinutes[size] = startMinute;
+        endMinutes[size] = endMinute;
+        noteIds[size] = noteId;
+        size++;
+        deptRows = null;
+    }
+
+    /**
+     * Retrieves the number of rows in the table.
+     * @return The number of rows
+     */
+    public int size() { return size; }
+
+    /**
+     * Retrieves the employee id column. Only the first size() values are rows; the
+     * array must not be changed.
+     * @return The employee id of each row
+     */
+    public int[] getEmployeeIds() { return employeeIds; }
+
+    /**
+     * Retrieves the department id column (NO_ID for notes). Only the first size()
+     * values are rows; the array must not be changed.
+     * @return The department id of each row
+     */
+    public int[] getDeptIds() { return deptIds; }
+
+    /**
+     * Retrieves the date column (days since 1970-01-01). Only the first size() values
+     * are rows; the array must not be changed.
+     * @return The date of each row
+     */
+    public int[] getDates() { return dates; }
+
+    /**
+     * Retrieves the start minute column (NO_TIME if no hours). Only the first size()
+     * values are rows; the array must not be changed.
+     * @return The start of the hours of each row in minutes since midnight
+     */
+    public int[] getStartMinutes() { return startMinutes; }
+
+    /**
+     * Retrieves the end minute column (NO_TIME if no hours). Only the first size()
+     * values are rows; the array must not be changed.
+     * @return The end of the hours of each row in minutes since midnight
+     */
+    public int[] getEndMinutes() { return endMinutes; }
+
+    /**
+     * Retrieves the note id column (NO_ID if the day has a department). Only the first
+     * size() values are rows; the array must not be changed.
+     * @return The note id of each row
+     */
+    public int[] getNoteIds() { return noteIds; }
+
+    /**
+     * Retrieves the rows of a department, from an index of the rows by department that
+     * is built the first time it is needed after rows were added.
+     * @param deptId The id of the department
+     * @return The rows of the department in order; the array must not be changed
+     */
+    public synchronized int[] getDeptRows(int deptId)
+    {
+        if (deptRows == null)
+        {
+            int[] counts = new int[deptNums.size()];
+            for (int row = 0; row < size; row++)
+            {
+                if (deptIds[row] != NO_ID)
+                    counts[deptIds[row]]++;
+            }
+            int[][] rows = new int[counts.length][];
+            for (int id = 0; id < counts.length; id++)
+                rows[id] = new int[counts[id]];
+            Arrays.fill(counts, 0);
+            for (int row = 0; row < size; row++)
+            {
+                int id = deptIds[row];
+                if (id != NO_ID)
+                    rows[id][counts[id]++] = row;
+            }
+            deptRows = rows;
+        }
+        return deptRows[deptId];
+    }
+
+    /**
+     * Retrieves the number of different employees in the table.
+     * @return The number of employees
+     */
+    public int getNumEmployees() { return employeeKeys.size(); }
+
+    /**
+     * Retrieves the name key of an employee id.
+     * @param employeeId The id of the employee
+     * @return The name key of the employee
+     */
+    public String getEmployeeKey(int employeeId) { return employeeKeys.get(employeeId); }
+
+    /**
+     * Retrieves the id of an employee by name key.
+     * @param nameKey The name key of the employee
+     * @return The id of the employee, or NO_ID if the employee is not in the table
+     */
+    public int getEmployeeId(String nameKey)
+    {
+        Integer id = employeeIdsByKey.get(nameKey);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Retrieves the number of different departments in the table.
+     * @return The number of departments
+     */
+    public int getNumDepartments() { return deptNums.size(); }
+
+    /**
+     * Retrieves the department number of a department id.
+     * @param deptId The id of the department
+     * @return The reference number for the department
+     */
+    public int getDeptNum(int deptId) { return deptNums.get(deptId); }
+
+    /**
+     * Retrieves the id of a department by its number.
+     * @param deptNum The reference number for the department
+     * @return The id of the department, or NO_ID if the department is not in the table
+     */
+    public int getDeptId(int deptNum)
+    {
+        Integer id = deptIdsByNum.get(deptNum);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Retrieves the number of different notes in the table.
+     * @return The number of notes
+     */
+    public int getNumNotes() { return notes.size(); }
+
+    /**
+     * Retrieves the text of a note id.
+     * @param noteId The id of the note
+     * @return The text of the note
+     */
+    public String getNote(int noteId) { return notes.get(noteId); }
+
+    /**
+     * Retrieves the id of a note by its text.
+     * @param note The text of the note
+     * @return The id of the note, or NO_ID if the note is not in the table
+     */
+    public int getNoteId(String note)
+    {
+        Integer id = noteIdsByText.get(note);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Finds the id of a value, giving it the next id if it has none.
+     * @param value The value to find the id of
+     * @param values The values in order of id
+     * @param ids The ids of the values
+     * @param <T> The type of the values
+     * @return The id of the value
+     */
+    static <T> int findId(T value, ArrayList<T> values, HashMap<T, Integer> ids)
+    {
+        Integer id = ids.get(value);
+        if (id == null)
+        {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Converts a time to the minutes since midnight.
+     * @param time The time to convert
+     * @return The minutes since midnight
+     */
+    static int toMinutes(Time time)
+    {
+        return (int) Math.round(time.getDecimalTime() * MINUTES_IN_HOUR);
+    }
+}
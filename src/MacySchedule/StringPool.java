@@ -0,0 +1,152 @@
+package MacySchedule;
+
+/**
+ * This is a pool of canonical strings for the text that repeats across schedule pages,
+ * such as first and last names, notes (PTO, OFF) and department descriptions. Each
+ * distinct text is kept as one String, and the reader looks up the text directly from
+ * the characters of the line being read, so a new String is only created the first
+ * time a text is found. Reading many weeks of schedules with the same pool keeps one
+ * copy of each name and note instead of one copy per week.
+ *
+ * The pool keeps statistics of the lookups and an estimate of the memory saved, which
+ * counts the String object and character array that each hit did not need to create.
+ * The pool can be shared by readers on different threads.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class StringPool
+{
+    private String[] table; //open addressing with linear probing
+    private int[] hashes;
+    private int size;
+    private long lookups;
+    private long hits;
+    private long bytesSaved;
+    private static final int INITIAL_CAPACITY = 256; //must be a power of 2
+    private static final int STRING_OVERHEAD = 24 + 16; //String object and array header
+
+    /**
+     * Constructs an empty pool.
+     */
+    public StringPool()
+    {
+        table = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Retrieves the canonical instance of a string, adding the string to the pool if
+     * it is not in the pool yet.
+     * @param text The string to look up
+     * @return The string of the pool that is equal to the given string
+     */
+    public String intern(String text)
+    {
+        return intern(text, 0, text.length());
+    }
+
+    /**
+     * Retrieves the canonical instance of the text between two indexes of a string
+     * without creating a substring unless the text is not in the pool yet.
+     * @param source The string with the text, such as a line of a schedule page
+     * @param start The index of the first character of the text
+     * @param end The index after the last character of the text
+     * @return The string of the pool that is equal to the text
+     */
+    public synchronized String intern(String source, int start, int end)
+    {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + source.charAt(i); //same as String.hashCode
+        lookups++;
+        int mask = table.length - 1;
+        int index = spread(hash) & mask;
+        String pooled;
+        while ((pooled = table[index]) != null)
+        {
+            if (hashes[index] == hash && pooled.length() == length &&
+                    pooled.regionMatches(0, source, start, length))
+            {
+                hits++;
+                bytesSaved += STRING_OVERHEAD + 2L * length;
+                return pooled;
+            }
+            index = (index + 1) & mask;
+        }
+        pooled = start == 0 && end == source.length() ? source :
+                source.substring(start, end);
+        table[index] = pooled;
+        hashes[index] = hash;
+        if (++size * 2 > table.length) //keep the table at most half full
+            resize();
+        return pooled;
+    }
+
+    /**
+     * Retrieves the number of distinct strings in the pool.
+     * @return The number of strings
+     */
+    public synchronized int size() { return size; }
+
+    /**
+     * Retrieves the number of lookups made in the pool.
+     * @return The number of lookups
+     */
+    public synchronized long getLookups() { return lookups; }
+
+    /**
+     * Retrieves the number of lookups that found a string already in the pool.
+     * @return The number of hits
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Retrieves an estimate of the memory saved by the pool, which is the size of the
+     * strings that the hits did not create.
+     * @return The estimated bytes saved
+     */
+    public synchronized long getBytesSaved() { return bytesSaved; }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "strings=" + size + ", lookups=" + lookups + ", hits=" + hits +
+                ", saved=" + (bytesSaved / 1024) + " KB";
+    }
+
+    /**
+     * Doubles the capacity of the table and places the strings again.
+     */
+    private void resize()
+    {
+        String[] oldTable = table;
+        int[] oldHashes = hashes;
+        table = new String[oldTable.length * 2];
+        hashes = new int[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < oldTable.length; i++)
+        {
+            if (oldTable[i] != null)
+            {
+                int index = spread(oldHashes[i]) & mask;
+                while (table[index] != null)
+                    index = (index + 1) & mask;
+                table[index] = oldTable[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits used as the table index.
+     * @param hash The hash code
+     * @return The mixed hash code
+     */
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+}
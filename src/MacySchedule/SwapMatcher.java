@@ -0,0 +1,302 @@
+package MacySchedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This is a class to find who can take the shift of an employee that wants to give it
+ * away: employees of the department of the shift that have nothing scheduled on the day
+ * and would not work more than the most hours of a week with the shift. Candidates are
+ * ranked by their hours of the week, fewest hours first.
+ *
+ * Employees are indexed by the department of their week schedule and by every
+ * department they have a shift in, so an employee of one department page that works a
+ * shift of another, or an employee of a store schedule, is a candidate for the shifts
+ * of the departments they work in. For each one, the index keeps a bitmask of the days
+ * that have a schedule (hours or a note such as PTO) and the hours of the week, so
+ * finding candidates only reads the arrays of the department. The index listens to the
+ * employees and is updated when they change.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class SwapMatcher implements EmployeeListener
+{
+    private static final int WEEK_LENGTH = 7;
+    private static final double EPSILON = 0.001; //hours are sums of whole minutes
+    private static final int MIN_IN_HOUR = 60;
+
+    private final double maxWeekHours;
+    private final HashMap<Integer, Department> departments;
+    private final IdentityHashMap<Employee, IndexedEmployee> indexed;
+
+    /**
+     * Constructs an empty matcher.
+     * @param maxWeekHours The most hours an employee can work in a week with a shift
+     *                     taken from another employee
+     */
+    public SwapMatcher(double maxWeekHours)
+    {
+        this.maxWeekHours = maxWeekHours;
+        departments = new HashMap<>();
+        indexed = new IdentityHashMap<>();
+    }
+
+    /**
+     * Adds the employees of a week schedule to the department of the week schedule (if
+     * it has one) and to the departments of their shifts, and starts listening to them.
+     * Employees that were already added are skipped.
+     * @param weekSchedule The week schedule to add
+     */
+    public synchronized void add(WeekSchedule weekSchedule)
+    {
+        Employee[] employees = weekSchedule.getEmployeeList();
+        for (int i = 0; i < weekSchedule.getNumEmployees(); i++)
+        {
+            if (indexed.containsKey(employees[i]))
+                continue;
+            IndexedEmployee entry = new IndexedEmployee(weekSchedule.getDeptNum());
+            indexed.put(employees[i], entry);
+            index(employees[i], entry);
+            employees[i].addEmployeeListener(this);
+        }
+    }
+
+    /**
+     * Stops listening to the employees. Changes made after are not seen by the matcher.
+     */
+    public synchronized void dispose()
+    {
+        for (Employee employee : indexed.keySet())
+            employee.removeEmployeeListener(this);
+    }
+
+    /**
+     * Updates the index after a day of an employee changed.
+     * @param employee The employee that changed
+     * @param day The day of the week that changed (0-6)
+     */
+    @Override
+    public synchronized void dayChanged(Employee employee, int day)
+    {
+        IndexedEmployee entry = indexed.get(employee);
+        if (entry != null)
+            index(employee, entry);
+    }
+
+    /**
+     * Puts an employee in the departments of the employee's week schedule and shifts,
+     * and takes the employee out of the departments the employee no longer works in.
+     * @param employee The employee
+     * @param entry The departments the employee is in
+     */
+    private void index(Employee employee, IndexedEmployee entry)
+    {
+        int[] deptNums = IntStream.concat(IntStream.of(entry.homeDeptNum),
+                IntStream.range(0, WEEK_LENGTH).map(employee::getDayDeptNum))
+                .filter(deptNum -> deptNum >= 0).distinct().sorted().toArray();
+        for (int deptNum : entry.deptNums)
+        {
+            if (Arrays.binarySearch(deptNums, deptNum) < 0)
+                departments.get(deptNum).remove(employee);
+        }
+        for (int deptNum : deptNums)
+        {
+            Department department = departments.get(deptNum);
+            if (department == null)
+            {
+                department = new Department();
+                departments.put(deptNum, department);
+            }
+            if (Arrays.binarySearch(entry.deptNums, deptNum) >= 0)
+                department.update(employee);
+            else
+                department.add(employee);
+        }
+        entry.deptNums = deptNums;
+    }
+
+    /**
+     * Finds the employees that can take the shift of a day of an employee.
+     * @param requester The employee that wants to give away the shift
+     * @param day The day of the week of the shift (0-6)
+     * @param limit The most candidates to return
+     * @return The candidates, fewest hours of the week first
+     */
+    public synchronized List<Employee> findCandidates(Employee requester, int day,
+                                                      int limit)
+    {
+        int[] candidates = findCandidateSlots(requester, day);
+        if (candidates.length == 0)
+            return Collections.emptyList();
+        Department department = departments.get(requester.getDayDeptNum(day));
+        int size = Math.min(limit, candidates.length);
+        List<Employee> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            result.add(department.employees[candidates[i]]);
+        return result;
+    }
+
+    /**
+     * Matches many requests at once, so that no employee takes two shifts of the same
+     * day or takes shifts over the most hours of a week. The requests with the fewest
+     * candidates are matched first, each to its best candidate that is still free.
+     * The employees are not changed.
+     * @param requests The requests to match
+     * @return The employee matched to each request in the order of the requests, or
+     *         null if a request has no match
+     */
+    public synchronized List<Employee> matchAll(List<SwapRequest> requests)
+    {
+        int numRequests = requests.size();
+        int[][] candidates = new int[numRequests][];
+        Integer[] order = new Integer[numRequests];
+        for (int i = 0; i < numRequests; i++)
+        {
+            SwapRequest request = requests.get(i);
+            candidates[i] = findCandidateSlots(request.getRequester(), request.getDay());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> candidates[i].length));
+
+        //days and hours taken by earlier matches of this batch
+        IdentityHashMap<Employee, double[]> taken = new IdentityHashMap<>();
+        Employee[] matches = new Employee[numRequests];
+        for (int i : order)
+        {
+            SwapRequest request = requests.get(i);
+            int day = request.getDay();
+            double shiftHours = request.getRequester().getDayTotalHours(day);
+            Department department = departments.get(
+                    request.getRequester().getDayDeptNum(day));
+            for (int slot : candidates[i])
+            {
+                Employee candidate = department.employees[slot];
+                double[] takenHours = taken.get(candidate); //{total, day 0 - 6}
+                if (takenHours == null)
+                {
+                    takenHours = new double[WEEK_LENGTH + 1];
+                    taken.put(candidate, takenHours);
+                }
+                if (takenHours[day + 1] > 0 || department.weekHours[slot] +
+                        takenHours[0] + shiftHours > maxWeekHours + EPSILON)
+                    continue;
+                takenHours[day + 1] = shiftHours;
+                takenHours[0] += shiftHours;
+                matches[i] = candidate;
+                break;
+            }
+        }
+        return Arrays.asList(matches);
+    }
+
+    /**
+     * Finds the slots in the department of a shift of the employees that can take it.
+     * @param requester The employee that wants to give away the shift
+     * @param day The day of the week of the shift (0-6)
+     * @return The slots of the candidates, fewest hours of the week first
+     */
+    private int[] findCandidateSlots(Employee requester, int day)
+    {
+        int deptNum = requester.getDayDeptNum(day);
+        if (deptNum < 0)
+            throw new IllegalArgumentException("No shift to swap on day " + day);
+        Department department = departments.get(deptNum);
+        if (department == null)
+            return new int[0];
+        double limit = maxWeekHours + EPSILON - requester.getDayTotalHours(day);
+        int dayBit = 1 << day;
+        int[] slots = new int[department.size];
+        int numSlots = 0;
+        for (int slot = 0; slot < department.size; slot++)
+        {
+            if ((department.busyDays[slot] & dayBit) == 0 &&
+                    department.weekHours[slot] <= limit &&
+                    department.employees[slot] != requester)
+                slots[numSlots++] = slot;
+        }
+        //sorted by minutes of the week, then by slot to keep equal hours in the order
+        //of the department
+        long[] keys = new long[numSlots];
+        for (int i = 0; i < numSlots; i++)
+            keys[i] = Math.round(department.weekHours[slots[i]] * MIN_IN_HOUR) << 32 |
+                    slots[i];
+        Arrays.sort(keys);
+        for (int i = 0; i < numSlots; i++)
+            slots[i] = (int) keys[i];
+        return Arrays.copyOf(slots, numSlots);
+    }
+
+    /**
+     * These are the departments an employee is indexed in: the department of the week
+     * schedule of the employee (-1 for a store schedule) and of the shifts.
+     */
+    private static final class IndexedEmployee
+    {
+        final int homeDeptNum;
+        int[] deptNums = new int[0]; //sorted
+
+        IndexedEmployee(int homeDeptNum)
+        {
+            this.homeDeptNum = homeDeptNum;
+        }
+    }
+
+    /**
+     * This is the index of the employees of a department, with the days that have a
+     * schedule and the hours of the week of each employee in parallel arrays.
+     */
+    private static final class Department
+    {
+        Employee[] employees = new Employee[16];
+        int[] busyDays = new int[16]; //bit per day with a schedule
+        double[] weekHours = new double[16];
+        IdentityHashMap<Employee, Integer> slots = new IdentityHashMap<>();
+        int size;
+
+        void add(Employee employee)
+        {
+            if (size == employees.length)
+            {
+                employees = Arrays.copyOf(employees, size * 2);
+                busyDays = Arrays.copyOf(busyDays, size * 2);
+                weekHours = Arrays.copyOf(weekHours, size * 2);
+            }
+            employees[size] = employee;
+            slots.put(employee, size);
+            size++;
+            update(employee);
+        }
+
+        void remove(Employee employee)
+        {
+            int slot = slots.remove(employee);
+            size--;
+            System.arraycopy(employees, slot + 1, employees, slot, size - slot);
+            System.arraycopy(busyDays, slot + 1, busyDays, slot, size - slot);
+            System.arraycopy(weekHours, slot + 1, weekHours, slot, size - slot);
+            employees[size] = null;
+            for (int i = slot; i < size; i++)
+                slots.put(employees[i], i); //keeps the order of the department
+        }
+
+        void update(Employee employee)
+        {
+            int slot = slots.get(employee);
+            int busy = 0;
+            for (int day = 0; day < WEEK_LENGTH; day++)
+            {
+                if (!employee.getDayDepartment(day).isEmpty())
+                    busy |= 1 << day;
+            }
+            busyDays[slot] = busy;
+            weekHours[slot] = employee.getWeekTotalHours();
+        }
+    }
+}
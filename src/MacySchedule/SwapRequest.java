@@ -0,0 +1,45 @@
+package MacySchedule;
+
+/**
+ * This is a request of an employee to give away the shift of a day to another employee
+ * of the same department, as matched by a SwapMatcher.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class SwapRequest
+{
+    private final Employee requester;
+    private final int day;
+
+    /**
+     * Constructs a request.
+     * @param requester The employee that wants to give away the shift
+     * @param day The day of the week of the shift (0-6)
+     */
+    public SwapRequest(Employee requester, int day)
+    {
+        this.requester = requester;
+        this.day = day;
+    }
+
+    /**
+     * Retrieves the employee that wants to give away the shift.
+     * @return The employee
+     */
+    public Employee getRequester() { return requester; }
+
+    /**
+     * Retrieves the day of the shift.
+     * @return The day of the week (0-6)
+     */
+    public int getDay() { return day; }
+
+    @Override
+    public String toString()
+    {
+        return requester.getLastName() + ", " + requester.getFirstName() + " day " + day +
+                ": " + requester.getDaySchedule(day)[1];
+    }
+}
@@ -16,11 +16,12 @@ public class Time
 {
     private String strTime;
     private double decimalTime;
-    private final double HALF_DAY_HOUR = 12;
-    private final double MIN_IN_HOUR = 60;
-    private final int MIN_INPUT_LENGTH = 5;
-    private final int MAX_INPUT_LENGTH = 6;
-    char[] clockPostfixes = {'a', 'p', 'A', 'P'}; //format from Macy's to represent AM/PM
+    private static final double HALF_DAY_HOUR = 12;
+    private static final double MIN_IN_HOUR = 60;
+    private static final int MIN_INPUT_LENGTH = 5;
+    private static final int MAX_INPUT_LENGTH = 6;
+    //format from Macy's to represent AM/PM
+    private static final char[] CLOCK_POSTFIXES = {'a', 'p', 'A', 'P'};
 
     /**
      * Constructs a time with a given string of format XX:XXa or XX:XXp
@@ -47,9 +48,9 @@ public class Time
         }
 
         //loop to ensure last character is an a or p (capitalization is fixed)
-        for (int i = 0; i < clockPostfixes.length; i++)
+        for (int i = 0; i < CLOCK_POSTFIXES.length; i++)
         {
-            if (lastChar == clockPostfixes[i])
+            if (lastChar == CLOCK_POSTFIXES[i])
             {
                 found = true;
                 postfixIndex = i;
@@ -81,9 +82,9 @@ public class Time
 
     /**
      * Sets the time to an input time. The time's postfix was matched to the
-     * clockPostfixes to see what time of day (AM/PM) it is.
+     * CLOCK_POSTFIXES to see what time of day (AM/PM) it is.
      * @param strTime Time in string format XX:XXa or XX:XXp
-     * @param postfixIndex The index in clockPostfixes that was matched
+     * @param postfixIndex The index in CLOCK_POSTFIXES that was matched
      */
     private void setTime(String strTime, int postfixIndex)
     {
@@ -115,9 +116,9 @@ public class Time
 
     /**
      * Converts the stored string time (which was set by the user) to decimal format,
-     * which is stored. The time's postfix was matched to the clockPostfixes to see
+     * which is stored. The time's postfix was matched to the CLOCK_POSTFIXES to see
      * what time of day (AM/PM) it is.
-     * @param postfixIndex The index in clockPostfixes that was matched
+     * @param postfixIndex The index in CLOCK_POSTFIXES that was matched
      */
     private void strToDecimal(int postfixIndex)
     {
@@ -164,7 +165,7 @@ public class Time
         //set AM for 0-11 military and fix 0 00 to 12AM
         if (wholeHour < HALF_DAY_HOUR)
         {
-            strMinutes += clockPostfixes[0];
+            strMinutes += CLOCK_POSTFIXES[0];
             //change 0 00 military time to 12 for 12AM
             if (wholeHour == 0)
                 wholeHour += HALF_DAY_HOUR;
@@ -172,7 +173,7 @@ public class Time
         //set PM and fix military 24 hours to 12 hours standard
         else
         {
-            strMinutes += clockPostfixes[1];
+            strMinutes += CLOCK_POSTFIXES[1];
             if (wholeHour > HALF_DAY_HOUR)
                 wholeHour -= HALF_DAY_HOUR;
         }
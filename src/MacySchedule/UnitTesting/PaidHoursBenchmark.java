@@ -0,0 +1,210 @@
+package MacySchedule.UnitTesting;
+
+import MacySchedule.Employee;
+import MacySchedule.PaidHoursKernel;
+import MacySchedule.ShiftTable;
+import MacySchedule.Time;
+import MacySchedule.WeekSchedule;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * This is a benchmark of the bulk paid hours calculation of PaidHoursKernel. It creates
+ * a multi-week data set of random schedules (with times in 5 minute steps), checks that
+ * the per-employee and per-department sums of the kernel match the sums of the
+ * Employee/WorkDay objects and that every pair of start and end minutes gives the same
+ * hours in both, and then times the object path, a scalar loop over the table, and the
+ * bulk kernel.
+ *
+ * Usage: PaidHoursBenchmark [weeks] [employees per week]
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class PaidHoursBenchmark
+{
+    private static final int[] DEPARTMENTS = {6601, 6602, 6603, 6604, 6605};
+    private static final int ROUNDS = 20;
+    private static final int DAY_MINUTES = 24 * 60;
+
+    public static void main(String[] args)
+    {
+        int weeks = args.length > 0 ? Integer.parseInt(args[0]) : 52;
+        int employeesPerWeek = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        WeekSchedule[] schedules = createSchedules(weeks, employeesPerWeek, new Random(7));
+        ShiftTable table = new ShiftTable();
+        for (WeekSchedule schedule : schedules)
+            table.addWeekSchedule(schedule);
+        System.out.println(weeks + " weeks, " + table.size() + " work days, " +
+                table.getNumEmployees() + " employees");
+
+        int[] paid = PaidHoursKernel.paidMinutes(table);
+        verify(schedules, table, paid);
+
+        long objectTime = Long.MAX_VALUE;
+        long scalarTime = Long.MAX_VALUE;
+        long kernelTime = Long.MAX_VALUE;
+        double check = 0;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            check += objectTotal(schedules);
+            objectTime = Math.min(objectTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            check += scalarTotal(table);
+            scalarTime = Math.min(scalarTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long[] sums = PaidHoursKernel.sumByEmployee(table,
+                    PaidHoursKernel.paidMinutes(table));
+            check += sums.length > 0 ? sums[0] : 0;
+            kernelTime = Math.min(kernelTime, System.nanoTime() - start);
+        }
+        System.out.printf("Employee/WorkDay objects: %8.3f ms%n", objectTime / 1e6);
+        System.out.printf("Scalar loop over table:   %8.3f ms%n", scalarTime / 1e6);
+        System.out.printf("Bulk kernel:              %8.3f ms (%.1fx objects, %.1fx " +
+                        "scalar)%n", kernelTime / 1e6, (double) objectTime / kernelTime,
+                (double) scalarTime / kernelTime);
+        System.out.println("(checksum " + check + ")");
+    }
+
+    /**
+     * Checks that the sums of the kernel match the sums of the Employee objects.
+     * @param schedules The week schedules of the data set
+     * @param table The table of the week schedules
+     * @param paid The paid minutes of each row of the table
+     */
+    private static void verify(WeekSchedule[] schedules, ShiftTable table, int[] paid)
+    {
+        HashMap<String, Double> employeeHours = new HashMap<>();
+        HashMap<Integer, Double> deptHours = new HashMap<>();
+        for (WeekSchedule schedule : schedules)
+        {
+            Employee[] employees = schedule.getEmployeeList();
+            for (int i = 0; i < schedule.getNumEmployees(); i++)
+            {
+                employeeHours.merge(employees[i].getNameKey(),
+                        employees[i].getWeekTotalHours(), Double::sum);
+                for (int deptNum : DEPARTMENTS)
+                    deptHours.merge(deptNum, employees[i].getWeekDeptHours(deptNum),
+                            Double::sum);
+            }
+        }
+        long[] employeeMinutes = PaidHoursKernel.sumByEmployee(table, paid);
+        long[] deptMinutes = PaidHoursKernel.sumByDepartment(table, paid);
+        int mismatches = 0;
+        for (int id = 0; id < employeeMinutes.length; id++)
+        {
+            double expected = employeeHours.get(table.getEmployeeKey(id));
+            if (Math.abs(expected - PaidHoursKernel.toHours(employeeMinutes[id])) > 1e-6)
+                mismatches++;
+        }
+        for (int id = 0; id < deptMinutes.length; id++)
+        {
+            double expected = deptHours.get(table.getDeptNum(id));
+            if (Math.abs(expected - PaidHoursKernel.toHours(deptMinutes[id])) > 1e-6)
+                mismatches++;
+        }
+        for (int i = 0; i < table.size(); i++)
+        {
+            int scalar = PaidHoursKernel.paidMinutes(table.getStartMinutes()[i],
+                    table.getEndMinutes()[i]);
+            if (scalar != paid[i])
+                mismatches++;
+        }
+        //every start and end minute of the day, not only the times of the data set
+        String[] times = new String[DAY_MINUTES];
+        for (int minute = 0; minute < DAY_MINUTES; minute++)
+            times[minute] = new Time(minute / 60.0).getStrTime();
+        Employee employee = new Employee("First", "Last", "");
+        for (int start = 0; start < DAY_MINUTES; start++)
+        {
+            for (int end = 0; end < DAY_MINUTES; end++)
+            {
+                employee.addHoursAtDay(0, "Dept", DEPARTMENTS[0],
+                        times[start] + " - " + times[end]);
+                if (employee.getDayTotalHours(0) !=
+                        PaidHoursKernel.paidMinutes(start, end) / 60.0)
+                    mismatches++;
+            }
+        }
+        System.out.println(mismatches == 0 ? "Kernel matches the WorkDay calculation" :
+                mismatches + " MISMATCHES between the kernel and WorkDay");
+    }
+
+    /**
+     * Sums the week hours of every employee using the Employee objects.
+     * @param schedules The week schedules
+     * @return The total hours
+     */
+    private static double objectTotal(WeekSchedule[] schedules)
+    {
+        double total = 0;
+        for (WeekSchedule schedule : schedules)
+        {
+            Employee[] employees = schedule.getEmployeeList();
+            for (int i = 0; i < schedule.getNumEmployees(); i++)
+                total += employees[i].getWeekTotalHours();
+        }
+        return total;
+    }
+
+    /**
+     * Sums the paid minutes of the table one row at a time with the scalar calculation.
+     * @param table The table of work days
+     * @return The total paid minutes
+     */
+    private static long scalarTotal(ShiftTable table)
+    {
+        int[] startMinutes = table.getStartMinutes();
+        int[] endMinutes = table.getEndMinutes();
+        long total = 0;
+        for (int i = 0; i < table.size(); i++)
+            total += PaidHoursKernel.paidMinutes(startMinutes[i], endMinutes[i]);
+        return total;
+    }
+
+    /**
+     * Creates week schedules with random hours in 15 minute steps.
+     * @param weeks The number of weeks
+     * @param employeesPerWeek The number of employees in each week
+     * @param random The random numbers to use
+     * @return The week schedules
+     */
+    static WeekSchedule[] createSchedules(int weeks, int employeesPerWeek, Random random)
+    {
+        WeekSchedule[] schedules = new WeekSchedule[weeks];
+        for (int week = 0; week < weeks; week++)
+        {
+            String weekRange = String.format("01/%02d/2018 - 01/%02d/2018",
+                    1 + week % 20, 7 + week % 20);
+            schedules[week] = new WeekSchedule(weekRange, "Dept", DEPARTMENTS[0]);
+            for (int i = 0; i < employeesPerWeek; i++)
+            {
+                Employee employee = new Employee("First" + i, "Last" + i, "");
+                for (int day = 0; day < 7; day++)
+                {
+                    int kind = random.nextInt(10);
+                    if (kind < 6)
+                    {
+                        //5 minute steps, so times like 8:10a that are not exact in
+                        //decimal hours are checked too
+                        double start = random.nextInt(288) / 12.0;
+                        double end = random.nextInt(288) / 12.0;
+                        employee.addSeqSchedule("Dept",
+                                DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                                new Time(start).getStrTime() + " - " +
+                                        new Time(end).getStrTime());
+                    }
+                    else
+                        employee.addSeqSchedule(kind < 8 ? "PTO" : "");
+                }
+                schedules[week].addEmployee(employee);
+            }
+        }
+        return schedules;
+    }
+}
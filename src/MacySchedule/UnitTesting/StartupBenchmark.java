@@ -0,0 +1,137 @@
+package MacySchedule.UnitTesting;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a benchmark of the time from launching the ReportGenerator to its first result
+ * (the first line of the report) for one page, as a user running the tool from a shell
+ * sees it. Each mode is launched as a new JVM a number of times, and the median and
+ * best times are printed:
+ *   cold       the plain classpath, without the fast start options
+ *   cds        the fast start options with the class data sharing archive
+ *   cds+cache  the same, with the week schedule read from a snapshot of the page
+ * The archive is created first by a training run of the page, as
+ * bin/report-generator-fast.sh --train does. Class data sharing needs the classes in a
+ * jar and Java 13 or later to create the archive.
+ *
+ * Usage: StartupBenchmark classes.jar page.html [runs]
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class StartupBenchmark
+{
+    private static final String MAIN = "MacySchedule.ReportGenerator";
+    private static final File WORK = new File(System.getProperty("java.io.tmpdir"),
+            "startup-benchmark");
+    private static final File ERROR_LOG = new File(WORK, "stderr.log");
+    private static final List<String> FAST_OPTIONS = Arrays.asList(
+            "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-Xshare:auto");
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: StartupBenchmark classes.jar page.html [runs]");
+            System.exit(2);
+        }
+        String jar = args[0];
+        String page = args[1];
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        File archive = new File(WORK, "report-generator.jsa");
+        File cacheDir = new File(WORK, "snapshots");
+        if (!WORK.isDirectory() && !WORK.mkdirs())
+            throw new IOException("Cannot create " + WORK);
+        archive.delete();
+        ERROR_LOG.delete();
+
+        List<String> training = new ArrayList<>();
+        training.add("-XX:ArchiveClassesAtExit=" + archive.getPath());
+        training.addAll(FAST_OPTIONS);
+        launch(training, jar, page, "-c", cacheDir.getPath()); //also stores the snapshot
+        if (!archive.isFile())
+            System.out.println("This JVM cannot create the archive; cds modes run " +
+                    "without it");
+
+        List<String> cds = new ArrayList<>();
+        cds.add("-XX:SharedArchiveFile=" + archive.getPath());
+        cds.addAll(FAST_OPTIONS);
+        long[] cold = new long[runs];
+        long[] fast = new long[runs];
+        long[] cached = new long[runs];
+        for (int run = 0; run < runs; run++) //interleaved so the modes share any noise
+        {
+            cold[run] = launch(new ArrayList<>(), jar, page);
+            fast[run] = launch(cds, jar, page);
+            cached[run] = launch(cds, jar, page, "-c", cacheDir.getPath());
+        }
+        System.out.println(runs + " runs of " + page + " (messages in " + ERROR_LOG +
+                ")");
+        print("cold", cold, median(cold));
+        print("cds", fast, median(cold));
+        print("cds+cache", cached, median(cold));
+    }
+
+    /**
+     * Launches the ReportGenerator for a page and waits for the first line of the
+     * hours report.
+     * @param jvmOptions The options of the JVM
+     * @param jar The jar of the classes
+     * @param page The page to read
+     * @param options More options of the ReportGenerator
+     * @return The nanoseconds from the launch to the first line
+     * @throws IOException If the JVM cannot be started or prints nothing
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    private static long launch(List<String> jvmOptions, String jar, String page,
+                               String... options) throws IOException, InterruptedException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java")
+                .getPath());
+        command.addAll(jvmOptions);
+        command.addAll(Arrays.asList("-cp", jar, MAIN, "-f", "csv"));
+        command.addAll(Arrays.asList(options));
+        command.add(page);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.appendTo(ERROR_LOG)).start();
+        long time;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8)))
+        {
+            if (out.readLine() == null)
+                throw new IOException("No report from " + command);
+            time = System.nanoTime() - start;
+            while (out.readLine() != null)
+                ; //the rest of the report, so the JVM is not blocked on the pipe
+        }
+        if (process.waitFor() != 0)
+            throw new IOException("Exit status " + process.exitValue() + " of " +
+                    command);
+        return time;
+    }
+
+    private static long median(long[] times)
+    {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void print(String mode, long[] times, long coldMedian)
+    {
+        long median = median(times);
+        System.out.printf("%-10s median %7.1f ms, best %7.1f ms (%.2fx cold)%n", mode,
+                median / 1e6, Arrays.stream(times).min().getAsLong() / 1e6,
+                (double) coldMedian / median);
+    }
+}
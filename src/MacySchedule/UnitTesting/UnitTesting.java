@@ -1,12 +1,61 @@
 package MacySchedule.UnitTesting;
 
+import MacySchedule.AvailabilityConflict;
+import MacySchedule.AvailabilityStore;
+import MacySchedule.ChangeEvent;
+import MacySchedule.CoverageGapAnalysis;
+import MacySchedule.CoverageModel;
 import MacySchedule.Employee;
+import MacySchedule.EmployeeMerger;
+import MacySchedule.EmployeeSearchIndex;
+import MacySchedule.HoursRanking;
+import MacySchedule.HoursReport;
+import MacySchedule.ImportPipeline;
+import MacySchedule.LazyEmployee;
+import MacySchedule.OffHeapShiftStore;
+import MacySchedule.PaidHoursKernel;
+import MacySchedule.PayrollRollup;
+import MacySchedule.ReportCache;
+import MacySchedule.ReportKind;
+import MacySchedule.ScheduleArchiveReader;
+import MacySchedule.ScheduleChangeLog;
+import MacySchedule.ScheduleHistory;
 import MacySchedule.SchedulePageReader;
+import MacySchedule.ScheduleQuery;
+import MacySchedule.ScheduleSnapshotCache;
+import MacySchedule.ShardCoordinator;
+import MacySchedule.ShiftTable;
+import MacySchedule.StringPool;
+import MacySchedule.SwapMatcher;
+import MacySchedule.SwapRequest;
 import MacySchedule.Time;
 import MacySchedule.WeekSchedule;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * This class contains all the unit tests for the classes in this Macy Project.
@@ -21,6 +70,25 @@ public class UnitTesting
     {
 //        timeUnitTest();
 //        employeeUnitTest();
+//        coverageUnitTest();
+//        reportCacheUnitTest();
+//        mergerUnitTest();
+//        searchIndexUnitTest();
+//        stringPoolUnitTest();
+//        offHeapStoreUnitTest();
+//        historyUnitTest();
+//        changeLogUnitTest();
+//        payrollRollupUnitTest();
+//        availabilityUnitTest();
+//        swapMatcherUnitTest();
+//        hoursRankingUnitTest();
+//        lazyReaderUnitTest();
+//        archiveReaderUnitTest();
+//        importPipelineUnitTest();
+//        queryUnitTest();
+//        coverageGapUnitTest();
+//        shardUnitTest();
+//        snapshotCacheUnitTest();
         readerUnitTest();
     }
 
@@ -108,4 +176,872 @@ public class UnitTesting
         }
         System.out.println(weekSchedule.getTotalDeptHours());
     }
-}
\ No newline at end of file
+
+    /** This is a unit test for the CoverageModel class. */
+    private static void coverageUnitTest()
+    {
+        WeekSchedule weekSchedule = new WeekSchedule("11/25/2018 - 12/01/2018",
+                "TestDept", 10);
+        Employee first = new Employee("Lisa", "Chen", "");
+        first.addHoursAtDay(3, "TestDept", 10, "4:30p - 12:30a");
+        Employee second = new Employee("Ana", "Smith", "");
+        second.addHoursAtDay(3, "TestDept", 10, "5:10p - 6:00p");
+        weekSchedule.addEmployee(first);
+        weekSchedule.addEmployee(second);
+        CoverageModel coverage = new CoverageModel(weekSchedule);
+        final int[] changes = {0};
+        coverage.addCoverageListener((model, day, deptNum) -> changes[0]++);
+        System.out.println(coverage.getHeadcount(3, 10, 66)); //4:30p: 1
+        System.out.println(coverage.getHeadcount(3, 10, 68)); //5:00p: 2
+        System.out.println(coverage.getHeadcount(4, 10, 1)); //12:15a next day: 1
+        System.out.println(coverage.getHeadcount(4, 10, 2)); //12:30a next day: 0
+        second.addHoursAtDay(3, "OtherDept", 20, "5:10p - 6:00p");
+        System.out.println(coverage.getHeadcount(3, 10, 68)); //1
+        System.out.println(coverage.getHeadcount(3, 20, 68)); //1
+        System.out.println(changes[0]); //old department and new department: 2
+        coverage.dispose();
+        first.addHoursAtDay(3, "TestDept", 10, "9:00a - 1:00p");
+        System.out.println(coverage.getHeadcount(3, 10, 66)); //not counted: 1
+    }
+
+    /** This is a unit test for the ReportCache class. */
+    private static void reportCacheUnitTest()
+    {
+        WeekSchedule weekSchedule = new WeekSchedule("11/25/2018 - 12/01/2018",
+                "TestDept", 10);
+        Employee test = new Employee("Lisa", "Chen", "");
+        test.addHoursAtDay(3, "TestDept", 10, "4:30p - 12:30a");
+        weekSchedule.addEmployee(test);
+        ReportCache cache = new ReportCache(2);
+        System.out.println(cache.get(weekSchedule, 10, ReportKind.DEPT_TOTAL_HOURS)); //7
+        System.out.println(cache.get(weekSchedule, 10, ReportKind.DEPT_TOTAL_HOURS)); //7
+        test.addHoursAtDay(5, "TestDept", 10, "1:00p - 3:00p");
+        System.out.println(cache.get(weekSchedule, 10, ReportKind.DEPT_TOTAL_HOURS)); //9
+        cache.get(weekSchedule, 20, ReportKind.DEPT_TOTAL_HOURS);
+        cache.get(weekSchedule, 10, ReportKind.COVERAGE); //evicts dept 10 total
+        System.out.println(cache); //size=2, hits=1, misses=4, invalidations=1, evictions=1
+    }
+
+    /** This is a unit test for the EmployeeMerger class. */
+    private static void mergerUnitTest()
+    {
+        String weekRange = "11/25/2018 - 12/01/2018";
+        WeekSchedule shoes = new WeekSchedule(weekRange, "Shoes", 10);
+        Employee first = new Employee("Lisa", "Chen", "");
+        first.addHoursAtDay(1, "Shoes", 10, "10:00a - 2:00p");
+        first.addHoursAtDay(2, "Handbags", 20, "1:00p - 3:00p");
+        first.setDayNote(3, "PTO");
+        shoes.addEmployee(first);
+        WeekSchedule handbags = new WeekSchedule(weekRange, "Handbags", 20);
+        Employee second = new Employee("lisa", " CHEN ", "");
+        second.addHoursAtDay(2, "Handbags", 20, "1:00p - 3:00p"); //same shift
+        second.addHoursAtDay(3, "Handbags", 20, "9:00a - 1:00p"); //replaces PTO note
+        second.addHoursAtDay(1, "Handbags", 20, "3:00p - 5:00p"); //conflict
+        handbags.addEmployee(second);
+
+        EmployeeMerger merger = new EmployeeMerger();
+        merger.add(shoes);
+        merger.add(handbags);
+        WeekSchedule store = merger.getStoreSchedule(weekRange);
+        System.out.println(store.getNumEmployees()); //1
+        System.out.println(store.getEmployeeList()[0].getWeekTotalHours()); //10
+        System.out.println(merger.getConflicts().size()); //1
+        System.out.println(merger.getConflicts().get(0));
+    }
+
+    /** This is a unit test for the EmployeeSearchIndex class. */
+    private static void searchIndexUnitTest()
+    {
+        EmployeeSearchIndex index = new EmployeeSearchIndex();
+        index.add(new Employee("Lisa", "Chen", "Marie"));
+        index.add(new Employee("Ana", "Smith", ""));
+        index.add(new Employee("John", "O'Brien", ""));
+        index.add(new Employee("LISA", "chen", "marie")); //same person, not added
+        for (int i = 0; i < 50000; i++)
+            index.add(new Employee("First" + i, "Last" + i, ""));
+        System.out.println(index.size()); //50003
+        System.out.println(index.search("Chen, Li", 10).size()); //1
+        System.out.println(index.search("lisa ch", 10).size()); //1
+        System.out.println(index.search("obrien", 10).get(0).getLastName()); //O'Brien
+        System.out.println(index.search("Chne, Lsia", 10).get(0).getFirstName()); //Lisa
+        System.out.println(index.search("last1", 5).size()); //5
+        index.add(new Employee("Bob", "Smith", ""));
+        index.add(new Employee("Smith", "Smyth", "")); //both words close to "smiht"
+        for (Employee employee : index.search("smiht", 10))
+            System.out.print(employee.getFirstName() + " ");
+        System.out.println(); //Ana Bob Smith
+        System.out.println(index.search("smiht", 2).size()); //2
+        System.out.println(index.search("smiht bob", 10).get(0).getFirstName()); //Bob
+        System.out.println(index.search("last12345 frist12345", 10).get(0).getLastName());
+        //Last12345
+
+        long start = System.nanoTime();
+        int searches = 10000;
+        for (int i = 0; i < searches; i++)
+            index.search("last" + (i % 5000) + " fir", 10);
+        System.out.println("Prefix search: " + (System.nanoTime() - start) / searches /
+                1000.0 + " microseconds");
+        start = System.nanoTime();
+        for (int i = 0; i < searches; i++)
+            index.search("smiht", 10);
+        System.out.println("Typo search: " + (System.nanoTime() - start) / searches /
+                1000.0 + " microseconds");
+    }
+
+    /** This is a unit test for the StringPool class. */
+    private static void stringPoolUnitTest()
+    {
+        StringPool pool = new StringPool();
+        String line = "<td>PTO</td><td>PTO</td><td>OFF</td>";
+        String first = pool.intern(line, 4, 7);
+        System.out.println(first); //PTO
+        System.out.println(pool.intern(line, 16, 19) == first); //true
+        System.out.println(pool.intern(new String("PTO")) == first); //true
+        System.out.println(pool.intern(line, 28, 31)); //OFF
+        for (int i = 0; i < 1000; i++)
+            pool.intern("Name" + i);
+        System.out.println(pool.intern("Name" + 999) == pool.intern("Name999")); //true
+        System.out.println(pool.size()); //1002
+        System.out.println(pool); //strings=1002, lookups=1006, hits=4, saved=0 KB
+    }
+
+    /** This is a unit test for the OffHeapShiftStore class. */
+    private static void offHeapStoreUnitTest()
+    {
+        WeekSchedule[] schedules = PaidHoursBenchmark.createSchedules(20, 1000,
+                new Random(3));
+        OffHeapShiftStore store = new OffHeapShiftStore();
+        ShiftTable table = new ShiftTable();
+        for (WeekSchedule schedule : schedules)
+        {
+            store.addWeekSchedule(schedule);
+            table.addWeekSchedule(schedule);
+        }
+        System.out.println(store.size() == table.size()); //true
+        System.out.println(store.getOffHeapBytes() / 1024 + " KB off heap"); //3072 KB
+
+        long[] tableSums = PaidHoursKernel.sumByEmployee(table,
+                PaidHoursKernel.paidMinutes(table));
+        long[] storeSums = store.sumPaidByEmployee(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        System.out.println(Arrays.equals(tableSums, storeSums)); //true
+
+        OffHeapShiftStore.Cursor cursor = store.cursor();
+        long paid = 0;
+        while (cursor.next())
+            paid += cursor.getPaidMinutes();
+        System.out.println(paid == Arrays.stream(tableSums).sum()); //true
+
+        int firstDate = table.getDates()[0];
+        long[] firstWeek = store.sumPaidByDepartment(firstDate, firstDate + 7);
+        System.out.println(firstWeek.length == table.getNumDepartments()); //true
+        store.clear();
+        System.out.println(store.size() + " " + store.cursor().next()); //0 false
+    }
+
+    /** This is a unit test for the ScheduleHistory class. */
+    private static void historyUnitTest()
+    {
+        WeekSchedule schedule = PaidHoursBenchmark.createSchedules(1, 5000,
+                new Random(5))[0];
+        Employee[] employees = schedule.getEmployeeList();
+        String original = employees[4321].getDaySchedule(2)[1];
+        ScheduleHistory history = new ScheduleHistory(schedule);
+        employees[4321].addHoursAtDay(2, "Dept", 6601, "9:00a - 5:30p");
+        employees[10].setDayNote(0, "PTO");
+        employees[4321].changeDayScheduledHours(2, "10:00a - 2:00p");
+        System.out.println(history.getVersion()); //3
+        System.out.println(employees[4321].getDaySchedule(2)[1]); //10:00a - 2:00p
+
+        history.undo();
+        System.out.println(employees[4321].getDaySchedule(2)[1]); //9:00a - 5:30p
+        history.restore(0);
+        System.out.println(employees[4321].getDaySchedule(2)[1].equals(original)); //true
+        System.out.println(employees[10].getDayDepartment(0).equals("PTO")); //false
+        history.redo();
+        System.out.println(employees[4321].getDaySchedule(2)[1]); //9:00a - 5:30p
+        System.out.println(history.getDaySchedule(3, 4321, 2)[1]); //10:00a - 2:00p
+
+        employees[0].setDayNote(6, "OFF"); //drops versions 2 and 3
+        System.out.println(history.getVersion() + " " + history.getNumVersions()); //2 3
+        System.out.println(history.canRedo()); //false
+        history.dispose();
+    }
+
+    /** This is a unit test for the ScheduleChangeLog class. */
+    private static void changeLogUnitTest()
+    {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "change-log-test");
+        new File(directory, ScheduleChangeLog.CHANGES_FILE).delete();
+        new File(directory, ScheduleChangeLog.SNAPSHOT_FILE).delete();
+        WeekSchedule schedule = PaidHoursBenchmark.createSchedules(1, 2000,
+                new Random(9))[0];
+        Employee[] employees = schedule.getEmployeeList();
+        try (ScheduleChangeLog log = new ScheduleChangeLog(directory))
+        {
+            ScheduleChangeLog.Recorder recorder = log.track(schedule, "lchen");
+            employees[5].addHoursAtDay(1, "Dept", 6602, "9:00a - 5:30p");
+            employees[5].addHoursAtDay(1, "Shoes", 6601, "9:00a - 5:30p");
+            employees[7].setDayNote(3, "PTO");
+            log.append(ChangeEvent.setDay(ChangeEvent.Type.SET_NOTE, "lchen", schedule,
+                    employees[7], 3)).join(); //on disk
+            recorder.stop();
+            List<ChangeEvent> changes = log.readChanges();
+            System.out.println(changes.get(changes.size() - 3).getType());
+            //CHANGE_DEPARTMENT
+            WeekSchedule replayed = log.replay().get(0);
+            System.out.println(replayed.getEmployeeList()[5].getDaySchedule(1)[0]
+                    .replace('\n', ' ')); //6601 Shoes
+            System.out.println(replayed.getEmployeeList()[7].getDayDepartment(3)); //PTO
+            System.out.println(replayed.getTotalDeptHours() ==
+                    schedule.getTotalDeptHours()); //true
+
+            //a month of edits
+            recorder = log.track(schedule, "lchen");
+            for (int i = 0; i < 100000; i++)
+                employees[i % 2000].addHoursAtDay(i % 7, "Dept", 6601, "10:00a - 6:30p");
+            recorder.stop();
+            log.append(ChangeEvent.addEmployee("lchen", schedule, employees[0])).join();
+            int numChanges = log.readChanges().size();
+            long start = System.nanoTime();
+            replayed = log.replay().get(0);
+            System.out.println("Replayed " + numChanges + " changes in " +
+                    (System.nanoTime() - start) / 1000000 + " ms");
+            System.out.println(replayed.getTotalDeptHours() ==
+                    schedule.getTotalDeptHours()); //true
+            log.compact().join();
+            System.out.println(log.readChanges().size()); //0
+            System.out.println(log.replay().get(0).getTotalDeptHours() ==
+                    schedule.getTotalDeptHours()); //true
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+
+        //a change that was only partly written is dropped when the log is opened
+        try (RandomAccessFile changes = new RandomAccessFile(new File(directory,
+                ScheduleChangeLog.CHANGES_FILE), "rw"))
+        {
+            changes.seek(changes.length());
+            changes.writeInt(100);
+            changes.write(new byte[10]);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        try (ScheduleChangeLog log = new ScheduleChangeLog(directory))
+        {
+            log.append(ChangeEvent.createWeek("lchen", schedule)).join();
+            System.out.println(log.readChanges().size()); //1
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+
+        //the pages of two departments for the same week are separate week schedules
+        new File(directory, ScheduleChangeLog.CHANGES_FILE).delete();
+        new File(directory, ScheduleChangeLog.SNAPSHOT_FILE).delete();
+        WeekSchedule shoes = new WeekSchedule("01/07/2018 - 01/13/2018", "Shoes", 101);
+        WeekSchedule toys = new WeekSchedule("01/07/2018 - 01/13/2018", "Toys", 202);
+        Employee shoesDay = new Employee("Lisa", "Chen", "");
+        shoesDay.addHoursAtDay(1, "Shoes", 101, "9:00a - 1:00p");
+        shoes.addEmployee(shoesDay);
+        Employee toysDay = new Employee("Lisa", "Chen", "");
+        toysDay.addHoursAtDay(1, "Toys", 202, "2:00p - 6:00p");
+        toys.addEmployee(toysDay);
+        try (ScheduleChangeLog log = new ScheduleChangeLog(directory))
+        {
+            log.track(shoes, "lchen");
+            log.track(toys, "lchen");
+            log.compact().join();
+            List<WeekSchedule> weeks = log.replay();
+            System.out.println(weeks.size()); //2
+            System.out.println(weeks.get(0).getDepartment() + " " + weeks.get(0)
+                    .getEmployeeList()[0].getDaySchedule(1)[1]); //Shoes 9:00a - 1:00p
+            System.out.println(weeks.get(1).getDepartment() + " " + weeks.get(1)
+                    .getEmployeeList()[0].getDaySchedule(1)[1]); //Toys 2:00p - 6:00p
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /** This is a unit test for the PayrollRollup class. */
+    private static void payrollRollupUnitTest()
+    {
+        WeekSchedule[] schedules = PaidHoursBenchmark.createSchedules(20, 300,
+                new Random(11)); //weeks of 01/01/2018 to 01/20/2018
+        PayrollRollup rollup = new PayrollRollup(LocalDate.of(2017, 12, 31));
+        for (int week = schedules.length - 1; week >= 0; week--) //later weeks first
+            rollup.importWeek(schedules[week]);
+        ShiftTable table = new ShiftTable();
+        for (WeekSchedule schedule : schedules)
+            table.addWeekSchedule(schedule);
+        long[] expected = PaidHoursKernel.sumByEmployee(table,
+                PaidHoursKernel.paidMinutes(table));
+        LocalDate from = LocalDate.of(2018, 1, 1);
+        LocalDate to = LocalDate.of(2018, 2, 1);
+        boolean matches = true;
+        for (int id = 0; id < expected.length; id++)
+            matches &= expected[id] == rollup.getEmployeeMinutes(table.getEmployeeKey(id),
+                    from, to);
+        System.out.println(matches); //true
+        System.out.println(rollup.getStoreMinutes(from, to) ==
+                Arrays.stream(expected).sum()); //true
+        System.out.println(rollup.getDepartmentMinutes(6601, PayrollRollup.Period.MONTH,
+                LocalDate.of(2018, 1, 15)) == rollup.getDepartmentMinutes(6601,
+                PayrollRollup.Period.QUARTER, LocalDate.of(2018, 3, 1))); //true
+        System.out.println(rollup.getPeriodStart(PayrollRollup.Period.PAY_PERIOD,
+                LocalDate.of(2018, 1, 20))); //2018-01-14
+
+        Employee employee = schedules[0].getEmployeeList()[0];
+        String nameKey = employee.getNameKey();
+        LocalDate firstDay = LocalDate.of(2018, 1, 1);
+        long before = rollup.getEmployeeMinutes(nameKey, firstDay, firstDay.plusDays(1));
+        employee.addHoursAtDay(0, "Dept", 6601, "9:00a - 5:30p");
+        rollup.importWeek(schedules[0]); //only day 0 of one employee changes
+        System.out.println(before + " -> " + rollup.getEmployeeMinutes(nameKey, firstDay,
+                firstDay.plusDays(1))); //... -> 450
+        rollup.removeWeek(schedules[0].getWeekRange(), schedules[0].getDeptNum());
+        System.out.println(rollup.getEmployeeMinutes(nameKey, firstDay,
+                firstDay.plusDays(1))); //0
+    }
+
+    /** This is a unit test for the AvailabilityStore class. */
+    private static void availabilityUnitTest()
+    {
+        String weekRange = "11/25/2018 - 12/01/2018"; //Sunday to Saturday
+        WeekSchedule shoes = new WeekSchedule(weekRange, "Shoes", 10);
+        Employee lisa = new Employee("Lisa", "Chen", "");
+        lisa.addHoursAtDay(0, "Shoes", 10, "10:00a - 6:30p");
+        lisa.addHoursAtDay(1, "Shoes", 10, "8:00a - 4:30p");
+        lisa.addHoursAtDay(3, "Shoes", 10, "9:00a - 1:00p");
+        lisa.addHoursAtDay(4, "Shoes", 10, "10:00p - 2:00a");
+        shoes.addEmployee(lisa);
+        Employee free = new Employee("Free", "Person", "");
+        free.addHoursAtDay(0, "Shoes", 10, "10:00a - 6:30p");
+        shoes.addEmployee(free);
+
+        AvailabilityStore store = new AvailabilityStore();
+        String nameKey = lisa.getNameKey();
+        store.setAvailability(nameKey, DayOfWeek.MONDAY, 9 * 60, 17 * 60);
+        store.setUnavailable(nameKey, DayOfWeek.FRIDAY); //Thursday night ends Friday
+        store.addTimeOff(nameKey, LocalDate.of(2018, 11, 28), 12 * 60, 14 * 60);
+        store.addTimeOff(nameKey, LocalDate.of(2018, 11, 30), LocalDate.of(2018, 12, 1));
+        store.setMaxWeekHours(nameKey, 20);
+
+        System.out.println(store.checkShift(nameKey, LocalDate.of(2018, 11, 26), 9 * 60,
+                17 * 60)); //null
+        System.out.println(store.checkShift(nameKey, LocalDate.of(2018, 11, 26), 8 * 60,
+                12 * 60)); //UNAVAILABLE
+        System.out.println(store.checkShift(nameKey, LocalDate.of(2018, 11, 28), 13 * 60,
+                15 * 60)); //TIME_OFF
+        System.out.println(store.checkShift(free.getNameKey(),
+                LocalDate.of(2018, 11, 26), 0, 0)); //null
+        AvailabilityStore partly = new AvailabilityStore();
+        partly.setAvailability(nameKey, DayOfWeek.MONDAY, 9 * 60 + 5, 17 * 60 - 5);
+        System.out.println(partly.checkShift(nameKey, LocalDate.of(2018, 11, 26),
+                9 * 60, 12 * 60)); //UNAVAILABLE
+        System.out.println(partly.checkShift(nameKey, LocalDate.of(2018, 11, 26),
+                9 * 60 + 15, 16 * 60 + 45)); //null
+        List<AvailabilityConflict> conflicts = store.check(shoes);
+        for (AvailabilityConflict conflict : conflicts)
+            System.out.println(conflict);
+        //Chen, Lisa UNAVAILABLE on day 1: 8:00a - 4:30p
+        //Chen, Lisa TIME_OFF on day 3: 9:00a - 1:00p
+        //Chen, Lisa UNAVAILABLE on day 4: 10:00p - 2:00a
+        //Chen, Lisa MAX_HOURS: 23.0 hours in the week
+
+        System.out.println(store.checkAssignment(lisa, LocalDate.of(2018, 11, 25), 3,
+                "1:00p - 5:00p")); //[... TIME_OFF on day 3 ..., ... MAX_HOURS: 23.0 ...]
+        System.out.println(store.checkAssignment(free, LocalDate.of(2018, 11, 25), 6,
+                "1:00p - 5:00p").isEmpty()); //true
+    }
+
+    /** This is a unit test for the SwapMatcher class. */
+    private static void swapMatcherUnitTest()
+    {
+        WeekSchedule shoes = new WeekSchedule("11/25/2018 - 12/01/2018", "Shoes", 10);
+        Employee lisa = new Employee("Lisa", "Chen", "");
+        lisa.addHoursAtDay(1, "Shoes", 10, "10:00a - 2:00p");
+        lisa.addHoursAtDay(2, "Shoes", 10, "10:00a - 2:00p");
+        Employee busy = new Employee("Busy", "Person", "");
+        busy.addHoursAtDay(1, "Shoes", 10, "9:00a - 5:30p");
+        Employee full = new Employee("Full", "Time", "");
+        Employee partTime = new Employee("Part", "Time", "");
+        for (int day = 2; day < 7; day++)
+        {
+            full.addHoursAtDay(day, "Shoes", 10, "9:00a - 5:30p");
+            if (day < 4)
+                partTime.addHoursAtDay(day, "Shoes", 10, "9:00a - 5:30p");
+        }
+        Employee away = new Employee("Away", "Person", "");
+        away.setDayNote(1, "PTO");
+        for (Employee employee : new Employee[] {lisa, busy, full, partTime, away})
+            shoes.addEmployee(employee);
+
+        SwapMatcher matcher = new SwapMatcher(40);
+        matcher.add(shoes);
+        for (Employee candidate : matcher.findCandidates(lisa, 1, 10))
+            System.out.println(candidate.getFirstName()); //Part
+        partTime.addHoursAtDay(1, "Shoes", 10, "1:00p - 5:00p");
+        System.out.println(matcher.findCandidates(lisa, 1, 10).isEmpty()); //true
+        System.out.println(matcher.findCandidates(busy, 1, 10).size()); //0 (Full at 40)
+
+        List<Employee> matches = matcher.matchAll(Arrays.asList(
+                new SwapRequest(lisa, 2), new SwapRequest(full, 2),
+                new SwapRequest(busy, 1)));
+        for (Employee match : matches)
+            System.out.println(match == null ? null : match.getFirstName());
+        //Away (fewest hours)
+        //Busy (Away took the other shift of day 2)
+        //null
+
+        //employees of another department page and of a store schedule
+        WeekSchedule toys = new WeekSchedule("11/25/2018 - 12/01/2018", "Toys", 20);
+        Employee cross = new Employee("Cross", "Trained", "");
+        cross.addHoursAtDay(3, "Shoes", 10, "9:00a - 1:00p");
+        toys.addEmployee(cross);
+        Employee toysOnly = new Employee("Toys", "Only", "");
+        toysOnly.addHoursAtDay(3, "Toys", 20, "9:00a - 1:00p");
+        toys.addEmployee(toysOnly);
+        WeekSchedule shoesPage = new WeekSchedule("11/25/2018 - 12/01/2018", "Shoes", 10);
+        Employee giver = new Employee("Giver", "Shoes", "");
+        giver.addHoursAtDay(1, "Shoes", 10, "10:00a - 2:00p");
+        shoesPage.addEmployee(giver);
+        SwapMatcher pages = new SwapMatcher(40);
+        pages.add(shoesPage);
+        pages.add(toys);
+        for (Employee candidate : pages.findCandidates(giver, 1, 10))
+            System.out.println(candidate.getFirstName()); //Cross
+        cross.setDayNote(3, ""); //no longer works in Shoes
+        System.out.println(pages.findCandidates(giver, 1, 10).size()); //0
+        cross.addHoursAtDay(3, "Shoes", 10, "9:00a - 1:00p");
+        WeekSchedule store = EmployeeMerger.mergeAll(Arrays.asList(shoesPage, toys))
+                .getStoreSchedules().get(0);
+        SwapMatcher merged = new SwapMatcher(40);
+        merged.add(store);
+        Employee storeGiver = null;
+        for (Employee employee : store.getEmployeeList())
+            if (employee != null && employee.getFirstName().equals("Giver"))
+                storeGiver = employee;
+        for (Employee candidate : merged.findCandidates(storeGiver, 1, 10))
+            System.out.println(candidate.getFirstName()); //Cross
+        System.out.println(merged.matchAll(Arrays.asList(new SwapRequest(storeGiver, 1)))
+                .get(0).getFirstName()); //Cross
+    }
+
+    /** This is a unit test for the HoursRanking class. */
+    private static void hoursRankingUnitTest()
+    {
+        WeekSchedule[] schedules = PaidHoursBenchmark.createSchedules(1, 2000,
+                new Random(5));
+        HoursRanking ranking = new HoursRanking();
+        ranking.add(schedules[0]);
+        Employee[] employees = schedules[0].getEmployeeList();
+        Employee[] sorted = Arrays.copyOf(employees, schedules[0].getNumEmployees());
+        Arrays.sort(sorted, (a, b) -> Double.compare(b.getWeekTotalHours(),
+                a.getWeekTotalHours()));
+        List<Employee> top = ranking.getMostHours(10);
+        System.out.println(top.get(9).getWeekTotalHours() ==
+                sorted[9].getWeekTotalHours()); //true
+        System.out.println(ranking.getHoursBelow(20).size() == Arrays.stream(sorted)
+                .filter(employee -> employee.getWeekTotalHours() < 20).count()); //true
+
+        Employee lowest = ranking.getHoursBelow(1000).get(0);
+        System.out.println(lowest.getWeekTotalHours()); //0.0
+        for (int day = 0; day < 7; day++)
+            lowest.addHoursAtDay(day, "Dept", 6605, "8:00a - 6:00p"); //63 paid hours
+        System.out.println(ranking.getHoursBelow(1000).get(0) != lowest); //true
+        System.out.println(ranking.getHoursAtLeast(63).contains(lowest)); //true
+        System.out.println(ranking.getHoursAtLeast(6605, 63).contains(lowest)); //true
+        System.out.println(ranking.getHoursBelow(6601, 1).contains(lowest)); //true
+        Arrays.sort(sorted, (a, b) -> Double.compare(b.getWeekTotalHours(),
+                a.getWeekTotalHours()));
+        System.out.println(ranking.getMostHours(1).get(0).getWeekTotalHours() ==
+                sorted[0].getWeekTotalHours()); //true
+    }
+
+    /** This is a unit test for the lazy mode of the SchedulePageReader class. */
+    private static void lazyReaderUnitTest()
+    {
+        File read = new File("My Area View.html");
+        try
+        {
+            WeekSchedule full = new SchedulePageReader(read).getWeekSchedule();
+            WeekSchedule lazy = new SchedulePageReader(read, null, new StringPool(), true)
+                    .getWeekSchedule();
+            System.out.println(full.getNumEmployees() == lazy.getNumEmployees()); //true
+            LazyEmployee employee = (LazyEmployee) lazy.getEmployeeList()[1];
+            System.out.println(employee.getLastName() + " " + employee.isLoaded());
+            //(last name) false
+            long version = lazy.getVersion();
+            System.out.println(employee.getWeekTotalHours() ==
+                    full.getEmployeeList()[1].getWeekTotalHours()); //true
+            System.out.println(employee.isLoaded() + " " +
+                    ((LazyEmployee) lazy.getEmployeeList()[2]).isLoaded()); //true false
+            employee.setDayNote(0, "PTO");
+            full.getEmployeeList()[1].setDayNote(0, "PTO");
+            System.out.println(lazy.getVersion() - version); //1
+            boolean same = true;
+            for (int i = 0; i < full.getNumEmployees(); i++)
+                for (int day = 0; day < 7; day++)
+                    same &= Arrays.equals(full.getEmployeeList()[i].getDaySchedule(day),
+                            lazy.getEmployeeList()[i].getDaySchedule(day));
+            System.out.println(same); //true
+
+            //a row that cannot be read is read again the next time it is used
+            File broken = File.createTempFile("broken", ".html");
+            broken.deleteOnExit();
+            String page = new String(Files.readAllBytes(read.toPath()),
+                    Charset.defaultCharset());
+            Files.write(broken.toPath(), page.replaceFirst("p<br>6601<br>",
+                    "p<br>66O1<br>").getBytes(Charset.defaultCharset()));
+            LazyEmployee bad = (LazyEmployee) new SchedulePageReader(broken, null,
+                    new StringPool(), true).getWeekSchedule().getEmployeeList()[0];
+            for (int attempt = 0; attempt < 2; attempt++)
+            {
+                try
+                {
+                    bad.getWeekTotalHours();
+                }
+                catch (NumberFormatException e)
+                {
+                    System.out.println(e.getMessage() + " " + bad.isLoaded());
+                }
+            }
+            //For input string: "66O1" false (twice)
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /** This is a unit test for the ScheduleArchiveReader class. */
+    private static void archiveReaderUnitTest()
+    {
+        File read = new File("My Area View.html");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            File archive = File.createTempFile("pages", ".zip");
+            archive.deleteOnExit();
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive)))
+            {
+                for (String name : new String[] {"week2.html", "notes.txt", "week1.html"})
+                {
+                    out.putNextEntry(new ZipEntry(name));
+                    out.write(Files.readAllBytes(read.toPath()));
+                }
+            }
+            WeekSchedule expected = new SchedulePageReader(read).getWeekSchedule();
+            List<ScheduleArchiveReader.Page> pages = new ScheduleArchiveReader(executor,
+                    new StringPool()).submit(archive);
+            System.out.println(pages.size()); //2
+            for (ScheduleArchiveReader.Page page : pages)
+            {
+                WeekSchedule schedule = page.getWeekSchedule();
+                System.out.println(page.getName().endsWith("!/week1.html") + " " +
+                        (schedule.getTotalDeptHours() == expected.getTotalDeptHours()));
+            }
+            //true true
+            //false true
+
+            //the zip is closed when its pages are cancelled or cannot be submitted
+            File openFiles = new File("/proc/self/fd"); //Linux
+            int open = openFiles.list().length;
+            ExecutorService blocked = Executors.newSingleThreadExecutor();
+            CountDownLatch latch = new CountDownLatch(1);
+            blocked.submit(() -> { latch.await(); return null; });
+            for (ScheduleArchiveReader.Page page : new ScheduleArchiveReader(blocked,
+                    new StringPool()).submit(archive))
+                page.cancel();
+            latch.countDown();
+            System.out.println(openFiles.list().length == open); //true
+            blocked.shutdown();
+            try
+            {
+                new ScheduleArchiveReader(blocked, new StringPool()).submit(archive);
+            }
+            catch (RejectedExecutionException e)
+            {
+                System.out.println(openFiles.list().length == open); //true
+            }
+        }
+        catch (IOException | ExecutionException | InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /** This is a unit test for the ImportPipeline class. */
+    private static void importPipelineUnitTest()
+    {
+        File read = new File("My Area View.html");
+        List<File> pages = new ArrayList<>(Collections.nCopies(20, read));
+        pages.add(new File("missing.html"));
+        ImportPipeline pipeline = new ImportPipeline(new StringPool());
+        pipeline.setWorkers(ImportPipeline.Stage.DECODE, 3);
+        pipeline.setQueueCapacity(2);
+        pipeline.setBatchSize(16);
+        List<WeekSchedule> imported = Collections.synchronizedList(new ArrayList<>());
+        try
+        {
+            WeekSchedule expected = new SchedulePageReader(read).getWeekSchedule();
+            pipeline.run(pages, weekSchedule ->
+            {
+                imported.add(weekSchedule);
+                try
+                {
+                    Thread.sleep(5); //slow sink
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            System.out.println(imported.size()); //20
+            boolean same = true;
+            for (WeekSchedule weekSchedule : imported)
+                same &= weekSchedule.getNumEmployees() == expected.getNumEmployees() &&
+                        weekSchedule.getEmployeeList()[3].getLastName().equals(
+                                expected.getEmployeeList()[3].getLastName()) &&
+                        weekSchedule.getTotalDeptHours() == expected.getTotalDeptHours();
+            System.out.println(same); //true
+            System.out.println(pipeline.getFailures().size()); //1
+            for (ImportPipeline.Stage stage : ImportPipeline.Stage.values())
+                System.out.println(pipeline.getMetrics(stage));
+            System.out.println(pipeline.getMetrics(ImportPipeline.Stage.AGGREGATE)
+                    .getMaxQueueDepth() <= 2); //true
+        }
+        catch (FileNotFoundException | InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /** This is a unit test for the ScheduleQuery class. */
+    private static void queryUnitTest()
+    {
+        WeekSchedule[] schedules = PaidHoursBenchmark.createSchedules(10, 2000,
+                new Random(5));
+        ShiftTable table = new ShiftTable();
+        for (WeekSchedule schedule : schedules)
+            table.addWeekSchedule(schedule);
+        ScheduleQuery query = ScheduleQuery.compile("dept = 6601 and day in (sat, sun) " +
+                "and end > 9:00p and week_hours > 30");
+        System.out.println(query);
+        //scan dept index [6601]; filter and[dept in [6601], day in [sat, sun], ...]
+        System.out.println(query == ScheduleQuery.compile(query.getText())); //true
+
+        int[] paid = PaidHoursKernel.paidMinutes(table);
+        long[] weekPaid = new long[table.size()];
+        HashMap<Long, Long> totals = new HashMap<>();
+        for (int row = 0; row < table.size(); row++)
+            totals.merge((long) Math.floorDiv(table.getDates()[row] - 3, 7) << 32 |
+                    table.getEmployeeIds()[row], (long) paid[row], Long::sum);
+        for (int row = 0; row < table.size(); row++)
+            weekPaid[row] = totals.get((long) Math.floorDiv(table.getDates()[row] - 3,
+                    7) << 32 | table.getEmployeeIds()[row]);
+        List<Integer> expected = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++)
+        {
+            int start = table.getStartMinutes()[row];
+            int end = table.getEndMinutes()[row];
+            DayOfWeek day = LocalDate.ofEpochDay(table.getDates()[row]).getDayOfWeek();
+            if (start >= 0 && table.getDeptIds()[row] == table.getDeptId(6601) &&
+                    (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) &&
+                    (end <= start || end > 21 * 60) && weekPaid[row] > 30 * 60)
+                expected.add(row);
+        }
+        int[] rows = query.findRows(table);
+        System.out.println(rows.length == expected.size() && rows.length > 0); //true
+        boolean same = true;
+        for (int i = 0; i < rows.length; i++)
+            same &= rows[i] == expected.get(i);
+        System.out.println(same); //true
+        System.out.println(Arrays.equals(ScheduleQuery.compile("dept in (6601, 6601)")
+                .findRows(table), ScheduleQuery.compile("dept = 6601").findRows(table)));
+        //true
+
+        WeekSchedule notes = new WeekSchedule("11/25/2018 - 12/01/2018", "Shoes", 10);
+        Employee lisa = new Employee("Lisa", "Chen", "");
+        lisa.addHoursAtDay(0, "Shoes", 10, "9:00a - 1:00p");
+        lisa.addHoursAtDay(1, "Shoes", 10, "10:00a - 1:00p");
+        lisa.setDayNote(2, "PTO");
+        notes.addEmployee(lisa);
+        ShiftTable noteTable = new ShiftTable();
+        noteTable.addWeekSchedule(notes);
+        System.out.println(ScheduleQuery.compile("note = \"PTO\"").findRows(noteTable)
+                .length + " " + ScheduleQuery.compile("start != 10:00a")
+                .findRows(noteTable).length + " " + ScheduleQuery.compile("hours != 3")
+                .findRows(noteTable).length); //days without hours never match: 1 1 1
+
+        ScheduleQuery scan = ScheduleQuery.compile("not (hours < 4 or weekend) or " +
+                "note in (\"PTO\", \"Sick\")");
+        System.out.println(scan.toString().startsWith("scan all rows")); //true
+        System.out.println(scan.findEmployees(table).length <= table.getNumEmployees());
+        //true
+        try
+        {
+            ScheduleQuery.compile("dept > 6601");
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.out.println(e.getMessage());
+            //dept can only be compared with =, != or in at position 5 of: dept > 6601
+        }
+    }
+
+    /** This is a unit test for the CoverageGapAnalysis class. */
+    private static void coverageGapUnitTest()
+    {
+        WeekSchedule weekSchedule = new WeekSchedule("11/25/2018 - 12/01/2018",
+                "TestDept", 10);
+        Employee first = new Employee("Lisa", "Chen", "");
+        first.addHoursAtDay(3, "TestDept", 10, "9:00a - 5:00p");
+        Employee second = new Employee("Ana", "Smith", "");
+        second.addHoursAtDay(3, "TestDept", 10, "1:00p - 9:00p");
+        weekSchedule.addEmployee(first);
+        weekSchedule.addEmployee(second);
+        CoverageGapAnalysis analysis = new CoverageGapAnalysis(
+                new CoverageModel(weekSchedule));
+        int[] demand = new int[CoverageModel.SLOTS_PER_DAY];
+        Arrays.fill(demand, 36, 84, 2); //2 employees from 9:00a to 9:00p
+        analysis.setDemand(10, 3, demand);
+        System.out.println(analysis.getSurplus(3, 10, 36)); //9:00a: -1
+        System.out.println(analysis.getSurplus(3, 10, 56)); //2:00p: 0
+        System.out.println(analysis.getUnderCoverageMinutes()); //8 hours short: 480
+        System.out.println(analysis.getWorstGaps(5));
+        //[10 day 3 9:00 - 13:00: 240 minutes short (max 1),
+        // 10 day 3 17:00 - 21:00: 240 minutes short (max 1)]
+
+        final int[] changes = {0};
+        analysis.addCoverageListener((model, day, deptNum) -> changes[0]++);
+        second.addHoursAtDay(3, "TestDept", 10, "9:00a - 9:00p");
+        System.out.println(analysis.getUnderCoverageMinutes()); //4 hours short: 240
+        System.out.println(analysis.getOverCoverageMinutes(3, 10)); //0
+        System.out.println(analysis.getWorstGaps(5));
+        //[10 day 3 17:00 - 21:00: 240 minutes short (max 1)]
+        first.addHoursAtDay(3, "OtherDept", 20, "9:00a - 5:00p");
+        System.out.println(analysis.getWorstGaps(1).get(0).getMissingMinutes()); //720
+        System.out.println(changes[0]); //removed and added shift of each edit: 4
+    }
+
+    /** This is a unit test for the ShardCoordinator and ShardWorker classes. */
+    private static void shardUnitTest()
+    {
+        List<File> pages = new ArrayList<>(Collections.nCopies(6,
+                new File("My Area View.html")));
+        pages.add(new File("missing.html"));
+        ShardCoordinator coordinator = new ShardCoordinator(2);
+        coordinator.setWorkerThreads(2);
+        try
+        {
+            File marker = File.createTempFile("shard", ".crashed");
+            marker.delete(); //the first worker to start crashes and creates it
+            marker.deleteOnExit();
+            coordinator.setWorkerArguments(Arrays.asList("--crash-once",
+                    marker.getPath()));
+            ShardCoordinator.Result result = coordinator.run(pages);
+            System.out.println(result.getNumPages() + " " + result.getNumEmployees());
+            //6 pages of 60 employees: 6 360
+            System.out.println(result.getFailures().size()); //missing.html: 1
+            System.out.println(result.getRetries() + " " + result.getFailedShards());
+            //1 0
+
+            List<WeekSchedule> schedules = new ArrayList<>();
+            for (int i = 0; i < 6; i++)
+                schedules.add(new SchedulePageReader(pages.get(i)).getWeekSchedule());
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new HoursReport(schedules, HoursReport.Format.CSV).writeEmployeeHours(
+                    new PrintStream(expected));
+            ByteArrayOutputStream merged = new ByteArrayOutputStream();
+            result.writeEmployeeHours(new PrintStream(merged), HoursReport.Format.CSV);
+            System.out.println(expected.toString().equals(merged.toString())); //true
+            expected.reset();
+            new HoursReport(schedules, HoursReport.Format.TEXT).writeDepartmentHours(
+                    new PrintStream(expected));
+            merged.reset();
+            result.writeDepartmentHours(new PrintStream(merged), HoursReport.Format.TEXT);
+            System.out.println(expected.toString().equals(merged.toString())); //true
+            result.close(); //deletes the records of the shards
+
+            //a page with bad hours in the middle of a shard does not hide the pages
+            //after it
+            File bad = File.createTempFile("bad", ".html");
+            bad.deleteOnExit();
+            String page = new String(Files.readAllBytes(pages.get(0).toPath()),
+                    Charset.defaultCharset());
+            Files.write(bad.toPath(), page.replaceFirst("9:00a - 2:00p", "9:0a - 2:00p")
+                    .getBytes(Charset.defaultCharset()));
+            ShardCoordinator single = new ShardCoordinator(1);
+            ShardCoordinator.Result withBad = single.run(Arrays.asList(pages.get(0), bad,
+                    pages.get(1)));
+            System.out.println(withBad.getNumPages() + " " + withBad.getNumEmployees() +
+                    " " + withBad.getFailures().size()); //2 120 1
+            merged.reset();
+            withBad.writeDepartmentHours(new PrintStream(merged), HoursReport.Format.CSV);
+            System.out.println(merged.toString().split("\n").length); //header + 2: 3
+            withBad.close();
+        }
+        catch (IOException | InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /** This is a unit test for the ScheduleSnapshotCache class. */
+    private static void snapshotCacheUnitTest()
+    {
+        try
+        {
+            File directory = Files.createTempDirectory("snapshots").toFile();
+            File page = File.createTempFile("page", ".html");
+            page.deleteOnExit();
+            Files.copy(new File("My Area View.html").toPath(), page.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            StringPool stringPool = new StringPool();
+            ScheduleSnapshotCache cache = new ScheduleSnapshotCache(directory,
+                    stringPool);
+            System.out.println(cache.load(page)); //null
+
+            WeekSchedule read = SchedulePageReader.readInMemory(page, stringPool);
+            cache.store(page, read);
+            WeekSchedule loaded = cache.load(page);
+            System.out.println(loaded.getNumEmployees() == read.getNumEmployees());
+            //true
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new HoursReport(Collections.singletonList(read), HoursReport.Format.CSV)
+                    .writeEmployeeHours(new PrintStream(expected));
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            new HoursReport(Collections.singletonList(loaded), HoursReport.Format.CSV)
+                    .writeEmployeeHours(new PrintStream(actual));
+            System.out.println(expected.toString().equals(actual.toString())); //true
+
+            System.out.println(new ScheduleSnapshotCache(directory, stringPool)
+                    .preload(5)); //1
+            page.setLastModified(page.lastModified() + 2000);
+            System.out.println(cache.load(page)); //changed page: null
+            System.out.println(cache.getHits() + " " + cache.getMisses()); //1 2
+
+            File[] snapshots = directory.listFiles();
+            for (File snapshot : snapshots)
+                snapshot.delete();
+            directory.delete();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
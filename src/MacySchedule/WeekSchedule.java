@@ -1,4 +1,7 @@
 package MacySchedule;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This is a class for Macy's cumultative work schedule for a given week. The schedule
  * includes Employees with each having their own schedule associated with them.
@@ -16,8 +19,12 @@ public class WeekSchedule
     private int numEmployees;
     private String department;
     private int deptNum;
-    private final int WEEK_PARAMETERS = 3;
-    private final int MAX_EMPLOYEES = 70; //change if needed
+    private final AtomicLong version; //number of changes to the list and its employees
+    private final EmployeeListener versionListener;
+    private final long scheduleId;
+    private static final AtomicLong nextScheduleId = new AtomicLong();
+    private static final int WEEK_PARAMETERS = 3;
+    private static final int MAX_EMPLOYEES = 70; //change if needed
 
     /**
      * Constructs a week schedule with a given week range, the focus department, and
@@ -35,6 +42,9 @@ public class WeekSchedule
         this.weekRange = weekRange;
         this.department = department;
         this.deptNum = deptNum;
+        version = new AtomicLong();
+        versionListener = (employee, day) -> version.incrementAndGet();
+        scheduleId = nextScheduleId.incrementAndGet();
         parseWeekRange();
     }
 
@@ -67,6 +77,8 @@ public class WeekSchedule
                 for (int i = 0; i < numEmployees; i++)
                     this.employeeList[i] = employeeList[i];
             }
+            for (int i = 0; i < numEmployees; i++)
+                employeeList[i].addEmployeeListener(versionListener);
         }
         //larger employee size than MAX_EMPLOYEES not allowed
         else
@@ -74,6 +86,12 @@ public class WeekSchedule
                     "for more than " + MAX_EMPLOYEES + " employees.");
     }
 
+    /**
+     * Retrieves the week range of the schedule.
+     * @return The week of given format: XX/XX/XXXX - XX/XX/XXXX
+     */
+    public String getWeekRange() { return weekRange; }
+
     /**
      * Retrieves the date of the start of the week.
      * @return The date of the start of the week
@@ -126,20 +144,47 @@ public class WeekSchedule
     }
 
     /**
-     * Adds an employee to the employee list, if the employee list is not full.
+     * Adds an employee to the employee list. The list grows when it is full so that
+     * large schedules are not limited to MAX_EMPLOYEES.
      * @param employee An employee object with a schedule
      * @return True if an employee was added; false otherwise
      */
     public boolean addEmployee(Employee employee)
     {
-        if (employeeList.length <= MAX_EMPLOYEES)
-        {
-            employeeList[numEmployees++] = employee;
-            return true;
-        }
-        return false;
+        if (employee == null)
+            return false;
+        if (numEmployees == employeeList.length)
+            employeeList = Arrays.copyOf(employeeList, employeeList.length * 2);
+        employeeList[numEmployees++] = employee;
+        employee.addEmployeeListener(versionListener);
+        version.incrementAndGet();
+        return true;
     }
 
+    /**
+     * Retrieves the number that identifies this week schedule among all of the week
+     * schedules created while the program runs.
+     * @return The id of the week schedule
+     */
+    public long getScheduleId() { return scheduleId; }
+
+    /**
+     * Retrieves the version of the week schedule, which goes up every time an employee
+     * is added or the schedule of an employee changes. Derived values (such as cached
+     * totals) that were calculated for an older version are out of date. The version is
+     * kept up to date by listening to the employees, so it is read without going
+     * through the employees.
+     * @return The version of the week schedule
+     */
+    public long getVersion() { return version.get(); }
+
+    /**
+     * Retrieves the number of employees in the week schedule, which does not include
+     * the empty indices at the end of the employee list.
+     * @return The number of employees
+     */
+    public int getNumEmployees() { return numEmployees; }
+
     /**
      * Retrieves the list of employees in the week schedule.
      * @return The list of employees
@@ -0,0 +1,524 @@
+package ScheduleUI;
+
+import MacySchedule.CoverageListener;
+import MacySchedule.CoverageModel;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Orientation;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This is a heatmap of the headcount per department in 15 minute slots for a range of
+ * weeks. Each day is a column and each department is a row; the color of a slot shows
+ * how many employees are scheduled in it.
+ *
+ * The heatmap is drawn on a single canvas from tiles (a day of a block of departments)
+ * that are rasterized into images once and cached. Drawing a frame only copies the
+ * visible tiles to the canvas, so scrolling across weeks does not depend on how many
+ * employees or departments there are. When the coverage of a day changes (for example
+ * after an employee's hours are changed with addHoursAtDay), only the rows of the
+ * changed departments in the tile of that day are rasterized again.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class CoverageHeatmap extends BorderPane implements CoverageListener
+{
+    private final Canvas canvas;
+    private final ScrollBar horizontalBar;
+    private final ScrollBar verticalBar;
+    private final AnimationTimer timer;
+    private final ArrayList<CoverageModel> weeks;
+    private final ArrayList<LocalDate> weekStarts;
+    private int[] deptNums; //department of each row, sorted by number
+    private final HashMap<Integer, Integer> deptRows;
+    private final LinkedHashMap<Long, Tile> tiles;
+    private final ConcurrentLinkedQueue<CoverageChange> changes;
+    private final int[] stripPixels;
+    private boolean redraw;
+    private static final int SLOT_WIDTH = 2; //in pixels
+    private static final int ROW_HEIGHT = 10; //in pixels
+    private static final int ROWS_PER_TILE = 32;
+    private static final int DAY_WIDTH = CoverageModel.SLOTS_PER_DAY * SLOT_WIDTH;
+    private static final int TILE_HEIGHT = ROWS_PER_TILE * ROW_HEIGHT;
+    private static final int LABEL_WIDTH = 60;
+    private static final int HEADER_HEIGHT = 20;
+    private static final int MAX_TILES = 512; //about 120MB of cached tiles at most
+    private static final int PREFETCH_TILES_PER_FRAME = 2;
+    private static final int WEEK_LENGTH = CoverageModel.WEEK_LENGTH;
+    private static final int[] PALETTE = createPalette(12); //color per headcount
+    private static final int SEPARATOR_COLOR = 0xFFE0E0E0;
+    private static final DateTimeFormatter DAY_HEADER_FORMAT =
+            DateTimeFormatter.ofPattern("EEE M/d");
+
+    /**
+     * Constructs an empty heatmap.
+     */
+    public CoverageHeatmap()
+    {
+        weeks = new ArrayList<>();
+        weekStarts = new ArrayList<>();
+        deptNums = new int[0];
+        deptRows = new HashMap<>();
+        tiles = new LinkedHashMap<Long, Tile>(MAX_TILES, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest)
+            {
+                return size() > MAX_TILES;
+            }
+        };
+        changes = new ConcurrentLinkedQueue<>();
+        stripPixels = new int[DAY_WIDTH * ROW_HEIGHT];
+
+        horizontalBar = new ScrollBar();
+        horizontalBar.setOrientation(Orientation.HORIZONTAL);
+        horizontalBar.setUnitIncrement(DAY_WIDTH / 4.0);
+        horizontalBar.valueProperty().addListener((observable, oldValue, newValue) ->
+                redraw = true);
+        verticalBar = new ScrollBar();
+        verticalBar.setOrientation(Orientation.VERTICAL);
+        verticalBar.setUnitIncrement(ROW_HEIGHT);
+        verticalBar.valueProperty().addListener((observable, oldValue, newValue) ->
+                redraw = true);
+
+        canvas = new Canvas();
+        Pane canvasPane = new Pane(canvas);
+        canvas.widthProperty().bind(canvasPane.widthProperty());
+        canvas.heightProperty().bind(canvasPane.heightProperty());
+        canvas.widthProperty().addListener((observable, oldValue, newValue) ->
+                updateScrollBars());
+        canvas.heightProperty().addListener((observable, oldValue, newValue) ->
+                updateScrollBars());
+        canvas.setOnScroll(event -> {
+            horizontalBar.setValue(clamp(horizontalBar.getValue() - event.getDeltaX(),
+                    horizontalBar.getMax()));
+            verticalBar.setValue(clamp(verticalBar.getValue() - event.getDeltaY(),
+                    verticalBar.getMax()));
+        });
+
+        setCenter(canvasPane);
+        setBottom(horizontalBar);
+        setRight(verticalBar);
+
+        timer = new AnimationTimer()
+        {
+            @Override
+            public void handle(long now)
+            {
+                nextFrame();
+            }
+        };
+        timer.start();
+    }
+
+    /**
+     * Stops drawing the heatmap and disposes the coverage of its weeks. The heatmap
+     * cannot be used after.
+     */
+    public void dispose()
+    {
+        timer.stop();
+        clearWeeks();
+    }
+
+    /**
+     * Adds the coverage of a week to the heatmap. The weeks are shown in order of
+     * their start dates. A week that starts on the same date as a week already in the
+     * heatmap replaces that week. The heatmap takes over the coverage and disposes it
+     * when the week is replaced or removed.
+     * @param coverage The coverage of the week to add
+     */
+    public void addWeek(CoverageModel coverage)
+    {
+        int[] startWeek = coverage.getWeekSchedule().getStartWeek(); //{month, day, year}
+        LocalDate start = LocalDate.of(startWeek[2], startWeek[0], startWeek[1]);
+        int index = 0;
+        while (index < weekStarts.size() && weekStarts.get(index).isBefore(start))
+            index++;
+        if (index < weekStarts.size() && weekStarts.get(index).equals(start))
+        {
+            CoverageModel replaced = weeks.remove(index);
+            replaced.removeCoverageListener(this);
+            replaced.dispose();
+            weekStarts.remove(index);
+        }
+        weeks.add(index, coverage);
+        weekStarts.add(index, start);
+        coverage.addCoverageListener(this);
+        updateRows();
+    }
+
+    /**
+     * Removes all of the weeks from the heatmap and disposes their coverage.
+     */
+    public void clearWeeks()
+    {
+        for (CoverageModel coverage : weeks)
+        {
+            coverage.removeCoverageListener(this);
+            coverage.dispose();
+        }
+        weeks.clear();
+        weekStarts.clear();
+        updateRows();
+    }
+
+    /**
+     * Queues the change of the coverage so the affected tile rows are drawn again on
+     * the next frame. This may be called from any thread.
+     * @param model The coverage that changed
+     * @param day The day of the week that changed
+     * @param deptNum The reference number for the department that changed
+     */
+    @Override
+    public void coverageChanged(CoverageModel model, int day, int deptNum)
+    {
+        changes.add(new CoverageChange(model, day, deptNum));
+    }
+
+    /**
+     * Draws the next frame if anything changed since the last frame. Frames with
+     * nothing to draw are used to rasterize the tiles next to the visible ones so they
+     * are ready when scrolled to.
+     */
+    private void nextFrame()
+    {
+        applyChanges();
+        if (redraw)
+        {
+            redraw = false;
+            draw();
+        }
+        else
+            prefetchTiles();
+    }
+
+    /**
+     * Marks the rows of the cached tiles that were affected by changes to the
+     * coverage. A change for a department that has no row yet changes all of the rows,
+     * so the tiles are all dropped.
+     */
+    private void applyChanges()
+    {
+        CoverageChange change;
+        while ((change = changes.poll()) != null)
+        {
+            int week = weeks.indexOf(change.model);
+            Integer row = deptRows.get(change.deptNum);
+            if (week < 0)
+                continue; //week was removed
+            if (row == null)
+            {
+                updateRows();
+                changes.clear();
+                return;
+            }
+            Tile tile = tiles.get(tileKey(week * WEEK_LENGTH + change.day,
+                    row / ROWS_PER_TILE));
+            if (tile != null)
+                tile.dirtyRows.set(row % ROWS_PER_TILE);
+            redraw = true;
+        }
+    }
+
+    /**
+     * Finds the departments of all of the weeks to use as the rows of the heatmap and
+     * drops all of the cached tiles since the rows may have moved.
+     */
+    private void updateRows()
+    {
+        TreeSet<Integer> departments = new TreeSet<>();
+        for (CoverageModel coverage : weeks)
+        {
+            for (int i = 0; i < coverage.getNumDepartments(); i++)
+                departments.add(coverage.getDeptNum(i));
+        }
+        deptNums = new int[departments.size()];
+        deptRows.clear();
+        int row = 0;
+        for (int deptNum : departments)
+        {
+            deptNums[row] = deptNum;
+            deptRows.put(deptNum, row++);
+        }
+        tiles.clear();
+        updateScrollBars();
+    }
+
+    /**
+     * Updates the ranges of the scroll bars to the size of the heatmap and the canvas.
+     */
+    private void updateScrollBars()
+    {
+        double contentWidth = (double) weeks.size() * WEEK_LENGTH * DAY_WIDTH;
+        double contentHeight = (double) deptNums.length * ROW_HEIGHT;
+        double viewWidth = Math.max(0, canvas.getWidth() - LABEL_WIDTH);
+        double viewHeight = Math.max(0, canvas.getHeight() - HEADER_HEIGHT);
+        horizontalBar.setMax(Math.max(0, contentWidth - viewWidth));
+        horizontalBar.setVisibleAmount(viewWidth);
+        horizontalBar.setValue(clamp(horizontalBar.getValue(), horizontalBar.getMax()));
+        verticalBar.setMax(Math.max(0, contentHeight - viewHeight));
+        verticalBar.setVisibleAmount(viewHeight);
+        verticalBar.setValue(clamp(verticalBar.getValue(), verticalBar.getMax()));
+        redraw = true;
+    }
+
+    /**
+     * Draws the visible tiles, the department labels, and the day headers.
+     */
+    private void draw()
+    {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        graphics.setFill(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+
+        int scrollX = (int) horizontalBar.getValue();
+        int scrollY = (int) verticalBar.getValue();
+        int numColumns = weeks.size() * WEEK_LENGTH;
+        int numBlocks = (deptNums.length + ROWS_PER_TILE - 1) / ROWS_PER_TILE;
+        int firstColumn = scrollX / DAY_WIDTH;
+        int lastColumn = Math.min(numColumns - 1,
+                (scrollX + (int) width - LABEL_WIDTH) / DAY_WIDTH);
+        int firstBlock = scrollY / TILE_HEIGHT;
+        int lastBlock = Math.min(numBlocks - 1,
+                (scrollY + (int) height - HEADER_HEIGHT) / TILE_HEIGHT);
+
+        for (int column = firstColumn; column <= lastColumn; column++)
+        {
+            double x = LABEL_WIDTH + column * DAY_WIDTH - scrollX;
+            for (int block = firstBlock; block <= lastBlock; block++)
+            {
+                double y = HEADER_HEIGHT + block * TILE_HEIGHT - scrollY;
+                //at their own size and whole pixels, so the tiles are not smoothed
+                graphics.drawImage(getTile(column, block).image, x, y);
+            }
+        }
+
+        //labels are drawn over the tiles that are scrolled under them
+        graphics.setFill(Color.WHITE);
+        graphics.fillRect(0, 0, LABEL_WIDTH, height);
+        graphics.fillRect(0, 0, width, HEADER_HEIGHT);
+        graphics.setFill(Color.BLACK);
+        int firstRow = scrollY / ROW_HEIGHT;
+        int lastRow = Math.min(deptNums.length - 1,
+                (scrollY + (int) height - HEADER_HEIGHT) / ROW_HEIGHT);
+        for (int row = firstRow; row <= lastRow; row++)
+            graphics.fillText(Integer.toString(deptNums[row]), 4,
+                    HEADER_HEIGHT + (row + 1) * ROW_HEIGHT - scrollY - 1);
+        for (int column = firstColumn; column <= lastColumn; column++)
+        {
+            LocalDate date = weekStarts.get(column / WEEK_LENGTH)
+                    .plusDays(column % WEEK_LENGTH);
+            graphics.fillText(date.format(DAY_HEADER_FORMAT),
+                    LABEL_WIDTH + column * DAY_WIDTH - scrollX + 4, HEADER_HEIGHT - 6);
+        }
+    }
+
+    /**
+     * Rasterizes a few of the tiles to the left and right of the visible ones that are
+     * not cached yet.
+     */
+    private void prefetchTiles()
+    {
+        int scrollX = (int) horizontalBar.getValue();
+        int scrollY = (int) verticalBar.getValue();
+        int numColumns = weeks.size() * WEEK_LENGTH;
+        int numBlocks = (deptNums.length + ROWS_PER_TILE - 1) / ROWS_PER_TILE;
+        int visibleColumns = (int) canvas.getWidth() / DAY_WIDTH + 1;
+        int firstColumn = scrollX / DAY_WIDTH;
+        int firstBlock = scrollY / TILE_HEIGHT;
+        int lastBlock = Math.min(numBlocks - 1,
+                (scrollY + (int) canvas.getHeight()) / TILE_HEIGHT);
+        int rendered = 0;
+        for (int offset = 1; offset <= WEEK_LENGTH; offset++)
+        {
+            int[] columns = {firstColumn + visibleColumns + offset - 1,
+                    firstColumn - offset};
+            for (int column : columns)
+            {
+                if (column < 0 || column >= numColumns)
+                    continue;
+                for (int block = firstBlock; block <= lastBlock; block++)
+                {
+                    if (!tiles.containsKey(tileKey(column, block)))
+                    {
+                        getTile(column, block);
+                        if (++rendered == PREFETCH_TILES_PER_FRAME)
+                            return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the tile of a day column and a block of rows, rasterizing the rows of
+     * the tile that are not up to date.
+     * @param column The day column (week * 7 + day)
+     * @param block The block of rows
+     * @return The up to date tile
+     */
+    private Tile getTile(int column, int block)
+    {
+        long key = tileKey(column, block);
+        Tile tile = tiles.get(key);
+        if (tile == null)
+        {
+            tile = new Tile();
+            tiles.put(key, tile);
+        }
+        if (!tile.dirtyRows.isEmpty())
+            renderRows(tile, column, block);
+        return tile;
+    }
+
+    /**
+     * Rasterizes the dirty rows of a tile into its image.
+     * @param tile The tile to rasterize
+     * @param column The day column of the tile
+     * @param block The block of rows of the tile
+     */
+    private void renderRows(Tile tile, int column, int block)
+    {
+        CoverageModel coverage = weeks.get(column / WEEK_LENGTH);
+        int day = column % WEEK_LENGTH;
+        BitSet dirtyRows = tile.dirtyRows;
+        for (int row = dirtyRows.nextSetBit(0); row >= 0;
+             row = dirtyRows.nextSetBit(row + 1))
+        {
+            int deptRow = block * ROWS_PER_TILE + row;
+            int[] headcount = null;
+            if (deptRow < deptNums.length)
+            {
+                int deptIndex = coverage.getDeptIndex(deptNums[deptRow]);
+                if (deptIndex != -1)
+                    headcount = coverage.getDayHeadcount(day, deptIndex);
+            }
+            fillStrip(headcount, deptRow < deptNums.length);
+            tile.image.getPixelWriter().setPixels(0, row * ROW_HEIGHT, DAY_WIDTH,
+                    ROW_HEIGHT, PixelFormat.getIntArgbInstance(), stripPixels, 0,
+                    DAY_WIDTH);
+        }
+        dirtyRows.clear();
+    }
+
+    /**
+     * Fills the pixels of a row of a tile with the colors of the headcount.
+     * @param headcount The headcount per slot, or null if the department has no coverage
+     * @param hasDepartment False if the row is past the last department
+     */
+    private void fillStrip(int[] headcount, boolean hasDepartment)
+    {
+        int lastLine = ROW_HEIGHT - 1;
+        for (int slot = 0; slot < CoverageModel.SLOTS_PER_DAY; slot++)
+        {
+            int color = 0;
+            if (hasDepartment)
+            {
+                int count = headcount == null ? 0 : headcount[slot];
+                color = PALETTE[Math.min(count, PALETTE.length - 1)];
+            }
+            for (int line = 0; line < ROW_HEIGHT; line++)
+            {
+                int pixel = line * DAY_WIDTH + slot * SLOT_WIDTH;
+                int lineColor = line == lastLine && hasDepartment ? SEPARATOR_COLOR :
+                        color;
+                for (int x = 0; x < SLOT_WIDTH; x++)
+                    stripPixels[pixel + x] = lineColor;
+            }
+        }
+    }
+
+    /**
+     * Creates the key of a tile in the cache.
+     * @param column The day column of the tile
+     * @param block The block of rows of the tile
+     * @return The key of the tile
+     */
+    private static long tileKey(int column, int block)
+    {
+        return ((long) column << 32) | block;
+    }
+
+    /**
+     * Limits a scroll value to the range 0 to max.
+     * @param value The scroll value
+     * @param max The maximum scroll value
+     * @return The limited scroll value
+     */
+    private static double clamp(double value, double max)
+    {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    /**
+     * Creates the colors used for each headcount, from white (no one scheduled) to
+     * dark red (maxHeadcount or more scheduled).
+     * @param maxHeadcount The headcount with the darkest color
+     * @return The ARGB color of each headcount
+     */
+    private static int[] createPalette(int maxHeadcount)
+    {
+        int[] palette = new int[maxHeadcount + 1];
+        for (int count = 0; count <= maxHeadcount; count++)
+        {
+            double level = (double) count / maxHeadcount;
+            int red = 255 - (int) (level * 115);
+            int greenBlue = 255 - (int) (Math.sqrt(level) * 255);
+            palette[count] = 0xFF000000 | (red << 16) | (greenBlue << 8) | greenBlue;
+        }
+        return palette;
+    }
+
+    /**
+     * This is a cached image of a day for a block of rows along with the rows of the
+     * image that need to be rasterized again.
+     */
+    private static class Tile
+    {
+        final WritableImage image = new WritableImage(DAY_WIDTH, TILE_HEIGHT);
+        final BitSet dirtyRows = new BitSet(ROWS_PER_TILE);
+
+        Tile()
+        {
+            dirtyRows.set(0, ROWS_PER_TILE);
+        }
+    }
+
+    /**
+     * This is a change of the coverage that is waiting to be drawn.
+     */
+    private static class CoverageChange
+    {
+        final CoverageModel model;
+        final int day;
+        final int deptNum;
+
+        CoverageChange(CoverageModel model, int day, int deptNum)
+        {
+            this.model = model;
+            this.day = day;
+            this.deptNum = deptNum;
+        }
+    }
+}
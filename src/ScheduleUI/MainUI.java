@@ -1,38 +1,278 @@
 package ScheduleUI;
 
+import MacySchedule.StringPool;
+import MacySchedule.WeekSchedule;
 import javafx.application.Application;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Worker;
+import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.layout.StackPane;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToolBar;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * This is the main window of the scheduler. The window shows the week schedule of a
+ * schedule page in a table with a row per employee and a column per day. The table is
+ * virtualized (only the visible rows have cells, which are reused while scrolling) and
+ * the page is read on a background task that streams the rows into the table, so the
+ * window stays responsive with thousands of rows. Below the table is a heatmap of the
+ * coverage of every week that was opened.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
 public class MainUI extends Application
 {
+    private Stage stage;
+    private TableView<ScheduleRow> table;
+    private TableColumn<ScheduleRow, String>[] dayColumns;
+    private CoverageHeatmap heatmap;
+    private ProgressBar progressBar;
+    private Label statusLabel;
+    private Button openButton;
+    private Button cancelButton;
+    private TextField findField;
+    private ScheduleLoadTask loadTask;
+    private final StringPool stringPool = new StringPool(); //shared by every page opened
+    private static final int WEEK_LENGTH = 7;
+    private static final double ROW_HEIGHT = 24;
+    private static final String[] DAY_NAMES = {"Day 1", "Day 2", "Day 3", "Day 4",
+            "Day 5", "Day 6", "Day 7"};
+    private static final DateTimeFormatter DAY_HEADER_FORMAT =
+            DateTimeFormatter.ofPattern("EEE M/d");
+
     public static void main(String[] args) {
         launch(args);
     }
 
     @Override
     public void start(Stage primaryStage) {
+        stage = primaryStage;
         primaryStage.setTitle("Macy's Employee Scheduler");
-//        Button btn = new Button();
-//        btn.setText("Say 'Hello World'");
-//        btn.setOnAction(new EventHandler<ActionEvent>() {
-
-//            @Override
-//            public void handle(ActionEvent event) {
-//                System.out.println("Hello World!");
-//            }
-//        });
-
-        StackPane root = new StackPane();
-//        root.getChildren().add(btn);
-        primaryStage.setScene(new Scene(root, 300, 250));
+
+        openButton = new Button("Open...");
+        openButton.setOnAction(event -> chooseSchedulePage());
+        cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(event -> {
+            if (loadTask != null)
+                loadTask.cancel();
+        });
+        progressBar = new ProgressBar(0);
+        statusLabel = new Label("Open a \"My Area View\" page to show the schedule.");
+        findField = new TextField();
+        findField.setPromptText("Find employee");
+        findField.textProperty().addListener((observable, oldText, text) ->
+                findEmployee(text));
+
+        BorderPane root = new BorderPane();
+        root.setTop(new ToolBar(openButton, cancelButton, findField, progressBar,
+                statusLabel));
+        heatmap = new CoverageHeatmap();
+        SplitPane splitPane = new SplitPane(createTable(), heatmap);
+        splitPane.setOrientation(Orientation.VERTICAL);
+        splitPane.setDividerPositions(0.6);
+        root.setCenter(splitPane);
+        primaryStage.setScene(new Scene(root, 1100, 700));
         primaryStage.show();
     }
 
+    /**
+     * Stops the background task (if any) and the heatmap when the window is closed.
+     */
+    @Override
+    public void stop()
+    {
+        if (loadTask != null)
+            loadTask.cancel();
+        heatmap.dispose();
+    }
+
+    /**
+     * Creates the schedule table with a column for the name, a column for each day,
+     * and columns for the totals. The rows have a fixed height so the table does not
+     * need to measure each row while scrolling.
+     * @return The schedule table
+     */
+    @SuppressWarnings("unchecked")
+    private TableView<ScheduleRow> createTable()
+    {
+        table = new TableView<>();
+        table.setFixedCellSize(ROW_HEIGHT);
+        table.setPlaceholder(new Label("No schedule loaded"));
+
+        TableColumn<ScheduleRow, String> nameColumn = new TableColumn<>("Employee");
+        nameColumn.setCellValueFactory(cell ->
+                new ReadOnlyObjectWrapper<>(cell.getValue().getName()));
+        nameColumn.setPrefWidth(200);
+        table.getColumns().add(nameColumn);
+
+        dayColumns = new TableColumn[WEEK_LENGTH];
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            final int columnDay = day;
+            TableColumn<ScheduleRow, String> dayColumn =
+                    new TableColumn<>(DAY_NAMES[day]);
+            dayColumn.setCellValueFactory(cell ->
+                    new ReadOnlyObjectWrapper<>(cell.getValue().getDay(columnDay)));
+            dayColumn.setCellFactory(column -> new TextCell<>());
+            dayColumn.setSortable(false);
+            dayColumn.setPrefWidth(115);
+            dayColumns[day] = dayColumn;
+            table.getColumns().add(dayColumn);
+        }
+
+        TableColumn<ScheduleRow, Double> deptColumn = new TableColumn<>("Dept Hours");
+        deptColumn.setCellValueFactory(cell ->
+                new ReadOnlyObjectWrapper<>(cell.getValue().getDeptHours()));
+        deptColumn.setCellFactory(column -> new TextCell<>());
+        TableColumn<ScheduleRow, Double> weekColumn = new TableColumn<>("Week Hours");
+        weekColumn.setCellValueFactory(cell ->
+                new ReadOnlyObjectWrapper<>(cell.getValue().getWeekHours()));
+        weekColumn.setCellFactory(column -> new TextCell<>());
+        table.getColumns().add(deptColumn);
+        table.getColumns().add(weekColumn);
+        return table;
+    }
+
+    /**
+     * Lets the user choose a schedule page and starts reading it.
+     */
+    private void chooseSchedulePage()
+    {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open Schedule Page");
+        chooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Web Pages", "*.html", "*.htm"));
+        File file = chooser.showOpenDialog(stage);
+        if (file != null)
+            loadSchedulePage(file);
+    }
+
+    /**
+     * Reads the given schedule page on a background task. Any read that is still
+     * running is cancelled first. The table gets a new list of rows so rows from a
+     * cancelled read are never added to the new schedule.
+     * @param file The schedule page to read
+     */
+    private void loadSchedulePage(File file)
+    {
+        if (loadTask != null)
+            loadTask.cancel();
+        ObservableList<ScheduleRow> rows = FXCollections.observableArrayList();
+        table.setItems(rows);
+        setDayHeaders(null);
+
+        ScheduleLoadTask task = new ScheduleLoadTask(file, rows, stringPool);
+        loadTask = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        statusLabel.textProperty().bind(task.messageProperty());
+        cancelButton.setDisable(false);
+        task.setOnSucceeded(event -> finishLoad(task, null));
+        task.setOnCancelled(event -> finishLoad(task, "Cancelled: " +
+                rows.size() + " employees loaded"));
+        task.setOnFailed(event -> finishLoad(task, "Could not read " + file.getName() +
+                ": " + task.getException().getMessage()));
+
+        Thread thread = new Thread(task, "schedule-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Selects and scrolls to the first employee whose name matches the text typed in
+     * the find field.
+     * @param text The text of the find field
+     */
+    private void findEmployee(String text)
+    {
+        if (loadTask == null)
+            return;
+        int rowIndex = loadTask.findRow(text);
+        if (rowIndex < 0 || rowIndex >= table.getItems().size())
+        {
+            table.getSelectionModel().clearSelection();
+            return;
+        }
+        table.getSelectionModel().select(rowIndex);
+        table.scrollTo(rowIndex);
+    }
+
+    /**
+     * Updates the window after the background task ended. Only the latest task can
+     * change the window.
+     * @param task The task that ended
+     * @param message The message to show, or null to keep the message of the task
+     */
+    private void finishLoad(ScheduleLoadTask task, String message)
+    {
+        if (task != loadTask)
+            return;
+        progressBar.progressProperty().unbind();
+        statusLabel.textProperty().unbind();
+        if (message != null)
+            statusLabel.setText(message);
+        progressBar.setProgress(task.getState() == Worker.State.SUCCEEDED ? 1 : 0);
+        cancelButton.setDisable(true);
+        setDayHeaders(task.getWeekSchedule());
+        if (task.getCoverage() != null)
+            heatmap.addWeek(task.getCoverage());
+    }
+
+    /**
+     * Sets the headers of the day columns to the dates of the given week.
+     * @param weekSchedule The week schedule shown, or null to use generic headers
+     */
+    private void setDayHeaders(WeekSchedule weekSchedule)
+    {
+        LocalDate startDate = null;
+        if (weekSchedule != null)
+        {
+            int[] startWeek = weekSchedule.getStartWeek(); //{month, day, year}
+            startDate = LocalDate.of(startWeek[2], startWeek[0], startWeek[1]);
+        }
+        for (int day = 0; day < WEEK_LENGTH; day++)
+        {
+            if (startDate == null)
+                dayColumns[day].setText(DAY_NAMES[day]);
+            else
+                dayColumns[day].setText(
+                        startDate.plusDays(day).format(DAY_HEADER_FORMAT));
+        }
+    }
+
+    /**
+     * This is a table cell that only shows the text of its value. The table reuses the
+     * cells while scrolling, so updating a cell only replaces its text.
+     * @param <T> The type of the value shown in the cell
+     */
+    private static class TextCell<T> extends TableCell<ScheduleRow, T>
+    {
+        @Override
+        protected void updateItem(T item, boolean empty)
+        {
+            super.updateItem(item, empty);
+            setText(empty || item == null ? null : item.toString());
+        }
+    }
+
 
 //    private Window window;
 //    private FillPane filePanel;
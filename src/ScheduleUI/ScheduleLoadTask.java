@@ -0,0 +1,172 @@
+package ScheduleUI;
+
+import MacySchedule.CoverageModel;
+import MacySchedule.Employee;
+import MacySchedule.EmployeeSearchIndex;
+import MacySchedule.ScheduleReadListener;
+import MacySchedule.SchedulePageReader;
+import MacySchedule.StringPool;
+import MacySchedule.WeekSchedule;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This is a background task that reads a schedule page and streams the employee rows
+ * into the schedule table as they are read. The page is read and the rows (including
+ * their hour totals) are built on the background thread. Rows are handed to the FX
+ * thread in batches so that the FX thread only adds already built rows to the table,
+ * no matter how many rows the page has. Cancelling the task stops the read and keeps
+ * the rows that were already added.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleLoadTask extends Task<WeekSchedule> implements ScheduleReadListener
+{
+    private final File schedulePage;
+    private final StringPool stringPool;
+    private final ObservableList<ScheduleRow> rows;
+    private final ConcurrentLinkedQueue<ScheduleRow> pendingRows;
+    private final AtomicBoolean flushScheduled;
+    private final EmployeeSearchIndex searchIndex;
+    private final ConcurrentHashMap<Employee, Integer> rowIndexes;
+    private volatile WeekSchedule weekSchedule;
+    private volatile CoverageModel coverage;
+    private int deptNum;
+    private int rowsRead;
+
+    /**
+     * Constructs the task to read a schedule page into the given rows of the table.
+     * @param schedulePage The html file to read
+     * @param rows The rows of the table (only modified on the FX thread)
+     * @param stringPool The pool of the names, notes and departments of all of the
+     *                   pages opened
+     */
+    public ScheduleLoadTask(File schedulePage, ObservableList<ScheduleRow> rows,
+                            StringPool stringPool)
+    {
+        this.schedulePage = schedulePage;
+        this.stringPool = stringPool;
+        this.rows = rows;
+        pendingRows = new ConcurrentLinkedQueue<>();
+        flushScheduled = new AtomicBoolean(false);
+        searchIndex = new EmployeeSearchIndex();
+        rowIndexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves the week schedule being read, which is available once the header of
+     * the page has been read.
+     * @return The week schedule, or null if the header has not been read yet
+     */
+    public WeekSchedule getWeekSchedule() { return weekSchedule; }
+
+    /**
+     * Retrieves the coverage of the week schedule, which is calculated on the
+     * background thread after the whole page has been read.
+     * @return The coverage, or null if the task did not finish reading the page
+     */
+    public CoverageModel getCoverage() { return coverage; }
+
+    /**
+     * Finds the row of the first employee whose name matches a search. The employees are
+     * added to the search index as they are read, so the rows can be searched while the
+     * page is still being read.
+     * @param query The words to search for, such as "Chen, Li"
+     * @return The index of the row in the table, or -1 if no employee matches
+     */
+    public int findRow(String query)
+    {
+        List<Employee> found = searchIndex.search(query, 1);
+        if (found.isEmpty())
+            return -1;
+        Integer rowIndex = rowIndexes.get(found.get(0));
+        return rowIndex == null ? -1 : rowIndex;
+    }
+
+    /**
+     * Reads the schedule page on the background thread.
+     * @return The week schedule read from the page
+     * @throws Exception If the page cannot be read
+     */
+    @Override
+    protected WeekSchedule call() throws Exception
+    {
+        updateMessage("Reading " + schedulePage.getName() + "...");
+        SchedulePageReader reader = new SchedulePageReader(schedulePage, this,
+                stringPool);
+        WeekSchedule result = reader.getWeekSchedule();
+        if (isCancelled())
+            return result;
+        double totalDeptHours = result.getTotalDeptHours();
+        coverage = new CoverageModel(result);
+        updateProgress(1, 1);
+        updateMessage(result.getNumEmployees() + " employees, " + totalDeptHours +
+                " hours for " + result.getDeptNum() + " - " + result.getDepartment());
+        return result;
+    }
+
+    /**
+     * Keeps the week schedule that is being read to compute the totals of the rows.
+     * @param weekSchedule The week schedule being generated by the reader
+     */
+    @Override
+    public void scheduleStarted(WeekSchedule weekSchedule)
+    {
+        this.weekSchedule = weekSchedule;
+        deptNum = weekSchedule.getDeptNum();
+    }
+
+    /**
+     * Builds the row for the employee that was read and queues it for the table.
+     * @param employee The employee with the populated schedules
+     * @param charsRead The number of characters read from the page so far
+     * @param totalChars The approximate size of the page, or -1 if unknown
+     */
+    @Override
+    public void employeeRead(Employee employee, long charsRead, long totalChars)
+    {
+        pendingRows.add(new ScheduleRow(employee, deptNum));
+        rowIndexes.put(employee, rowsRead);
+        searchIndex.add(employee);
+        rowsRead++;
+        if (totalChars > 0)
+            updateProgress(Math.min(charsRead, totalChars), totalChars);
+        updateMessage(rowsRead + " employees read...");
+        scheduleFlush();
+    }
+
+    /**
+     * Schedules the pending rows to be added to the table on the FX thread. Only one
+     * flush is queued on the FX thread at a time; rows read while a flush is waiting
+     * are added by that same flush.
+     */
+    private void scheduleFlush()
+    {
+        if (flushScheduled.compareAndSet(false, true))
+            Platform.runLater(this::flushRows);
+    }
+
+    /**
+     * Adds all of the pending rows to the table. Must be run on the FX thread.
+     */
+    private void flushRows()
+    {
+        flushScheduled.set(false);
+        List<ScheduleRow> batch = new ArrayList<>();
+        ScheduleRow row;
+        while ((row = pendingRows.poll()) != null)
+            batch.add(row);
+        if (!batch.isEmpty())
+            rows.addAll(batch);
+    }
+}
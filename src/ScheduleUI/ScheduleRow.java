@@ -0,0 +1,99 @@
+package ScheduleUI;
+
+import MacySchedule.Employee;
+
+/**
+ * This is a row of the schedule table for a single employee. All of the text shown in
+ * the row and the hour totals are computed when the row is created (on the background
+ * loading thread), so the table cells only need to display the stored values when they
+ * are reused while scrolling.
+ *
+ * @author Lisa Chen
+ * @since 19Oct26
+ * @version 1
+ */
+public class ScheduleRow
+{
+    private final Employee employee;
+    private final String name;
+    private final String[] days;
+    private final double deptHours;
+    private final double weekHours;
+    private static final int WEEK_LENGTH = 7;
+
+    /**
+     * Constructs the row for an employee with the totals for the department of focus.
+     * @param employee The employee with the populated schedules
+     * @param deptNum The reference number for the department of focus
+     */
+    public ScheduleRow(Employee employee, int deptNum)
+    {
+        this.employee = employee;
+        name = formatName(employee);
+        days = new String[WEEK_LENGTH];
+        for (int day = 0; day < WEEK_LENGTH; day++)
+            days[day] = formatDay(employee.getDaySchedule(day));
+        deptHours = employee.getWeekDeptHours(deptNum);
+        weekHours = employee.getWeekTotalHours();
+    }
+
+    /**
+     * Retrieves the employee shown by the row.
+     * @return The employee for the row
+     */
+    public Employee getEmployee() { return employee; }
+
+    /**
+     * Retrieves the name of the employee in format Last, First Middle.
+     * @return The name of the employee
+     */
+    public String getName() { return name; }
+
+    /**
+     * Retrieves the text shown for the given day of the week.
+     * @param day The day of the week (0-6)
+     * @return The hours and department number, the note, or a blank string
+     */
+    public String getDay(int day) { return days[day]; }
+
+    /**
+     * Retrieves the total work hours for the week for the department of focus.
+     * @return The total work hours for the department
+     */
+    public double getDeptHours() { return deptHours; }
+
+    /**
+     * Retrieves the total work hours for the week for all departments.
+     * @return The total work hours
+     */
+    public double getWeekHours() { return weekHours; }
+
+    /**
+     * Formats the name of the employee in the same format as the schedule page.
+     * @param employee The employee to format the name of
+     * @return The name in format Last, First Middle
+     */
+    private static String formatName(Employee employee)
+    {
+        String name = employee.getLastName() + ", " + employee.getFirstName();
+        if (!employee.getMiddleName().isEmpty())
+            name += " " + employee.getMiddleName();
+        return name;
+    }
+
+    /**
+     * Formats a day schedule in format {department information, hours scheduled} on a
+     * single line so every row of the table has the same height.
+     * @param daySchedule The day schedule from the employee
+     * @return The single line text for the day
+     */
+    private static String formatDay(String[] daySchedule)
+    {
+        if (daySchedule[1].isEmpty())
+            return daySchedule[0]; //note or blank if no hours
+        String department = daySchedule[0];
+        int newLine = department.indexOf('\n');
+        String deptNum = newLine == -1 ? department : department.substring(0, newLine);
+        return daySchedule[1] + " (" + deptNum + ")";
+    }
+}